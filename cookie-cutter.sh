@@ -10,6 +10,14 @@ if [ ! -f target/cookie-cutter.jar ]; then
   mvn clean package || { echo "Maven build failed."; read -r -p "Press Enter to exit..."; exit 1; }
 fi
 
-java -jar target/cookie-cutter.jar "$@" 2>&1
+# Prefer the native image (mvn -Pnative package), then the jar with its AppCDS archive (mvn -Pappcds package),
+# unless they were built before the jar and would run older code
+if [ -x target/cookie-cutter ] && [ target/cookie-cutter -nt target/cookie-cutter.jar ]; then
+  target/cookie-cutter "$@" 2>&1
+elif [ target/cookie-cutter.jsa -nt target/cookie-cutter.jar ]; then
+  java -XX:SharedArchiveFile=target/cookie-cutter.jsa -jar target/cookie-cutter.jar "$@" 2>&1
+else
+  java -jar target/cookie-cutter.jar "$@" 2>&1
+fi
 read -r -p "Press Enter to exit..."
 
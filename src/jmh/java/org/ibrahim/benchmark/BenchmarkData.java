@@ -0,0 +1,121 @@
+package org.ibrahim.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates cookie log files for the benchmarks.
+ * <p>
+ * Files are written once per combination of size, cardinality and ordering into
+ * {@code target/benchmark-data} and reused by later trials and forks. Timestamps span {@link #DAYS} days
+ * ending on {@link #LAST_DAY}; cookie IDs are 16-character base62 strings drawn uniformly from a pool of
+ * the requested cardinality.</p>
+ */
+public class BenchmarkData {
+  public static final int DAYS = 30;
+  public static final LocalDate LAST_DAY = LocalDate.of(2025, 7, 31);
+  /** The queried day: in the middle of the span, so ordered scans neither stop immediately nor read everything. */
+  public static final LocalDate QUERY_DAY = LAST_DAY.minusDays(DAYS / 2);
+  private static final Path DIRECTORY = Path.of("target", "benchmark-data");
+  private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssxxx");
+  private static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+  /**
+   * Ordering of the records in a generated file.
+   */
+  public enum Order {
+    /** Newest first, like the sample cookie_log.csv. */
+    DESCENDING,
+    /** Random order. */
+    SHUFFLED
+  }
+
+  /**
+   * Returns the path of a generated log file, writing it if it does not exist yet.
+   * @param lines the number of records
+   * @param cardinality the number of distinct cookie IDs
+   * @param order the ordering of the records
+   * @return the path of the file
+   */
+  public static synchronized Path logFile(int lines, int cardinality, Order order) {
+    Path file = DIRECTORY.resolve("cookies-%d-%d-%s.csv".formatted(lines, cardinality, order.name().toLowerCase()));
+    if (Files.exists(file)) {
+      return file;
+    }
+    try {
+      Files.createDirectories(DIRECTORY);
+      Path temporary = Files.createTempFile(DIRECTORY, "cookies", ".tmp");
+      write(temporary, lines, cardinality, order);
+      Files.move(temporary, file);
+      return file;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Generates cookie IDs drawn from a pool of the given cardinality.
+   * @param count the number of IDs
+   * @param cardinality the number of distinct IDs
+   * @return the IDs
+   */
+  public static String[] cookieValues(int count, int cardinality) {
+    String[] pool = pool(cardinality);
+    Random random = new Random(count);
+    String[] values = new String[count];
+    for (int i = 0; i < count; i++) {
+      values[i] = pool[random.nextInt(cardinality)];
+    }
+    return values;
+  }
+
+  private static void write(Path file, int lines, int cardinality, Order order) throws IOException {
+    String[] pool = pool(cardinality);
+    Random random = new Random(lines ^ cardinality);
+    long end = LAST_DAY.plusDays(1).atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+    long span = DAYS * 86_400L;
+    long[] seconds = new long[lines];
+    for (int i = 0; i < lines; i++) {
+      seconds[i] = end - 1 - random.nextLong(span);
+    }
+    if (order == Order.DESCENDING) {
+      Arrays.sort(seconds);
+      for (int i = 0, j = lines - 1; i < j; i++, j--) {
+        long swap = seconds[i];
+        seconds[i] = seconds[j];
+        seconds[j] = swap;
+      }
+    }
+    try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+      writer.write("cookie,timestamp\n");
+      for (long second : seconds) {
+        writer.write(pool[random.nextInt(cardinality)]);
+        writer.write(',');
+        writer.write(TIMESTAMP_FORMAT.format(Instant.ofEpochSecond(second).atOffset(ZoneOffset.UTC)));
+        writer.write('\n');
+      }
+    }
+  }
+
+  private static String[] pool(int cardinality) {
+    Random random = new Random(cardinality);
+    String[] pool = new String[cardinality];
+    for (int i = 0; i < cardinality; i++) {
+      char[] id = new char[16];
+      for (int j = 0; j < id.length; j++) {
+        id[j] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+      }
+      pool[i] = new String(id);
+    }
+    return pool;
+  }
+}
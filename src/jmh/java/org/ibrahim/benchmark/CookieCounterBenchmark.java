@@ -0,0 +1,77 @@
+package org.ibrahim.benchmark;
+
+import org.ibrahim.business.CookieCounter;
+import org.ibrahim.model.CookieCount;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the counting step in isolation: aggregating a pre-generated sequence of cookie IDs into a
+ * {@link CookieCounter}, compared with the {@code LinkedHashMap} merge it replaced. Also measures selecting
+ * the top cookies from a filled counter with its bounded heap, compared with sorting all counts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class CookieCounterBenchmark {
+  @Param({"1000000"})
+  int records;
+
+  @Param({"1000", "100000", "1000000"})
+  int cardinality;
+
+  private static final int TOP = 10;
+
+  private String[] values;
+  private CookieCounter counted;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    values = BenchmarkData.cookieValues(records, cardinality);
+    counted = new CookieCounter();
+    for (String value : values) {
+      counted.increment(value);
+    }
+  }
+
+  @Benchmark
+  public List<String> cookieCounter() {
+    CookieCounter counter = new CookieCounter();
+    for (String value : values) {
+      counter.increment(value);
+    }
+    return counter.valuesWithCount(counter.maxCount());
+  }
+
+  @Benchmark
+  public Map<String, Integer> linkedHashMap() {
+    Map<String, Integer> counts = new LinkedHashMap<>();
+    for (String value : values) {
+      counts.merge(value, 1, Integer::sum);
+    }
+    return counts;
+  }
+
+  @Benchmark
+  public List<CookieCount> topHeap() {
+    return counted.top(TOP);
+  }
+
+  @Benchmark
+  public List<CookieCount> topSorted() {
+    List<CookieCount> all = new ArrayList<>(counted.size());
+    counted.forEach((value, count) -> all.add(new CookieCount(value, count)));
+    all.sort(Comparator.comparingInt(CookieCount::getCount).reversed());
+    int cutoff = all.get(Math.min(TOP, all.size()) - 1).getCount();
+    return all.stream().takeWhile(cookieCount -> cookieCount.getCount() >= cutoff).toList();
+  }
+}
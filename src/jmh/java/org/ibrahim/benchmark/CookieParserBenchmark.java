@@ -0,0 +1,68 @@
+package org.ibrahim.benchmark;
+
+import org.ibrahim.io.CookieParser;
+import org.ibrahim.io.MappedCookieScanner;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of each {@link CookieParser} strategy over a generated log file.
+ * Every benchmark reads the whole file and hands each record to a {@link Blackhole}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class CookieParserBenchmark {
+  @Param({"100000", "1000000"})
+  int lines;
+
+  @Param({"1000", "100000"})
+  int cardinality;
+
+  @Param({"DESCENDING", "SHUFFLED"})
+  BenchmarkData.Order order;
+
+  private final CookieParser parser = new CookieParser();
+  private String filename;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    filename = BenchmarkData.logFile(lines, cardinality, order).toString();
+  }
+
+  @Benchmark
+  public void parseEach(Blackhole blackhole) {
+    parser.parseEach(filename, blackhole::consume);
+  }
+
+  @Benchmark
+  public void parseAll(Blackhole blackhole) {
+    blackhole.consume(parser.parseAll(filename));
+  }
+
+  @Benchmark
+  public void parseParallel(Blackhole blackhole) {
+    parser.parseParallel(filename, blackhole::consume);
+  }
+
+  @Benchmark
+  public void scanMapped(Blackhole blackhole) {
+    parser.scanMapped(filename, (_, cookieOffset, _, timestampOffset, _) -> {
+      blackhole.consume(cookieOffset);
+      blackhole.consume(timestampOffset);
+    });
+  }
+
+  @Benchmark
+  public void scanMappedParallel(Blackhole blackhole) {
+    List<MappedCookieScanner.RecordProcessor> processors = parser.scanMappedParallel(filename,
+        Runtime.getRuntime().availableProcessors(), () -> (_, cookieOffset, _, _, _) -> blackhole.consume(cookieOffset));
+    blackhole.consume(processors);
+  }
+}
@@ -0,0 +1,56 @@
+package org.ibrahim.benchmark;
+
+import org.ibrahim.io.DelimiterScanner;
+import org.ibrahim.io.MappedCookieScanner;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast each {@link DelimiterScanner} splits a mapped log into lines and fields, without counting.
+ * The forks run with the Vector API module, so both scanners can be compared in the same run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class DelimiterScannerBenchmark {
+  @Param({"1000000"})
+  int lines;
+
+  @Param({"scalar", "vector"})
+  String scanner;
+
+  private Arena arena;
+  private MemorySegment segment;
+  private DelimiterScanner delimiterScanner;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    arena = Arena.ofShared();
+    segment = MappedCookieScanner.map(BenchmarkData.logFile(lines, 1000, BenchmarkData.Order.SHUFFLED).toString(),
+        arena);
+    delimiterScanner = scanner.equals("vector")
+        ? DelimiterScanner.vector().orElseThrow(() -> new IllegalStateException("Vector API not available"))
+        : DelimiterScanner.scalar();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    arena.close();
+  }
+
+  @Benchmark
+  public void scan(Blackhole blackhole) {
+    delimiterScanner.scan(segment, 0, segment.byteSize(), (start, end, comma, commas) -> {
+      blackhole.consume(comma);
+      blackhole.consume(end);
+    });
+  }
+}
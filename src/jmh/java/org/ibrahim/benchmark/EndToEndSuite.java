@@ -0,0 +1,262 @@
+package org.ibrahim.benchmark;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.ibrahim.Main;
+import org.ibrahim.model.ScanMode;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs the command-line tool end to end on generated logs of several sizes, with every engine, and records wall
+ * time, throughput and peak resident memory, to show how the tool scales with data size.
+ * <p>
+ * Logs are written by {@link LogGenerator} into {@code target/benchmark-data} once and reused. Every run starts
+ * a new JVM that runs {@link Main} through {@link Runner}, so a run pays JVM startup like a real invocation and
+ * its peak resident set size ({@code VmHWM} on Linux) is its own. The engines are the scan modes, plus
+ * {@code approx} and {@code spill}; the sorted and ordered modes only give meaningful answers on ordered logs.
+ * Each engine runs once to warm the page cache and build the indexed mode's sidecar index, then the given number
+ * of times. The median and best wall times, the throughput at the median and the largest peak RSS are printed
+ * and written to {@code target/e2e-result.csv}.</p>
+ * <b>Usage Example:</b>
+ * <pre><code>
+ * mvn -Pbenchmark test-compile exec:exec@e2e -De2e.args="--sizes 100M,1G,10G --zipf 1.1"
+ * </code></pre>
+ */
+public class EndToEndSuite {
+  private static final Path DIRECTORY = Path.of("target", "benchmark-data");
+  private static final Path RESULT = Path.of("target", "e2e-result.csv");
+  private static final String PEAK_RSS_MARKER = "e2e.peak-rss-kb=";
+  private static final String VECTOR_MODULE = "jdk.incubator.vector";
+  private static final String INCUBATOR_WARNING = "WARNING: Using incubator modules";
+  private static final List<String> EXTRA_ENGINES = List.of("approx", "spill");
+
+  /**
+   * Runs {@link Main} with the given arguments and reports the process's peak resident set size on standard
+   * error when the JVM exits, in kilobytes, or -1 where it is not available.
+   */
+  public static class Runner {
+    public static void main(String[] args) {
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.println(PEAK_RSS_MARKER + peakRssKilobytes())));
+      Main.main(args);
+    }
+
+    private static long peakRssKilobytes() {
+      try {
+        for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+          if (line.startsWith("VmHWM:")) {
+            return Long.parseLong(line.replaceAll("\\D", ""));
+          }
+        }
+      } catch (IOException | NumberFormatException e) {
+        // Not on Linux
+      }
+      return -1;
+    }
+  }
+
+  /**
+   * The measurements of one engine on one log.
+   */
+  private record Result(String log, long bytes, String engine, long[] wallNanos, long peakRssKilobytes) {
+    long median() {
+      long[] sorted = wallNanos.clone();
+      Arrays.sort(sorted);
+      return sorted[sorted.length / 2];
+    }
+
+    long best() {
+      return Arrays.stream(wallNanos).min().orElse(0);
+    }
+
+    double megabytesPerSecond() {
+      return bytes / 1e6 / (median() / 1e9);
+    }
+  }
+
+  /**
+   * Runs the suite with the settings given on the command line; run with {@code --help} for the options.
+   * @param args the command-line arguments
+   * @throws IOException if a log cannot be written or a run cannot be started
+   */
+  public static void main(String[] args) throws IOException {
+    Options options = options();
+    CommandLine cmd;
+    try {
+      cmd = new DefaultParser().parse(options, args);
+    } catch (ParseException e) {
+      System.err.println(e.getMessage());
+      new HelpFormatter().printHelp("EndToEndSuite [options]", options);
+      System.exit(1);
+      return;
+    }
+    if (cmd.hasOption("help")) {
+      new HelpFormatter().printHelp("EndToEndSuite [options]", options);
+      return;
+    }
+    int cardinality = Integer.parseInt(cmd.getOptionValue("cardinality", "100000"));
+    double zipf = Double.parseDouble(cmd.getOptionValue("zipf", "1.0"));
+    LogGenerator.Order order = LogGenerator.Order.valueOf(cmd.getOptionValue("order", "descending").toUpperCase(Locale.ROOT));
+    int runs = Integer.parseInt(cmd.getOptionValue("runs", "3"));
+    List<String> engines = engines(cmd.getOptionValue("engines", "all"));
+    List<String> jvmOptions = jvmOptions(cmd.getOptionValue("heap"));
+
+    List<Result> results = new ArrayList<>();
+    for (String size : cmd.getOptionValue("sizes", "100M,1G").split(",")) {
+      Path log = log(LogGenerator.parseSize(size), cardinality, zipf, order);
+      for (String engine : engines) {
+        Result result = measure(log, engine, runs, jvmOptions);
+        results.add(result);
+        System.out.printf("%-52s %-9s %9.0f ms median %9.0f ms best %8.1f MB/s %8.1f MB peak RSS%n",
+            log.getFileName(), engine, result.median() / 1e6, result.best() / 1e6, result.megabytesPerSecond(),
+            result.peakRssKilobytes() / 1024.0);
+      }
+    }
+    write(results);
+    System.out.println("Results written to " + RESULT);
+  }
+
+  /**
+   * Returns the generated log of about the given size, writing it if it does not exist yet.
+   */
+  private static Path log(long bytes, int cardinality, double zipf, LogGenerator.Order order) throws IOException {
+    Path log = DIRECTORY.resolve("e2e-%d-%d-%s-%s.csv".formatted(bytes, cardinality, zipf,
+        order.name().toLowerCase(Locale.ROOT)));
+    if (!Files.exists(log)) {
+      System.out.println("Generating " + log);
+      new LogGenerator().bytes(bytes).cardinality(cardinality).zipf(zipf).order(order).write(log);
+    }
+    return log;
+  }
+
+  /**
+   * Runs an engine on a log once to warm up, then the given number of times.
+   */
+  private static Result measure(Path log, String engine, int runs, List<String> jvmOptions) throws IOException {
+    List<String> command = new ArrayList<>();
+    command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+    command.addAll(jvmOptions);
+    command.addAll(List.of("-cp", System.getProperty("java.class.path"), Runner.class.getName()));
+    command.addAll(List.of("-f", log.toString(), "-d", BenchmarkData.QUERY_DAY.toString()));
+    command.addAll(switch (engine) {
+      case "approx" -> List.of("--approx", "10000");
+      case "spill" -> List.of("--spill", "100000");
+      default -> List.of("-m", engine);
+    });
+    long[] wallNanos = new long[runs];
+    long peakRss = -1;
+    for (int run = -1; run < runs; run++) {
+      Path errors = Files.createTempFile("e2e", ".err");
+      try {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .redirectError(errors.toFile())
+            .start();
+        int exitCode = process.waitFor();
+        long elapsed = System.nanoTime() - start;
+        List<String> stderr = Files.readAllLines(errors, StandardCharsets.UTF_8);
+        // The tool reports errors on standard error without an exit code; logging is off by default
+        List<String> failures = stderr.stream()
+            .filter(line -> !line.startsWith(PEAK_RSS_MARKER) && !line.startsWith(INCUBATOR_WARNING))
+            .toList();
+        if (exitCode != 0 || !failures.isEmpty()) {
+          throw new IOException("Engine " + engine + " failed on " + log + ": " + String.join("\n", failures));
+        }
+        if (run >= 0) {
+          wallNanos[run] = elapsed;
+          peakRss = Math.max(peakRss, stderr.stream()
+              .filter(line -> line.startsWith(PEAK_RSS_MARKER))
+              .mapToLong(line -> Long.parseLong(line.substring(PEAK_RSS_MARKER.length())))
+              .max().orElse(-1));
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while running " + engine);
+      } finally {
+        Files.deleteIfExists(errors);
+      }
+    }
+    return new Result(log.getFileName().toString(), Files.size(log), engine, wallNanos, peakRss);
+  }
+
+  private static void write(List<Result> results) throws IOException {
+    try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(RESULT))) {
+      writer.println("log,bytes,engine,runs,median_ms,best_ms,mb_per_s,peak_rss_kb");
+      for (Result result : results) {
+        writer.printf(Locale.ROOT, "%s,%d,%s,%d,%.1f,%.1f,%.1f,%d%n", result.log(), result.bytes(), result.engine(),
+            result.wallNanos().length, result.median() / 1e6, result.best() / 1e6, result.megabytesPerSecond(),
+            result.peakRssKilobytes());
+      }
+    }
+  }
+
+  private static List<String> engines(String value) {
+    List<String> all = new ArrayList<>();
+    Arrays.stream(ScanMode.values()).map(mode -> mode.name().toLowerCase(Locale.ROOT)).forEach(all::add);
+    all.addAll(EXTRA_ENGINES);
+    if (value.equals("all")) {
+      return all;
+    }
+    List<String> engines = Arrays.stream(value.split(",")).map(String::trim).toList();
+    for (String engine : engines) {
+      if (!all.contains(engine)) {
+        throw new IllegalArgumentException("Unknown engine: " + engine + ". Expected one of " + all);
+      }
+    }
+    return engines;
+  }
+
+  /**
+   * Returns the options of the runs' JVMs: the heap size, if given, and preview features and the Vector API if
+   * this JVM enables them.
+   */
+  private static List<String> jvmOptions(String heap) {
+    List<String> options = new ArrayList<>();
+    if (heap != null) {
+      options.add("-Xmx" + heap);
+    }
+    List<String> arguments = ManagementFactory.getRuntimeMXBean().getInputArguments();
+    if (arguments.contains("--enable-preview")) {
+      options.add("--enable-preview");
+    }
+    if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+      options.addAll(List.of("--add-modules", VECTOR_MODULE));
+    }
+    return options;
+  }
+
+  private static Options options() {
+    Options options = new Options();
+    options.addOption(Option.builder().longOpt("sizes").hasArg().argName("SIZES")
+        .desc("Comma-separated log sizes, e.g. 100M,1G,10G (default: 100M,1G)").build());
+    options.addOption(Option.builder().longOpt("engines").hasArg().argName("ENGINES")
+        .desc("Comma-separated scan modes, approx or spill (default: all)").build());
+    options.addOption(Option.builder().longOpt("runs").hasArg().argName("N")
+        .desc("Measured runs per engine and log, after a warm-up run (default: 3)").build());
+    options.addOption(Option.builder().longOpt("cardinality").hasArg().argName("N")
+        .desc("The number of distinct cookie IDs (default: 100000)").build());
+    options.addOption(Option.builder().longOpt("zipf").hasArg().argName("S")
+        .desc("The Zipf exponent of cookie popularity (default: 1.0)").build());
+    options.addOption(Option.builder().longOpt("order").hasArg().argName("ORDER")
+        .desc("ascending, descending or shuffled (default: descending)").build());
+    options.addOption(Option.builder().longOpt("heap").hasArg().argName("SIZE")
+        .desc("The maximum heap of the runs, e.g. 2g (default: the JVM's)").build());
+    options.addOption("?", "help", false, "Display help information");
+    return options;
+  }
+}
@@ -0,0 +1,80 @@
+package org.ibrahim.benchmark;
+
+import org.ibrahim.io.ParallelGzipInputStream;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Measures how fast a gzip-compressed log is decompressed by {@link ParallelGzipInputStream} compared to
+ * {@link GZIPInputStream}, for a file of a single member and one of many concatenated members, e.g. appended
+ * rotations. The single-member case guards against the parallel stream falling behind the plain one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class GzipInputBenchmark {
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  @Param({"1000000"})
+  int lines;
+
+  @Param({"1", "16"})
+  int members;
+
+  private String filename;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    Path log = BenchmarkData.logFile(lines, 1000, BenchmarkData.Order.SHUFFLED);
+    Path file = log.resolveSibling(log.getFileName() + "." + members + ".gz");
+    if (!Files.exists(file)) {
+      compress(log, file, members);
+    }
+    filename = file.toString();
+  }
+
+  @Benchmark
+  public long gzipInputStream() throws IOException {
+    try (InputStream in = new GZIPInputStream(new BufferedInputStream(Files.newInputStream(Path.of(filename))),
+        BUFFER_SIZE)) {
+      return in.transferTo(OutputStream.nullOutputStream());
+    }
+  }
+
+  @Benchmark
+  public long parallelGzipInputStream() throws IOException {
+    try (InputStream in = new ParallelGzipInputStream(filename, Runtime.getRuntime().availableProcessors())) {
+      return in.transferTo(OutputStream.nullOutputStream());
+    }
+  }
+
+  /**
+   * Compresses the log into the given number of concatenated members of similar size.
+   */
+  private static void compress(Path log, Path file, int members) throws IOException {
+    byte[] data = Files.readAllBytes(log);
+    Path temporary = Files.createTempFile(file.getParent(), "cookies", ".tmp");
+    try (OutputStream out = Files.newOutputStream(temporary)) {
+      for (int i = 0; i < members; i++) {
+        int from = (int) ((long) data.length * i / members);
+        int to = (int) ((long) data.length * (i + 1) / members);
+        GZIPOutputStream member = new GZIPOutputStream(out);
+        member.write(data, from, to - from);
+        member.finish();
+      }
+    }
+    Files.move(temporary, file);
+  }
+}
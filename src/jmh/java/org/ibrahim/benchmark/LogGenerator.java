@@ -0,0 +1,435 @@
+package org.ibrahim.benchmark;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Writes synthetic cookie logs of any size, for end-to-end runs and scaling studies.
+ * <p>
+ * A log holds the header and records of {@code cardinality} distinct cookie IDs whose popularity follows a Zipf
+ * distribution with the given exponent (0 for uniform), timestamped within {@code days} days ending on
+ * {@code lastDay}, in ascending, descending or random order. A fraction of the lines can be made malformed, to
+ * exercise error handling. The size is given in records or in bytes. Logs are written as a stream in constant
+ * memory: cookie IDs are derived from their rank rather than kept in a table, and ordered timestamps are
+ * generated in order, so logs of tens of gigabytes need no more heap than small ones. The same settings and
+ * seed always produce the same log.</p>
+ * <b>Usage Example:</b>
+ * <pre><code>
+ * new LogGenerator().bytes(10L &lt;&lt; 30).cardinality(1_000_000).zipf(1.1).write(Path.of("big.csv"));
+ * </code></pre>
+ * From the command line, after {@code mvn -Pbenchmark test-compile}:
+ * <pre><code>
+ * java -cp target/classes:target/test-classes:... org.ibrahim.benchmark.LogGenerator -o big.csv --bytes 10G
+ * </code></pre>
+ */
+public class LogGenerator {
+  private static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+  private static final int ID_LENGTH = 16;
+  private static final byte[] HEADER = "cookie,timestamp\n".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] OFFSET = "+00:00\n".getBytes(StandardCharsets.US_ASCII);
+  private static final String[] MALFORMED = {"%s\n", "%s,not-a-timestamp\n", "%s,%s,extra\n"};
+  private static final int BUFFER_SIZE = 1 << 20;
+
+  /**
+   * Ordering of the records in a generated log.
+   */
+  public enum Order {
+    /** Oldest first. */
+    ASCENDING,
+    /** Newest first, like the sample cookie_log.csv. */
+    DESCENDING,
+    /** Random order. */
+    SHUFFLED
+  }
+
+  private long lines = 1_000_000;
+  private long bytes;
+  private int cardinality = 1_000;
+  private double zipf;
+  private int days = BenchmarkData.DAYS;
+  private LocalDate lastDay = BenchmarkData.LAST_DAY;
+  private Order order = Order.SHUFFLED;
+  private double malformedRate;
+  private long seed = 42;
+
+  /**
+   * Sets the number of records, unless a size in bytes is set. Defaults to a million.
+   * @param lines the number of records
+   * @return this generator
+   */
+  public LogGenerator lines(long lines) {
+    if (lines < 0) {
+      throw new IllegalArgumentException("Lines must not be negative: " + lines);
+    }
+    this.lines = lines;
+    return this;
+  }
+
+  /**
+   * Sets the approximate size of the log; records are written until it is reached. Overrides the number of
+   * records unless 0.
+   * @param bytes the size in bytes
+   * @return this generator
+   */
+  public LogGenerator bytes(long bytes) {
+    if (bytes < 0) {
+      throw new IllegalArgumentException("Bytes must not be negative: " + bytes);
+    }
+    this.bytes = bytes;
+    return this;
+  }
+
+  /**
+   * Sets the number of distinct cookie IDs. Defaults to 1000.
+   * @param cardinality the number of distinct IDs
+   * @return this generator
+   */
+  public LogGenerator cardinality(int cardinality) {
+    if (cardinality <= 0) {
+      throw new IllegalArgumentException("Cardinality must be positive: " + cardinality);
+    }
+    this.cardinality = cardinality;
+    return this;
+  }
+
+  /**
+   * Sets the exponent of the Zipf distribution of cookie popularity: 0 draws IDs uniformly, and the larger it
+   * is, the more the most popular IDs dominate. Defaults to 0.
+   * @param exponent the exponent
+   * @return this generator
+   */
+  public LogGenerator zipf(double exponent) {
+    if (exponent < 0 || Double.isNaN(exponent)) {
+      throw new IllegalArgumentException("Zipf exponent must not be negative: " + exponent);
+    }
+    this.zipf = exponent;
+    return this;
+  }
+
+  /**
+   * Sets the number of days the timestamps span. Defaults to {@value BenchmarkData#DAYS}.
+   * @param days the number of days
+   * @return this generator
+   */
+  public LogGenerator days(int days) {
+    if (days <= 0) {
+      throw new IllegalArgumentException("Days must be positive: " + days);
+    }
+    this.days = days;
+    return this;
+  }
+
+  /**
+   * Sets the last day of the span, in UTC. Defaults to {@link BenchmarkData#LAST_DAY}.
+   * @param lastDay the last day
+   * @return this generator
+   */
+  public LogGenerator lastDay(LocalDate lastDay) {
+    this.lastDay = lastDay;
+    return this;
+  }
+
+  /**
+   * Sets the ordering of the records. Defaults to shuffled.
+   * @param order the ordering
+   * @return this generator
+   */
+  public LogGenerator order(Order order) {
+    this.order = order;
+    return this;
+  }
+
+  /**
+   * Sets the fraction of lines that are malformed: without a timestamp, with an invalid timestamp or with an
+   * extra column. Defaults to 0.
+   * @param rate the fraction, from 0 to 1
+   * @return this generator
+   */
+  public LogGenerator malformedRate(double rate) {
+    if (!(rate >= 0 && rate <= 1)) {
+      throw new IllegalArgumentException("Malformed rate must be between 0 and 1: " + rate);
+    }
+    this.malformedRate = rate;
+    return this;
+  }
+
+  /**
+   * Sets the seed of the random choices. Defaults to 42.
+   * @param seed the seed
+   * @return this generator
+   */
+  public LogGenerator seed(long seed) {
+    this.seed = seed;
+    return this;
+  }
+
+  /**
+   * Writes the log to a temporary file that then replaces the given one, so an interrupted run leaves no
+   * partial log behind.
+   * @param file the path of the log
+   * @return the number of records written, malformed ones included
+   * @throws IOException if the log cannot be written
+   */
+  public long write(Path file) throws IOException {
+    Path directory = file.toAbsolutePath().getParent();
+    Files.createDirectories(directory);
+    Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+    try {
+      long written;
+      try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporary), BUFFER_SIZE)) {
+        written = write(out);
+      }
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+      return written;
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  /**
+   * Writes the log to a stream.
+   * @param out the stream, which is not closed
+   * @return the number of records written, malformed ones included
+   * @throws IOException if the log cannot be written
+   */
+  public long write(OutputStream out) throws IOException {
+    SplittableRandom random = new SplittableRandom(seed);
+    ZipfSampler sampler = zipf > 0 ? new ZipfSampler(cardinality, zipf) : null;
+    long firstDay = lastDay.minusDays(days - 1).toEpochDay();
+    long span = days * 86_400L;
+    // Ordered logs advance through the span by the average gap per record; a size in bytes is turned into a
+    // record count from the average record length, so the last records still reach the end of the span
+    long records = bytes > 0 ? Math.max(bytes / (ID_LENGTH + 27), 1) : lines;
+    byte[][] dayPrefixes = new byte[days][];
+    for (int day = 0; day < days; day++) {
+      dayPrefixes[day] = (LocalDate.ofEpochDay(firstDay + day) + "T").getBytes(StandardCharsets.US_ASCII);
+    }
+    byte[] id = new byte[ID_LENGTH];
+    byte[] time = new byte[9];
+    time[2] = ':';
+    time[5] = ':';
+    time[8] = ',';
+    out.write(HEADER);
+    long size = HEADER.length;
+    long written = 0;
+    while (bytes > 0 ? size < bytes : written < lines) {
+      long offset = switch (order) {
+        case ASCENDING -> Math.min(written * span / records + random.nextLong(Math.max(span / records, 1)), span - 1);
+        case DESCENDING -> span - 1 - Math.min(written * span / records + random.nextLong(Math.max(span / records, 1)), span - 1);
+        case SHUFFLED -> random.nextLong(span);
+      };
+      int rank = sampler != null ? sampler.sample(random) : random.nextInt(cardinality) + 1;
+      cookieId(rank, id);
+      if (malformedRate > 0 && random.nextDouble() < malformedRate) {
+        String template = MALFORMED[random.nextInt(MALFORMED.length)];
+        String line = template.formatted(new String(id, StandardCharsets.US_ASCII), LocalDate.ofEpochDay(firstDay));
+        byte[] encoded = line.getBytes(StandardCharsets.US_ASCII);
+        out.write(encoded);
+        size += encoded.length;
+        written++;
+        continue;
+      }
+      int secondOfDay = (int) (offset % 86_400);
+      digits(time, 0, secondOfDay / 3600);
+      digits(time, 3, secondOfDay / 60 % 60);
+      digits(time, 6, secondOfDay % 60);
+      byte[] prefix = dayPrefixes[(int) (offset / 86_400)];
+      out.write(id);
+      out.write(',');
+      out.write(prefix);
+      out.write(time, 0, 8);
+      out.write(OFFSET);
+      size += ID_LENGTH + 1 + prefix.length + 8 + OFFSET.length;
+      written++;
+    }
+    return written;
+  }
+
+  /**
+   * Writes the 16-character base62 ID of the cookie of a rank. The last eleven characters encode a bijective
+   * mix of the rank, so IDs are distinct; the first five come from a second mix so that IDs look random.
+   */
+  static void cookieId(long rank, byte[] id) {
+    long unique = mix(rank);
+    for (int i = ID_LENGTH - 1; i >= ID_LENGTH - 11; i--) {
+      id[i] = (byte) ALPHABET.charAt((int) Long.remainderUnsigned(unique, ALPHABET.length()));
+      unique = Long.divideUnsigned(unique, ALPHABET.length());
+    }
+    long prefix = mix(~rank);
+    for (int i = ID_LENGTH - 12; i >= 0; i--) {
+      id[i] = (byte) ALPHABET.charAt((int) Long.remainderUnsigned(prefix, ALPHABET.length()));
+      prefix = Long.divideUnsigned(prefix, ALPHABET.length());
+    }
+  }
+
+  /**
+   * The SplitMix64 finalizer, a bijection of 64-bit values.
+   */
+  private static long mix(long value) {
+    long z = value + 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  private static void digits(byte[] buffer, int at, int value) {
+    buffer[at] = (byte) ('0' + value / 10);
+    buffer[at + 1] = (byte) ('0' + value % 10);
+  }
+
+  /**
+   * Draws ranks from 1 to n with probability proportional to {@code 1 / rank^exponent} in constant time and
+   * memory, by rejection-inversion (Hörmann and Derflinger, "Rejection-inversion to generate variates from
+   * monotone discrete distributions", 1996).
+   */
+  static final class ZipfSampler {
+    private final int n;
+    private final double exponent;
+    private final double hIntegralX1;
+    private final double hIntegralN;
+    private final double s;
+
+    ZipfSampler(int n, double exponent) {
+      this.n = n;
+      this.exponent = exponent;
+      this.hIntegralX1 = hIntegral(1.5) - 1.0;
+      this.hIntegralN = hIntegral(n + 0.5);
+      this.s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    int sample(SplittableRandom random) {
+      while (true) {
+        double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+        double x = hIntegralInverse(u);
+        int k = (int) Math.max(1, Math.min(n, (long) (x + 0.5)));
+        if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+          return k;
+        }
+      }
+    }
+
+    private double hIntegral(double x) {
+      double logX = Math.log(x);
+      return helper2((1 - exponent) * logX) * logX;
+    }
+
+    private double h(double x) {
+      return Math.exp(-exponent * Math.log(x));
+    }
+
+    private double hIntegralInverse(double x) {
+      double t = Math.max(x * (1 - exponent), -1);
+      return Math.exp(helper1(t) * x);
+    }
+
+    /** Returns {@code log1p(x) / x}, accurately near 0. */
+    private static double helper1(double x) {
+      return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+    }
+
+    /** Returns {@code expm1(x) / x}, accurately near 0. */
+    private static double helper2(double x) {
+      return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x / 3 * (1 + 0.25 * x));
+    }
+  }
+
+  /**
+   * Parses a size with an optional {@code K}, {@code M} or {@code G} suffix for binary multiples.
+   * @param size the size, e.g. {@code 10G}
+   * @return the size in bytes
+   * @throws IllegalArgumentException if the size is invalid
+   */
+  static long parseSize(String size) {
+    String value = size.trim().toUpperCase(Locale.ROOT).replaceAll("I?B$", "");
+    int shift = switch (value.isEmpty() ? ' ' : value.charAt(value.length() - 1)) {
+      case 'K' -> 10;
+      case 'M' -> 20;
+      case 'G' -> 30;
+      case 'T' -> 40;
+      default -> 0;
+    };
+    try {
+      return Long.parseLong(shift == 0 ? value : value.substring(0, value.length() - 1)) << shift;
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid size: " + size, e);
+    }
+  }
+
+  /**
+   * Writes a log with the settings given on the command line; run with {@code --help} for the options.
+   * @param args the command-line arguments
+   * @throws IOException if the log cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    Options options = options();
+    CommandLine cmd;
+    try {
+      cmd = new DefaultParser().parse(options, args);
+    } catch (ParseException e) {
+      System.err.println(e.getMessage());
+      new HelpFormatter().printHelp("LogGenerator -o FILE [options]", options);
+      System.exit(1);
+      return;
+    }
+    if (cmd.hasOption("help") || !cmd.hasOption("o")) {
+      new HelpFormatter().printHelp("LogGenerator -o FILE [options]", options);
+      return;
+    }
+    LogGenerator generator = new LogGenerator()
+        .lines(Long.parseLong(cmd.getOptionValue("lines", "1000000")))
+        .bytes(parseSize(cmd.getOptionValue("bytes", "0")))
+        .cardinality(Integer.parseInt(cmd.getOptionValue("cardinality", "1000")))
+        .zipf(Double.parseDouble(cmd.getOptionValue("zipf", "0")))
+        .days(Integer.parseInt(cmd.getOptionValue("days", String.valueOf(BenchmarkData.DAYS))))
+        .lastDay(LocalDate.parse(cmd.getOptionValue("last-day", BenchmarkData.LAST_DAY.toString())))
+        .order(Order.valueOf(cmd.getOptionValue("order", "shuffled").toUpperCase(Locale.ROOT)))
+        .malformedRate(Double.parseDouble(cmd.getOptionValue("malformed", "0")))
+        .seed(Long.parseLong(cmd.getOptionValue("seed", "42")));
+    Path file = Path.of(cmd.getOptionValue("o"));
+    long start = System.nanoTime();
+    long records = generator.write(file);
+    System.out.printf("Wrote %d records, %d bytes, to %s in %.1f s%n", records, Files.size(file), file,
+        (System.nanoTime() - start) / 1e9);
+  }
+
+  private static Options options() {
+    Options options = new Options();
+    options.addOption(Option.builder("o").longOpt("output").hasArg().argName("FILE")
+        .desc("The log file to write").build());
+    options.addOption(Option.builder().longOpt("lines").hasArg().argName("N")
+        .desc("The number of records (default: 1000000)").build());
+    options.addOption(Option.builder().longOpt("bytes").hasArg().argName("SIZE")
+        .desc("The approximate size instead, e.g. 500M or 10G").build());
+    options.addOption(Option.builder().longOpt("cardinality").hasArg().argName("N")
+        .desc("The number of distinct cookie IDs (default: 1000)").build());
+    options.addOption(Option.builder().longOpt("zipf").hasArg().argName("S")
+        .desc("The Zipf exponent of cookie popularity, 0 for uniform (default: 0)").build());
+    options.addOption(Option.builder().longOpt("days").hasArg().argName("N")
+        .desc("The number of days the timestamps span (default: " + BenchmarkData.DAYS + ")").build());
+    options.addOption(Option.builder().longOpt("last-day").hasArg().argName("DATE")
+        .desc("The last day of the span (default: " + BenchmarkData.LAST_DAY + ")").build());
+    options.addOption(Option.builder().longOpt("order").hasArg().argName("ORDER")
+        .desc("ascending, descending or shuffled (default: shuffled)").build());
+    options.addOption(Option.builder().longOpt("malformed").hasArg().argName("RATE")
+        .desc("The fraction of malformed lines, from 0 to 1 (default: 0)").build());
+    options.addOption(Option.builder().longOpt("seed").hasArg().argName("N")
+        .desc("The seed of the random choices (default: 42)").build());
+    options.addOption("?", "help", false, "Display help information");
+    return options;
+  }
+}
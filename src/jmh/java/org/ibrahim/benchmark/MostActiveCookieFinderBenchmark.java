@@ -0,0 +1,51 @@
+package org.ibrahim.benchmark;
+
+import org.ibrahim.business.MostActiveCookieFinder;
+import org.ibrahim.io.CookieParser;
+import org.ibrahim.model.Cookie;
+import org.ibrahim.model.ScanMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link MostActiveCookieFinder} end to end, from file to result, for every {@link ScanMode}.
+ * <p>
+ * The sorted and ordered modes assume time-ordered input; on {@code SHUFFLED} files they still do the work
+ * of a query but their answers are not meaningful. The indexed mode builds
+ * its sidecar index once per trial in the setup, so the measurement covers indexed queries only.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class MostActiveCookieFinderBenchmark {
+  @Param({"1000000"})
+  int lines;
+
+  @Param({"1000", "100000"})
+  int cardinality;
+
+  @Param({"DESCENDING", "SHUFFLED"})
+  BenchmarkData.Order order;
+
+  @Param({"STREAM", "MAPPED", "PARALLEL", "SORTED", "ORDERED", "INDEXED"})
+  ScanMode mode;
+
+  private final MostActiveCookieFinder finder = new MostActiveCookieFinder(new CookieParser());
+  private String filename;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    filename = BenchmarkData.logFile(lines, cardinality, order).toString();
+    finder.findMostActiveCookies(filename, BenchmarkData.QUERY_DAY, mode);
+  }
+
+  @Benchmark
+  public List<Cookie> findMostActiveCookies() {
+    return finder.findMostActiveCookies(filename, BenchmarkData.QUERY_DAY, mode);
+  }
+}
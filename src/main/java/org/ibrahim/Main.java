@@ -1,6 +1,8 @@
 package org.ibrahim;
 
 import org.apache.commons.cli.HelpFormatter;
+import org.ibrahim.business.CookieLogCompiler;
+import org.ibrahim.business.CookieLogFollower;
 import org.ibrahim.business.MostActiveCookieFinder;
 import org.ibrahim.cli.CommandParser;
 import org.ibrahim.cli.HelpPrinter;
@@ -9,7 +11,9 @@ import org.ibrahim.exception.ExceptionHandler;
 import org.ibrahim.io.CookieParser;
 import org.ibrahim.io.CookiePrinter;
 import org.ibrahim.io.CookiePrinterImpl;
+import org.ibrahim.server.CookieQueryServer;
 import org.ibrahim.service.CookieService;
+import org.ibrahim.stats.RunStatistics;
 
 public class Main {
     public static void main(String[] args) {
@@ -17,10 +21,15 @@ public class Main {
             HelpFormatter helpFormatter = new HelpFormatter();
             HelpPrinter helpPrinter = new HelpPrinterImpl(helpFormatter);
             CommandParser commandParser = new CommandParser(helpPrinter);
-            CookieParser cookieParser = new CookieParser();
-            MostActiveCookieFinder mostActiveCookieFinder = new MostActiveCookieFinder(cookieParser);
+            RunStatistics statistics = new RunStatistics();
+            CookieParser cookieParser = new CookieParser(statistics);
+            MostActiveCookieFinder mostActiveCookieFinder = new MostActiveCookieFinder(cookieParser, statistics);
             CookiePrinter printer = new CookiePrinterImpl();
-            CookieService cookieService = new CookieService(commandParser, mostActiveCookieFinder, printer);
+            CookieLogCompiler compiler = new CookieLogCompiler(cookieParser);
+            CookieQueryServer server = new CookieQueryServer(mostActiveCookieFinder);
+            CookieLogFollower follower = new CookieLogFollower(cookieParser);
+            CookieService cookieService = new CookieService(commandParser, mostActiveCookieFinder, printer, compiler,
+                server, follower, statistics);
             cookieService.run(args);
         } catch (Exception e) {
             ExceptionHandler.handle(e);
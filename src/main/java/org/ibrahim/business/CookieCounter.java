@@ -0,0 +1,485 @@
+package org.ibrahim.business;
+
+import org.ibrahim.model.CookieCount;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Counts occurrences of cookie values in primitive open-addressing arrays.
+ * <p>
+ * Cookie IDs are expected to be 16-character base62 strings. Such an ID is packed into two {@code long}s
+ * (6 bits per character, 8 characters per {@code long}) and counted without allocating. Values that do not
+ * conform fall back to a side table of Strings and are keyed by their index in it. Iteration follows the
+ * order in which values were first counted, like a {@code LinkedHashMap}. Instances are not thread-safe;
+ * parallel scans count into one counter per worker and combine them with {@link #addAll}.</p>
+ * <b>Usage Example:</b>
+ * <pre><code>
+ * CookieCounter counter = new CookieCounter();
+ * counter.increment("AtY0laUfhglK3lC7");
+ * List&lt;String&gt; mostActive = counter.valuesWithCount(counter.maxCount());
+ * </code></pre>
+ */
+public class CookieCounter {
+  private static final int PACKED_LENGTH = 16;
+  private static final int CHARS_PER_LONG = 8;
+  private static final int BITS_PER_CHAR = 6;
+  private static final long FALLBACK = -1L;
+  private static final int INITIAL_CAPACITY = 1 << 10;
+  private static final char[] ALPHABET =
+      "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+  private static final byte[] DIGITS = new byte[128];
+
+  static {
+    Arrays.fill(DIGITS, (byte) -1);
+    for (int i = 0; i < ALPHABET.length; i++) {
+      DIGITS[ALPHABET[i]] = (byte) i;
+    }
+  }
+
+  private long[] keyHigh;
+  private long[] keyLow;
+  private int[] counts;
+  private int[] insertionOrder;
+  private int size;
+  private final List<String> fallbackValues = new ArrayList<>();
+  private final Map<String, Integer> fallbackIndex = new HashMap<>();
+
+  /**
+   * Constructs an empty counter.
+   */
+  public CookieCounter() {
+    allocate(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Counts one occurrence of the cookie value stored in the given slice.
+   * Conforming IDs are counted without materializing a String.
+   * @param segment the segment holding the value
+   * @param offset the offset of the first byte
+   * @param length the number of bytes
+   */
+  public void increment(MemorySegment segment, long offset, int length) {
+    if (length == PACKED_LENGTH) {
+      long high = pack(segment, offset);
+      long low = high < 0 ? -1 : pack(segment, offset + CHARS_PER_LONG);
+      if (low >= 0) {
+        add(high, low, 1);
+        return;
+      }
+    }
+    addFallback(new String(segment.asSlice(offset, length).toArray(ValueLayout.JAVA_BYTE), StandardCharsets.UTF_8), 1);
+  }
+
+  /**
+   * Counts one occurrence of the cookie value.
+   * @param value the cookie value
+   */
+  public void increment(String value) {
+    add(value, 1);
+  }
+
+  /**
+   * Adds the given number of occurrences of the cookie value.
+   * @param value the cookie value
+   * @param count the number of occurrences to add; non-positive counts are ignored
+   */
+  public void add(String value, int count) {
+    if (count <= 0) {
+      return;
+    }
+    if (value.length() == PACKED_LENGTH) {
+      long high = pack(value, 0);
+      long low = high < 0 ? -1 : pack(value, CHARS_PER_LONG);
+      if (low >= 0) {
+        add(high, low, count);
+        return;
+      }
+    }
+    addFallback(value, count);
+  }
+
+  /**
+   * Adds all counts of another counter to this one, in the other counter's insertion order.
+   * @param other the counter to merge into this one
+   */
+  public void addAll(CookieCounter other) {
+    for (int i = 0; i < other.size; i++) {
+      int slot = other.insertionOrder[i];
+      if (other.keyHigh[slot] == FALLBACK) {
+        addFallback(other.fallbackValues.get((int) other.keyLow[slot]), other.counts[slot]);
+      } else {
+        add(other.keyHigh[slot], other.keyLow[slot], other.counts[slot]);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of distinct cookie values counted.
+   * @return the number of distinct values
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the highest count of any value.
+   * @return the maximum count, or 0 if nothing was counted
+   */
+  public int maxCount() {
+    int max = 0;
+    for (int i = 0; i < size; i++) {
+      max = Math.max(max, counts[insertionOrder[i]]);
+    }
+    return max;
+  }
+
+  /**
+   * Returns the values that have exactly the given count, in order of first occurrence.
+   * @param count the count to filter by
+   * @return the matching cookie values
+   */
+  public List<String> valuesWithCount(int count) {
+    List<String> values = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      int slot = insertionOrder[i];
+      if (counts[slot] == count) {
+        values.add(valueAt(slot));
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Returns the values tied for the highest count, with that count.
+   * @return the most active values and their count in order of first occurrence, or empty if nothing was counted
+   */
+  public List<CookieCount> mostActive() {
+    int max = maxCount();
+    if (max == 0) {
+      return List.of();
+    }
+    return valuesWithCount(max).stream()
+        .map(value -> new CookieCount(value, max))
+        .toList();
+  }
+
+  /**
+   * Returns the values with the {@code n} highest counts, plus any values tied with the lowest of them.
+   * The values are selected in a single pass with a min-heap bounded by {@code n}, so only the selected
+   * values are materialized and sorted.
+   * @param n the number of values to select
+   * @return the selected values and their counts, by descending count and then order of first occurrence
+   * @throws IllegalArgumentException if {@code n} is not positive
+   */
+  public List<CookieCount> top(int n) {
+    if (n <= 0) {
+      throw new IllegalArgumentException("Top count must be positive: " + n);
+    }
+    // The heap holds insertion ranks; ties holds ranks whose count equals the heap minimum but did not fit
+    int[] heap = new int[Math.min(n, size)];
+    int heapSize = 0;
+    List<Integer> ties = new ArrayList<>();
+    for (int rank = 0; rank < size; rank++) {
+      int count = counts[insertionOrder[rank]];
+      if (heapSize < n) {
+        heap[heapSize++] = rank;
+        siftUp(heap, heapSize - 1);
+        continue;
+      }
+      int minCount = countAtRank(heap[0]);
+      if (count < minCount) {
+        continue;
+      }
+      if (count == minCount) {
+        ties.add(rank);
+        continue;
+      }
+      int evicted = heap[0];
+      heap[0] = rank;
+      siftDown(heap, heapSize, 0);
+      if (countAtRank(heap[0]) == minCount) {
+        ties.add(evicted);
+      } else {
+        ties.clear();
+      }
+    }
+    List<Integer> selected = new ArrayList<>(heapSize + ties.size());
+    for (int i = 0; i < heapSize; i++) {
+      selected.add(heap[i]);
+    }
+    selected.addAll(ties);
+    selected.sort((a, b) -> countAtRank(a) != countAtRank(b)
+        ? Integer.compare(countAtRank(b), countAtRank(a))
+        : Integer.compare(a, b));
+    List<CookieCount> result = new ArrayList<>(selected.size());
+    for (int rank : selected) {
+      result.add(new CookieCount(valueAt(insertionOrder[rank]), countAtRank(rank)));
+    }
+    return result;
+  }
+
+  /**
+   * Passes every value and its count to the consumer, in order of first occurrence.
+   * @param consumer the consumer of value and count
+   */
+  public void forEach(ObjIntConsumer<String> consumer) {
+    for (int i = 0; i < size; i++) {
+      int slot = insertionOrder[i];
+      consumer.accept(valueAt(slot), counts[slot]);
+    }
+  }
+
+  /**
+   * Returns the {@code n} highest counts, counting tied values individually; values with at least the last of
+   * them are the ones {@link #top(int)} selects. No values are materialized.
+   * @param n the number of counts to return
+   * @return the highest counts in descending order, fewer than {@code n} if fewer values were counted
+   * @throws IllegalArgumentException if {@code n} is not positive
+   */
+  public int[] topCounts(int n) {
+    if (n <= 0) {
+      throw new IllegalArgumentException("Top count must be positive: " + n);
+    }
+    return highestCounts(n, size, this::countAtRank);
+  }
+
+  /**
+   * Returns the {@code n} highest of the given counts, keeping only that many in a min-heap, so selecting them
+   * takes {@code O(size log n)} time and {@code O(n)} space.
+   * @param n the number of counts to return
+   * @param size the number of counts
+   * @param countAt returns the count at an index below {@code size}
+   * @return the highest counts in descending order, fewer than {@code n} if there are fewer counts
+   */
+  static int[] highestCounts(int n, int size, IntUnaryOperator countAt) {
+    // A min-heap of the highest counts seen so far
+    int[] heap = new int[Math.min(n, size)];
+    for (int rank = 0; rank < size; rank++) {
+      int count = countAt.applyAsInt(rank);
+      int index;
+      if (rank < heap.length) {
+        index = rank;
+        heap[index] = count;
+        while (index > 0 && heap[(index - 1) / 2] > heap[index]) {
+          swap(heap, index, (index - 1) / 2);
+          index = (index - 1) / 2;
+        }
+        continue;
+      }
+      if (count <= heap[0]) {
+        continue;
+      }
+      heap[0] = count;
+      index = 0;
+      while (true) {
+        int smallest = index;
+        int left = 2 * index + 1;
+        if (left < heap.length && heap[left] < heap[smallest]) {
+          smallest = left;
+        }
+        if (left + 1 < heap.length && heap[left + 1] < heap[smallest]) {
+          smallest = left + 1;
+        }
+        if (smallest == index) {
+          break;
+        }
+        swap(heap, index, smallest);
+        index = smallest;
+      }
+    }
+    Arrays.sort(heap);
+    for (int i = 0; i < heap.length / 2; i++) {
+      swap(heap, i, heap.length - 1 - i);
+    }
+    return heap;
+  }
+
+  /**
+   * Passes every value with at least the given count to the consumer, with its rank in order of first
+   * occurrence. Only the passed values are materialized.
+   * @param minCount the lowest count to pass
+   * @param consumer the consumer of rank, value and count
+   */
+  public void forEachAtLeast(int minCount, RankedConsumer consumer) {
+    for (int rank = 0; rank < size; rank++) {
+      int slot = insertionOrder[rank];
+      if (counts[slot] >= minCount) {
+        consumer.accept(rank, valueAt(slot), counts[slot]);
+      }
+    }
+  }
+
+  /**
+   * Consumes a counted value with its rank in order of first occurrence.
+   */
+  public interface RankedConsumer {
+    void accept(int rank, String value, int count);
+  }
+
+  private int countAtRank(int rank) {
+    return counts[insertionOrder[rank]];
+  }
+
+  /**
+   * Orders heap entries by count, breaking ties so that later values are evicted first.
+   */
+  private boolean isLess(int rank, int other) {
+    int count = countAtRank(rank);
+    int otherCount = countAtRank(other);
+    return count != otherCount ? count < otherCount : rank > other;
+  }
+
+  private void siftUp(int[] heap, int index) {
+    while (index > 0) {
+      int parent = (index - 1) / 2;
+      if (!isLess(heap[index], heap[parent])) {
+        return;
+      }
+      swap(heap, index, parent);
+      index = parent;
+    }
+  }
+
+  private void siftDown(int[] heap, int heapSize, int index) {
+    while (true) {
+      int smallest = index;
+      int left = 2 * index + 1;
+      int right = left + 1;
+      if (left < heapSize && isLess(heap[left], heap[smallest])) {
+        smallest = left;
+      }
+      if (right < heapSize && isLess(heap[right], heap[smallest])) {
+        smallest = right;
+      }
+      if (smallest == index) {
+        return;
+      }
+      swap(heap, index, smallest);
+      index = smallest;
+    }
+  }
+
+  private static void swap(int[] heap, int i, int j) {
+    int value = heap[i];
+    heap[i] = heap[j];
+    heap[j] = value;
+  }
+
+  private void add(long high, long low, int count) {
+    int mask = counts.length - 1;
+    int slot = hash(high, low) & mask;
+    while (counts[slot] != 0) {
+      if (keyHigh[slot] == high && keyLow[slot] == low) {
+        counts[slot] += count;
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keyHigh[slot] = high;
+    keyLow[slot] = low;
+    counts[slot] = count;
+    insertionOrder[size++] = slot;
+    if (size * 2 > counts.length) {
+      resize();
+    }
+  }
+
+  private void addFallback(String value, int count) {
+    Integer index = fallbackIndex.get(value);
+    if (index == null) {
+      index = fallbackValues.size();
+      fallbackValues.add(value);
+      fallbackIndex.put(value, index);
+    }
+    add(FALLBACK, index, count);
+  }
+
+  private void resize() {
+    long[] oldHigh = keyHigh;
+    long[] oldLow = keyLow;
+    int[] oldCounts = counts;
+    int[] oldOrder = insertionOrder;
+    int oldSize = size;
+    allocate(counts.length * 2);
+    for (int i = 0; i < oldSize; i++) {
+      int slot = oldOrder[i];
+      add(oldHigh[slot], oldLow[slot], oldCounts[slot]);
+    }
+  }
+
+  private void allocate(int capacity) {
+    keyHigh = new long[capacity];
+    keyLow = new long[capacity];
+    counts = new int[capacity];
+    insertionOrder = new int[capacity / 2 + 1];
+    size = 0;
+  }
+
+  private String valueAt(int slot) {
+    if (keyHigh[slot] == FALLBACK) {
+      return fallbackValues.get((int) keyLow[slot]);
+    }
+    char[] chars = new char[PACKED_LENGTH];
+    unpack(keyHigh[slot], chars, 0);
+    unpack(keyLow[slot], chars, CHARS_PER_LONG);
+    return new String(chars);
+  }
+
+  /**
+   * Packs eight base62 bytes into the low 48 bits of a long.
+   * @return the packed value, or -1 if a byte is not a base62 digit
+   */
+  private static long pack(MemorySegment segment, long offset) {
+    long packed = 0;
+    for (int i = 0; i < CHARS_PER_LONG; i++) {
+      int c = segment.get(ValueLayout.JAVA_BYTE, offset + i);
+      int digit = c >= 0 ? DIGITS[c] : -1;
+      if (digit < 0) {
+        return -1;
+      }
+      packed = (packed << BITS_PER_CHAR) | digit;
+    }
+    return packed;
+  }
+
+  /**
+   * Packs eight base62 characters into the low 48 bits of a long.
+   * @return the packed value, or -1 if a character is not a base62 digit
+   */
+  private static long pack(String value, int offset) {
+    long packed = 0;
+    for (int i = 0; i < CHARS_PER_LONG; i++) {
+      char c = value.charAt(offset + i);
+      int digit = c < DIGITS.length ? DIGITS[c] : -1;
+      if (digit < 0) {
+        return -1;
+      }
+      packed = (packed << BITS_PER_CHAR) | digit;
+    }
+    return packed;
+  }
+
+  private static void unpack(long packed, char[] chars, int offset) {
+    for (int i = CHARS_PER_LONG - 1; i >= 0; i--) {
+      chars[offset + i] = ALPHABET[(int) (packed & 0x3F)];
+      packed >>>= BITS_PER_CHAR;
+    }
+  }
+
+  private static int hash(long high, long low) {
+    long h = high * 0x9E3779B97F4A7C15L + low;
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    return (int) h;
+  }
+}
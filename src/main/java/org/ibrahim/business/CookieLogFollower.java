@@ -0,0 +1,171 @@
+package org.ibrahim.business;
+
+import org.ibrahim.exception.CookieAppException;
+import org.ibrahim.exception.CookieParseException;
+import org.ibrahim.io.ColumnarCookieFile;
+import org.ibrahim.io.CookieParser;
+import org.ibrahim.io.FileUtils;
+import org.ibrahim.model.Cookie;
+import org.ibrahim.model.CookieCount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Follows a growing CSV log and keeps live counts of the most active cookies for the given dates.
+ * <p>
+ * The file is polled at a fixed interval. Each poll parses only the lines appended since the previous one,
+ * continuing from the remembered offset, into per-day counters that persist across polls; the file is never
+ * re-read from the start unless it is truncated or replaced, e.g. by log rotation. The most active cookies
+ * are reported whenever they change. Compressed and compiled logs cannot grow, so they cannot be followed.</p>
+ * <b>Usage Example:</b>
+ * <pre><code>
+ * CookieLogFollower follower = new CookieLogFollower(new CookieParser());
+ * follower.follow("cookie_log.csv", List.of(LocalDate.now()), ZoneOffset.UTC, null, printer::printCounts);
+ * </code></pre>
+ */
+public class CookieLogFollower {
+  private static final Duration DEFAULT_POLL_INTERVAL = Duration.ofSeconds(1);
+  private static final Logger logger = LoggerFactory.getLogger(CookieLogFollower.class);
+
+  private final CookieParser cookieParser;
+  private final Duration pollInterval;
+  private volatile boolean stopped;
+
+  /**
+   * Constructs a follower polling once a second.
+   * @param cookieParser the parser to use for reading appended lines
+   */
+  public CookieLogFollower(CookieParser cookieParser) {
+    this(cookieParser, DEFAULT_POLL_INTERVAL);
+  }
+
+  /**
+   * Constructs a follower polling at the given interval.
+   * @param cookieParser the parser to use for reading appended lines
+   * @param pollInterval the time between two polls of the file
+   */
+  public CookieLogFollower(CookieParser cookieParser, Duration pollInterval) {
+    this.cookieParser = cookieParser;
+    this.pollInterval = pollInterval;
+  }
+
+  /**
+   * Follows the file until {@link #stop()} is called or the thread is interrupted. The most active cookies of
+   * every date are passed to the listener once the existing lines are counted and again whenever they change.
+   * @param filename the path to the CSV file
+   * @param dates the dates to count cookies for; must not be empty
+   * @param zone the zone whose calendar days the dates denote
+   * @param top the number of cookies to report per date, or null for the cookies tied for the maximum count
+   * @param listener receives the most active cookies of each date, in the order the dates were given
+   * @throws CookieAppException if the file is compressed or compiled
+   * @throws CookieParseException if the file cannot be read or parsed
+   */
+  public void follow(String filename, List<LocalDate> dates, ZoneId zone, Integer top,
+                     Consumer<Map<LocalDate, List<CookieCount>>> listener) {
+    logger.info("Following file: {}, dates: {}, zone: {} and top: {}", filename, dates, zone, top);
+    LiveCounts counts = new LiveCounts(filename, dates, zone, top);
+    while (!stopped) {
+      counts.poll().ifPresent(listener);
+      try {
+        Thread.sleep(pollInterval);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  /**
+   * Makes {@link #follow} return after its current poll.
+   */
+  public void stop() {
+    stopped = true;
+  }
+
+  /**
+   * Per-day counts of a followed file and the position up to which the file has been counted.
+   */
+  class LiveCounts {
+    private final String filename;
+    private final List<LocalDate> dates;
+    private final ZoneId zone;
+    private final Integer top;
+    private DayBuckets<CookieCounter> counters;
+    private long offset;
+    private Object fileKey;
+    private boolean changed;
+    private Map<LocalDate, List<CookieCount>> reported;
+
+    /**
+     * Constructs empty counts of the given file.
+     * @throws CookieAppException if the file is compressed or compiled
+     */
+    LiveCounts(String filename, List<LocalDate> dates, ZoneId zone, Integer top) {
+      if (FileUtils.isCompressed(filename) || ColumnarCookieFile.isColumnar(filename)) {
+        throw new CookieAppException("Cannot follow a compressed or compiled file: " + filename);
+      }
+      this.filename = filename;
+      this.dates = dates;
+      this.zone = zone;
+      this.top = top;
+      this.counters = new DayBuckets<>(dates, zone, CookieCounter::new);
+    }
+
+    /**
+     * Counts the lines appended since the previous poll, starting over if the file was truncated or replaced.
+     * @return the most active cookies of each date if they differ from those last returned, otherwise empty
+     * @throws CookieParseException if the file cannot be read or parsed
+     */
+    Optional<Map<LocalDate, List<CookieCount>>> poll() {
+      BasicFileAttributes attributes;
+      try {
+        attributes = Files.readAttributes(Path.of(filename), BasicFileAttributes.class);
+      } catch (IOException e) {
+        throw new CookieParseException("Error reading file: " + filename, e);
+      }
+      if (attributes.size() < offset || (fileKey != null && !Objects.equals(fileKey, attributes.fileKey()))) {
+        logger.info("File {} was truncated or replaced, counting it from the start", filename);
+        counters = new DayBuckets<>(dates, zone, CookieCounter::new);
+        offset = 0;
+        changed = true;
+      }
+      fileKey = attributes.fileKey();
+      if (attributes.size() > offset) {
+        offset = cookieParser.parseFrom(filename, offset, this::count);
+      }
+      if (!changed && reported != null) {
+        return Optional.empty();
+      }
+      changed = false;
+      Map<LocalDate, List<CookieCount>> current = new LinkedHashMap<>();
+      counters.forEach((date, counter) -> current.put(date, top != null ? counter.top(top) : counter.mostActive()));
+      if (current.equals(reported)) {
+        return Optional.empty();
+      }
+      reported = current;
+      return Optional.of(current);
+    }
+
+    private void count(Cookie cookie) {
+      CookieCounter counter = counters.at(cookie.getTimestamp().getEpochSecond());
+      if (counter != null) {
+        counter.increment(cookie.getValue());
+        changed = true;
+      }
+    }
+  }
+}
@@ -0,0 +1,163 @@
+package org.ibrahim.business;
+
+import org.ibrahim.exception.CookieAppException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.zip.CRC32;
+
+/**
+ * Saves and restores the partial counts of a scan of a CSV log together with the byte offset the scan reached,
+ * so that an interrupted scan can resume from there.
+ * <p>
+ * A checkpoint records the log's path, the zone and dates of the query, the offset, a checksum of the bytes just
+ * before the offset, and each date's counts in order of first occurrence, so a resumed scan reports ties in the
+ * same order as an uninterrupted one. It is only restored for the same log and query, and only if the bytes
+ * before the offset are unchanged; lines after the offset, e.g. a malformed line the scan stopped at, may be
+ * fixed in between. Checkpoints are written to a temporary file that then replaces the previous checkpoint, so
+ * a scan killed while writing one leaves the previous one intact.</p>
+ * <b>Usage Example:</b>
+ * <pre><code>
+ * CountCheckpoint.write(Path.of("scan.ckpt"), "cookie_log.csv", offset, counters, ZoneOffset.UTC);
+ * OptionalLong resumeAt = CountCheckpoint.read(Path.of("scan.ckpt"), "cookie_log.csv", counters, ZoneOffset.UTC);
+ * </code></pre>
+ */
+final class CountCheckpoint {
+  private static final int MAGIC = 0x43434b50; // "CCKP"
+  private static final int VERSION = 1;
+  private static final int CHECKSUM_BYTES = 4096;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private CountCheckpoint() {
+  }
+
+  /**
+   * Writes a checkpoint of the counts reached at the given offset, replacing any previous checkpoint.
+   * @param checkpoint the path of the checkpoint file
+   * @param filename the path to the log being scanned
+   * @param offset the offset of the first line not counted yet
+   * @param counters the counts of each date so far
+   * @param zone the zone whose calendar days the dates denote
+   * @throws IOException if the checkpoint cannot be written
+   */
+  static void write(Path checkpoint, String filename, long offset, DayBuckets<CookieCounter> counters, ZoneId zone)
+      throws IOException {
+    Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary),
+        BUFFER_SIZE))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeUTF(canonical(filename));
+      out.writeUTF(zone.getId());
+      List<LocalDate> dates = counters.dates();
+      out.writeInt(dates.size());
+      for (LocalDate date : dates) {
+        out.writeLong(date.toEpochDay());
+      }
+      out.writeLong(offset);
+      out.writeLong(checksum(filename, offset));
+      for (LocalDate date : dates) {
+        CookieCounter counter = counters.get(date);
+        out.writeInt(counter.size());
+        IOException[] failure = new IOException[1];
+        counter.forEach((value, count) -> {
+          if (failure[0] != null) {
+            return;
+          }
+          try {
+            out.writeUTF(value);
+            out.writeInt(count);
+          } catch (IOException e) {
+            failure[0] = e;
+          }
+        });
+        if (failure[0] != null) {
+          throw failure[0];
+        }
+      }
+    }
+    Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Restores the counts of a checkpoint into empty counters.
+   * @param checkpoint the path of the checkpoint file
+   * @param filename the path to the log to scan
+   * @param counters the empty counters of the query's dates
+   * @param zone the zone whose calendar days the dates denote
+   * @return the offset at which to resume the scan, or empty if there is no checkpoint
+   * @throws CookieAppException if the checkpoint belongs to another log or query, or the log changed before the
+   * offset
+   * @throws IOException if the checkpoint cannot be read or is not a checkpoint
+   */
+  static OptionalLong read(Path checkpoint, String filename, DayBuckets<CookieCounter> counters, ZoneId zone)
+      throws IOException {
+    if (!Files.exists(checkpoint)) {
+      return OptionalLong.empty();
+    }
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpoint),
+        BUFFER_SIZE))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException("Not a checkpoint file: " + checkpoint);
+      }
+      String file = in.readUTF();
+      if (!file.equals(canonical(filename))) {
+        throw new CookieAppException("Checkpoint " + checkpoint + " belongs to another file: " + file);
+      }
+      String zoneId = in.readUTF();
+      List<LocalDate> dates = new ArrayList<>();
+      for (int i = in.readInt(); i > 0; i--) {
+        dates.add(LocalDate.ofEpochDay(in.readLong()));
+      }
+      if (!zoneId.equals(zone.getId()) || !dates.equals(counters.dates())) {
+        throw new CookieAppException("Checkpoint " + checkpoint + " belongs to another query: dates " + dates
+            + " in zone " + zoneId);
+      }
+      long offset = in.readLong();
+      if (offset > Files.size(Path.of(filename)) || in.readLong() != checksum(filename, offset)) {
+        throw new CookieAppException("File changed since checkpoint " + checkpoint + ": " + filename);
+      }
+      for (LocalDate date : dates) {
+        CookieCounter counter = counters.get(date);
+        for (int i = in.readInt(); i > 0; i--) {
+          counter.add(in.readUTF(), in.readInt());
+        }
+      }
+      return OptionalLong.of(offset);
+    }
+  }
+
+  private static String canonical(String filename) {
+    return Path.of(filename).toAbsolutePath().normalize().toString();
+  }
+
+  /**
+   * Returns the checksum of the bytes just before the offset, which a resumed scan expects unchanged.
+   */
+  private static long checksum(String filename, long offset) throws IOException {
+    int length = (int) Math.min(offset, CHECKSUM_BYTES);
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    try (FileChannel channel = FileChannel.open(Path.of(filename), StandardOpenOption.READ)) {
+      while (buffer.hasRemaining() && channel.read(buffer, offset - length + buffer.position()) > 0) {
+        // Read until the buffer is full
+      }
+    }
+    CRC32 crc = new CRC32();
+    crc.update(buffer.flip());
+    return crc.getValue();
+  }
+}
@@ -0,0 +1,202 @@
+package org.ibrahim.business;
+
+import org.ibrahim.io.TimestampDecoder;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Holds one value, e.g. a counter, per requested date and looks it up by the epoch second of a record.
+ * <p>
+ * Dates are calendar days in a time zone. The epoch seconds at which the zone's days start are computed once,
+ * so bucketing a record takes a few primitive comparisons, even in zones with daylight saving transitions.
+ * Dates spanning a moderate range are resolved by an array of consecutive day starts; widely spread dates
+ * fall back to a binary search over the requested days. Values are created on first use, so a long range of
+ * days costs little for days without records. Duplicate dates share a bucket. Iteration follows the order in
+ * which the dates were requested.</p>
+ * @param <T> the type of the per-date values
+ */
+class DayBuckets<T> {
+  private static final int MAX_DENSE_SPAN = 1 << 16;
+
+  private final List<LocalDate> dates;
+  private final Supplier<T> factory;
+  private final Object[] values;
+  /** Start of each bucketed day in ascending order, followed by the end of the last day. */
+  private final long[] cutoffs;
+  /** Index into values of the day starting at each cutoff, or -1 if the day was not requested. */
+  private final int[] slots;
+  /** End of each bucketed day if the days are not consecutive, otherwise null. */
+  private final long[] ends;
+
+  /**
+   * Creates a bucket for each distinct date, with days in UTC.
+   * @param dates the requested dates; must not be empty
+   * @param factory creates the value of each bucket
+   */
+  DayBuckets(List<LocalDate> dates, Supplier<T> factory) {
+    this(dates, ZoneOffset.UTC, factory);
+  }
+
+  /**
+   * Creates a bucket for each distinct date, with days in the given zone.
+   * @param dates the requested dates; must not be empty
+   * @param zone the zone whose calendar days the dates denote
+   * @param factory creates the value of each bucket
+   */
+  DayBuckets(List<LocalDate> dates, ZoneId zone, Supplier<T> factory) {
+    this.dates = List.copyOf(new LinkedHashSet<>(dates));
+    this.factory = factory;
+    this.values = new Object[this.dates.size()];
+    List<LocalDate> sorted = new ArrayList<>(this.dates);
+    sorted.sort(LocalDate::compareTo);
+    LocalDate first = sorted.getFirst();
+    long span = sorted.getLast().toEpochDay() - first.toEpochDay() + 1;
+    if (span <= MAX_DENSE_SPAN) {
+      cutoffs = new long[(int) span + 1];
+      slots = new int[(int) span];
+      Arrays.fill(slots, -1);
+      for (int k = 0; k <= span; k++) {
+        cutoffs[k] = startOfDay(first.plusDays(k), zone);
+      }
+      for (int i = 0; i < this.dates.size(); i++) {
+        slots[(int) (this.dates.get(i).toEpochDay() - first.toEpochDay())] = i;
+      }
+      ends = null;
+    } else {
+      cutoffs = new long[sorted.size() + 1];
+      slots = new int[sorted.size()];
+      ends = new long[sorted.size()];
+      for (int k = 0; k < sorted.size(); k++) {
+        cutoffs[k] = startOfDay(sorted.get(k), zone);
+        ends[k] = startOfDay(sorted.get(k).plusDays(1), zone);
+        slots[k] = this.dates.indexOf(sorted.get(k));
+      }
+      cutoffs[sorted.size()] = ends[sorted.size() - 1];
+    }
+  }
+
+  private DayBuckets(DayBuckets<?> other, Object[] values) {
+    this.dates = other.dates;
+    this.factory = null;
+    this.values = values;
+    this.cutoffs = other.cutoffs;
+    this.slots = other.slots;
+    this.ends = other.ends;
+  }
+
+  private static long startOfDay(LocalDate date, ZoneId zone) {
+    return date.atStartOfDay(zone).toEpochSecond();
+  }
+
+  /**
+   * Returns the value of the day containing the given instant.
+   * @param epochSecond the instant, in seconds since the epoch
+   * @return the day's value, or null if the instant is not on a requested day
+   */
+  T at(long epochSecond) {
+    int last = cutoffs.length - 1;
+    if (epochSecond < cutoffs[0] || epochSecond >= cutoffs[last]) {
+      return null;
+    }
+    int k;
+    if (ends == null) {
+      // Days only deviate from 86,400 seconds around transitions, so the estimate is corrected in a step or two
+      k = (int) Math.min((epochSecond - cutoffs[0]) / TimestampDecoder.SECONDS_PER_DAY, last - 1);
+      while (epochSecond < cutoffs[k]) {
+        k--;
+      }
+      while (epochSecond >= cutoffs[k + 1]) {
+        k++;
+      }
+    } else {
+      k = Arrays.binarySearch(cutoffs, 0, last, epochSecond);
+      k = k >= 0 ? k : -k - 2;
+      if (epochSecond >= ends[k]) {
+        return null;
+      }
+    }
+    int slot = slots[k];
+    return slot < 0 ? null : valueAt(slot);
+  }
+
+  /**
+   * Returns the value of the given date.
+   * @param date a requested date
+   * @return the date's value
+   * @throws IllegalArgumentException if the date was not requested
+   */
+  T get(LocalDate date) {
+    int slot = dates.indexOf(date);
+    if (slot < 0) {
+      throw new IllegalArgumentException("Date not requested: " + date);
+    }
+    return valueAt(slot);
+  }
+
+  /**
+   * Returns the epoch second at which the earliest requested day starts.
+   * @return the start of the first day
+   */
+  long fromEpochSecond() {
+    return cutoffs[0];
+  }
+
+  /**
+   * Returns the epoch second at which the latest requested day ends.
+   * @return the end of the last day (exclusive)
+   */
+  long toEpochSecond() {
+    return cutoffs[cutoffs.length - 1];
+  }
+
+  /**
+   * Returns the distinct requested dates, in request order.
+   * @return the dates
+   */
+  List<LocalDate> dates() {
+    return dates;
+  }
+
+  /**
+   * Creates buckets for the same dates holding the converted values.
+   * @param mapper converts each value
+   * @param <R> the type of the converted values
+   * @return the new buckets
+   */
+  <R> DayBuckets<R> map(Function<T, R> mapper) {
+    Object[] mapped = new Object[values.length];
+    for (int i = 0; i < values.length; i++) {
+      mapped[i] = mapper.apply(valueAt(i));
+    }
+    return new DayBuckets<>(this, mapped);
+  }
+
+  /**
+   * Passes every date and its value to the consumer, in request order.
+   * @param consumer the consumer of date and value
+   */
+  void forEach(BiConsumer<LocalDate, T> consumer) {
+    for (int i = 0; i < dates.size(); i++) {
+      consumer.accept(dates.get(i), valueAt(i));
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private T valueAt(int slot) {
+    Object value = values[slot];
+    if (value == null) {
+      value = factory.get();
+      values[slot] = value;
+    }
+    return (T) value;
+  }
+}
@@ -0,0 +1,100 @@
+package org.ibrahim.business;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Counts dictionary IDs of a columnar cookie file in a plain array indexed by ID.
+ * <p>
+ * IDs are dense, so counting needs no hashing; the order in which IDs are first counted is kept so that
+ * the resolved {@link CookieCounter} lists values in order of first occurrence, like the text scans. The most
+ * counted IDs can be selected before resolving, so only their values are read from the dictionary.</p>
+ */
+class DictionaryIdCounter implements IntConsumer {
+  private int[] counts = new int[1024];
+  private int[] order = new int[1024];
+  private int size;
+
+  /**
+   * Counts one occurrence of the ID.
+   * @param id the dictionary ID
+   */
+  @Override
+  public void accept(int id) {
+    if (id >= counts.length) {
+      counts = Arrays.copyOf(counts, Math.max(id + 1, counts.length * 2));
+    }
+    if (counts[id]++ == 0) {
+      if (size == order.length) {
+        order = Arrays.copyOf(order, size * 2);
+      }
+      order[size++] = id;
+    }
+  }
+
+  /**
+   * Returns the number of distinct IDs counted.
+   * @return the number of distinct IDs
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Returns the highest count of any ID.
+   * @return the highest count, or 0 if nothing was counted
+   */
+  int maxCount() {
+    int max = 0;
+    for (int i = 0; i < size; i++) {
+      max = Math.max(max, counts[order[i]]);
+    }
+    return max;
+  }
+
+  /**
+   * Returns the lowest count among the {@code n} most counted IDs, so the IDs counted at least that often are
+   * the {@code n} most counted and those tied with the last of them.
+   * @param n the number of IDs to select
+   * @return the count of the {@code n}th most counted ID, the lowest count if fewer IDs were counted, or 0 if
+   * nothing was counted
+   */
+  int minCountOfTop(int n) {
+    if (size == 0) {
+      return 0;
+    }
+    int[] highest = CookieCounter.highestCounts(n, size, i -> counts[order[i]]);
+    return highest[highest.length - 1];
+  }
+
+  /**
+   * Returns the IDs counted at least the given number of times.
+   * @param minCount the lowest count to include
+   * @return the IDs, in order of first occurrence
+   */
+  int[] idsCountedAtLeast(int minCount) {
+    int[] ids = new int[size];
+    int length = 0;
+    for (int i = 0; i < size; i++) {
+      if (counts[order[i]] >= minCount) {
+        ids[length++] = order[i];
+      }
+    }
+    return Arrays.copyOf(ids, length);
+  }
+
+  /**
+   * Resolves some of the counted IDs to cookie values.
+   * @param ids the IDs to resolve, in order of first occurrence
+   * @param values the cookie values of the IDs, in the same order
+   * @return the counts of those cookie values, in order of first occurrence
+   */
+  CookieCounter resolve(int[] ids, List<String> values) {
+    CookieCounter counter = new CookieCounter();
+    for (int i = 0; i < ids.length; i++) {
+      counter.add(values.get(i), counts[ids[i]]);
+    }
+    return counter;
+  }
+}
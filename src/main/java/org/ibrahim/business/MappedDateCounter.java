@@ -0,0 +1,55 @@
+package org.ibrahim.business;
+
+import org.ibrahim.exception.CookieParseException;
+import org.ibrahim.io.MappedCookieScanner;
+import org.ibrahim.io.TimestampDecoder;
+
+import java.lang.foreign.MemorySegment;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Counts cookie values of mapped records that fall on any of the given dates, with one counter per date.
+ * <p>
+ * Timestamps are decoded to epoch seconds with {@link TimestampDecoder} and bucketed by the precomputed day
+ * boundaries of the dates' zone ({@link DayBuckets}); cookie
+ * values of matching records are counted straight from the mapped bytes by their date's {@link CookieCounter}.
+ * An instance is not thread-safe, so parallel scans use one instance per worker and merge the results.</p>
+ */
+class MappedDateCounter implements MappedCookieScanner.RecordProcessor {
+  private final DayBuckets<CookieCounter> counters;
+
+  /**
+   * Constructs a counter for the given dates in the given zone.
+   * @param dates the dates to count cookies for
+   * @param zone the zone whose calendar days the dates denote
+   */
+  MappedDateCounter(List<LocalDate> dates, ZoneId zone) {
+    this.counters = new DayBuckets<>(dates, zone, CookieCounter::new);
+  }
+
+  /**
+   * @throws CookieParseException if the timestamp is invalid
+   */
+  @Override
+  public void process(MemorySegment segment, long cookieOffset, int cookieLength, long timestampOffset, int timestampLength) {
+    long epochSecond = TimestampDecoder.epochSecond(segment, timestampOffset, timestampLength);
+    if (epochSecond == TimestampDecoder.INVALID) {
+      throw new CookieParseException("Invalid date format in timestamp: "
+          + MappedCookieScanner.toString(segment, timestampOffset, timestampLength));
+    }
+    CookieCounter counter = counters.at(epochSecond);
+    if (counter != null) {
+      counter.increment(segment, cookieOffset, cookieLength);
+    }
+  }
+
+  /**
+   * Returns the counts collected so far.
+   * @return the counter holding each cookie value's count, per date
+   */
+  DayBuckets<CookieCounter> getCounters() {
+    return counters;
+  }
+}
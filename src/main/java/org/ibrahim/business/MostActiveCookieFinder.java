@@ -1,23 +1,54 @@
 package org.ibrahim.business;
 
+import org.ibrahim.exception.CookieAppException;
+import org.ibrahim.io.ColumnarCookieFile;
 import org.ibrahim.io.CookieParser;
+import org.ibrahim.io.FileUtils;
+import org.ibrahim.io.TimestampDecoder;
+import org.ibrahim.model.ApproximateCount;
 import org.ibrahim.model.Cookie;
+import org.ibrahim.model.CookieCount;
+import org.ibrahim.model.ScanMode;
+import org.ibrahim.stats.RunStatistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
 
 /**
  * Business logic for finding the most active cookies for a given date from a CSV log file.
  * <p>
  * This class uses a streaming approach to efficiently count and determine the most active cookies
  * (by value and calendar date) for a specified date. It relies on a {@link CookieParser} to read
- * cookies from a file and supports logging via SLF4J.</p>
+ * cookies from a file, either line by line or through a memory-mapped byte scan on one or all cores
+ * (see {@link ScanMode}),
+ * and supports logging via SLF4J. Several dates can be answered from a single read of the file, and several
+ * files are read concurrently with their counts merged. The time spent selecting the most active cookies from the
+ * counts, and the number of distinct cookies counted, are added to the {@link RunStatistics} once started.</p>
  * <b>Usage Example:</b>
  * <code>
  * MostActiveCookieFinder finder = new MostActiveCookieFinder(new CookieParser());
@@ -25,7 +56,12 @@ import java.util.function.Consumer;
  * </code>
  */
 public class MostActiveCookieFinder {
+  private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+  /** Files are partly bound by I/O, e.g. decompression or pipes, so a few are read at once even on small machines. */
+  static final int MAX_CONCURRENT_FILES = Math.max(PARALLELISM, 4);
+  private static final long CHECKPOINT_INTERVAL = 1L << 30;
   private final CookieParser cookieParser;
+  private final RunStatistics statistics;
   private static final Logger logger = LoggerFactory.getLogger(MostActiveCookieFinder.class);
 
   /**
@@ -33,7 +69,18 @@ public class MostActiveCookieFinder {
    * @param cookieParser the parser to use for reading cookies from a file
    */
   public MostActiveCookieFinder(CookieParser cookieParser) {
+    this(cookieParser, new RunStatistics());
+  }
+
+  /**
+   * Constructs a MostActiveCookieFinder with the given CookieParser that measures its selections once the
+   * statistics are started.
+   * @param cookieParser the parser to use for reading cookies from a file
+   * @param statistics the statistics to add the selections to
+   */
+  public MostActiveCookieFinder(CookieParser cookieParser, RunStatistics statistics) {
     this.cookieParser = cookieParser;
+    this.statistics = statistics;
   }
 
   /**
@@ -43,55 +90,744 @@ public class MostActiveCookieFinder {
    * @return a list of the most active cookies for the given date
    */
   public List<Cookie> findMostActiveCookies(String filename, LocalDate date) {
-    logger.info("Finding most active cookies for file: {} and date: {}", filename, date);
-    Map<Cookie, Integer> cookieCount = countCookiesOnDate(filename, date);
-    int max = findMaxCount(cookieCount);
-    logger.debug("Max cookie count for date {}: {}", date, max);
-    return findCookiesWithCount(cookieCount, max);
+    return findMostActiveCookies(filename, date, ScanMode.STREAM);
   }
 
   /**
-   * Parses and counts the occurrences of each cookie for the specified date.
-   * Only cookies matching the given date (UTC, yyyy-MM-dd) are counted.
+   * Finds the most active cookies for a given date from the specified CSV file using the given scan mode.
+   * Compressed files cannot be memory-mapped, so they are always streamed. Compiled columnar files
+   * ({@link ColumnarCookieFile}) are recognized by their extension and read without regard to the mode.
    * @param filename the path to the CSV file
    * @param date the date to filter cookies by
-   * @return a map of Cookie to its count for the given date
+   * @param mode the strategy used to read the file
+   * @return a list of the most active cookies for the given date
+   */
+  public List<Cookie> findMostActiveCookies(String filename, LocalDate date, ScanMode mode) {
+    return findMostActiveCookies(filename, List.of(date), mode).get(date);
+  }
+
+  /**
+   * Finds the most active cookies for each of the given dates (UTC) from the specified CSV file, reading the
+   * file once. Every date is counted by its own counter during that single pass.
+   * @param filename the path to the CSV file
+   * @param dates the dates to filter cookies by; must not be empty
+   * @param mode the strategy used to read the file
+   * @return the most active cookies of each distinct date, in the order the dates were given
+   * @see #findMostActiveCookies(String, LocalDate, ScanMode)
+   */
+  public Map<LocalDate, List<Cookie>> findMostActiveCookies(String filename, List<LocalDate> dates, ScanMode mode) {
+    return findMostActiveCookies(filename, dates, ZoneOffset.UTC, mode);
+  }
+
+  /**
+   * Finds the most active cookies for each of the given dates from the specified CSV file, reading the file
+   * once. Dates are calendar days in the given zone; their boundaries are precomputed as epoch seconds, so
+   * every record is bucketed into its date's counter with primitive comparisons during that single pass.
+   * @param filename the path to the CSV file
+   * @param dates the dates to filter cookies by; must not be empty
+   * @param zone the zone whose calendar days the dates denote
+   * @param mode the strategy used to read the file
+   * @return the most active cookies of each distinct date, in the order the dates were given; their
+   * timestamps are the start of the date in the zone
+   */
+  public Map<LocalDate, List<Cookie>> findMostActiveCookies(String filename, List<LocalDate> dates, ZoneId zone,
+                                                            ScanMode mode) {
+    return findMostActiveCookies(List.of(filename), dates, zone, mode);
+  }
+
+  /**
+   * Finds the most active cookies for each of the given dates across several files, e.g. the hourly shards of
+   * a rotated log. The files are read concurrently, each once, and their counts are merged.
+   * @param filenames the paths to the files; must not be empty
+   * @param dates the dates to filter cookies by; must not be empty
+   * @param zone the zone whose calendar days the dates denote
+   * @param mode the strategy used to read each file
+   * @return the most active cookies of each distinct date, in the order the dates were given; their
+   * timestamps are the start of the date in the zone
+   * @see #findMostActiveCookies(String, List, ZoneId, ScanMode)
    */
-  private Map<Cookie, Integer> countCookiesOnDate(String filename, LocalDate date) {
-    logger.debug("Counting cookies for file: {} and date: {}", filename, date);
-    Map<Cookie, Integer> cookieCount = new LinkedHashMap<>();
+  public Map<LocalDate, List<Cookie>> findMostActiveCookies(List<String> filenames, List<LocalDate> dates, ZoneId zone,
+                                                            ScanMode mode) {
+    logger.info("Finding most active cookies for files: {}, dates: {}, zone: {} and mode: {}", filenames, dates, zone,
+        mode);
+    if (filenames.size() == 1 && ColumnarCookieFile.isColumnar(filenames.getFirst())) {
+      // Only the IDs tied for the highest count are looked up in the dictionary
+      DayBuckets<DictionaryIdCounter> idCounters = countColumnarIds(filenames.getFirst(), dates, zone);
+      return selectMostActive(resolveColumnar(filenames.getFirst(), idCounters, DictionaryIdCounter::maxCount),
+          idCounters.map(DictionaryIdCounter::size), zone);
+    }
+    return selectMostActive(countCookies(filenames, dates, zone, mode), zone);
+  }
+
+  /**
+   * Finds the {@code n} most active cookies and their counts for each of the given dates, reading the file
+   * once. Cookies tied with the last of them are included as well, so a date may yield more than {@code n}.
+   * The cookies are selected from each date's counts with a bounded heap, without sorting all counts.
+   * @param filename the path to the CSV file
+   * @param dates the dates to filter cookies by; must not be empty
+   * @param zone the zone whose calendar days the dates denote
+   * @param mode the strategy used to read the file
+   * @param n the number of cookies to return per date
+   * @return the most active cookies of each distinct date by descending count, in the order the dates were given
+   * @throws IllegalArgumentException if {@code n} is not positive
+   */
+  public Map<LocalDate, List<CookieCount>> findTopCookies(String filename, List<LocalDate> dates, ZoneId zone,
+                                                          ScanMode mode, int n) {
+    return findTopCookies(List.of(filename), dates, zone, mode, n);
+  }
+
+  /**
+   * Finds the {@code n} most active cookies and their counts for each of the given dates across several files,
+   * reading the files concurrently and merging their counts.
+   * @param filenames the paths to the files; must not be empty
+   * @param dates the dates to filter cookies by; must not be empty
+   * @param zone the zone whose calendar days the dates denote
+   * @param mode the strategy used to read each file
+   * @param n the number of cookies to return per date
+   * @return the most active cookies of each distinct date by descending count, in the order the dates were given
+   * @throws IllegalArgumentException if {@code n} is not positive
+   * @see #findTopCookies(String, List, ZoneId, ScanMode, int)
+   */
+  public Map<LocalDate, List<CookieCount>> findTopCookies(List<String> filenames, List<LocalDate> dates, ZoneId zone,
+                                                          ScanMode mode, int n) {
+    logger.info("Finding top {} cookies for files: {}, dates: {}, zone: {} and mode: {}", n, filenames, dates, zone,
+        mode);
+    if (n <= 0) {
+      throw new IllegalArgumentException("Top count must be positive: " + n);
+    }
+    if (filenames.size() == 1 && ColumnarCookieFile.isColumnar(filenames.getFirst())) {
+      // Only the IDs of the top n and their ties are looked up in the dictionary
+      DayBuckets<DictionaryIdCounter> idCounters = countColumnarIds(filenames.getFirst(), dates, zone);
+      return selectTop(resolveColumnar(filenames.getFirst(), idCounters, idCounter -> idCounter.minCountOfTop(n)),
+          idCounters.map(DictionaryIdCounter::size), n);
+    }
+    return selectTop(countCookies(filenames, dates, zone, mode), n);
+  }
+
+  /**
+   * Finds the most active cookies for each of the given dates in a CSV log, checkpointing the scan so that it
+   * can resume after a failure instead of starting over. About every gigabyte, and before a line that cannot be
+   * parsed, the offset reached and the partial counts are saved to the checkpoint file ({@link CountCheckpoint}).
+   * When resuming, the scan continues from the checkpoint's offset with its counts, so the result is the same as
+   * that of an uninterrupted scan. The file is read line by line; the scan mode does not apply. The checkpoint
+   * is deleted once the scan completes.
+   * @param filename the path to the uncompressed CSV file
+   * @param dates the dates to filter cookies by; must not be empty
+   * @param zone the zone whose calendar days the dates denote
+   * @param checkpoint the path of the checkpoint file
+   * @param resume whether to resume from the checkpoint file if it exists, instead of starting over
+   * @return the most active cookies of each distinct date, in the order the dates were given; their
+   * timestamps are the start of the date in the zone
+   * @throws IllegalArgumentException if the file is compressed, compiled or standard input
+   * @throws CookieAppException if the checkpoint belongs to another file or query, or cannot be written
+   * @throws CookieParseException if a line cannot be parsed, after checkpointing the lines before it
+   */
+  public Map<LocalDate, List<Cookie>> findMostActiveCookiesCheckpointed(String filename, List<LocalDate> dates,
+                                                                        ZoneId zone, Path checkpoint, boolean resume) {
+    logger.info("Finding most active cookies with checkpoint {} for file: {}, dates: {} and zone: {}", checkpoint,
+        filename, dates, zone);
+    return selectMostActive(countCookiesCheckpointed(filename, dates, zone, checkpoint, resume, CHECKPOINT_INTERVAL),
+        zone);
+  }
+
+  /**
+   * Finds the {@code n} most active cookies and their counts for each of the given dates in a CSV log,
+   * checkpointing the scan like {@link #findMostActiveCookiesCheckpointed}. Cookies tied with the last of them
+   * are included as well.
+   * @param filename the path to the uncompressed CSV file
+   * @param dates the dates to filter cookies by; must not be empty
+   * @param zone the zone whose calendar days the dates denote
+   * @param n the number of cookies to return per date
+   * @param checkpoint the path of the checkpoint file
+   * @param resume whether to resume from the checkpoint file if it exists, instead of starting over
+   * @return the most active cookies of each distinct date by descending count, in the order the dates were given
+   * @throws IllegalArgumentException if {@code n} is not positive, or the file is compressed, compiled or
+   * standard input
+   * @throws CookieAppException if the checkpoint belongs to another file or query, or cannot be written
+   * @throws CookieParseException if a line cannot be parsed, after checkpointing the lines before it
+   */
+  public Map<LocalDate, List<CookieCount>> findTopCookiesCheckpointed(String filename, List<LocalDate> dates,
+                                                                      ZoneId zone, int n, Path checkpoint,
+                                                                      boolean resume) {
+    logger.info("Finding top {} cookies with checkpoint {} for file: {}, dates: {} and zone: {}", n, checkpoint,
+        filename, dates, zone);
+    if (n <= 0) {
+      throw new IllegalArgumentException("Top count must be positive: " + n);
+    }
+    return selectTop(countCookiesCheckpointed(filename, dates, zone, checkpoint, resume, CHECKPOINT_INTERVAL), n);
+  }
+
+  /**
+   * Counts the cookies of a CSV log for the dates from the start or the checkpoint, saving a checkpoint every
+   * {@code interval} bytes and before an invalid line, and deletes the checkpoint once the end is reached.
+   */
+  DayBuckets<CookieCounter> countCookiesCheckpointed(String filename, List<LocalDate> dates, ZoneId zone,
+                                                     Path checkpoint, boolean resume, long interval) {
+    if (ColumnarCookieFile.isColumnar(filename) || !FileUtils.isSeekable(filename)) {
+      throw new IllegalArgumentException("Checkpointed scans read uncompressed CSV files only: " + filename);
+    }
+    DayBuckets<CookieCounter> counters = new DayBuckets<>(dates, zone, CookieCounter::new);
+    long offset = 0;
+    try {
+      if (resume) {
+        OptionalLong resumeAt = CountCheckpoint.read(checkpoint, filename, counters, zone);
+        if (resumeAt.isPresent()) {
+          offset = resumeAt.getAsLong();
+          logger.info("Resuming scan of file: {} at byte {} from checkpoint: {}", filename, offset, checkpoint);
+        } else {
+          logger.warn("No checkpoint found: {}, scanning file: {} from the start", checkpoint, filename);
+        }
+      }
+    } catch (IOException e) {
+      throw new CookieAppException("Error reading checkpoint: " + checkpoint, e);
+    }
     Consumer<Cookie> cookieProcessor = cookie -> {
-      LocalDate cookieDate = cookie.getTimestamp().atZone(ZoneOffset.UTC).toLocalDate();
-      if (cookieDate.equals(date)) {
-        cookieCount.merge(cookie, 1, Integer::sum);
-        logger.trace("Cookie counted: {} on {}", cookie.getValue(), cookieDate);
+      CookieCounter counter = counters.at(cookie.getTimestamp().getEpochSecond());
+      if (counter != null) {
+        counter.increment(cookie.getValue());
+      }
+    };
+    cookieParser.parseCheckpointed(filename, offset, interval, cookieProcessor, reached -> {
+      try {
+        CountCheckpoint.write(checkpoint, filename, reached, counters, zone);
+        logger.debug("Checkpointed scan of file: {} at byte {}", filename, reached);
+      } catch (IOException e) {
+        throw new CookieAppException("Error writing checkpoint: " + checkpoint, e);
+      }
+    });
+    try {
+      Files.deleteIfExists(checkpoint);
+    } catch (IOException e) {
+      logger.warn("Could not delete checkpoint: {}", checkpoint, e);
+    }
+    logCounts(counters);
+    return counters;
+  }
+
+  /**
+   * Selects the cookies tied for the highest count of each date.
+   */
+  private Map<LocalDate, List<Cookie>> selectMostActive(DayBuckets<CookieCounter> counters, ZoneId zone) {
+    return selectMostActive(counters, counters.map(CookieCounter::size), zone);
+  }
+
+  /**
+   * Selects the cookies tied for the highest count of each date from counters that may hold only the candidates.
+   * @param distinct the number of distinct cookies counted for each date, for the statistics
+   */
+  private Map<LocalDate, List<Cookie>> selectMostActive(DayBuckets<CookieCounter> counters,
+                                                        DayBuckets<Integer> distinct, ZoneId zone) {
+    Map<LocalDate, List<Cookie>> result = new LinkedHashMap<>();
+    statistics.time(RunStatistics.Phase.SELECT, () -> counters.forEach((date, counter) -> {
+      statistics.addDistinct(distinct.get(date));
+      int max = findMaxCount(counter);
+      logger.debug("Max cookie count for date {}: {}", date, max);
+      result.put(date, findCookiesWithCount(counter, max, date.atStartOfDay(zone).toInstant()));
+    }));
+    return result;
+  }
+
+  /**
+   * Selects the {@code n} most active cookies of each date, with ties.
+   */
+  private Map<LocalDate, List<CookieCount>> selectTop(DayBuckets<CookieCounter> counters, int n) {
+    return selectTop(counters, counters.map(CookieCounter::size), n);
+  }
+
+  /**
+   * Selects the {@code n} most active cookies of each date, with ties, from counters that may hold only the
+   * candidates.
+   * @param distinct the number of distinct cookies counted for each date, for the statistics
+   */
+  private Map<LocalDate, List<CookieCount>> selectTop(DayBuckets<CookieCounter> counters, DayBuckets<Integer> distinct,
+                                                      int n) {
+    Map<LocalDate, List<CookieCount>> result = new LinkedHashMap<>();
+    statistics.time(RunStatistics.Phase.SELECT, () -> counters.forEach((date, counter) -> {
+      statistics.addDistinct(distinct.get(date));
+      result.put(date, counter.top(n));
+    }));
+    return result;
+  }
+
+  /**
+   * Finds the most active cookies for each of the given dates across the given files, holding at most
+   * {@code budget} distinct cookies of all dates together in memory. Counts beyond that are spilled to temporary
+   * files and aggregated partition by partition ({@link SpillingCookieCounter}), so the results stay exact. The
+   * files are streamed one after another into the same counter, which keeps the counts of each date apart; the
+   * scan mode does not apply.
+   * @param filenames the paths to the CSV files, plain or compressed; must not be empty
+   * @param dates the dates to filter cookies by; must not be empty
+   * @param zone the zone whose calendar days the dates denote
+   * @param budget the maximum number of distinct cookies held in memory
+   * @return the most active cookies of each distinct date, in the order the dates were given; their
+   * timestamps are the start of the date in the zone
+   * @throws IllegalArgumentException if {@code budget} is not positive, or a file is compiled
+   */
+  public Map<LocalDate, List<Cookie>> findMostActiveCookiesSpilling(List<String> filenames, List<LocalDate> dates,
+                                                                    ZoneId zone, int budget) {
+    logger.info("Finding most active cookies with {} cookies in memory for files: {}, dates: {} and zone: {}", budget,
+        filenames, dates, zone);
+    return countCookiesSpilling(filenames, dates, zone, budget, (date, counter) -> counter.mostActive().stream()
+        .map(count -> new Cookie(count.getValue(), date.atStartOfDay(zone).toInstant()))
+        .toList());
+  }
+
+  /**
+   * Finds the {@code n} most active cookies and their counts for each of the given dates across the given files,
+   * holding at most {@code budget} distinct cookies in memory like
+   * {@link #findMostActiveCookiesSpilling}. Cookies tied with the last of them are included as well.
+   * @param filenames the paths to the CSV files, plain or compressed; must not be empty
+   * @param dates the dates to filter cookies by; must not be empty
+   * @param zone the zone whose calendar days the dates denote
+   * @param n the number of cookies to return per date
+   * @param budget the maximum number of distinct cookies held in memory
+   * @return the most active cookies of each distinct date by descending count, in the order the dates were given
+   * @throws IllegalArgumentException if {@code n} or {@code budget} is not positive, or a file is compiled
+   */
+  public Map<LocalDate, List<CookieCount>> findTopCookiesSpilling(List<String> filenames, List<LocalDate> dates,
+                                                                  ZoneId zone, int n, int budget) {
+    logger.info("Finding top {} cookies with {} cookies in memory for files: {}, dates: {} and zone: {}", n, budget,
+        filenames, dates, zone);
+    if (n <= 0) {
+      throw new IllegalArgumentException("Top count must be positive: " + n);
+    }
+    return countCookiesSpilling(filenames, dates, zone, budget, (date, counter) -> counter.top(n));
+  }
+
+  /**
+   * Streams the files into one spilling counter with a group per date, so all dates share the budget and the
+   * spilled partitions, and collects each date's result before the spilled counts are deleted.
+   */
+  private <R> Map<LocalDate, R> countCookiesSpilling(List<String> filenames, List<LocalDate> dates, ZoneId zone,
+                                                     int budget,
+                                                     BiFunction<LocalDate, SpillingCookieCounter.Group, R> result) {
+    if (budget <= 0) {
+      throw new IllegalArgumentException("Budget must be positive: " + budget);
+    }
+    if (filenames.stream().anyMatch(ColumnarCookieFile::isColumnar)) {
+      throw new IllegalArgumentException("Spilling counts reads CSV files only: " + filenames);
+    }
+    try (SpillingCookieCounter spillingCounter = new SpillingCookieCounter(budget)) {
+      DayBuckets<SpillingCookieCounter.Group> counters = new DayBuckets<>(dates, zone, spillingCounter::newGroup);
+      Consumer<Cookie> cookieProcessor = cookie -> {
+        SpillingCookieCounter.Group counter = counters.at(cookie.getTimestamp().getEpochSecond());
+        if (counter != null) {
+          counter.increment(cookie.getValue());
+        }
+      };
+      for (String filename : filenames) {
+        cookieParser.parseEach(filename, cookieProcessor);
+      }
+      logger.debug("Spilled {} runs of cookie counts", spillingCounter.runs());
+      Map<LocalDate, R> results = new LinkedHashMap<>();
+      statistics.time(RunStatistics.Phase.SELECT, () -> counters.forEach((date, counter) ->
+          results.put(date, result.apply(date, counter))));
+      return results;
+    }
+  }
+
+  /**
+   * Estimates the {@code n} most active cookies and their counts for each of the given dates with a bounded
+   * number of counters per date ({@link SpaceSavingCounter}), so memory does not grow with the number of
+   * distinct cookies. The files are streamed one after another into the same counters; the scan mode does not
+   * apply. Cookies tied with the last of them are included as well.
+   * @param filenames the paths to the CSV files, plain or compressed; must not be empty
+   * @param dates the dates to filter cookies by; must not be empty
+   * @param zone the zone whose calendar days the dates denote
+   * @param n the number of cookies to return per date
+   * @param capacity the number of counters per date
+   * @return the estimated most active cookies of each distinct date by descending count, with the maximum
+   * overestimation of each count, in the order the dates were given
+   * @throws IllegalArgumentException if {@code n} or {@code capacity} is not positive, or a file is compiled
+   */
+  public Map<LocalDate, List<ApproximateCount>> findApproximateTopCookies(List<String> filenames, List<LocalDate> dates,
+                                                                          ZoneId zone, int n, int capacity) {
+    logger.info("Estimating top {} cookies with {} counters for files: {}, dates: {} and zone: {}", n, capacity,
+        filenames, dates, zone);
+    if (n <= 0) {
+      throw new IllegalArgumentException("Top count must be positive: " + n);
+    }
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+    }
+    if (filenames.stream().anyMatch(ColumnarCookieFile::isColumnar)) {
+      throw new IllegalArgumentException("Approximate counting reads CSV files only: " + filenames);
+    }
+    DayBuckets<SpaceSavingCounter> counters = new DayBuckets<>(dates, zone, () -> new SpaceSavingCounter(capacity));
+    Consumer<Cookie> cookieProcessor = cookie -> {
+      SpaceSavingCounter counter = counters.at(cookie.getTimestamp().getEpochSecond());
+      if (counter != null) {
+        counter.increment(cookie.getValue());
+      }
+    };
+    for (String filename : filenames) {
+      cookieParser.parseEach(filename, cookieProcessor);
+    }
+    Map<LocalDate, List<ApproximateCount>> result = new LinkedHashMap<>();
+    statistics.time(RunStatistics.Phase.SELECT, () -> counters.forEach((date, counter) -> {
+      logger.debug("Counted {} cookies for date {}; unmonitored cookies occur at most {} times", counter.total(), date,
+          counter.maxUnmonitoredCount());
+      result.put(date, counter.top(n));
+    }));
+    return result;
+  }
+
+  /**
+   * Counts the occurrences of each cookie for each of the given dates, reading the file once. Callers that
+   * keep counts across queries, such as a query server, derive the most active cookies from them as needed.
+   * @param filename the path to the CSV file
+   * @param dates the dates to filter cookies by; must not be empty
+   * @param zone the zone whose calendar days the dates denote
+   * @param mode the strategy used to read the file
+   * @return the counts of each distinct date, in the order the dates were given
+   */
+  public Map<LocalDate, CookieCounter> countCookiesByDate(String filename, List<LocalDate> dates, ZoneId zone,
+                                                          ScanMode mode) {
+    logger.info("Counting cookies for file: {}, dates: {}, zone: {} and mode: {}", filename, dates, zone, mode);
+    DayBuckets<CookieCounter> counters = countCookies(filename, dates, zone, mode);
+    Map<LocalDate, CookieCounter> result = new LinkedHashMap<>();
+    counters.forEach(result::put);
+    return result;
+  }
+
+  /**
+   * Counts the occurrences of each cookie for the specified dates in several files, on one virtual thread per
+   * file and about one file per core at a time. The files already keep the cores busy, so
+   * {@link ScanMode#PARALLEL} scans each file on one thread like {@link ScanMode#MAPPED}. The counts of each file
+   * are merged as soon as those of all earlier files are, in file order, which keeps ties in order of first
+   * occurrence across the files. A file is only started once fewer than {@link #MAX_CONCURRENT_FILES} files are
+   * scanning or waiting to be merged, so the counts held at any time stay bounded however many files are given.
+   * The first failure cancels the scans that are still running and is rethrown.
+   * @param filenames the paths to the CSV or columnar files
+   * @param dates the dates to filter cookies by
+   * @param zone the zone whose calendar days the dates denote
+   * @param mode the strategy used to read a CSV file
+   * @return the merged counts of each cookie value, per date
+   */
+  private DayBuckets<CookieCounter> countCookies(List<String> filenames, List<LocalDate> dates, ZoneId zone,
+                                                 ScanMode mode) {
+    if (filenames.size() == 1) {
+      return countCookies(filenames.getFirst(), dates, zone, mode);
+    }
+    ScanMode fileMode = mode == ScanMode.PARALLEL ? ScanMode.MAPPED : mode;
+    DayBuckets<CookieCounter> counters = new DayBuckets<>(dates, zone, CookieCounter::new);
+    ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    List<Future<DayBuckets<CookieCounter>>> futures = new ArrayList<>(filenames.size());
+    int merged = 0;
+    int awaited = 0;
+    try {
+      CompletionService<DayBuckets<CookieCounter>> completion = new ExecutorCompletionService<>(executor);
+      for (String filename : filenames) {
+        while (futures.size() - merged >= MAX_CONCURRENT_FILES) {
+          await(completion.take());
+          awaited++;
+          merged = mergeCompleted(futures, merged, counters);
+        }
+        futures.add(completion.submit(() -> countCookies(filename, dates, zone, fileMode)));
+      }
+      for (; awaited < futures.size(); awaited++) {
+        await(completion.take());
+        merged = mergeCompleted(futures, merged, counters);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CookieAppException("Interrupted while counting cookies", e);
+    } finally {
+      // Scans still running after a failure are interrupted; they are not waited for
+      executor.shutdownNow();
+    }
+    logCounts(counters);
+    return counters;
+  }
+
+  /**
+   * Merges the counts of the files that completed after all earlier files were merged, and drops them.
+   * @param futures the scans of the files, in file order; merged scans are null
+   * @param merged the number of files merged so far
+   * @param counters the counts to merge into
+   * @return the number of files merged
+   */
+  private static int mergeCompleted(List<Future<DayBuckets<CookieCounter>>> futures, int merged,
+                                    DayBuckets<CookieCounter> counters) {
+    while (merged < futures.size() && futures.get(merged).state() == Future.State.SUCCESS) {
+      DayBuckets<CookieCounter> partial = futures.set(merged++, null).resultNow();
+      counters.forEach((date, counter) -> counter.addAll(partial.get(date)));
+    }
+    return merged;
+  }
+
+  /**
+   * Waits for a completed file scan, rethrowing its failure.
+   * @param future the completed scan
+   * @throws CookieAppException if the scan failed
+   */
+  private static void await(Future<?> future) throws InterruptedException {
+    try {
+      future.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new CookieAppException("Error counting cookies: " + e.getCause().getMessage(), e.getCause());
+    }
+  }
+
+  /**
+   * Counts the occurrences of each cookie for the specified dates with the reader matching the file and mode.
+   * Standard input, pipes and compressed files cannot be memory-mapped: they are counted in a pipeline in
+   * parallel mode and streamed otherwise.
+   * @param filename the path to the CSV or columnar file, or {@code -} for standard input
+   * @param dates the dates to filter cookies by
+   * @param zone the zone whose calendar days the dates denote
+   * @param mode the strategy used to read a CSV file
+   * @return the counts of each cookie value, per date
+   */
+  private DayBuckets<CookieCounter> countCookies(String filename, List<LocalDate> dates, ZoneId zone, ScanMode mode) {
+    if (mode.isMapped() && !FileUtils.isSeekable(filename)) {
+      if (mode == ScanMode.PARALLEL) {
+        return countPipelinedCookiesOnDates(filename, dates, zone);
+      }
+      logger.warn("Mode {} cannot map file: {}, falling back to {}", mode, filename, ScanMode.STREAM);
+      mode = ScanMode.STREAM;
+    }
+    if (ColumnarCookieFile.isColumnar(filename)) {
+      return countColumnarCookiesOnDates(filename, dates, zone);
+    }
+    return switch (mode) {
+      case STREAM -> countCookiesOnDates(filename, dates, zone);
+      case ORDERED -> countCookiesOnDatesUntilPassed(filename, dates, zone);
+      case MAPPED, SORTED, INDEXED -> countMappedCookiesOnDates(filename, dates, zone, mode);
+      case PARALLEL -> countMappedCookiesOnDatesParallel(filename, dates, zone);
+    };
+  }
+
+  /**
+   * Parses and counts the occurrences of each cookie for the specified dates.
+   * Only cookies on one of the given dates (yyyy-MM-dd in the zone) are counted.
+   * @param filename the path to the CSV file
+   * @param dates the dates to filter cookies by
+   * @param zone the zone whose calendar days the dates denote
+   * @return the counts of each cookie value, per date
+   */
+  private DayBuckets<CookieCounter> countCookiesOnDates(String filename, List<LocalDate> dates, ZoneId zone) {
+    logger.debug("Counting cookies for file: {} and dates: {}", filename, dates);
+    DayBuckets<CookieCounter> counters = new DayBuckets<>(dates, zone, CookieCounter::new);
+    Consumer<Cookie> cookieProcessor = cookie -> {
+      CookieCounter counter = counters.at(cookie.getTimestamp().getEpochSecond());
+      if (counter != null) {
+        counter.increment(cookie.getValue());
+        logger.trace("Cookie counted: {}", cookie);
       }
     };
     cookieParser.parseEach(filename, cookieProcessor);
 //    cookieParser.parseAll(filename).forEach(cookieProcessor);
 //    cookieParser.parseParallel(filename, chunk -> chunk.forEach(cookieProcessor));
-    logger.debug("Total unique cookies for date {}: {}", date, cookieCount.size());
-    return cookieCount;
+    logCounts(counters);
+    return counters;
+  }
+
+  /**
+   * Parses and counts the occurrences of each cookie for the specified dates in a time-ordered file,
+   * stopping as soon as the scan has passed all the dates. The order is tracked by UTC day, over the UTC days
+   * that overlap the dates.
+   * @param filename the path to the CSV file, ordered by timestamp
+   * @param dates the dates to filter cookies by
+   * @param zone the zone whose calendar days the dates denote
+   * @return the counts of each cookie value, per date
+   */
+  private DayBuckets<CookieCounter> countCookiesOnDatesUntilPassed(String filename, List<LocalDate> dates, ZoneId zone) {
+    logger.debug("Counting cookies in ordered file: {} for dates: {}", filename, dates);
+    DayBuckets<CookieCounter> counters = new DayBuckets<>(dates, zone, CookieCounter::new);
+    OrderedScanCutoff cutoff = new OrderedScanCutoff(TimestampDecoder.epochDay(counters.fromEpochSecond()),
+        TimestampDecoder.epochDay(counters.toEpochSecond() - 1));
+    cookieParser.parseWhile(filename, cookie -> {
+      if (cutoff.hasPassed(cookie.epochDay())) {
+        logger.debug("Scan passed dates {} at cookie {}", counters.dates(), cookie);
+        return false;
+      }
+      CookieCounter counter = counters.at(cookie.getTimestamp().getEpochSecond());
+      if (counter != null) {
+        counter.increment(cookie.getValue());
+      }
+      return true;
+    });
+    logCounts(counters);
+    return counters;
+  }
+
+  /**
+   * Scans the memory-mapped file and counts the occurrences of each cookie value for the specified dates,
+   * straight from the mapped bytes. Sorted and indexed scans select the UTC days that overlap the dates.
+   * @param filename the path to the CSV file
+   * @param dates the dates to filter cookies by
+   * @param zone the zone whose calendar days the dates denote
+   * @param mode the mapped scan mode to use, {@link ScanMode#MAPPED}, {@link ScanMode#SORTED} or {@link ScanMode#INDEXED}
+   * @return the counts of each cookie value, per date
+   */
+  private DayBuckets<CookieCounter> countMappedCookiesOnDates(String filename, List<LocalDate> dates, ZoneId zone,
+                                                              ScanMode mode) {
+    logger.debug("Counting mapped cookies for file: {}, dates: {} and mode: {}", filename, dates, mode);
+    MappedDateCounter dateCounter = new MappedDateCounter(dates, zone);
+    DayBuckets<CookieCounter> counters = dateCounter.getCounters();
+    switch (mode) {
+      case SORTED -> cookieParser.scanMappedSorted(filename, utcDate(counters.fromEpochSecond()),
+          utcDate(counters.toEpochSecond() - 1), dateCounter);
+      case INDEXED -> cookieParser.scanMappedIndexed(filename, utcDatesOverlapping(counters.dates(), zone), dateCounter);
+      default -> cookieParser.scanMapped(filename, dateCounter);
+    }
+    logCounts(counters);
+    return counters;
+  }
+
+  /**
+   * Scans the memory-mapped file on all available cores and counts the occurrences of each cookie value
+   * for the specified dates. Every worker counts its own byte range; the counts are merged in file order.
+   * @param filename the path to the CSV file
+   * @param dates the dates to filter cookies by
+   * @param zone the zone whose calendar days the dates denote
+   * @return the counts of each cookie value, per date
+   */
+  private DayBuckets<CookieCounter> countMappedCookiesOnDatesParallel(String filename, List<LocalDate> dates, ZoneId zone) {
+    logger.debug("Counting mapped cookies in parallel for file: {} and dates: {}", filename, dates);
+    List<MappedDateCounter> dateCounters = cookieParser.scanMappedParallel(filename, PARALLELISM,
+        () -> new MappedDateCounter(dates, zone));
+    DayBuckets<CookieCounter> counters = new DayBuckets<>(dates, zone, CookieCounter::new);
+    for (MappedDateCounter dateCounter : dateCounters) {
+      DayBuckets<CookieCounter> partial = dateCounter.getCounters();
+      counters.forEach((date, counter) -> counter.addAll(partial.get(date)));
+    }
+    logCounts(counters);
+    return counters;
+  }
+
+  /**
+   * Counts the occurrences of each cookie for the specified dates in a stream that cannot be mapped, e.g.
+   * standard input, on all cores: one thread reads the stream while the others parse its buffers, counting
+   * each into its own counters, which are merged in stream order.
+   * @param filename the path to the CSV file, or {@code -} for standard input
+   * @param dates the dates to filter cookies by
+   * @param zone the zone whose calendar days the dates denote
+   * @return the counts of each cookie value, per date
+   */
+  private DayBuckets<CookieCounter> countPipelinedCookiesOnDates(String filename, List<LocalDate> dates, ZoneId zone) {
+    logger.debug("Counting pipelined cookies for file: {} and dates: {}", filename, dates);
+    DayBuckets<CookieCounter> counters = new DayBuckets<>(dates, zone, CookieCounter::new);
+    // Buffers are merged in stream order, so ties keep the order in which values first occur
+    cookieParser.scanPipelined(filename, PARALLELISM, () -> new MappedDateCounter(dates, zone), dateCounter -> {
+      DayBuckets<CookieCounter> partial = dateCounter.getCounters();
+      counters.forEach((date, counter) -> counter.addAll(partial.get(date)));
+    });
+    logCounts(counters);
+    return counters;
+  }
+
+  /**
+   * Counts the occurrences of each cookie value for the specified dates in a compiled columnar file,
+   * by dictionary ID and without parsing text, and resolves every counted ID, e.g. to merge the counts
+   * with those of other files.
+   * @param filename the path to the columnar file
+   * @param dates the dates to filter cookies by
+   * @param zone the zone whose calendar days the dates denote
+   * @return the counts of each cookie value, per date
+   */
+  private DayBuckets<CookieCounter> countColumnarCookiesOnDates(String filename, List<LocalDate> dates, ZoneId zone) {
+    return resolveColumnar(filename, countColumnarIds(filename, dates, zone), _ -> 1);
+  }
+
+  /**
+   * Counts the dictionary IDs of the records of the specified dates in a compiled columnar file. A single UTC
+   * date is counted without decoding the timestamps of blocks that lie entirely on it.
+   * @param filename the path to the columnar file
+   * @param dates the dates to filter cookies by
+   * @param zone the zone whose calendar days the dates denote
+   * @return the counts of each dictionary ID, per date
+   */
+  private DayBuckets<DictionaryIdCounter> countColumnarIds(String filename, List<LocalDate> dates, ZoneId zone) {
+    logger.debug("Counting columnar cookies for file: {} and dates: {}", filename, dates);
+    DayBuckets<DictionaryIdCounter> idCounters = new DayBuckets<>(dates, zone, DictionaryIdCounter::new);
+    if (idCounters.dates().size() == 1 && zone.normalized().equals(ZoneOffset.UTC)) {
+      LocalDate date = idCounters.dates().getFirst();
+      cookieParser.scanColumnar(filename, date, idCounters.get(date));
+    } else {
+      cookieParser.scanColumnar(filename, utcDate(idCounters.fromEpochSecond()),
+          utcDate(idCounters.toEpochSecond() - 1), (cookieId, epochSecond) -> {
+            DictionaryIdCounter idCounter = idCounters.at(epochSecond);
+            if (idCounter != null) {
+              idCounter.accept(cookieId);
+            }
+          });
+    }
+    idCounters.forEach((date, idCounter) ->
+        logger.debug("Total unique cookies for date {}: {}", date, idCounter.size()));
+    return idCounters;
+  }
+
+  /**
+   * Resolves the IDs of each date counted at least as often as the given minimum to cookie values, looking up
+   * only those IDs in the file's dictionary, all dates at once.
+   * @param filename the path to the columnar file
+   * @param idCounters the counts of each dictionary ID, per date
+   * @param minCount the lowest count of the IDs to resolve, per date
+   * @return the counts of the resolved cookie values, per date
+   */
+  private DayBuckets<CookieCounter> resolveColumnar(String filename, DayBuckets<DictionaryIdCounter> idCounters,
+                                                    ToIntFunction<DictionaryIdCounter> minCount) {
+    List<int[]> ids = new ArrayList<>();
+    idCounters.forEach((date, idCounter) ->
+        ids.add(idCounter.idsCountedAtLeast(Math.max(1, minCount.applyAsInt(idCounter)))));
+    int[] all = ids.stream().flatMapToInt(Arrays::stream).toArray();
+    List<String> values = all.length == 0 ? List.of() : cookieParser.resolveColumnar(filename, all);
+    Iterator<int[]> dateIds = ids.iterator();
+    int[] position = {0};
+    return idCounters.map(idCounter -> {
+      int[] selected = dateIds.next();
+      CookieCounter counter = idCounter.resolve(selected,
+          values.subList(position[0], position[0] + selected.length));
+      position[0] += selected.length;
+      return counter;
+    });
+  }
+
+  private static LocalDate utcDate(long epochSecond) {
+    return LocalDate.ofEpochDay(TimestampDecoder.epochDay(epochSecond));
+  }
+
+  /**
+   * Returns the UTC dates that overlap any of the given dates in the zone, e.g. for reading a UTC day index.
+   */
+  private static List<LocalDate> utcDatesOverlapping(List<LocalDate> dates, ZoneId zone) {
+    Set<LocalDate> utcDates = new LinkedHashSet<>();
+    for (LocalDate date : dates) {
+      LocalDate first = utcDate(date.atStartOfDay(zone).toEpochSecond());
+      LocalDate last = utcDate(date.plusDays(1).atStartOfDay(zone).toEpochSecond() - 1);
+      first.datesUntil(last.plusDays(1)).forEach(utcDates::add);
+    }
+    return List.copyOf(utcDates);
+  }
+
+  private void logCounts(DayBuckets<CookieCounter> counters) {
+    counters.forEach((date, counter) -> logger.debug("Total unique cookies for date {}: {}", date, counter.size()));
   }
 
   /**
-   * Finds the maximum count value in the cookie count map.
-   * @param cookieCount the map of Cookie to count
-   * @return the maximum count value, or 0 if the map is empty
+   * Finds the maximum count value in the counter.
+   * @param counter the counts of each cookie value
+   * @return the maximum count value, or 0 if the counter is empty
    */
-  private int findMaxCount(Map<Cookie, Integer> cookieCount) {
-    return cookieCount.values().stream().max(Integer::compareTo).orElse(0);
+  private int findMaxCount(CookieCounter counter) {
+    return counter.maxCount();
   }
 
   /**
-   * Returns a list of cookies that have the specified count.
-   * @param cookieCount the map of Cookie to count
+   * Returns a list of cookies that have the specified count, in order of first occurrence.
+   * @param counter the counts of each cookie value
    * @param max the count to filter by
+   * @param dayStart the start of the date the cookies were counted for, used as their timestamp
    * @return a list of cookies with the given count
    */
-  private List<Cookie> findCookiesWithCount(Map<Cookie, Integer> cookieCount, int max) {
-    return cookieCount.entrySet().stream()
-        .filter(entry -> entry.getValue() == max)
-        .map(Map.Entry::getKey).toList();
+  private List<Cookie> findCookiesWithCount(CookieCounter counter, int max, Instant dayStart) {
+    return counter.valuesWithCount(max).stream()
+        .map(value -> new Cookie(value, dayStart))
+        .toList();
   }
 }
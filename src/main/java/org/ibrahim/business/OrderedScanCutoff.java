@@ -0,0 +1,53 @@
+package org.ibrahim.business;
+
+/**
+ * Decides when a scan over a time-ordered log has passed a target range of days.
+ * <p>
+ * The scan order (ascending or descending) does not need to be known up front: it is detected from the
+ * first two distinct days seen. The scan has passed the target once it leaves the target range's block, or
+ * once it reaches a day beyond the range in the detected order.</p>
+ */
+class OrderedScanCutoff {
+  private final long firstDay;
+  private final long lastDay;
+  private boolean seenTarget;
+  private boolean hasPrevious;
+  private long previousDay;
+  private int direction;
+
+  /**
+   * Constructs a cutoff for the given day.
+   * @param targetDay the epoch day being searched for
+   */
+  OrderedScanCutoff(long targetDay) {
+    this(targetDay, targetDay);
+  }
+
+  /**
+   * Constructs a cutoff for the given range of days.
+   * @param firstDay the first epoch day being searched for
+   * @param lastDay the last epoch day being searched for (inclusive)
+   */
+  OrderedScanCutoff(long firstDay, long lastDay) {
+    this.firstDay = firstDay;
+    this.lastDay = lastDay;
+  }
+
+  /**
+   * Records the next day in scan order and checks whether the scan has passed the target range.
+   * @param day the epoch day of the current record
+   * @return true if no further record can be in the target range
+   */
+  boolean hasPassed(long day) {
+    if (direction == 0 && hasPrevious && day != previousDay) {
+      direction = Long.signum(day - previousDay);
+    }
+    hasPrevious = true;
+    previousDay = day;
+    if (day >= firstDay && day <= lastDay) {
+      seenTarget = true;
+      return false;
+    }
+    return seenTarget || (direction > 0 && day > lastDay) || (direction < 0 && day < firstDay);
+  }
+}
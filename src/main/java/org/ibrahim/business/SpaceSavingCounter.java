@@ -0,0 +1,165 @@
+package org.ibrahim.business;
+
+import org.ibrahim.model.ApproximateCount;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estimates the most frequent cookie values with a fixed number of counters (the Space-Saving algorithm).
+ * <p>
+ * At most {@code capacity} values are monitored, so memory stays bounded however many distinct values the
+ * stream holds. When a value that is not monitored arrives and all counters are taken, it replaces the value
+ * with the lowest count and inherits that count as its error. Counts are therefore upper bounds, each with
+ * the maximum amount by which it may exceed the true count, and every value occurring more than
+ * {@code total / capacity} times is guaranteed to be monitored. The counters are kept in a min-heap with an
+ * index of positions, so every update takes logarithmic time. Instances are not thread-safe.</p>
+ * <b>Usage Example:</b>
+ * <pre><code>
+ * SpaceSavingCounter counter = new SpaceSavingCounter(10_000);
+ * counter.increment("AtY0laUfhglK3lC7");
+ * List&lt;ApproximateCount&gt; mostActive = counter.top(1);
+ * </code></pre>
+ */
+public class SpaceSavingCounter {
+  private final int capacity;
+  private final String[] values;
+  private final int[] counts;
+  private final int[] errors;
+  private final Map<String, Integer> positions;
+  private int size;
+  private long total;
+
+  /**
+   * Constructs an empty counter.
+   * @param capacity the maximum number of values to monitor
+   * @throws IllegalArgumentException if the capacity is not positive
+   */
+  public SpaceSavingCounter(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+    }
+    this.capacity = capacity;
+    this.values = new String[capacity];
+    this.counts = new int[capacity];
+    this.errors = new int[capacity];
+    this.positions = new HashMap<>();
+  }
+
+  /**
+   * Counts one occurrence of the given value, replacing the least frequent monitored value if all counters
+   * are taken.
+   * @param value the cookie value
+   */
+  public void increment(String value) {
+    total++;
+    Integer position = positions.get(value);
+    if (position != null) {
+      counts[position]++;
+      siftDown(position);
+      return;
+    }
+    if (size < capacity) {
+      values[size] = value;
+      counts[size] = 1;
+      errors[size] = 0;
+      positions.put(value, size);
+      siftUp(size++);
+      return;
+    }
+    positions.remove(values[0]);
+    values[0] = value;
+    errors[0] = counts[0];
+    counts[0]++;
+    positions.put(value, 0);
+    siftDown(0);
+  }
+
+  /**
+   * Returns the number of occurrences counted.
+   * @return the length of the stream
+   */
+  public long total() {
+    return total;
+  }
+
+  /**
+   * Returns the highest count any value that is not monitored can have.
+   * @return the lowest monitored count once all counters are taken, otherwise 0
+   */
+  public int maxUnmonitoredCount() {
+    return size < capacity ? 0 : counts[0];
+  }
+
+  /**
+   * Returns the values with the {@code n} highest estimated counts, plus any values tied with the lowest of them.
+   * @param n the number of values to select
+   * @return the selected values with their estimated counts and errors, by descending count, then by ascending
+   * error and then by value
+   * @throws IllegalArgumentException if {@code n} is not positive
+   */
+  public List<ApproximateCount> top(int n) {
+    if (n <= 0) {
+      throw new IllegalArgumentException("Top count must be positive: " + n);
+    }
+    List<ApproximateCount> monitored = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      monitored.add(new ApproximateCount(values[i], counts[i], errors[i]));
+    }
+    monitored.sort(Comparator.comparingInt(ApproximateCount::getCount).reversed()
+        .thenComparingInt(ApproximateCount::getError)
+        .thenComparing(ApproximateCount::getValue));
+    int end = Math.min(n, monitored.size());
+    while (end < monitored.size() && end > 0 && monitored.get(end).getCount() == monitored.get(end - 1).getCount()) {
+      end++;
+    }
+    return List.copyOf(monitored.subList(0, end));
+  }
+
+  private void siftUp(int index) {
+    while (index > 0) {
+      int parent = (index - 1) / 2;
+      if (counts[index] >= counts[parent]) {
+        return;
+      }
+      swap(index, parent);
+      index = parent;
+    }
+  }
+
+  private void siftDown(int index) {
+    while (true) {
+      int smallest = index;
+      int left = 2 * index + 1;
+      int right = left + 1;
+      if (left < size && counts[left] < counts[smallest]) {
+        smallest = left;
+      }
+      if (right < size && counts[right] < counts[smallest]) {
+        smallest = right;
+      }
+      if (smallest == index) {
+        return;
+      }
+      swap(index, smallest);
+      index = smallest;
+    }
+  }
+
+  private void swap(int i, int j) {
+    String value = values[i];
+    values[i] = values[j];
+    values[j] = value;
+    int count = counts[i];
+    counts[i] = counts[j];
+    counts[j] = count;
+    int error = errors[i];
+    errors[i] = errors[j];
+    errors[j] = error;
+    positions.put(values[i], i);
+    positions.put(values[j], j);
+  }
+}
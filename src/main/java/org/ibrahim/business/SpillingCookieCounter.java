@@ -0,0 +1,502 @@
+package org.ibrahim.business;
+
+import org.ibrahim.exception.CookieAppException;
+import org.ibrahim.model.CookieCount;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Counts cookie values exactly with a bounded number of distinct values in memory, spilling partial counts to
+ * temporary files beyond that (external hash aggregation).
+ * <p>
+ * Values are counted by a {@link CookieCounter} until it holds {@code budget} distinct values. Its counts are
+ * then written as a run, partitioned by the hash of each value into {@value #FAN_OUT} files, and counting
+ * starts over. When the results are requested, each partition is aggregated on its own; a value always lands
+ * in the same partition, so its count is complete there, and the highest counts of the partitions are merged. A
+ * partition that still holds more than {@code budget} distinct values is split again by further hash bits.
+ * Every record keeps the rank of its value's first occurrence, so ties are reported in the same order as by
+ * {@link CookieCounter}. Nothing is written as long as the values fit, and {@link #close()} deletes the files.
+ * Instances are not thread-safe.</p>
+ * <p>
+ * Separate counts, e.g. one per date, are kept in {@link Group}s of the same counter. The budget covers the
+ * distinct values of all groups together and their runs share the same partition files, so counting several
+ * groups takes no more memory or open files than counting one.</p>
+ * <b>Usage Example:</b>
+ * <pre><code>
+ * try (SpillingCookieCounter counter = new SpillingCookieCounter(10_000_000)) {
+ *   counter.increment("AtY0laUfhglK3lC7");
+ *   List&lt;CookieCount&gt; mostActive = counter.mostActive();
+ * }
+ * </code></pre>
+ */
+public class SpillingCookieCounter implements AutoCloseable {
+  private static final int FAN_OUT_BITS = 6;
+  private static final int FAN_OUT = 1 << FAN_OUT_BITS;
+  private static final int MAX_DEPTH = Long.SIZE / FAN_OUT_BITS - 1;
+  private static final int BUFFER_SIZE = 16 * 1024;
+
+  private final int budget;
+  private final Path parent;
+  /** The counts held in memory, per group; the counter's own values are group 0. */
+  private final List<CookieCounter> counters = new ArrayList<>(List.of(new CookieCounter()));
+  private int size;
+  private Path directory;
+  private Path[] partitions;
+  private DataOutputStream[] writers;
+  private List<Leaf> leaves;
+  private int leavesTop;
+  private int runs;
+  private boolean finished;
+
+  /**
+   * The counts of one group of values, e.g. of one date, sharing the budget and spilled runs of its counter.
+   */
+  public final class Group {
+    private final int index;
+
+    private Group(int index) {
+      this.index = index;
+    }
+
+    /**
+     * Counts one occurrence of the cookie value in this group.
+     * @param value the cookie value
+     * @see SpillingCookieCounter#increment(String)
+     */
+    public void increment(String value) {
+      SpillingCookieCounter.this.increment(index, value);
+    }
+
+    /**
+     * Returns the values of this group tied for the highest count, with that count.
+     * @return the most active values and their count in order of first occurrence, or empty if nothing was counted
+     * @see SpillingCookieCounter#mostActive()
+     */
+    public List<CookieCount> mostActive() {
+      return SpillingCookieCounter.this.mostActive(index);
+    }
+
+    /**
+     * Returns the values of this group with the {@code n} highest counts, plus any values tied with the lowest.
+     * @param n the number of values to select
+     * @return the selected values and their counts, by descending count and then order of first occurrence
+     * @see SpillingCookieCounter#top(int)
+     */
+    public List<CookieCount> top(int n) {
+      return SpillingCookieCounter.this.top(index, n);
+    }
+  }
+
+  /**
+   * Constructs an empty counter spilling to the default temporary-file directory.
+   * @param budget the maximum number of distinct values held in memory
+   * @throws IllegalArgumentException if the budget is not positive
+   */
+  public SpillingCookieCounter(int budget) {
+    this(budget, Path.of(System.getProperty("java.io.tmpdir")));
+  }
+
+  /**
+   * Constructs an empty counter spilling to the given directory.
+   * @param budget the maximum number of distinct values held in memory
+   * @param parent the directory in which a temporary directory for the runs is created on the first spill
+   * @throws IllegalArgumentException if the budget is not positive
+   */
+  public SpillingCookieCounter(int budget, Path parent) {
+    if (budget <= 0) {
+      throw new IllegalArgumentException("Budget must be positive: " + budget);
+    }
+    this.budget = budget;
+    this.parent = parent;
+  }
+
+  /**
+   * Adds a group with counts of its own.
+   * @return the new, empty group
+   */
+  public Group newGroup() {
+    counters.add(new CookieCounter());
+    return new Group(counters.size() - 1);
+  }
+
+  /**
+   * Counts one occurrence of the cookie value, spilling the counts held in memory once they reach the budget.
+   * @param value the cookie value
+   * @throws IllegalStateException if results were already requested
+   * @throws CookieAppException if the counts cannot be spilled
+   */
+  public void increment(String value) {
+    increment(0, value);
+  }
+
+  private void increment(int group, String value) {
+    if (finished) {
+      throw new IllegalStateException("Counter already finished");
+    }
+    CookieCounter counter = counters.get(group);
+    int before = counter.size();
+    counter.increment(value);
+    size += counter.size() - before;
+    if (size >= budget) {
+      spill();
+    }
+  }
+
+  /**
+   * Returns the number of runs spilled to disk.
+   * @return the number of runs, 0 if all values fit in memory
+   */
+  public int runs() {
+    return runs;
+  }
+
+  /**
+   * Returns the values tied for the highest count, with that count. No more values can be counted afterwards.
+   * @return the most active values and their count in order of first occurrence, or empty if nothing was counted
+   * @throws CookieAppException if the spilled counts cannot be read
+   */
+  public List<CookieCount> mostActive() {
+    return mostActive(0);
+  }
+
+  private List<CookieCount> mostActive(int group) {
+    if (runs == 0) {
+      finished = true;
+      return counters.get(group).mostActive();
+    }
+    return select(group, 1);
+  }
+
+  /**
+   * Returns the values with the {@code n} highest counts, plus any values tied with the lowest of them.
+   * No more values can be counted afterwards.
+   * @param n the number of values to select
+   * @return the selected values and their counts, by descending count and then order of first occurrence
+   * @throws IllegalArgumentException if {@code n} is not positive
+   * @throws CookieAppException if the spilled counts cannot be read
+   */
+  public List<CookieCount> top(int n) {
+    return top(0, n);
+  }
+
+  private List<CookieCount> top(int group, int n) {
+    if (n <= 0) {
+      throw new IllegalArgumentException("Top count must be positive: " + n);
+    }
+    if (runs == 0) {
+      finished = true;
+      return counters.get(group).top(n);
+    }
+    return select(group, n);
+  }
+
+  /**
+   * Deletes the spilled runs.
+   */
+  @Override
+  public void close() {
+    finished = true;
+    clearCounters();
+    if (directory == null) {
+      return;
+    }
+    try {
+      closeWriters();
+      try (var files = Files.list(directory)) {
+        for (Path file : files.toList()) {
+          Files.deleteIfExists(file);
+        }
+      }
+      Files.deleteIfExists(directory);
+    } catch (IOException e) {
+      throw new CookieAppException("Error deleting spilled cookie counts: " + directory, e);
+    } finally {
+      directory = null;
+    }
+  }
+
+  /**
+   * Writes the counts held in memory as a run, one record per group and value in order of first occurrence, and
+   * clears them.
+   */
+  private void spill() {
+    try {
+      if (directory == null) {
+        directory = Files.createTempDirectory(parent, "cookie-spill");
+        partitions = new Path[FAN_OUT];
+        writers = new DataOutputStream[FAN_OUT];
+        for (int i = 0; i < FAN_OUT; i++) {
+          partitions[i] = directory.resolve("partition-" + i);
+          writers[i] = writer(partitions[i]);
+        }
+      }
+      // Ranks are ordered by run first, so they follow first occurrence across runs
+      long base = (long) runs << Integer.SIZE;
+      int[] rank = {0};
+      for (int group = 0; group < counters.size(); group++) {
+        int g = group;
+        counters.get(group).forEach((value, count) -> {
+          try {
+            write(writers[partition(value, 0)], g, value, count, base + rank[0]++);
+          } catch (IOException e) {
+            throw new CookieAppException("Error spilling cookie counts to: " + directory, e);
+          }
+        });
+      }
+    } catch (IOException e) {
+      throw new CookieAppException("Error spilling cookie counts to: " + parent, e);
+    }
+    runs++;
+    clearCounters();
+  }
+
+  private void clearCounters() {
+    counters.replaceAll(_ -> new CookieCounter());
+    size = 0;
+  }
+
+  /**
+   * Spills the remaining counts and selects the values of a group with the {@code n} highest counts, with ties, in
+   * two passes over the partitions. The first finds the {@code n}-th highest count overall from the highest counts
+   * of each partition; partitions hold disjoint values, so every value with at least that count is selected. The
+   * second reads only the partitions holding such values. The highest counts of every group are found in the same
+   * first pass, so the other groups only need the second. Only the selected values are materialized.
+   */
+  private List<CookieCount> select(int group, int n) {
+    if (!finished) {
+      if (size > 0) {
+        spill();
+      }
+      finished = true;
+      clearCounters();
+    }
+    try {
+      closeWriters();
+      if (leaves == null) {
+        List<Leaf> collected = new ArrayList<>();
+        for (Path partition : partitions) {
+          collect(partition, 0, n, collected);
+        }
+        leaves = collected;
+        leavesTop = n;
+      } else if (leavesTop != n) {
+        List<Leaf> reloaded = new ArrayList<>();
+        for (Leaf leaf : leaves) {
+          reloaded.add(new Leaf(leaf.file(), load(leaf.file(), -1).topCounts(n)));
+        }
+        leaves = reloaded;
+        leavesTop = n;
+      }
+      int[] highest = leaves.stream().flatMapToInt(leaf -> Arrays.stream(leaf.topCounts(group))).sorted().toArray();
+      if (highest.length == 0) {
+        return List.of();
+      }
+      int threshold = highest[Math.max(highest.length - n, 0)];
+      List<RankedCount> selected = new ArrayList<>();
+      for (Leaf leaf : leaves) {
+        if (leaf.topCounts(group).length > 0 && leaf.topCounts(group)[0] >= threshold) {
+          GroupCounts counts = load(leaf.file(), group).group(group);
+          counts.counter.forEachAtLeast(threshold,
+              (rank, value, count) -> selected.add(new RankedCount(value, count, counts.ranks[rank])));
+        }
+      }
+      selected.sort(Comparator.comparingInt(RankedCount::count).reversed().thenComparingLong(RankedCount::rank));
+      return selected.stream().map(RankedCount::toCookieCount).toList();
+    } catch (IOException e) {
+      throw new CookieAppException("Error reading spilled cookie counts from: " + directory, e);
+    }
+  }
+
+  /**
+   * Aggregates a partition, splitting it while it holds more than {@code budget} distinct values, and records
+   * the highest counts of each group in each resulting leaf partition.
+   */
+  private void collect(Path file, int depth, int n, List<Leaf> leaves) throws IOException {
+    Partition partition = new Partition();
+    boolean complete = read(file, (group, value, count, rank) -> {
+      partition.add(group, value, count, rank);
+      return partition.size <= budget || depth == MAX_DEPTH;
+    });
+    if (complete) {
+      leaves.add(new Leaf(file, partition.topCounts(n)));
+      return;
+    }
+    Path[] parts = new Path[FAN_OUT];
+    DataOutputStream[] partWriters = new DataOutputStream[FAN_OUT];
+    try {
+      for (int i = 0; i < FAN_OUT; i++) {
+        parts[i] = directory.resolve(file.getFileName() + "-" + i);
+        partWriters[i] = writer(parts[i]);
+      }
+      read(file, (group, value, count, rank) -> {
+        write(partWriters[partition(value, depth + 1)], group, value, count, rank);
+        return true;
+      });
+    } finally {
+      for (DataOutputStream partWriter : partWriters) {
+        if (partWriter != null) {
+          partWriter.close();
+        }
+      }
+    }
+    Files.delete(file);
+    for (Path part : parts) {
+      collect(part, depth + 1, n, leaves);
+    }
+  }
+
+  /**
+   * Aggregates a partition file.
+   * @param group the only group to aggregate, or -1 for all groups
+   */
+  private static Partition load(Path file, int group) throws IOException {
+    Partition partition = new Partition();
+    read(file, (recordGroup, value, count, rank) -> {
+      if (group < 0 || recordGroup == group) {
+        partition.add(recordGroup, value, count, rank);
+      }
+      return true;
+    });
+    return partition;
+  }
+
+  /**
+   * Passes the records of a file to the consumer until it returns false.
+   * @return true if all records were consumed
+   */
+  private static boolean read(Path file, RecordConsumer consumer) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE))) {
+      while (true) {
+        int group;
+        try {
+          group = in.readInt();
+        } catch (EOFException e) {
+          return true;
+        }
+        if (!consumer.accept(group, in.readUTF(), in.readInt(), in.readLong())) {
+          return false;
+        }
+      }
+    }
+  }
+
+  private void closeWriters() throws IOException {
+    if (writers == null) {
+      return;
+    }
+    for (DataOutputStream writer : writers) {
+      writer.close();
+    }
+  }
+
+  private static DataOutputStream writer(Path file) throws IOException {
+    return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+  }
+
+  private static void write(DataOutputStream out, int group, String value, int count, long rank) throws IOException {
+    out.writeInt(group);
+    out.writeUTF(value);
+    out.writeInt(count);
+    out.writeLong(rank);
+  }
+
+  /**
+   * Returns the partition of a value at the given depth, taking the next bits of a 64-bit hash at each depth.
+   */
+  static int partition(String value, int depth) {
+    long h = 0xCBF29CE484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      h = (h ^ value.charAt(i)) * 0x100000001B3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    return (int) (h >>> (depth * FAN_OUT_BITS)) & (FAN_OUT - 1);
+  }
+
+  /**
+   * Consumes the records of a spilled file.
+   */
+  private interface RecordConsumer {
+    boolean accept(int group, String value, int count, long rank) throws IOException;
+  }
+
+  /**
+   * The counts of each group in one partition.
+   */
+  private static final class Partition {
+    private final List<GroupCounts> groups = new ArrayList<>();
+    private int size;
+
+    void add(int group, String value, int count, long rank) {
+      GroupCounts counts = group(group);
+      int before = counts.counter.size();
+      counts.add(value, count, rank);
+      size += counts.counter.size() - before;
+    }
+
+    GroupCounts group(int group) {
+      while (groups.size() <= group) {
+        groups.add(new GroupCounts());
+      }
+      return groups.get(group);
+    }
+
+    int[][] topCounts(int n) {
+      int[][] topCounts = new int[groups.size()][];
+      for (int group = 0; group < groups.size(); group++) {
+        topCounts[group] = groups.get(group).counter.topCounts(n);
+      }
+      return topCounts;
+    }
+  }
+
+  /**
+   * The counts of one group in a partition with the rank of each value's first occurrence, in the counter's order.
+   */
+  private static final class GroupCounts {
+    private final CookieCounter counter = new CookieCounter();
+    private long[] ranks = new long[1024];
+
+    void add(String value, int count, long rank) {
+      int size = counter.size();
+      counter.add(value, count);
+      // Records are in rank order, so a value's first record carries its first occurrence
+      if (counter.size() > size) {
+        if (size == ranks.length) {
+          ranks = Arrays.copyOf(ranks, size * 2);
+        }
+        ranks[size] = rank;
+      }
+    }
+  }
+
+  /**
+   * A partition that fits the budget, with the highest counts of each group.
+   */
+  private record Leaf(Path file, int[][] groupTopCounts) {
+    int[] topCounts(int group) {
+      return group < groupTopCounts.length ? groupTopCounts[group] : new int[0];
+    }
+  }
+
+  /**
+   * A value's count with the rank of its first occurrence.
+   */
+  private record RankedCount(String value, int count, long rank) {
+    CookieCount toCookieCount() {
+      return new CookieCount(value, count);
+    }
+  }
+}
@@ -2,6 +2,7 @@ package org.ibrahim.cli;
 
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.Option;
+import org.ibrahim.model.ScanMode;
 
 /**
  * Factory for creating command-line options for the cookie-cutter CLI application.
@@ -10,7 +11,9 @@ import org.apache.commons.cli.Option;
 public class CommandLineOptionsFactory {
     /**
      * Creates the full set of command-line options for the application.
-     * Includes file, date, and help options.
+     * Includes file, date, date range, zone, mode, top, follow, approx, spill, checkpoint, resume, cache, cache
+     * fingerprint, stats, and help options.
+     * A date or a date range is required; this is validated by the parser.
      *
      * @return the configured Options object
      */
@@ -19,7 +22,8 @@ public class CommandLineOptionsFactory {
         options.addOption(
             Option.builder("f")
                 .longOpt("file")
-                .desc("Path to the file to be processed")
+                .desc("Path to the file to be processed; repeat the option or pass a directory or a glob such as"
+                    + " 'logs/*.csv' to process several files concurrently, or - to read standard input")
                 .hasArg()
                 .argName("FILE")
                 .required()
@@ -27,11 +31,172 @@ public class CommandLineOptionsFactory {
         options.addOption(
             Option.builder("d")
                 .longOpt("date")
-                .desc("Date filter to find the most active cookies")
+                .desc("Date filter to find the most active cookies; repeat the option, separate dates with commas"
+                    + " or pass @LISTFILE with one date per line to query several dates in one pass")
                 .hasArg()
                 .argName("DATE")
+                .build());
+        options.addOption(
+            Option.builder()
+                .longOpt("from")
+                .desc("First date of a range of dates to query, in one pass (requires --to)")
+                .hasArg()
+                .argName("DATE")
+                .build());
+        options.addOption(
+            Option.builder()
+                .longOpt("to")
+                .desc("Last date (inclusive) of a range of dates to query (requires --from)")
+                .hasArg()
+                .argName("DATE")
+                .build());
+        options.addOption(
+            Option.builder("z")
+                .longOpt("zone")
+                .desc("Time zone whose calendar days the dates denote, e.g. Europe/Berlin or +02:00 (default: UTC)")
+                .hasArg()
+                .argName("ZONE")
+                .build());
+        options.addOption(
+            Option.builder("m")
+                .longOpt("mode")
+                .desc("Scan mode: " + ScanMode.names() + " (default: stream)")
+                .hasArg()
+                .argName("MODE")
+                .build());
+        options.addOption(
+            Option.builder("t")
+                .longOpt("top")
+                .desc("Report the N most active cookies with their counts, including ties with the last of them")
+                .hasArg()
+                .argName("N")
+                .build());
+        options.addOption(
+            Option.builder()
+                .longOpt("follow")
+                .desc("Keep following the growing file and report the most active cookies whenever they change")
+                .build());
+        options.addOption(
+            Option.builder()
+                .longOpt("approx")
+                .desc("Estimate the most active cookies with at most K counters per date, in bounded memory;"
+                    + " counts are reported with their error bounds")
+                .hasArg()
+                .argName("K")
+                .build());
+        options.addOption(
+            Option.builder()
+                .longOpt("spill")
+                .desc("Count at most N distinct cookies in memory and spill partial counts to temporary"
+                    + " files beyond that; results stay exact")
+                .hasArg()
+                .argName("N")
+                .build());
+        options.addOption(
+            Option.builder()
+                .longOpt("checkpoint")
+                .desc("Save the offset reached and the partial counts to FILE about every gigabyte and before an"
+                    + " invalid line; the file is deleted once the scan completes")
+                .hasArg()
+                .argName("FILE")
+                .build());
+        options.addOption(
+            Option.builder()
+                .longOpt("resume")
+                .desc("Resume the scan from the --checkpoint file if it exists; the result is the same as that of"
+                    + " an uninterrupted scan")
+                .build());
+        options.addOption(
+            Option.builder()
+                .longOpt("cache")
+                .desc("Print the cached result of a query already run on unchanged files without reading them, and"
+                    + " cache new results, in DIR (default: ~/.cache/cookie-cutter)")
+                .hasArg()
+                .optionalArg(true)
+                .argName("DIR")
+                .build());
+        options.addOption(
+            Option.builder()
+                .longOpt("cache-fingerprint")
+                .desc("Also key cached results by a checksum of the start and end of each file, to detect files"
+                    + " rewritten with the same size and time")
+                .build());
+        options.addOption(
+            Option.builder()
+                .longOpt("stats")
+                .desc("Report bytes and lines read, throughput, time per phase, distinct cookies, peak heap and"
+                    + " allocations on standard error, as text or json (default: text)")
+                .hasArg()
+                .optionalArg(true)
+                .argName("FORMAT")
+                .build());
+        options.addOption("?", "help", false, "Display help information");
+        return options;
+    }
+
+    /**
+     * Creates the options of the {@code compile} subcommand.
+     * Includes input file, output file, and help options.
+     *
+     * @return the configured Options object
+     */
+    public static Options createCompileOptions() {
+        Options options = new Options();
+        options.addOption(
+            Option.builder("f")
+                .longOpt("file")
+                .desc("Path to the CSV file to be compiled")
+                .hasArg()
+                .argName("FILE")
                 .required()
                 .build());
+        options.addOption(
+            Option.builder("o")
+                .longOpt("output")
+                .desc("Path of the columnar file to write (default: FILE with a .ccol extension)")
+                .hasArg()
+                .argName("OUTPUT")
+                .build());
+        options.addOption("?", "help", false, "Display help information");
+        return options;
+    }
+
+    /**
+     * Creates the options of the {@code serve} subcommand.
+     * Includes host, port, cache size, root directory, and help options.
+     *
+     * @return the configured Options object
+     */
+    public static Options createServeOptions() {
+        Options options = new Options();
+        options.addOption(
+            Option.builder()
+                .longOpt("host")
+                .desc("Address to listen on (default: 127.0.0.1)")
+                .hasArg()
+                .argName("HOST")
+                .build());
+        options.addOption(
+            Option.builder("p")
+                .longOpt("port")
+                .desc("Port to listen on, or 0 for any free port (default: 8080)")
+                .hasArg()
+                .argName("PORT")
+                .build());
+        options.addOption(
+            Option.builder("c")
+                .longOpt("cache-days")
+                .desc("Maximum number of per-day cookie counts kept in memory (default: 1024)")
+                .hasArg()
+                .argName("N")
+                .build());
+        options.addOption(
+            Option.builder("r")
+                .longOpt("root")
+                .desc("Directory that queried files are resolved against; other files are refused (default: .)")
+                .hasArg()
+                .argName("DIR")
+                .build());
         options.addOption("?", "help", false, "Display help information");
         return options;
     }
@@ -2,20 +2,43 @@ package org.ibrahim.cli;
 
 import org.apache.commons.cli.*;
 import org.ibrahim.exception.CookieArgumentException;
+import org.ibrahim.io.ColumnarCookieFile;
+import org.ibrahim.io.FileUtils;
+import org.ibrahim.io.ResultCache;
+import org.ibrahim.model.CompileArgs;
 import org.ibrahim.model.FilterArgs;
+import org.ibrahim.model.ServeArgs;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 /**
  * CommandParser is responsible for parsing and validating command-line arguments
  * for the cookie-cutter application. It handles the help option separately to provide
  * user-friendly help output and throws specific exceptions for invalid arguments.
+ * Arguments starting with the {@value #COMPILE_COMMAND} or {@value #SERVE_COMMAND} subcommand are parsed with the
+ * subcommand's own options.
+ * The file option may be repeated and name a directory or a glob pattern to read several files.
+ * The date option may be repeated, hold a comma-separated list, or name a list file prefixed with
+ * {@value #LIST_FILE_PREFIX}.
  */
 public class CommandParser {
+    public static final String COMPILE_COMMAND = "compile";
+    public static final String SERVE_COMMAND = "serve";
+    public static final String LIST_FILE_PREFIX = "@";
+    private static final String COMPILE_COMMAND_LINE_SYNTAX = "cookie-cutter compile -f FILENAME [-o OUTPUT]";
+    private static final String SERVE_COMMAND_LINE_SYNTAX = "cookie-cutter serve [-p PORT] [--host HOST] [-c N] [-r DIR]";
     private static final Logger logger = LoggerFactory.getLogger(CommandParser.class);
     private final Options options = CommandLineOptionsFactory.createOptions();
+    private final Options compileOptions = CommandLineOptionsFactory.createCompileOptions();
+    private final Options serveOptions = CommandLineOptionsFactory.createServeOptions();
     private final HelpPrinter helpPrinter;
 
     /**
@@ -34,6 +57,93 @@ public class CommandParser {
         helpPrinter.printHelp(options);
     }
 
+    /**
+     * Checks whether the arguments invoke the {@value #COMPILE_COMMAND} subcommand.
+     * @param args the command-line arguments
+     * @return true if the first argument is the subcommand name
+     */
+    public boolean isCompileCommand(String[] args) {
+        return args.length > 0 && COMPILE_COMMAND.equals(args[0]);
+    }
+
+    /**
+     * Parses the arguments of the {@value #COMPILE_COMMAND} subcommand. If help is requested, prints help and
+     * returns empty. The output defaults to the input path with a {@code .ccol} extension.
+     *
+     * @param args command-line arguments, starting with the subcommand name
+     * @return Optional CompileArgs if valid, or empty if help was requested
+     * @throws CookieArgumentException if arguments are invalid
+     */
+    public Optional<CompileArgs> parseCompileArgs(String[] args) {
+        logger.info("Parsing compile arguments");
+        String[] commandArgs = Arrays.copyOfRange(args, 1, args.length);
+        if (isHelpRequested(commandArgs)) {
+            helpPrinter.printHelp(COMPILE_COMMAND_LINE_SYNTAX, compileOptions);
+            return Optional.empty();
+        }
+        try {
+            CommandLine cmd = new DefaultParser().parse(compileOptions, commandArgs);
+            CompileArgs compileArgs = new CompileArgs();
+            compileArgs.setInput(cmd.getOptionValue("f"));
+            compileArgs.setOutput(cmd.getOptionValue("o", CompileArgs.defaultOutput(compileArgs.getInput())));
+            logger.debug("Parsed compile arguments: input={}, output={}", compileArgs.getInput(), compileArgs.getOutput());
+            return Optional.of(compileArgs);
+        } catch (ParseException e) {
+            logger.error("Invalid compile arguments", e);
+            helpPrinter.printHelp(COMPILE_COMMAND_LINE_SYNTAX, compileOptions);
+            throw new CookieArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Checks whether the arguments invoke the {@value #SERVE_COMMAND} subcommand.
+     * @param args the command-line arguments
+     * @return true if the first argument is the subcommand name
+     */
+    public boolean isServeCommand(String[] args) {
+        return args.length > 0 && SERVE_COMMAND.equals(args[0]);
+    }
+
+    /**
+     * Parses the arguments of the {@value #SERVE_COMMAND} subcommand. If help is requested, prints help and
+     * returns empty. Options that are not given keep the defaults of {@link ServeArgs}.
+     *
+     * @param args command-line arguments, starting with the subcommand name
+     * @return Optional ServeArgs if valid, or empty if help was requested
+     * @throws CookieArgumentException if arguments are invalid
+     */
+    public Optional<ServeArgs> parseServeArgs(String[] args) {
+        logger.info("Parsing serve arguments");
+        String[] commandArgs = Arrays.copyOfRange(args, 1, args.length);
+        if (isHelpRequested(commandArgs)) {
+            helpPrinter.printHelp(SERVE_COMMAND_LINE_SYNTAX, serveOptions);
+            return Optional.empty();
+        }
+        try {
+            CommandLine cmd = new DefaultParser().parse(serveOptions, commandArgs);
+            ServeArgs serveArgs = new ServeArgs();
+            if (cmd.hasOption("host")) {
+                serveArgs.setHost(cmd.getOptionValue("host"));
+            }
+            if (cmd.hasOption("p")) {
+                serveArgs.setPort(cmd.getOptionValue("p"));
+            }
+            if (cmd.hasOption("c")) {
+                serveArgs.setCacheDays(cmd.getOptionValue("c"));
+            }
+            if (cmd.hasOption("r")) {
+                serveArgs.setRoot(cmd.getOptionValue("r"));
+            }
+            logger.debug("Parsed serve arguments: host={}, port={}, cacheDays={}, root={}", serveArgs.getHost(),
+                serveArgs.getPort(), serveArgs.getCacheDays(), serveArgs.getRoot());
+            return Optional.of(serveArgs);
+        } catch (ParseException | IllegalArgumentException e) {
+            logger.error("Invalid serve arguments", e);
+            helpPrinter.printHelp(SERVE_COMMAND_LINE_SYNTAX, serveOptions);
+            throw new CookieArgumentException(e.getMessage(), e);
+        }
+    }
+
     /**
      * Checks if the help option is present in the command-line arguments.
      * @param args the command-line arguments
@@ -49,6 +159,56 @@ public class CommandParser {
         }
     }
 
+    /**
+     * Adds the dates of a date option value: a comma-separated list of dates, or a list file with one date
+     * per line. Blank lines and lines starting with {@code #} in a list file are skipped.
+     * @param filterArgs the arguments to add the dates to
+     * @param value the option value
+     * @throws IllegalArgumentException if a date is invalid or the list file cannot be read
+     */
+    private void addDates(FilterArgs filterArgs, String value) {
+        if (value.startsWith(LIST_FILE_PREFIX)) {
+            String listFile = value.substring(LIST_FILE_PREFIX.length());
+            List<String> lines;
+            try {
+                lines = Files.readAllLines(Path.of(listFile));
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Cannot read date list file: " + listFile, e);
+            }
+            lines.stream()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .forEach(filterArgs::addDate);
+            return;
+        }
+        Arrays.stream(value.split(","))
+            .filter(date -> !date.isBlank())
+            .forEach(filterArgs::addDate);
+    }
+
+    /**
+     * Adds the files of a file option value: a file, a directory of logs, a glob pattern, or {@code -} for
+     * standard input.
+     * @param filterArgs the arguments to add the files to
+     * @param value the option value
+     * @throws IllegalArgumentException if a directory or pattern matches no file or cannot be listed
+     * @see FileUtils#expand(String)
+     */
+    private void addFiles(FilterArgs filterArgs, String value) {
+        List<String> files;
+        try {
+            files = FileUtils.expand(value);
+        } catch (IOException | InvalidPathException e) {
+            throw new IllegalArgumentException("Cannot list files: " + value, e);
+        }
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No log files found: " + value);
+        }
+        files.stream()
+            .filter(file -> !filterArgs.getFiles().contains(file))
+            .forEach(filterArgs.getFiles()::add);
+    }
+
     /**
      * Parses the command-line arguments. If help is requested, prints help and returns empty.
      *
@@ -65,9 +225,99 @@ public class CommandParser {
         try {
             CommandLine cmd = new DefaultParser().parse(options, args);
             FilterArgs filterArgs = new FilterArgs();
-            filterArgs.setFilename(cmd.getOptionValue("f"));
-            filterArgs.setDate(cmd.getOptionValue("d"));
-            logger.debug("Parsed arguments: filename={}, date={}", filterArgs.getFilename(), filterArgs.getDate());
+            for (String value : cmd.getOptionValues("f")) {
+                addFiles(filterArgs, value);
+            }
+            if (cmd.hasOption("d")) {
+                for (String value : cmd.getOptionValues("d")) {
+                    addDates(filterArgs, value);
+                }
+            }
+            if (cmd.hasOption("from") != cmd.hasOption("to")) {
+                throw new IllegalArgumentException("Both --from and --to are required for a date range");
+            }
+            if (cmd.hasOption("from")) {
+                filterArgs.addDateRange(cmd.getOptionValue("from"), cmd.getOptionValue("to"));
+            }
+            if (filterArgs.getDates().isEmpty()) {
+                throw new IllegalArgumentException("A date (-d) or a date range (--from and --to) is required");
+            }
+            if (cmd.hasOption("z")) {
+                filterArgs.setZone(cmd.getOptionValue("z"));
+            }
+            if (cmd.hasOption("m")) {
+                filterArgs.setMode(cmd.getOptionValue("m"));
+            }
+            if (cmd.hasOption("t")) {
+                filterArgs.setTop(cmd.getOptionValue("t"));
+            }
+            filterArgs.setFollow(cmd.hasOption("follow"));
+            if (filterArgs.isFollow() && filterArgs.getFiles().size() > 1) {
+                throw new IllegalArgumentException("--follow requires a single file");
+            }
+            if (filterArgs.isFollow() && FileUtils.isStandardInput(filterArgs.getFilename())) {
+                throw new IllegalArgumentException("--follow cannot read standard input");
+            }
+            if (cmd.hasOption("approx")) {
+                filterArgs.setApprox(cmd.getOptionValue("approx"));
+                if (filterArgs.isFollow()) {
+                    throw new IllegalArgumentException("--approx cannot be combined with --follow");
+                }
+                if (filterArgs.getFiles().stream().anyMatch(ColumnarCookieFile::isColumnar)) {
+                    throw new IllegalArgumentException("--approx reads CSV files only");
+                }
+            }
+            if (cmd.hasOption("spill")) {
+                filterArgs.setSpill(cmd.getOptionValue("spill"));
+                if (filterArgs.isFollow() || filterArgs.getApprox() != null) {
+                    throw new IllegalArgumentException("--spill cannot be combined with --follow or --approx");
+                }
+                if (filterArgs.getFiles().stream().anyMatch(ColumnarCookieFile::isColumnar)) {
+                    throw new IllegalArgumentException("--spill reads CSV files only");
+                }
+            }
+            if (cmd.hasOption("checkpoint")) {
+                filterArgs.setCheckpoint(cmd.getOptionValue("checkpoint"));
+                if (filterArgs.isFollow() || filterArgs.getApprox() != null || filterArgs.getSpill() != null) {
+                    throw new IllegalArgumentException("--checkpoint cannot be combined with --follow, --approx or --spill");
+                }
+                if (filterArgs.getFiles().size() > 1) {
+                    throw new IllegalArgumentException("--checkpoint requires a single file");
+                }
+                if (ColumnarCookieFile.isColumnar(filterArgs.getFilename())
+                    || !FileUtils.isSeekable(filterArgs.getFilename())) {
+                    throw new IllegalArgumentException("--checkpoint reads uncompressed CSV files only");
+                }
+            }
+            filterArgs.setResume(cmd.hasOption("resume"));
+            if (filterArgs.isResume() && filterArgs.getCheckpoint() == null) {
+                throw new IllegalArgumentException("--resume requires --checkpoint");
+            }
+            if (cmd.hasOption("cache")) {
+                filterArgs.setCache(cmd.getOptionValue("cache", ResultCache.DEFAULT_DIRECTORY.toString()));
+                if (filterArgs.isFollow() || filterArgs.getApprox() != null) {
+                    throw new IllegalArgumentException("--cache cannot be combined with --follow or --approx");
+                }
+                if (filterArgs.getFiles().stream().anyMatch(FileUtils::isStandardInput)) {
+                    throw new IllegalArgumentException("--cache cannot read standard input");
+                }
+            }
+            filterArgs.setCacheFingerprint(cmd.hasOption("cache-fingerprint"));
+            if (filterArgs.isCacheFingerprint() && filterArgs.getCache() == null) {
+                throw new IllegalArgumentException("--cache-fingerprint requires --cache");
+            }
+            if (cmd.hasOption("stats")) {
+                filterArgs.setStats(cmd.getOptionValue("stats", "text"));
+                if (filterArgs.isFollow()) {
+                    throw new IllegalArgumentException("--stats cannot be combined with --follow");
+                }
+            }
+            logger.debug("Parsed arguments: files={}, dates={}, zone={}, mode={}, top={}, follow={}, approx={}, spill={}, "
+                    + "checkpoint={}, resume={}, cache={}, cacheFingerprint={}, stats={}",
+                filterArgs.getFiles(), filterArgs.getDates(), filterArgs.getZone(), filterArgs.getMode(),
+                filterArgs.getTop(), filterArgs.isFollow(), filterArgs.getApprox(),
+                filterArgs.getSpill(), filterArgs.getCheckpoint(), filterArgs.isResume(),
+                filterArgs.getCache(), filterArgs.isCacheFingerprint(), filterArgs.getStats());
             return Optional.of(filterArgs);
         } catch (ParseException | IllegalArgumentException e) {
             logger.error("Invalid command-line arguments", e);
@@ -4,5 +4,7 @@ import org.apache.commons.cli.Options;
 
 public interface HelpPrinter {
     void printHelp(Options options);
+
+    void printHelp(String commandLineSyntax, Options options);
 }
 
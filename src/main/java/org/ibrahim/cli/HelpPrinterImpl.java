@@ -16,7 +16,7 @@ import org.slf4j.LoggerFactory;
  * </code></pre>
  */
 public class HelpPrinterImpl implements HelpPrinter {
-    String COMMAND_LINE_SYNTAX = "cookie-cutter -d DATE -f FILENAME";
+    String COMMAND_LINE_SYNTAX = "cookie-cutter -f FILENAME (-d DATE | --from DATE --to DATE)";
     private final HelpFormatter helpFormatter;
     private  final Logger logger = LoggerFactory.getLogger(HelpPrinterImpl.class);
 
@@ -35,4 +35,14 @@ public class HelpPrinterImpl implements HelpPrinter {
         logger.info("Parsing help options and printing help message");
         helpFormatter.printHelp(COMMAND_LINE_SYNTAX, options);
     }
+
+    /**
+     * Prints the help message for a subcommand with the given syntax and options.
+     * @param commandLineSyntax the usage line of the subcommand
+     * @param options the CLI options to display in the help message
+     */
+    public void printHelp(String commandLineSyntax, Options options) {
+        logger.info("Printing help message for: {}", commandLineSyntax);
+        helpFormatter.printHelp(commandLineSyntax, options);
+    }
 }
@@ -0,0 +1,410 @@
+package org.ibrahim.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+/**
+ * Reads and writes cookie logs compiled into a dictionary-encoded, columnar binary file.
+ * <p>
+ * Each distinct cookie value is stored once in a dictionary and records refer to it by an {@code int} ID,
+ * assigned in order of first occurrence. A table of each value's offset follows the dictionary, so a value is
+ * looked up by ID without decoding the others. Records are grouped into blocks; a block holds a column of IDs
+ * followed by a column of timestamps, encoded as zig-zag varint deltas of epoch seconds. A directory at the
+ * end of the file lists every block with its smallest and largest timestamp, so scans skip blocks outside
+ * the requested time range and count the IDs of blocks entirely inside it without decoding timestamps.
+ * Timestamps are stored in UTC with whole-second precision; the original zone offsets are not kept.
+ * All numbers are little-endian.</p>
+ * <b>Usage Example:</b>
+ * <pre><code>
+ * try (ColumnarCookieFile file = ColumnarCookieFile.open("cookie_log.ccol")) {
+ *   file.scan(dayStart, dayStart + TimestampDecoder.SECONDS_PER_DAY, id -&gt; counts[id]++);
+ *   String mostActive = file.value(mostActiveId);
+ * }
+ * </code></pre>
+ */
+public class ColumnarCookieFile implements AutoCloseable {
+  /** The file extension of columnar cookie files. */
+  public static final String EXTENSION = ".ccol";
+  private static final int MAGIC = 0x4C4F4343; // "CCOL"
+  private static final int VERSION = 2;
+  private static final int HEADER_LENGTH = 8;
+  /** Dictionary offset, dictionary table offset, dictionary size, directory offset, block count and magic. */
+  private static final int FOOTER_LENGTH = 8 + 8 + 4 + 8 + 4 + 4;
+  /** Block offset, record count, first, smallest and largest epoch second. */
+  private static final int DIRECTORY_ENTRY_LENGTH = 8 + 4 + 8 + 8 + 8;
+  private static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+  private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+  private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+  /**
+   * Functional interface for processing a record of a columnar file.
+   */
+  @FunctionalInterface
+  public interface RecordProcessor {
+    void process(int cookieId, long epochSecond);
+  }
+
+  private final Arena arena;
+  private final MemorySegment segment;
+  private final long dictionaryOffset;
+  private final long dictionaryTableOffset;
+  private final int dictionarySize;
+  private final long directoryOffset;
+  private final int blockCount;
+
+  private ColumnarCookieFile(Arena arena, MemorySegment segment, String filename) throws IOException {
+    this.arena = arena;
+    this.segment = segment;
+    long size = segment.byteSize();
+    if (size < HEADER_LENGTH + FOOTER_LENGTH || segment.get(INT, 0) != MAGIC || segment.get(INT, size - 4) != MAGIC) {
+      throw new IOException("Not a columnar cookie file: " + filename);
+    }
+    if (segment.get(INT, 4) != VERSION) {
+      throw new IOException("Unsupported columnar cookie file version " + segment.get(INT, 4)
+          + ", compile the log again: " + filename);
+    }
+    long footer = size - FOOTER_LENGTH;
+    this.dictionaryOffset = segment.get(LONG, footer);
+    this.dictionaryTableOffset = segment.get(LONG, footer + 8);
+    this.dictionarySize = segment.get(INT, footer + 16);
+    this.directoryOffset = segment.get(LONG, footer + 20);
+    this.blockCount = segment.get(INT, footer + 28);
+    if (dictionaryOffset < HEADER_LENGTH || dictionaryTableOffset < dictionaryOffset || dictionarySize < 0
+        || dictionaryTableOffset + 8L * dictionarySize != directoryOffset || blockCount < 0
+        || directoryOffset + (long) blockCount * DIRECTORY_ENTRY_LENGTH != footer) {
+      throw new IOException("Corrupt columnar cookie file: " + filename);
+    }
+  }
+
+  /**
+   * Checks whether the file is a columnar cookie file, judging by its extension.
+   * @param filename the path to the file
+   * @return true if the file name ends in {@value #EXTENSION}
+   */
+  public static boolean isColumnar(String filename) {
+    return filename.endsWith(EXTENSION);
+  }
+
+  /**
+   * Maps a columnar cookie file for reading.
+   * @param filename the path to the file
+   * @return the opened file, to be closed by the caller
+   * @throws IOException if the file does not exist, cannot be mapped or is not a columnar cookie file
+   */
+  public static ColumnarCookieFile open(String filename) throws IOException {
+    Arena arena = Arena.ofConfined();
+    try {
+      return new ColumnarCookieFile(arena, MappedCookieScanner.map(filename, arena), filename);
+    } catch (IOException | RuntimeException e) {
+      arena.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the number of records in the file.
+   * @return the record count
+   */
+  public long recordCount() {
+    long count = 0;
+    for (int i = 0; i < blockCount; i++) {
+      count += segment.get(INT, directoryOffset + (long) i * DIRECTORY_ENTRY_LENGTH + 8);
+    }
+    return count;
+  }
+
+  /**
+   * Returns the number of distinct cookie values in the dictionary.
+   * @return the dictionary size
+   */
+  public int dictionarySize() {
+    return dictionarySize;
+  }
+
+  /**
+   * Decodes the cookie value with the given ID, looking up its offset in the dictionary table.
+   * @param id the dictionary ID
+   * @return the cookie value
+   * @throws IndexOutOfBoundsException if the ID is not in the dictionary
+   */
+  public String value(int id) {
+    Objects.checkIndex(id, dictionarySize);
+    long position = segment.get(LONG, dictionaryTableOffset + 8L * id);
+    long length = 0;
+    int shift = 0;
+    byte next;
+    do {
+      next = segment.get(ValueLayout.JAVA_BYTE, position++);
+      length |= (long) (next & 0x7F) << shift;
+      shift += 7;
+    } while (next < 0);
+    return MappedCookieScanner.toString(segment, position, (int) length);
+  }
+
+  /**
+   * Decodes the whole dictionary of cookie values. Queries should look up the values they need with
+   * {@link #value(int)} instead.
+   * @return the cookie values, indexed by ID
+   */
+  public List<String> dictionary() {
+    String[] values = new String[dictionarySize];
+    for (int id = 0; id < dictionarySize; id++) {
+      values[id] = value(id);
+    }
+    return Arrays.asList(values);
+  }
+
+  /**
+   * Passes the cookie ID of every record with a timestamp in the half-open range to the processor, in file order.
+   * @param fromEpochSecond the first epoch second of the range
+   * @param toEpochSecond the epoch second following the range
+   * @param processor the consumer of cookie IDs
+   */
+  public void scan(long fromEpochSecond, long toEpochSecond, IntConsumer processor) {
+    for (int i = 0; i < blockCount; i++) {
+      long entry = directoryOffset + (long) i * DIRECTORY_ENTRY_LENGTH;
+      long offset = segment.get(LONG, entry);
+      int recordCount = segment.get(INT, entry + 8);
+      long first = segment.get(LONG, entry + 12);
+      long min = segment.get(LONG, entry + 20);
+      long max = segment.get(LONG, entry + 28);
+      if (max < fromEpochSecond || min >= toEpochSecond) {
+        continue;
+      }
+      if (min >= fromEpochSecond && max < toEpochSecond) {
+        for (int j = 0; j < recordCount; j++) {
+          processor.accept(segment.get(INT, offset + 4L * j));
+        }
+        continue;
+      }
+      scanBlock(offset, recordCount, first, fromEpochSecond, toEpochSecond,
+          (cookieId, _) -> processor.accept(cookieId));
+    }
+  }
+
+  /**
+   * Passes the cookie ID and timestamp of every record with a timestamp in the half-open range to the
+   * processor, in file order. Unlike {@link #scan(long, long, IntConsumer)}, timestamps are decoded for every
+   * block in the range.
+   * @param fromEpochSecond the first epoch second of the range
+   * @param toEpochSecond the epoch second following the range
+   * @param processor the processor of each record
+   */
+  public void scan(long fromEpochSecond, long toEpochSecond, RecordProcessor processor) {
+    for (int i = 0; i < blockCount; i++) {
+      long entry = directoryOffset + (long) i * DIRECTORY_ENTRY_LENGTH;
+      long min = segment.get(LONG, entry + 20);
+      long max = segment.get(LONG, entry + 28);
+      if (max >= fromEpochSecond && min < toEpochSecond) {
+        scanBlock(segment.get(LONG, entry), segment.get(INT, entry + 8), segment.get(LONG, entry + 12),
+            fromEpochSecond, toEpochSecond, processor);
+      }
+    }
+  }
+
+  /**
+   * Decodes the timestamps of a block and passes the records in the range to the processor.
+   */
+  private void scanBlock(long offset, int recordCount, long first, long fromEpochSecond, long toEpochSecond,
+                         RecordProcessor processor) {
+    long position = offset + 4L * recordCount;
+    long epochSecond = first;
+    for (int j = 0; j < recordCount; j++) {
+      long zigzag = 0;
+      int shift = 0;
+      byte next;
+      do {
+        next = segment.get(ValueLayout.JAVA_BYTE, position++);
+        zigzag |= (long) (next & 0x7F) << shift;
+        shift += 7;
+      } while (next < 0);
+      epochSecond += (zigzag >>> 1) ^ -(zigzag & 1);
+      if (epochSecond >= fromEpochSecond && epochSecond < toEpochSecond) {
+        processor.process(segment.get(INT, offset + 4L * j), epochSecond);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    arena.close();
+  }
+
+  /**
+   * Writes records to a new columnar cookie file.
+   * <p>
+   * Records are buffered one block at a time and written as each block fills up; the dictionary, its offset
+   * table and the block directory are kept in memory and written when the writer is closed.</p>
+   */
+  public static class Writer implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int MAX_VARINT_LENGTH = 10;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+    private final List<long[]> directory = new ArrayList<>();
+    private final int[] blockIds;
+    private final long[] blockSeconds;
+    private int blockLength;
+    private long position;
+    private boolean closed;
+
+    /**
+     * Creates or truncates the output file.
+     * @param output the path of the file to write
+     * @throws IOException if the file cannot be created
+     */
+    public Writer(Path output) throws IOException {
+      this(output, DEFAULT_BLOCK_SIZE);
+    }
+
+    Writer(Path output, int blockSize) throws IOException {
+      this.channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING);
+      this.blockIds = new int[blockSize];
+      this.blockSeconds = new long[blockSize];
+      ensure(HEADER_LENGTH);
+      buffer.putInt(MAGIC).putInt(VERSION);
+    }
+
+    /**
+     * Appends a record.
+     * @param value the cookie value
+     * @param epochSecond the record's timestamp in seconds since the epoch
+     * @throws IOException if a full block cannot be written
+     */
+    public void add(String value, long epochSecond) throws IOException {
+      Integer id = ids.get(value);
+      if (id == null) {
+        id = values.size();
+        values.add(value);
+        ids.put(value, id);
+      }
+      blockIds[blockLength] = id;
+      blockSeconds[blockLength] = epochSecond;
+      if (++blockLength == blockIds.length) {
+        writeBlock();
+      }
+    }
+
+    /**
+     * Returns the number of distinct cookie values added so far.
+     * @return the dictionary size
+     */
+    public int dictionarySize() {
+      return values.size();
+    }
+
+    /**
+     * Writes the last block, the dictionary, the directory and the footer, and closes the file.
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      try (channel) {
+        writeBlock();
+        long dictionaryOffset = offset();
+        long[] valueOffsets = new long[values.size()];
+        for (int id = 0; id < values.size(); id++) {
+          valueOffsets[id] = offset();
+          byte[] bytes = values.get(id).getBytes(StandardCharsets.UTF_8);
+          ensure(MAX_VARINT_LENGTH);
+          putVarint(bytes.length);
+          for (int i = 0; i < bytes.length; i += BUFFER_SIZE) {
+            int length = Math.min(BUFFER_SIZE, bytes.length - i);
+            ensure(length);
+            buffer.put(bytes, i, length);
+          }
+        }
+        long dictionaryTableOffset = offset();
+        for (long valueOffset : valueOffsets) {
+          ensure(8);
+          buffer.putLong(valueOffset);
+        }
+        long directoryOffset = offset();
+        for (long[] entry : directory) {
+          ensure(DIRECTORY_ENTRY_LENGTH);
+          buffer.putLong(entry[0]).putInt((int) entry[1]).putLong(entry[2]).putLong(entry[3]).putLong(entry[4]);
+        }
+        ensure(FOOTER_LENGTH);
+        buffer.putLong(dictionaryOffset).putLong(dictionaryTableOffset).putInt(values.size()).putLong(directoryOffset)
+            .putInt(directory.size()).putInt(MAGIC);
+        flush();
+      }
+    }
+
+    private void writeBlock() throws IOException {
+      if (blockLength == 0) {
+        return;
+      }
+      long first = blockSeconds[0];
+      long min = first;
+      long max = first;
+      long offset = offset();
+      for (int i = 0; i < blockLength; i++) {
+        ensure(4);
+        buffer.putInt(blockIds[i]);
+      }
+      long previous = first;
+      for (int i = 0; i < blockLength; i++) {
+        long epochSecond = blockSeconds[i];
+        long delta = epochSecond - previous;
+        ensure(MAX_VARINT_LENGTH);
+        putVarint((delta << 1) ^ (delta >> 63));
+        previous = epochSecond;
+        min = Math.min(min, epochSecond);
+        max = Math.max(max, epochSecond);
+      }
+      directory.add(new long[]{offset, blockLength, first, min, max});
+      blockLength = 0;
+    }
+
+    private void putVarint(long value) {
+      while ((value & ~0x7FL) != 0) {
+        buffer.put((byte) ((value & 0x7F) | 0x80));
+        value >>>= 7;
+      }
+      buffer.put((byte) value);
+    }
+
+    private long offset() {
+      return position + buffer.position();
+    }
+
+    private void ensure(int bytes) throws IOException {
+      if (buffer.remaining() < bytes) {
+        flush();
+      }
+    }
+
+    private void flush() throws IOException {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        position += channel.write(buffer);
+      }
+      buffer.clear();
+    }
+  }
+}
@@ -2,21 +2,40 @@ package org.ibrahim.io;
 
 import org.ibrahim.exception.CookieParseException;
 import org.ibrahim.model.Cookie;
+import org.ibrahim.stats.RecordTimer;
+import org.ibrahim.stats.RunStatistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * Parses cookies from a CSV file and provides various methods for processing them.
  * <p>
  * Supports streaming, chunked, and parallel processing. Handles file errors and parsing errors
- * with custom exceptions. Uses SLF4J for logging.</p>
+ * with custom exceptions. Uses SLF4J for logging. Once the {@link RunStatistics} passed to the constructor are
+ * started, the bytes and records read and the time spent reading, parsing and processing them are measured.</p>
  * <b>Usage Example:</b>
  * <pre><code>
  * CookieParser parser = new CookieParser();
@@ -25,7 +44,25 @@ import java.util.stream.Collectors;
  */
 public class CookieParser {
   private static final int CHUNK_SIZE = 3; // lines per chunk
+  private static final int TAIL_BUFFER_SIZE = 64 * 1024;
+  private static final int CHECKPOINTED_BUFFER_SIZE = 1 << 20;
   private static final Logger logger = LoggerFactory.getLogger(CookieParser.class);
+  private final RunStatistics statistics;
+
+  /**
+   * Constructs a parser that measures nothing.
+   */
+  public CookieParser() {
+    this(new RunStatistics());
+  }
+
+  /**
+   * Constructs a parser that measures its reads once the statistics are started.
+   * @param statistics the statistics to add the reads to
+   */
+  public CookieParser(RunStatistics statistics) {
+    this.statistics = statistics;
+  }
 
   /**
    * Parses all cookies from the specified CSV file.
@@ -82,18 +119,440 @@ public class CookieParser {
    */
   public void parseEach(String filename, Consumer<Cookie> processor) {
     logger.info("Parsing each cookie from file: {}", filename);
+    RecordTimer timer = statistics.timer();
+    FileUtils.LineProcessor lineProcessor = line -> {
+      Cookie cookie = parseLine(line);
+      timer.parsed();
+      logger.trace("Processing cookie: {}", cookie);
+      processor.accept(cookie);
+      timer.counted();
+    };
     try {
-      FileUtils.processLines(filename, true, line -> {
-        Cookie cookie = parseLine(line);
-        logger.trace("Processing cookie: {}", cookie);
-        processor.accept(cookie);
-      });
+      if (!statistics.isEnabled()) {
+        FileUtils.processLines(filename, true, lineProcessor);
+        return;
+      }
+      try (InputStream in = statistics.track(FileUtils.openInputStream(filename), timer)) {
+        FileUtils.processLines(in, true, lineProcessor);
+      }
+      timer.finish();
+    } catch (IOException e) {
+      logger.error("Error reading file: {}", filename, e);
+      throw new CookieParseException("Error reading file: " + filename, e);
+    }
+  }
+
+  /**
+   * Scans the file through a memory mapping, passing the cookie and timestamp slices of each record
+   * to the processor without materializing Strings.
+   * @param filename the path to the CSV file
+   * @param processor a processor for each record's slices
+   * @throws CookieParseException if the file cannot be read or a line has the wrong number of columns
+   */
+  public void scanMapped(String filename, MappedCookieScanner.RecordProcessor processor) {
+    logger.info("Scanning mapped file: {}", filename);
+    try {
+      if (statistics.isEnabled()) {
+        statistics.addBytes(Files.size(Path.of(filename)));
+      }
+      MappedCookieScanner.scan(filename, true, timed(processor));
+    } catch (IOException e) {
+      logger.error("Error reading file: {}", filename, e);
+      throw new CookieParseException("Error reading file: " + filename, e);
+    }
+  }
+
+  /**
+   * Scans only the records between the given dates in a time-sorted (ascending or descending) file.
+   * The dates' block is located by binary search over the memory-mapped bytes, so only that block and a
+   * logarithmic number of probed lines are read.
+   * @param filename the path to the CSV file, sorted by timestamp
+   * @param firstDate the first date (UTC) whose records should be scanned
+   * @param lastDate the last date (UTC, inclusive) whose records should be scanned
+   * @param processor a processor for each record's slices
+   * @throws CookieParseException if the file cannot be read or a probed or scanned line is invalid
+   */
+  public void scanMappedSorted(String filename, LocalDate firstDate, LocalDate lastDate,
+                               MappedCookieScanner.RecordProcessor processor) {
+    logger.info("Scanning sorted mapped file: {} for dates: {} to {}", filename, firstDate, lastDate);
+    try (Arena arena = Arena.ofConfined()) {
+      MemorySegment segment = MappedCookieScanner.map(filename, arena);
+      long dataStart = MappedCookieScanner.skipLine(segment, 0);
+      long[] range = SortedRangeLocator.locate(segment, dataStart, firstDate.toEpochDay(), lastDate.toEpochDay());
+      logger.debug("Located records for dates {} to {} at bytes [{}, {}) of {}", firstDate, lastDate, range[0], range[1],
+          segment.byteSize());
+      statistics.addBytes(range[1] - range[0]);
+      MappedCookieScanner.RecordProcessor timed = timed(processor);
+      MappedCookieScanner.scanRange(segment, range[0], range[1], timed);
+      timed.finish();
+    } catch (IOException e) {
+      logger.error("Error reading file: {}", filename, e);
+      throw new CookieParseException("Error reading file: " + filename, e);
+    }
+  }
+
+  /**
+   * Scans only the records of the given dates, as listed by the file's sidecar {@link DateIndex}.
+   * If the index is missing, stale or unreadable, the whole file is scanned instead and a fresh index is written
+   * next to it in the same pass; failing to write the index is logged and does not fail the scan. Records of
+   * other dates that share an indexed range are passed to the processor as well, but no record is passed twice.
+   * @param filename the path to the CSV file
+   * @param dates the dates (UTC) whose records should be scanned
+   * @param processor a processor for each record's slices
+   * @throws CookieParseException if the file cannot be read or a scanned line is invalid
+   */
+  public void scanMappedIndexed(String filename, List<LocalDate> dates, MappedCookieScanner.RecordProcessor processor) {
+    logger.info("Scanning indexed mapped file: {} for dates: {}", filename, dates);
+    MappedCookieScanner.RecordProcessor timed = timed(processor);
+    Path indexPath = DateIndex.sidecarOf(filename);
+    try (Arena arena = Arena.ofConfined()) {
+      Path path = Path.of(filename);
+      long lastModified = Files.exists(path) ? Files.getLastModifiedTime(path).toMillis() : 0;
+      MemorySegment segment = MappedCookieScanner.map(filename, arena);
+      long size = segment.byteSize();
+      Optional<DateIndex> index = readIndex(indexPath).filter(candidate -> candidate.matches(size, lastModified));
+      if (index.isPresent()) {
+        List<long[]> ranges = index.get().ranges(dates.stream().map(LocalDate::toEpochDay).toList());
+        logger.debug("Reading {} indexed ranges for dates {} from file: {}", ranges.size(), dates, filename);
+        for (long[] range : ranges) {
+          statistics.addBytes(range[1] - range[0]);
+          MappedCookieScanner.scanRange(segment, range[0], range[1], timed);
+        }
+        timed.finish();
+        return;
+      }
+      logger.info("Building date index: {}", indexPath);
+      DateIndex.Builder builder = new DateIndex.Builder();
+      MappedCookieScanner.scanRange(segment, MappedCookieScanner.skipLine(segment, 0), size,
+          (s, cookieOffset, cookieLength, timestampOffset, timestampLength) -> {
+            builder.process(s, cookieOffset, cookieLength, timestampOffset, timestampLength);
+            timed.process(s, cookieOffset, cookieLength, timestampOffset, timestampLength);
+          });
+      statistics.addBytes(size);
+      timed.finish();
+      writeIndex(builder.build(size, lastModified), indexPath);
+    } catch (IOException e) {
+      logger.error("Error reading file: {}", filename, e);
+      throw new CookieParseException("Error reading file: " + filename, e);
+    }
+  }
+
+  /**
+   * Scans a compiled {@link ColumnarCookieFile} and passes the dictionary ID of every record of the given date
+   * to the processor. Only blocks whose time range overlaps the date are read, and no text is parsed.
+   * @param filename the path to the columnar file
+   * @param date the date (UTC) whose records should be scanned
+   * @param processor a consumer of each matching record's cookie ID
+   * @throws CookieParseException if the file cannot be read or is not a columnar cookie file
+   * @see #resolveColumnar(String, int[])
+   */
+  public void scanColumnar(String filename, LocalDate date, IntConsumer processor) {
+    logger.info("Scanning columnar file: {} for date: {}", filename, date);
+    long dayStart = date.toEpochDay() * TimestampDecoder.SECONDS_PER_DAY;
+    try (ColumnarCookieFile file = ColumnarCookieFile.open(filename)) {
+      if (statistics.isEnabled()) {
+        statistics.addBytes(Files.size(Path.of(filename)));
+      }
+      file.scan(dayStart, dayStart + TimestampDecoder.SECONDS_PER_DAY, processor);
+    } catch (IOException e) {
+      logger.error("Error reading file: {}", filename, e);
+      throw new CookieParseException("Error reading file: " + filename, e);
+    }
+  }
+
+  /**
+   * Scans a compiled {@link ColumnarCookieFile} and passes the dictionary ID and timestamp of every record
+   * between the given dates to the processor. Only blocks whose time range overlaps the dates are read.
+   * @param filename the path to the columnar file
+   * @param firstDate the first date (UTC) whose records should be scanned
+   * @param lastDate the last date (UTC, inclusive) whose records should be scanned
+   * @param processor a processor for each matching record
+   * @throws CookieParseException if the file cannot be read or is not a columnar cookie file
+   * @see #resolveColumnar(String, int[])
+   */
+  public void scanColumnar(String filename, LocalDate firstDate, LocalDate lastDate,
+                           ColumnarCookieFile.RecordProcessor processor) {
+    logger.info("Scanning columnar file: {} for dates: {} to {}", filename, firstDate, lastDate);
+    try (ColumnarCookieFile file = ColumnarCookieFile.open(filename)) {
+      if (statistics.isEnabled()) {
+        statistics.addBytes(Files.size(Path.of(filename)));
+      }
+      file.scan(firstDate.toEpochDay() * TimestampDecoder.SECONDS_PER_DAY,
+          (lastDate.toEpochDay() + 1) * TimestampDecoder.SECONDS_PER_DAY, processor);
+    } catch (IOException e) {
+      logger.error("Error reading file: {}", filename, e);
+      throw new CookieParseException("Error reading file: " + filename, e);
+    }
+  }
+
+  /**
+   * Looks up the cookie values of the given dictionary IDs of a compiled {@link ColumnarCookieFile}, without
+   * decoding the rest of its dictionary.
+   * @param filename the path to the columnar file
+   * @param ids the dictionary IDs, e.g. of the most active cookies found by a scan
+   * @return the cookie values, in the order of the IDs
+   * @throws CookieParseException if the file cannot be read, is not a columnar cookie file or lacks an ID
+   */
+  public List<String> resolveColumnar(String filename, int[] ids) {
+    logger.debug("Resolving {} cookie IDs of columnar file: {}", ids.length, filename);
+    try (ColumnarCookieFile file = ColumnarCookieFile.open(filename)) {
+      List<String> values = new ArrayList<>(ids.length);
+      for (int id : ids) {
+        values.add(file.value(id));
+      }
+      return values;
+    } catch (IOException | IndexOutOfBoundsException e) {
+      logger.error("Error reading file: {}", filename, e);
+      throw new CookieParseException("Error reading file: " + filename, e);
+    }
+  }
+
+  /**
+   * Reads a sidecar index, treating an unreadable index like a missing one.
+   */
+  private Optional<DateIndex> readIndex(Path indexPath) {
+    try {
+      return DateIndex.read(indexPath);
+    } catch (IOException e) {
+      logger.warn("Ignoring unreadable date index: {}", indexPath, e);
+      return Optional.empty();
+    }
+  }
+
+  private void writeIndex(DateIndex index, Path indexPath) {
+    try {
+      index.write(indexPath);
+      logger.debug("Wrote date index with {} days: {}", index.days(), indexPath);
+    } catch (IOException e) {
+      logger.warn("Could not write date index: {}", indexPath, e);
+    }
+  }
+
+  /**
+   * Scans the memory-mapped file on several threads. The file is split into line-aligned byte ranges and
+   * each range is scanned by its own worker with its own processor, e.g. one holding thread-local counts.
+   * @param filename the path to the CSV file
+   * @param parallelism the number of ranges and worker threads
+   * @param processorFactory creates the processor for each range
+   * @return the processors in file order, after all ranges have been scanned
+   * @throws CookieParseException if the file cannot be read or a line has the wrong number of columns
+   */
+  public <T extends MappedCookieScanner.RecordProcessor> List<T> scanMappedParallel(String filename, int parallelism,
+                                                                                    Supplier<T> processorFactory) {
+    logger.info("Scanning mapped file in parallel: {} with {} workers", filename, parallelism);
+    try {
+      if (!statistics.isEnabled()) {
+        return MappedCookieScanner.scanParallel(filename, true, parallelism, processorFactory);
+      }
+      statistics.addBytes(Files.size(Path.of(filename)));
+      return MappedCookieScanner.scanParallel(filename, true, parallelism,
+          () -> new TimedProcessor<>(processorFactory.get(), statistics.timer())).stream()
+          .map(TimedProcessor::delegate)
+          .toList();
+    } catch (IOException e) {
+      logger.error("Error reading file: {}", filename, e);
+      throw new CookieParseException("Error reading file: " + filename, e);
+    }
+  }
+
+  /**
+   * Scans a file that can only be read as a stream, e.g. standard input ({@code -}), a named pipe or a
+   * compressed file, on several threads. One thread reads the stream into large buffers of complete lines,
+   * which the workers take from a bounded queue and scan, each buffer with its own processor; the processors
+   * are passed on in stream order ({@link PipelinedCookieScanner}).
+   * @param filename the path to the file, or {@code -}
+   * @param parallelism the number of worker threads
+   * @param processorFactory creates the processor of each buffer
+   * @param consumer receives the processor of each buffer once scanned, in stream order and one at a time
+   * @throws CookieParseException if the file cannot be read or a line has the wrong number of columns
+   */
+  public <T extends MappedCookieScanner.RecordProcessor> void scanPipelined(String filename, int parallelism,
+                                                                            Supplier<T> processorFactory,
+                                                                            Consumer<? super T> consumer) {
+    logger.info("Scanning stream in a pipeline: {} with {} workers", filename, parallelism);
+    try (InputStream in = statistics.track(FileUtils.openInputStream(filename), null)) {
+      if (!statistics.isEnabled()) {
+        PipelinedCookieScanner.scan(in, true, parallelism, processorFactory, consumer);
+        return;
+      }
+      PipelinedCookieScanner.scan(in, true, parallelism,
+          () -> new TimedProcessor<>(processorFactory.get(), statistics.timer()),
+          timed -> consumer.accept(timed.delegate()));
+    } catch (IOException e) {
+      logger.error("Error reading file: {}", filename, e);
+      throw new CookieParseException("Error reading file: " + filename, e);
+    }
+  }
+
+  /**
+   * Parses each cookie from the file and passes it to the condition until the condition returns false,
+   * at which point the rest of the file is not read.
+   * @param filename the path to the CSV file
+   * @param condition a predicate for each cookie; returning false stops parsing
+   * @throws CookieParseException if the file cannot be read or parsed
+   */
+  public void parseWhile(String filename, Predicate<Cookie> condition) {
+    logger.info("Parsing cookies from file until stopped: {}", filename);
+    RecordTimer timer = statistics.timer();
+    FileUtils.LineCondition lineCondition = line -> {
+      Cookie cookie = parseLine(line);
+      timer.parsed();
+      logger.trace("Processing cookie: {}", cookie);
+      boolean more = condition.test(cookie);
+      timer.counted();
+      return more;
+    };
+    try {
+      if (!statistics.isEnabled()) {
+        FileUtils.processLinesWhile(filename, true, lineCondition);
+        return;
+      }
+      try (InputStream in = statistics.track(FileUtils.openInputStream(filename), timer)) {
+        FileUtils.processLinesWhile(in, true, lineCondition);
+      }
+      timer.finish();
     } catch (IOException e) {
       logger.error("Error reading file: {}", filename, e);
       throw new CookieParseException("Error reading file: " + filename, e);
     }
   }
 
+  /**
+   * Parses the complete lines of a growing file from the given offset on, e.g. the lines appended since the
+   * previous call. A last line that is not terminated by a line break yet may still be being written, so it is
+   * left for a later call. The header is skipped when reading from the start; blank lines are skipped.
+   * @param filename the path to the CSV file; must not be compressed
+   * @param offset the offset of the first line to parse, 0 or an offset returned by a previous call
+   * @param consumer the consumer to process each parsed cookie
+   * @return the offset following the last complete line, where the next call should continue
+   * @throws CookieParseException if the file cannot be read or a line cannot be parsed
+   */
+  public long parseFrom(String filename, long offset, Consumer<Cookie> consumer) {
+    logger.debug("Parsing file: {} from offset {}", filename, offset);
+    try (FileChannel channel = FileChannel.open(Path.of(filename), StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate(TAIL_BUFFER_SIZE);
+      ByteArrayOutputStream pending = new ByteArrayOutputStream();
+      boolean header = offset == 0;
+      long position = offset;
+      long next = offset;
+      int read;
+      while ((read = channel.read(buffer.clear(), position)) > 0) {
+        byte[] bytes = buffer.array();
+        int start = 0;
+        for (int i = 0; i < read; i++) {
+          if (bytes[i] != '\n') {
+            continue;
+          }
+          pending.write(bytes, start, i - start);
+          String line = pending.toString(StandardCharsets.UTF_8).strip();
+          pending.reset();
+          start = i + 1;
+          next = position + start;
+          if (header) {
+            header = false;
+          } else if (!line.isEmpty()) {
+            consumer.accept(parseLine(line));
+          }
+        }
+        pending.write(bytes, start, read - start);
+        position += read;
+      }
+      return next;
+    } catch (IOException e) {
+      logger.error("Error reading file: {}", filename, e);
+      throw new CookieParseException("Error reading file: " + filename, e);
+    }
+  }
+
+  /**
+   * Parses the lines of a file from the given offset to its end, reporting line-aligned offsets along the way so
+   * that a long scan can be checkpointed and resumed. Once at least {@code interval} bytes have been read since
+   * the last report, the offset following the current line is passed to the checkpoint callback, after the
+   * line's cookie was processed. If a line cannot be parsed, the offset at which that line starts is reported
+   * before the exception is thrown, so a resumed scan starts with that line. The header is skipped when reading
+   * from the start; blank lines are skipped, and a last line without a line break is parsed as well.
+   * @param filename the path to the CSV file; must be uncompressed
+   * @param offset the offset of the first line to parse, 0 or an offset reported by a previous scan
+   * @param interval the number of bytes between two reports
+   * @param consumer the consumer to process each parsed cookie
+   * @param checkpoint the callback receiving each reported offset
+   * @return the size of the file, the offset at which the scan ended
+   * @throws CookieParseException if the file cannot be read or a line cannot be parsed
+   */
+  public long parseCheckpointed(String filename, long offset, long interval, Consumer<Cookie> consumer,
+                                LongConsumer checkpoint) {
+    logger.info("Parsing file: {} from offset {} with checkpoints every {} bytes", filename, offset, interval);
+    RecordTimer timer = statistics.timer();
+    try (FileChannel channel = FileChannel.open(Path.of(filename), StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate(CHECKPOINTED_BUFFER_SIZE);
+      ByteArrayOutputStream pending = new ByteArrayOutputStream();
+      boolean header = offset == 0;
+      long position = offset;
+      long lineStart = offset;
+      long reported = offset;
+      int read;
+      while ((read = channel.read(buffer.clear(), position)) > 0) {
+        statistics.addBytes(read);
+        byte[] bytes = buffer.array();
+        int start = 0;
+        for (int i = 0; i < read; i++) {
+          if (bytes[i] != '\n') {
+            continue;
+          }
+          String line;
+          if (pending.size() == 0) {
+            line = new String(bytes, start, i - start, StandardCharsets.UTF_8);
+          } else {
+            pending.write(bytes, start, i - start);
+            line = pending.toString(StandardCharsets.UTF_8);
+            pending.reset();
+          }
+          start = i + 1;
+          long next = position + start;
+          if (header) {
+            header = false;
+          } else {
+            parseCheckpointedLine(line, lineStart, consumer, checkpoint, timer);
+          }
+          lineStart = next;
+          if (next - reported >= interval) {
+            checkpoint.accept(next);
+            reported = next;
+          }
+        }
+        pending.write(bytes, start, read - start);
+        position += read;
+      }
+      if (pending.size() > 0 && !header) {
+        parseCheckpointedLine(pending.toString(StandardCharsets.UTF_8), lineStart, consumer, checkpoint, timer);
+      }
+      timer.finish();
+      return position;
+    } catch (IOException e) {
+      logger.error("Error reading file: {}", filename, e);
+      throw new CookieParseException("Error reading file: " + filename, e);
+    }
+  }
+
+  private void parseCheckpointedLine(String line, long lineStart, Consumer<Cookie> consumer, LongConsumer checkpoint,
+                                     RecordTimer timer) {
+    String stripped = line.strip();
+    if (stripped.isEmpty()) {
+      return;
+    }
+    Cookie cookie;
+    try {
+      cookie = parseLine(stripped);
+    } catch (CookieParseException e) {
+      logger.error("Invalid line at byte {}, checkpointing before it", lineStart);
+      checkpoint.accept(lineStart);
+      throw e;
+    }
+    timer.parsed();
+    consumer.accept(cookie);
+    timer.counted();
+  }
+
   /**
    * Parses a chunk of lines in parallel into a list of cookies.
    * @param lines the lines to parse
@@ -114,7 +573,7 @@ public class CookieParser {
   private Cookie parseLine(String line) {
     logger.trace("Parsing line: {}", line);
     String[] parts = line.split(",");
-    if (parts.length != Cookie.class.getDeclaredFields().length) {
+    if (parts.length != Cookie.COLUMNS) {
       logger.warn("Invalid CSV line: {}", line);
       throw new CookieParseException("Column and field count mismatch in line: " + line);
     }
@@ -127,4 +586,32 @@ public class CookieParser {
       throw new CookieParseException("Invalid date format in line: " + line, e);
     }
   }
+
+  /**
+   * Returns the processor, timed if statistics are being measured.
+   */
+  private MappedCookieScanner.RecordProcessor timed(MappedCookieScanner.RecordProcessor processor) {
+    return statistics.isEnabled() ? new TimedProcessor<>(processor, statistics.timer()) : processor;
+  }
+
+  /**
+   * Passes each record on to a processor, timing the scanning of the record as parsing and the processor as
+   * counting. The timer is only created with the processor, on the calling thread, but used on the scanning one.
+   */
+  private record TimedProcessor<T extends MappedCookieScanner.RecordProcessor>(T delegate, RecordTimer timer)
+      implements MappedCookieScanner.RecordProcessor {
+    @Override
+    public void process(MemorySegment segment, long cookieOffset, int cookieLength, long timestampOffset,
+                        int timestampLength) {
+      timer.parsed();
+      delegate.process(segment, cookieOffset, cookieLength, timestampOffset, timestampLength);
+      timer.counted();
+    }
+
+    @Override
+    public void finish() {
+      delegate.finish();
+      timer.finish();
+    }
+  }
 }
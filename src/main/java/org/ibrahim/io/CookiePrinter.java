@@ -1,11 +1,24 @@
 package org.ibrahim.io;
 
+import org.ibrahim.model.ApproximateCount;
 import org.ibrahim.model.Cookie;
+import org.ibrahim.model.CookieCount;
+import org.ibrahim.model.RunStats;
+import org.ibrahim.model.StatsFormat;
 
+import java.net.InetSocketAddress;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 public interface CookiePrinter {
     void print(List<Cookie> cookies);
     void print(Cookie cookie, int index);
+    void print(Map<LocalDate, List<Cookie>> cookiesByDate);
+    void printCounts(Map<LocalDate, List<CookieCount>> countsByDate);
+    void printApproximate(Map<LocalDate, List<ApproximateCount>> countsByDate);
+    void printCompiled(long records, String output);
+    void printServing(InetSocketAddress address, String path);
+    void printStats(RunStats stats, StatsFormat format);
 }
 
@@ -1,10 +1,19 @@
 package org.ibrahim.io;
 
+import org.ibrahim.model.ApproximateCount;
 import org.ibrahim.model.Cookie;
+import org.ibrahim.model.CookieCount;
+import org.ibrahim.model.RunStats;
+import org.ibrahim.model.StatsFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.InetSocketAddress;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
 
 /**
  * Prints a list of cookies and their details to the console.
@@ -45,4 +54,151 @@ public class CookiePrinterImpl implements CookiePrinter {
         logger.debug("Printing cookie at index {}: {}", index, cookie);
         System.out.printf("%d. %s\n", index + 1, cookie.getValue());
     }
+
+    /**
+     * Prints the most active cookies of each date. A single date is printed like {@link #print(List)};
+     * several dates are printed one section each, headed by the date.
+     * @param cookiesByDate the most active cookies of each date, in output order
+     */
+    public void print(Map<LocalDate, List<Cookie>> cookiesByDate) {
+        if (cookiesByDate.size() == 1) {
+            print(cookiesByDate.values().iterator().next());
+            return;
+        }
+        logger.info("Printing cookies for {} dates", cookiesByDate.size());
+        for (Map.Entry<LocalDate, List<Cookie>> entry : cookiesByDate.entrySet()) {
+            List<Cookie> cookies = entry.getValue();
+            if (cookies.isEmpty()) {
+                System.out.printf("No cookies found on %s.\n", entry.getKey());
+            } else {
+                System.out.printf("Most active cookies on %s:\n", entry.getKey());
+                for (int i = 0; i < cookies.size(); i++) {
+                    print(cookies.get(i), i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Prints the most active cookies of each date with their counts, by descending count. A single date is
+     * printed under the same heading as {@link #print(List)}; several dates are printed one section each.
+     * @param countsByDate the most active cookies and their counts of each date, in output order
+     */
+    public void printCounts(Map<LocalDate, List<CookieCount>> countsByDate) {
+        logger.info("Printing cookie counts for {} dates", countsByDate.size());
+        boolean single = countsByDate.size() == 1;
+        for (Map.Entry<LocalDate, List<CookieCount>> entry : countsByDate.entrySet()) {
+            List<CookieCount> counts = entry.getValue();
+            if (counts.isEmpty()) {
+                System.out.println(single ? "No cookies found for the specified date." : "No cookies found on " + entry.getKey() + ".");
+                continue;
+            }
+            System.out.println(single ? "Most active cookies:" : "Most active cookies on " + entry.getKey() + ":");
+            for (int i = 0; i < counts.size(); i++) {
+                System.out.printf("%d. %s (%d)\n", i + 1, counts.get(i).getValue(), counts.get(i).getCount());
+            }
+        }
+    }
+
+    /**
+     * Prints the estimated most active cookies and their counts of each date, marked as approximate. A count
+     * that may be overestimated is printed with the lower bound of the true count.
+     * @param countsByDate the estimated most active cookies and their counts of each date, in output order
+     */
+    public void printApproximate(Map<LocalDate, List<ApproximateCount>> countsByDate) {
+        logger.info("Printing approximate cookie counts for {} dates", countsByDate.size());
+        boolean single = countsByDate.size() == 1;
+        for (Map.Entry<LocalDate, List<ApproximateCount>> entry : countsByDate.entrySet()) {
+            List<ApproximateCount> counts = entry.getValue();
+            if (counts.isEmpty()) {
+                System.out.println(single ? "No cookies found for the specified date." : "No cookies found on " + entry.getKey() + ".");
+                continue;
+            }
+            System.out.println(single ? "Most active cookies (approximate):" : "Most active cookies on " + entry.getKey() + " (approximate):");
+            for (int i = 0; i < counts.size(); i++) {
+                ApproximateCount count = counts.get(i);
+                if (count.getError() > 0) {
+                    System.out.printf("%d. %s (~%d, at least %d)\n", i + 1, count.getValue(), count.getCount(),
+                        count.getCount() - count.getError());
+                } else {
+                    System.out.printf("%d. %s (%d)\n", i + 1, count.getValue(), count.getCount());
+                }
+            }
+        }
+    }
+
+    /**
+     * Prints the summary of a compilation.
+     * @param records the number of records compiled
+     * @param output the path of the written columnar file
+     */
+    public void printCompiled(long records, String output) {
+        logger.info("Compiled {} records to {}", records, output);
+        System.out.printf("Compiled %d records to %s\n", records, output);
+    }
+
+    /**
+     * Prints the address a query server listens on.
+     * @param address the address of the server
+     * @param path the path of the query endpoint
+     */
+    public void printServing(InetSocketAddress address, String path) {
+        String host = address.getHostString();
+        String url = "http://" + (host.contains(":") ? "[" + host + "]" : host) + ":" + address.getPort() + path;
+        logger.info("Serving queries on {}", url);
+        System.out.printf("Serving queries on %s\n", url);
+    }
+
+    /**
+     * Prints the statistics of a query to standard error, so they do not mix with the results on standard output.
+     * Text is meant for people; JSON is printed as a single line with times in nanoseconds and sizes in bytes.
+     * @param stats the statistics to print
+     * @param format the format to print them in
+     */
+    public void printStats(RunStats stats, StatsFormat format) {
+        logger.info("Printing run statistics: {}", stats);
+        System.err.println(format == StatsFormat.JSON ? toJson(stats) : toText(stats));
+    }
+
+    private static String toText(RunStats stats) {
+        StringJoiner phases = new StringJoiner(", ");
+        stats.getPhaseNanos().forEach((phase, nanos) -> phases.add(phase + " " + millis(nanos)));
+        StringJoiner threads = new StringJoiner(", ");
+        stats.getThreadAllocatedBytes().forEach((thread, bytes) -> threads.add(thread + " " + megabytes(bytes)));
+        return String.format(Locale.ROOT, "Statistics:%n"
+                + "  elapsed: %s%n"
+                + "  read: %s, %d lines (%.0f lines/s, %.1f MB/s)%n"
+                + "  phases: %s%n"
+                + "  distinct cookies: %d%n"
+                + "  peak heap: %s%n"
+                + "  allocated: %s (%s)",
+            millis(stats.getElapsedNanos()), megabytes(stats.getBytesRead()), stats.getLinesRead(),
+            stats.getLinesPerSecond(), stats.getMegabytesPerSecond(), phases, stats.getDistinctCookies(),
+            megabytes(stats.getPeakHeapBytes()), megabytes(stats.getAllocatedBytes()), threads);
+    }
+
+    private static String toJson(RunStats stats) {
+        StringJoiner phases = new StringJoiner(",", "{", "}");
+        stats.getPhaseNanos().forEach((phase, nanos) -> phases.add(quote(phase) + ":" + nanos));
+        StringJoiner threads = new StringJoiner(",", "{", "}");
+        stats.getThreadAllocatedBytes().forEach((thread, bytes) -> threads.add(quote(thread) + ":" + bytes));
+        return String.format(Locale.ROOT, "{\"elapsedNanos\":%d,\"bytesRead\":%d,\"linesRead\":%d,"
+                + "\"linesPerSecond\":%.1f,\"megabytesPerSecond\":%.3f,\"phaseNanos\":%s,\"distinctCookies\":%d,"
+                + "\"peakHeapBytes\":%d,\"allocatedBytes\":%d,\"threadAllocatedBytes\":%s}",
+            stats.getElapsedNanos(), stats.getBytesRead(), stats.getLinesRead(), stats.getLinesPerSecond(),
+            stats.getMegabytesPerSecond(), phases, stats.getDistinctCookies(), stats.getPeakHeapBytes(),
+            stats.getAllocatedBytes(), threads);
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f ms", nanos / 1e6);
+    }
+
+    private static String megabytes(long bytes) {
+        return String.format(Locale.ROOT, "%.1f MB", bytes / 1e6);
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
 }
@@ -0,0 +1,244 @@
+package org.ibrahim.io;
+
+import org.ibrahim.exception.CookieParseException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Sidecar index mapping each UTC date of a cookie log to the byte ranges holding its records.
+ * <p>
+ * The index is stored next to the log as {@code <file>.idx} and records the log's size and modification time,
+ * so an index of a file that has changed since is detected as stale. Ranges are line-aligned and records
+ * of a day that lie close to each other share a range, which keeps the index small for unsorted logs at the
+ * cost of covering some records of other days; readers must still filter by date. Indexes are written to a
+ * temporary file and moved into place, so concurrent readers never see a partial index.</p>
+ * <b>Usage Example:</b>
+ * <pre><code>
+ * Optional&lt;DateIndex&gt; index = DateIndex.read(DateIndex.sidecarOf("cookie_log.csv"));
+ * if (index.isPresent() &amp;&amp; index.get().matches(size, lastModified)) {
+ *   for (long[] range : index.get().ranges(day)) { ... }
+ * }
+ * </code></pre>
+ */
+public class DateIndex {
+  private static final int MAGIC = 0x43434958; // "CCIX"
+  private static final int VERSION = 1;
+  private static final String EXTENSION = ".idx";
+  /** Records of a day less than this many bytes apart share a range. */
+  private static final long MERGE_GAP = 64 * 1024;
+
+  private final long fileSize;
+  private final long lastModified;
+  private final Map<Long, List<long[]>> ranges;
+
+  private DateIndex(long fileSize, long lastModified, Map<Long, List<long[]>> ranges) {
+    this.fileSize = fileSize;
+    this.lastModified = lastModified;
+    this.ranges = ranges;
+  }
+
+  /**
+   * Returns the path of the sidecar index for a log file.
+   * @param filename the path to the log file
+   * @return the path of its index
+   */
+  public static Path sidecarOf(String filename) {
+    return Path.of(filename + EXTENSION);
+  }
+
+  /**
+   * Checks whether the index was built for a file of the given size and modification time.
+   * @param fileSize the current size of the log file
+   * @param lastModified the current modification time of the log file, in milliseconds since the epoch
+   * @return true if the index is up to date
+   */
+  public boolean matches(long fileSize, long lastModified) {
+    return this.fileSize == fileSize && this.lastModified == lastModified;
+  }
+
+  /**
+   * Returns the line-aligned byte ranges that hold all records of the given day.
+   * @param epochDay the UTC epoch day
+   * @return the ranges as {@code [start, end)} pairs in file order; empty if the day has no records
+   */
+  public List<long[]> ranges(long epochDay) {
+    return ranges.getOrDefault(epochDay, List.of());
+  }
+
+  /**
+   * Returns the line-aligned byte ranges that hold all records of the given days. Ranges of different days
+   * may overlap, so they are merged; every byte is covered at most once.
+   * @param epochDays the UTC epoch days
+   * @return the merged ranges as {@code [start, end)} pairs in file order
+   */
+  public List<long[]> ranges(Collection<Long> epochDays) {
+    List<long[]> all = new ArrayList<>();
+    for (long day : epochDays) {
+      for (long[] range : ranges(day)) {
+        all.add(range.clone());
+      }
+    }
+    all.sort(Comparator.comparingLong(range -> range[0]));
+    List<long[]> merged = new ArrayList<>(all.size());
+    for (long[] range : all) {
+      long[] last = merged.isEmpty() ? null : merged.getLast();
+      if (last != null && range[0] <= last[1]) {
+        last[1] = Math.max(last[1], range[1]);
+      } else {
+        merged.add(range);
+      }
+    }
+    return merged;
+  }
+
+  /**
+   * Returns the number of days in the index.
+   * @return the number of indexed days
+   */
+  public int days() {
+    return ranges.size();
+  }
+
+  /**
+   * Writes the index to the given path, replacing any existing index atomically.
+   * @param path the path of the index file
+   * @throws IOException if the index cannot be written
+   */
+  public void write(Path path) throws IOException {
+    Path temporary = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(fileSize);
+        out.writeLong(lastModified);
+        out.writeInt(ranges.size());
+        for (Map.Entry<Long, List<long[]>> day : ranges.entrySet()) {
+          out.writeLong(day.getKey());
+          out.writeInt(day.getValue().size());
+          for (long[] range : day.getValue()) {
+            out.writeLong(range[0]);
+            out.writeLong(range[1]);
+          }
+        }
+      }
+      Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  /**
+   * Reads an index from the given path.
+   * @param path the path of the index file
+   * @return the index, or empty if the file does not exist
+   * @throws IOException if the file cannot be read or is not a valid index, e.g. truncated or corrupt
+   */
+  public static Optional<DateIndex> read(Path path) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException("Not a date index: " + path);
+      }
+      long fileSize = in.readLong();
+      long lastModified = in.readLong();
+      int dayCount = in.readInt();
+      if (fileSize < 0 || dayCount < 0) {
+        throw new IOException("Corrupt date index: " + path);
+      }
+      Map<Long, List<long[]>> ranges = new TreeMap<>();
+      for (int i = 0; i < dayCount; i++) {
+        long day = in.readLong();
+        int rangeCount = in.readInt();
+        if (rangeCount < 0) {
+          throw new IOException("Corrupt date index: " + path);
+        }
+        // Counts come from the file, so a corrupt one must not allocate more than the file can hold
+        List<long[]> dayRanges = new ArrayList<>(Math.min(rangeCount, 1024));
+        for (int j = 0; j < rangeCount; j++) {
+          long start = in.readLong();
+          long end = in.readLong();
+          if (start < 0 || start > end || end > fileSize) {
+            throw new IOException("Corrupt date index: " + path + ": range [" + start + ", " + end + ")");
+          }
+          dayRanges.add(new long[]{start, end});
+        }
+        ranges.put(day, dayRanges);
+      }
+      return Optional.of(new DateIndex(fileSize, lastModified, ranges));
+    } catch (NoSuchFileException e) {
+      return Optional.empty();
+    } catch (RuntimeException e) {
+      throw new IOException("Corrupt date index: " + path, e);
+    }
+  }
+
+  /**
+   * Collects the ranges of each day while a file is scanned, in a single pass.
+   */
+  public static class Builder implements MappedCookieScanner.RecordProcessor {
+    private final Map<Long, List<long[]>> ranges = new TreeMap<>();
+    private long lastDay = Long.MIN_VALUE;
+    private List<long[]> lastDayRanges;
+
+    /**
+     * Adds a record to its day's last range, or starts a new range if it is too far from it.
+     * @throws CookieParseException if the timestamp is invalid
+     */
+    @Override
+    public void process(MemorySegment segment, long cookieOffset, int cookieLength, long timestampOffset, int timestampLength) {
+      long epochSecond = TimestampDecoder.epochSecond(segment, timestampOffset, timestampLength);
+      if (epochSecond == TimestampDecoder.INVALID) {
+        throw new CookieParseException("Invalid date format in timestamp: "
+            + MappedCookieScanner.toString(segment, timestampOffset, timestampLength));
+      }
+      add(TimestampDecoder.epochDay(epochSecond), cookieOffset, timestampOffset + timestampLength);
+    }
+
+    /**
+     * Adds a record spanning the given bytes; records must be added in file order.
+     * @param epochDay the UTC epoch day of the record
+     * @param lineStart the offset of the record's line
+     * @param lineEnd the offset following the record's content
+     */
+    public void add(long epochDay, long lineStart, long lineEnd) {
+      // Consecutive records usually share a day, so the day's ranges are looked up only when it changes
+      if (epochDay != lastDay || lastDayRanges == null) {
+        lastDayRanges = ranges.computeIfAbsent(epochDay, _ -> new ArrayList<>());
+        lastDay = epochDay;
+      }
+      List<long[]> dayRanges = lastDayRanges;
+      long[] last = dayRanges.isEmpty() ? null : dayRanges.getLast();
+      if (last != null && lineStart - last[1] < MERGE_GAP) {
+        last[1] = lineEnd;
+      } else {
+        dayRanges.add(new long[]{lineStart, lineEnd});
+      }
+    }
+
+    /**
+     * Creates the index for a file of the given size and modification time.
+     * @param fileSize the size of the scanned file
+     * @param lastModified the modification time of the scanned file, in milliseconds since the epoch
+     * @return the index
+     */
+    public DateIndex build(long fileSize, long lastModified) {
+      return new DateIndex(fileSize, lastModified, ranges);
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package org.ibrahim.io;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Optional;
+
+/**
+ * Splits the bytes of a cookie CSV log into lines and finds the field delimiters of each line.
+ * <p>
+ * Two implementations exist. The vectorized one compares a whole vector of bytes at a time (32 bytes with AVX2,
+ * 64 with AVX-512) with {@code ','} and {@code '\n'} and walks the set bits of the resulting masks, so the
+ * cost per byte no longer depends on how often a delimiter occurs. It uses the incubating Vector API and is
+ * only available when the JVM runs with {@code --add-modules jdk.incubator.vector} on hardware with vectors of
+ * 16 to 64 bytes. Otherwise {@link #get} returns the scalar implementation, which compares one byte at a
+ * time. Both report exactly the same lines.</p>
+ * <b>Usage Example:</b>
+ * <pre><code>
+ * DelimiterScanner.get().scan(segment, 0, segment.byteSize(), (start, end, comma, commas) -&gt;
+ *     System.out.println(MappedCookieScanner.toString(segment, start, (int) (end - start))));
+ * </code></pre>
+ */
+public abstract class DelimiterScanner {
+  static final byte NEWLINE = '\n';
+  static final byte COMMA = ',';
+  private static final String VECTOR_MODULE = "jdk.incubator.vector";
+  private static final DelimiterScanner PREFERRED = vector().orElseGet(DelimiterScanner::scalar);
+
+  /**
+   * Functional interface for receiving the lines found by a scan.
+   */
+  @FunctionalInterface
+  public interface LineVisitor {
+    /**
+     * Called for each line in file order.
+     * @param start the offset of the line's first byte
+     * @param end the offset of the line's newline, or the segment size for a last line without one
+     * @param comma the offset of the line's first comma, or -1 if it has none
+     * @param commas the number of commas in the line
+     */
+    void line(long start, long end, long comma, int commas);
+  }
+
+  DelimiterScanner() {
+  }
+
+  /**
+   * Returns the vectorized scanner if it is available, the scalar scanner otherwise.
+   * @return the fastest scanner available in this JVM
+   */
+  public static DelimiterScanner get() {
+    return PREFERRED;
+  }
+
+  /**
+   * Returns the scanner that compares one byte at a time.
+   * @return the scalar scanner
+   */
+  public static DelimiterScanner scalar() {
+    return new ScalarDelimiterScanner();
+  }
+
+  /**
+   * Returns the vectorized scanner, if the Vector API module is loaded and the hardware has vectors of 16 to 64
+   * bytes.
+   * @return the vectorized scanner, or empty if it is not available
+   */
+  public static Optional<DelimiterScanner> vector() {
+    if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+      return Optional.empty();
+    }
+    try {
+      // Only loaded here, so a JVM without the module never links against it
+      return VectorDelimiterScanner.isSupported() ? Optional.of(new VectorDelimiterScanner()) : Optional.empty();
+    } catch (LinkageError e) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Passes every line between the two offsets to the visitor.
+   * The range must start at the beginning of a line; a line that starts before {@code to} is read to its end.
+   * @param segment the bytes to scan
+   * @param from the offset of the first line
+   * @param to the offset at which no further lines are started
+   * @param visitor the visitor to pass each line to
+   */
+  public abstract void scan(MemorySegment segment, long from, long to, LineVisitor visitor);
+
+  /**
+   * Returns a short description of the scanner, e.g. for diagnostics.
+   */
+  @Override
+  public abstract String toString();
+
+  private static final class ScalarDelimiterScanner extends DelimiterScanner {
+    @Override
+    public void scan(MemorySegment segment, long from, long to, LineVisitor visitor) {
+      long size = segment.byteSize();
+      long lineStart = from;
+      long comma = -1;
+      int commas = 0;
+      for (long i = from; lineStart < to && i < size; i++) {
+        byte value = segment.get(ValueLayout.JAVA_BYTE, i);
+        if (value == COMMA) {
+          if (commas++ == 0) {
+            comma = i;
+          }
+        } else if (value == NEWLINE) {
+          visitor.line(lineStart, i, comma, commas);
+          lineStart = i + 1;
+          comma = -1;
+          commas = 0;
+        }
+      }
+      if (lineStart < to) {
+        visitor.line(lineStart, size, comma, commas);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return "scalar";
+    }
+  }
+}
@@ -1,13 +1,34 @@
 package org.ibrahim.io;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Utility class for file operations and line-by-line processing.
  * <p>
- * Provides methods to open files safely and process each line (skipping the header) using a functional interface.
+ * Provides methods to open files safely and process each line (skipping the header) using a functional interface,
+ * optionally stopping before the end of the file. Files ending in {@code .gz} are decompressed while they are read,
+ * inflating the members of multi-member archives in parallel. File arguments naming a directory or a glob pattern are
+ * expanded into the log files they denote. The file name {@code -} denotes standard input, which is decompressed if
+ * it starts like a gzip stream; like named pipes, it can only be read once, from start to end.
  */
 public class FileUtils {
+    /** The file name that denotes standard input. */
+    public static final String STANDARD_INPUT = "-";
+    private static final String GZIP_EXTENSION = ".gz";
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final List<String> LOG_EXTENSIONS = List.of(".csv", ".csv.gz", ".ccol");
+    private static final String GLOB_CHARACTERS = "*?[{";
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+
     /**
      * Functional interface for processing a line from a file.
      */
@@ -16,20 +37,103 @@ public class FileUtils {
         void process(String line) throws IOException;
     }
 
+    /**
+     * Functional interface for processing a line from a file that can stop the read.
+     */
+    @FunctionalInterface
+    public interface LineCondition {
+        /**
+         * @return true to continue with the next line, false to stop reading
+         */
+        boolean process(String line) throws IOException;
+    }
+
     /**
      * Opens a file for reading, throwing an exception if it does not exist.
+     * Gzip-compressed files are decompressed on the fly, without a temporary file.
      * @param filename the path to the file
      * @return a BufferedReader for the file
      * @throws IOException if the file does not exist or cannot be opened
      */
     public static BufferedReader openFileOrThrow(String filename) throws IOException {
+        if (isStandardInput(filename)) {
+            return new BufferedReader(new InputStreamReader(openInputStream(filename), StandardCharsets.UTF_8));
+        }
         File file = new File(filename);
         if (!file.exists()) {
             throw new FileNotFoundException("File not found: " + filename);
         }
+        if (isCompressed(filename)) {
+            return new BufferedReader(new InputStreamReader(new ParallelGzipInputStream(filename, PARALLELISM), StandardCharsets.UTF_8));
+        }
         return new BufferedReader(new FileReader(file));
     }
 
+    /**
+     * Opens a file, a named pipe or standard input ({@code -}) as a stream of uncompressed bytes.
+     * Gzip-compressed files are recognized by their extension, standard input by the gzip magic number.
+     * Closing the stream of standard input does not close standard input itself.
+     * @param filename the path to the file, or {@code -}
+     * @return the stream of the file's content
+     * @throws IOException if the file does not exist or cannot be opened
+     */
+    public static InputStream openInputStream(String filename) throws IOException {
+        if (isStandardInput(filename)) {
+            BufferedInputStream in = new BufferedInputStream(new FilterInputStream(System.in) {
+                @Override
+                public void close() {
+                    // Standard input stays open for the rest of the process
+                }
+            });
+            in.mark(2);
+            int magic = in.read() | (in.read() << 8);
+            in.reset();
+            return magic == GZIP_MAGIC ? new GZIPInputStream(in) : in;
+        }
+        Path path = Path.of(filename);
+        if (!Files.exists(path)) {
+            throw new FileNotFoundException("File not found: " + filename);
+        }
+        if (isCompressed(filename)) {
+            return new ParallelGzipInputStream(filename, PARALLELISM);
+        }
+        return Files.newInputStream(path);
+    }
+
+    /**
+     * Checks whether the file name denotes standard input.
+     * @param filename the path to the file
+     * @return true if the file name is {@code -}
+     */
+    public static boolean isStandardInput(String filename) {
+        return STANDARD_INPUT.equals(filename);
+    }
+
+    /**
+     * Checks whether the file's bytes can be read at any offset, e.g. memory-mapped or split into byte ranges.
+     * Standard input, named pipes and other special files, and compressed files can only be read as a stream.
+     * A file that does not exist is considered seekable, so reading it reports it missing.
+     * @param filename the path to the file
+     * @return true unless the file is compressed, standard input or an existing file that is not a regular file
+     */
+    public static boolean isSeekable(String filename) {
+        if (isStandardInput(filename) || isCompressed(filename)) {
+            return false;
+        }
+        Path path = Path.of(filename);
+        return !Files.exists(path) || Files.isRegularFile(path) || Files.isDirectory(path);
+    }
+
+    /**
+     * Checks whether the file is gzip-compressed, judging by its extension.
+     * Compressed files can only be read as a stream, not memory-mapped.
+     * @param filename the path to the file
+     * @return true if the file name ends in {@code .gz}
+     */
+    public static boolean isCompressed(String filename) {
+        return filename.endsWith(GZIP_EXTENSION);
+    }
+
     /**
      * Processes each line of a file using the given processor.
      * @param filename the path to the file
@@ -38,14 +142,98 @@ public class FileUtils {
      * @throws IOException if the file cannot be read
      */
     public static void processLines(String filename, boolean skipHeader, LineProcessor processor) throws IOException {
+        processLinesWhile(filename, skipHeader, line -> {
+            processor.process(line);
+            return true;
+        });
+    }
+
+    /**
+     * Processes each line of a file until the condition returns false or the end of the file is reached.
+     * @param filename the path to the file
+     * @param skipHeader if true, the first line (header) will be skipped
+     * @param condition the condition to apply to each line; returning false stops reading
+     * @throws IOException if the file cannot be read
+     */
+    public static void processLinesWhile(String filename, boolean skipHeader, LineCondition condition) throws IOException {
         try (BufferedReader reader = openFileOrThrow(filename)) {
-            if (skipHeader) {
-                reader.readLine(); // Skip the header line
+            processLinesWhile(reader, skipHeader, condition);
+        }
+    }
+
+    /**
+     * Processes each line of a stream of UTF-8 text, e.g. one opened with {@link #openInputStream(String)}.
+     * @param in the stream to read; it is not closed
+     * @param skipHeader if true, the first line (header) will be skipped
+     * @param processor the processor to apply to each line
+     * @throws IOException if the stream cannot be read
+     */
+    public static void processLines(InputStream in, boolean skipHeader, LineProcessor processor) throws IOException {
+        processLinesWhile(in, skipHeader, line -> {
+            processor.process(line);
+            return true;
+        });
+    }
+
+    /**
+     * Processes each line of a stream of UTF-8 text until the condition returns false or the stream ends.
+     * @param in the stream to read; it is not closed
+     * @param skipHeader if true, the first line (header) will be skipped
+     * @param condition the condition to apply to each line; returning false stops reading
+     * @throws IOException if the stream cannot be read
+     */
+    public static void processLinesWhile(InputStream in, boolean skipHeader, LineCondition condition) throws IOException {
+        processLinesWhile(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)), skipHeader, condition);
+    }
+
+    private static void processLinesWhile(BufferedReader reader, boolean skipHeader, LineCondition condition)
+        throws IOException {
+        if (skipHeader) {
+            reader.readLine(); // Skip the header line
+        }
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!condition.process(line)) {
+                return;
             }
-            String line;
-            while ((line = reader.readLine()) != null) {
-                processor.process(line);
+        }
+    }
+
+    /**
+     * Expands a file argument into the files it denotes, in name order. A directory denotes the logs it contains
+     * ({@code .csv}, {@code .csv.gz} and {@code .ccol} files, e.g. not the sidecar indexes of {@code indexed}
+     * mode); a glob pattern in the last path element, e.g. {@code logs/cookie_log-2018-12-09-*.csv}, denotes the
+     * matching files. Any other argument denotes itself, whether the file exists or not.
+     * @param argument the file argument
+     * @return the paths of the denoted files; empty if a directory or pattern matches no file
+     * @throws IOException if the directory cannot be listed
+     */
+    public static List<String> expand(String argument) throws IOException {
+        Path path = Path.of(argument);
+        if (Files.isDirectory(path)) {
+            return list(path, file -> LOG_EXTENSIONS.stream().anyMatch(file.getFileName().toString()::endsWith));
+        }
+        Path name = path.getFileName();
+        if (name == null || name.toString().chars().noneMatch(c -> GLOB_CHARACTERS.indexOf(c) >= 0)) {
+            return List.of(argument);
+        }
+        Path directory = path.getParent() != null ? path.getParent() : Path.of("");
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        PathMatcher matcher = directory.getFileSystem().getPathMatcher("glob:" + name);
+        return list(directory, file -> matcher.matches(file.getFileName()));
+    }
+
+    private static List<String> list(Path directory, Predicate<Path> filter) throws IOException {
+        List<String> files = new ArrayList<>();
+        try (Stream<Path> entries = Files.list(directory)) {
+            for (Path entry : entries.sorted().toList()) {
+                if (Files.isRegularFile(entry) && filter.test(entry)) {
+                    files.add(entry.toString());
+                }
             }
         }
+        return files;
     }
 }
@@ -0,0 +1,264 @@
+package org.ibrahim.io;
+
+import org.ibrahim.exception.CookieParseException;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Utility class for scanning cookie CSV files through a read-only memory mapping.
+ * <p>
+ * Instead of materializing a {@code String} per line, the scanner walks the mapped bytes and hands each
+ * record to a {@link RecordProcessor} as offsets of its cookie and timestamp fields. The whole file is
+ * mapped as one {@link MemorySegment} addressed with {@code long} offsets, so files larger than 2 GB are
+ * supported. Lines and fields are found by {@link DelimiterScanner#get()}, which is vectorized when the JVM
+ * runs with {@code --add-modules jdk.incubator.vector}. A trailing {@code '\r'} on a line is ignored. Large
+ * files can be split into line-aligned byte ranges and scanned on several cores with {@link #scanParallel}.</p>
+ * <b>Usage Example:</b>
+ * <pre><code>
+ * MappedCookieScanner.scan("cookie_log.csv", true, (segment, cookieOffset, cookieLength, timestampOffset, timestampLength) -&gt;
+ *     System.out.println(MappedCookieScanner.toString(segment, cookieOffset, cookieLength)));
+ * </code></pre>
+ */
+public class MappedCookieScanner {
+  private static final byte NEWLINE = '\n';
+  private static final byte CARRIAGE_RETURN = '\r';
+  private static final DelimiterScanner SCANNER = DelimiterScanner.get();
+  private static final long CANCEL_CHECK_BYTES = 16L << 20;
+
+  /**
+   * Functional interface for processing a single record located inside a mapped segment.
+   */
+  @FunctionalInterface
+  public interface RecordProcessor {
+    void process(MemorySegment segment, long cookieOffset, int cookieLength, long timestampOffset, int timestampLength);
+
+    /**
+     * Called on the scanning thread after the processor's last record of a scan.
+     */
+    default void finish() {
+    }
+  }
+
+  /**
+   * Maps the given file and passes every record to the processor.
+   * @param filename the path to the file
+   * @param skipHeader if true, the first line (header) will be skipped
+   * @param processor the processor to apply to each record
+   * @throws IOException if the file does not exist or cannot be mapped
+   * @throws CookieParseException if a line does not have exactly two columns
+   */
+  public static void scan(String filename, boolean skipHeader, RecordProcessor processor) throws IOException {
+    try (Arena arena = Arena.ofConfined()) {
+      MemorySegment segment = map(filename, arena);
+      long start = skipHeader ? skipLine(segment, 0) : 0;
+      scanRange(segment, start, segment.byteSize(), processor);
+      processor.finish();
+    }
+  }
+
+  /**
+   * Maps the given file and scans it on several worker threads.
+   * <p>
+   * The file is split into {@code parallelism} byte ranges aligned to line starts, and each range is
+   * scanned by its own worker with its own processor, so processors need no synchronization. If a range
+   * fails, the other workers are cancelled and awaited before the failure is rethrown and the file unmapped.</p>
+   * @param filename the path to the file
+   * @param skipHeader if true, the first line (header) will be skipped
+   * @param parallelism the number of ranges and worker threads
+   * @param processorFactory creates the processor for each range
+   * @return the processors in file order, after all ranges have been scanned
+   * @throws IOException if the file does not exist or cannot be mapped
+   * @throws CookieParseException if a line does not have exactly two columns
+   */
+  public static <T extends RecordProcessor> List<T> scanParallel(String filename, boolean skipHeader, int parallelism,
+                                                                 Supplier<T> processorFactory) throws IOException {
+    try (Arena arena = Arena.ofShared()) {
+      MemorySegment segment = map(filename, arena);
+      long start = skipHeader ? skipLine(segment, 0) : 0;
+      long[] bounds = split(segment, start, parallelism);
+      List<T> processors = new ArrayList<>(bounds.length - 1);
+      List<Future<?>> futures = new ArrayList<>(bounds.length - 1);
+      try (ExecutorService executor = Executors.newFixedThreadPool(bounds.length - 1)) {
+        for (int i = 0; i < bounds.length - 1; i++) {
+          T processor = processorFactory.get();
+          long from = bounds[i];
+          long to = bounds[i + 1];
+          processors.add(processor);
+          futures.add(executor.submit(() -> {
+            if (scanInterruptibly(segment, from, to, processor)) {
+              processor.finish();
+            }
+          }));
+        }
+        try {
+          for (Future<?> future : futures) {
+            await(future);
+          }
+        } catch (IOException | RuntimeException e) {
+          // Stop the other ranges; closing the executor waits for them, so none still reads the mapping when the
+          // arena is closed
+          futures.forEach(future -> future.cancel(true));
+          throw e;
+        }
+      }
+      return processors;
+    }
+  }
+
+  /**
+   * Splits the part of the segment after {@code from} into up to {@code parts} ranges of similar size,
+   * each starting at the beginning of a line.
+   * @param segment the mapped file
+   * @param from the offset of the first line
+   * @param parts the desired number of ranges
+   * @return the range boundaries; range {@code i} is {@code [bounds[i], bounds[i + 1])}
+   */
+  public static long[] split(MemorySegment segment, long from, int parts) {
+    long size = segment.byteSize();
+    long step = Math.max(1, (size - from) / Math.max(1, parts));
+    long[] bounds = new long[parts + 1];
+    int count = 0;
+    bounds[count++] = from;
+    for (int i = 1; i < parts; i++) {
+      long bound = skipLine(segment, Math.max(from + i * step, bounds[count - 1]) - 1);
+      if (bound > bounds[count - 1] && bound < size) {
+        bounds[count++] = bound;
+      }
+    }
+    bounds[count++] = size;
+    return Arrays.copyOf(bounds, count);
+  }
+
+  /**
+   * Scans a range in steps of about {@link #CANCEL_CHECK_BYTES}, stopping between steps once the worker is
+   * interrupted.
+   * @return false if the scan was interrupted before the end of the range
+   */
+  private static boolean scanInterruptibly(MemorySegment segment, long from, long to, RecordProcessor processor) {
+    long start = from;
+    while (start < to) {
+      if (Thread.currentThread().isInterrupted()) {
+        return false;
+      }
+      long end = to - start > CANCEL_CHECK_BYTES ? Math.min(to, skipLine(segment, start + CANCEL_CHECK_BYTES - 1)) : to;
+      scanRange(segment, start, end, processor);
+      start = end;
+    }
+    return true;
+  }
+
+  /**
+   * Waits for a range scan to finish, rethrowing its failure.
+   */
+  private static void await(Future<?> future) throws IOException {
+    try {
+      future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while scanning");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * Maps the given file read-only into the arena.
+   * @param filename the path to the file
+   * @param arena the arena controlling the lifetime of the mapping
+   * @return a segment covering the whole file
+   * @throws IOException if the file does not exist or cannot be mapped
+   */
+  public static MemorySegment map(String filename, Arena arena) throws IOException {
+    Path path = Path.of(filename);
+    if (!Files.exists(path)) {
+      throw new FileNotFoundException("File not found: " + filename);
+    }
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size == 0) {
+        return MemorySegment.NULL;
+      }
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, size, arena);
+    }
+  }
+
+  /**
+   * Passes every record between the two offsets to the processor.
+   * The range must start at the beginning of a line; a line that starts before {@code to} is read to its end.
+   * @param segment the mapped file
+   * @param from the offset of the first line
+   * @param to the offset at which no further lines are started
+   * @param processor the processor to apply to each record
+   * @throws CookieParseException if a line does not have exactly two columns
+   */
+  public static void scanRange(MemorySegment segment, long from, long to, RecordProcessor processor) {
+    SCANNER.scan(segment, from, to, (lineStart, lineEnd, comma, commas) -> {
+      long contentEnd = lineEnd;
+      if (contentEnd > lineStart && segment.get(ValueLayout.JAVA_BYTE, contentEnd - 1) == CARRIAGE_RETURN) {
+        contentEnd--;
+      }
+      if (commas != 1 || comma >= contentEnd - 1) {
+        throw new CookieParseException("Column and field count mismatch in line: "
+            + toString(segment, lineStart, (int) (contentEnd - lineStart)));
+      }
+      processor.process(segment, lineStart, (int) (comma - lineStart), comma + 1, (int) (contentEnd - comma - 1));
+    });
+  }
+
+  /**
+   * Returns the offset of the line following the one containing the given offset.
+   * @param segment the mapped file
+   * @param offset an offset inside a line
+   * @return the offset of the next line, or the segment size if there is none
+   */
+  public static long skipLine(MemorySegment segment, long offset) {
+    long size = segment.byteSize();
+    long newline = indexOf(segment, NEWLINE, offset, size);
+    return newline < size ? newline + 1 : size;
+  }
+
+  /**
+   * Decodes a slice of the segment as a UTF-8 string.
+   * @param segment the mapped file
+   * @param offset the offset of the first byte
+   * @param length the number of bytes
+   * @return the decoded string
+   */
+  public static String toString(MemorySegment segment, long offset, int length) {
+    return new String(segment.asSlice(offset, length).toArray(ValueLayout.JAVA_BYTE), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Finds the first occurrence of a byte in the half-open range.
+   * @return the offset of the byte, or {@code to} if it does not occur
+   */
+  private static long indexOf(MemorySegment segment, byte value, long from, long to) {
+    for (long i = from; i < to; i++) {
+      if (segment.get(ValueLayout.JAVA_BYTE, i) == value) {
+        return i;
+      }
+    }
+    return to;
+  }
+}
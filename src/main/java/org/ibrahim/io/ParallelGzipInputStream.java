@@ -0,0 +1,549 @@
+package org.ibrahim.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Input stream that decompresses a gzip file, inflating its members in parallel.
+ * <p>
+ * A gzip file may consist of several concatenated members, e.g. appended rotations or block-compressed
+ * output. The compressed file is memory-mapped, and a search thread scans it once, a word at a time, for
+ * member headers while the stream is read; each candidate member is inflated by its own worker into a queue
+ * of chunks, and the stream hands out the chunks of the members in file order. A candidate is only used if
+ * it starts exactly where the previous member ended, so header-like bytes inside compressed data are
+ * discarded. A member that no worker has started on, e.g. the first one or the only member of a
+ * single-member file, is inflated on the reading thread straight into the caller's buffer, as
+ * {@link java.util.zip.GZIPInputStream} does, so the first bytes never wait for the search. Members ahead of
+ * the one being read are inflated until a read-ahead budget shared by all workers is used up, so members of
+ * any size are inflated concurrently while memory use stays bounded, independent of the file size. The member
+ * being read may always buffer a few chunks of its own, so it never waits for the others to be consumed.
+ * Member checksums and sizes are verified, and an empty file is rejected like any other file that is not in
+ * gzip format.</p>
+ * <b>Usage Example:</b>
+ * <pre><code>
+ * try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+ *     new ParallelGzipInputStream("cookie_log.csv.gz", 4), StandardCharsets.UTF_8))) {
+ *   reader.lines().forEach(System.out::println);
+ * }
+ * </code></pre>
+ */
+public class ParallelGzipInputStream extends InputStream {
+  private static final int CHUNK_SIZE = 64 * 1024;
+  private static final int CURRENT_MEMBER_BYTES = 16 * CHUNK_SIZE;
+  private static final long DEFAULT_READ_AHEAD_BYTES = 64L << 20;
+  private static final int HEADER_LENGTH = 10;
+  private static final int TRAILER_LENGTH = 8;
+  private static final int FLAG_HCRC = 0x02;
+  private static final int FLAG_EXTRA = 0x04;
+  private static final int FLAG_NAME = 0x08;
+  private static final int FLAG_COMMENT = 0x10;
+  private static final int FLAG_RESERVED = 0xE0;
+  private static final long CANCEL_CHECK_BYTES = 16L << 20;
+  private static final long ONES = 0x0101010101010101L;
+  private static final long HIGH_BITS = 0x8080808080808080L;
+  private static final long MAGIC_BYTES = 0x1F * ONES;
+  private static final ValueLayout.OfLong LONG_LE = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+  private static final ValueLayout.OfInt INT_LE = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+  private static final ValueLayout.OfShort SHORT_LE = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+  /** Marks the end of a member's chunks; compared by identity. */
+  private static final byte[] END = new byte[0];
+
+  /**
+   * A candidate member being inflated by a worker. Its inflated chunks are queued, followed by {@link #END};
+   * its future completes with the offset following the member's trailer.
+   */
+  private static final class Member {
+    private final long offset;
+    private final BlockingQueue<byte[]> chunks = new LinkedBlockingQueue<>();
+    private Future<Long> end;
+    // Guarded by the ReadAhead
+    private long buffered;
+    private boolean current;
+    private boolean discarded;
+
+    private Member(long offset) {
+      this.offset = offset;
+    }
+  }
+
+  /**
+   * Bounds the inflated bytes buffered across all members. A worker waits before queueing a chunk while the
+   * budget is used up, unless its member is the one being read and holds less than
+   * {@link #CURRENT_MEMBER_BYTES}; the budget can therefore be exceeded by at most that amount.
+   */
+  private static final class ReadAhead {
+    private final long limit;
+    private long buffered;
+
+    private ReadAhead(long limit) {
+      this.limit = limit;
+    }
+
+    synchronized void acquire(Member member, int bytes) throws InterruptedException {
+      while (!member.discarded && (member.current ? member.buffered >= CURRENT_MEMBER_BYTES : buffered >= limit)) {
+        wait();
+      }
+      if (member.discarded) {
+        throw new InterruptedException("Member discarded");
+      }
+      member.buffered += bytes;
+      buffered += bytes;
+    }
+
+    synchronized void release(Member member, int bytes) {
+      member.buffered -= bytes;
+      buffered -= bytes;
+      notifyAll();
+    }
+
+    synchronized void makeCurrent(Member member) {
+      member.current = true;
+      notifyAll();
+    }
+
+    synchronized void discard(Member member) {
+      member.discarded = true;
+      buffered -= member.buffered;
+      member.buffered = 0;
+      notifyAll();
+    }
+
+    synchronized long buffered() {
+      return buffered;
+    }
+  }
+
+  /**
+   * Inflates one member step by step and verifies its trailer once it is finished.
+   */
+  private final class MemberInflater implements AutoCloseable {
+    private final long offset;
+    private final long dataStart;
+    private final Inflater inflater = new Inflater(true);
+    private final CRC32 crc = new CRC32();
+    // Buffers derived from a shared arena cannot be passed to the inflater, so input is copied in windows
+    private final byte[] input = new byte[CHUNK_SIZE];
+    private long inputPosition;
+    private long inflated;
+    private long end = -1;
+
+    private MemberInflater(long offset) throws IOException {
+      this.offset = offset;
+      this.dataStart = skipHeader(offset);
+      this.inputPosition = dataStart;
+    }
+
+    /**
+     * Inflates some bytes of the member into the buffer.
+     * @return the number of bytes inflated, or -1 once the member is finished and its trailer verified
+     * @throws ZipException if the member is corrupt
+     * @throws EOFException if the member is truncated
+     */
+    int inflate(byte[] output, int from, int length) throws IOException {
+      try {
+        while (!inflater.finished()) {
+          if (inflater.needsInput()) {
+            long size = segment.byteSize();
+            if (inputPosition >= size) {
+              throw new EOFException("Unexpected end of gzip member at offset " + offset);
+            }
+            int count = (int) Math.min(input.length, size - inputPosition);
+            MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, inputPosition, input, 0, count);
+            inflater.setInput(input, 0, count);
+            inputPosition += count;
+          }
+          int count = inflater.inflate(output, from, length);
+          if (count > 0) {
+            crc.update(output, from, count);
+            inflated += count;
+            return count;
+          }
+          if (inflater.needsDictionary()) {
+            throw new ZipException("Invalid gzip member at offset " + offset + ": preset dictionary");
+          }
+        }
+      } catch (DataFormatException e) {
+        throw new ZipException("Invalid gzip member at offset " + offset + ": " + e.getMessage());
+      }
+      if (end < 0) {
+        end = verifyTrailer(offset, dataStart + inflater.getBytesRead(), crc.getValue(), inflated);
+      }
+      return -1;
+    }
+
+    /**
+     * Returns the offset following the member's trailer, once the member is finished.
+     */
+    long end() {
+      return end;
+    }
+
+    @Override
+    public void close() {
+      inflater.end();
+    }
+  }
+
+  private final Arena arena = Arena.ofShared();
+  private final MemorySegment segment;
+  private final ExecutorService executor;
+  private final ExecutorService searcher;
+  private final ReadAhead readAhead;
+  private final BlockingQueue<Member> pending;
+  private Member current;
+  private MemberInflater inline;
+  private long expected;
+  private byte[] chunk = END;
+  private int position;
+  private boolean closed;
+
+  /**
+   * Opens the gzip file for reading.
+   * @param filename the path to the gzip file
+   * @param parallelism the number of members to inflate concurrently
+   * @throws IOException if the file does not exist or cannot be mapped
+   */
+  public ParallelGzipInputStream(String filename, int parallelism) throws IOException {
+    this(filename, parallelism, DEFAULT_READ_AHEAD_BYTES);
+  }
+
+  /**
+   * Opens the gzip file for reading with the given read-ahead budget.
+   * @param filename the path to the gzip file
+   * @param parallelism the number of members to inflate concurrently
+   * @param readAheadBytes the inflated bytes that may be buffered ahead of the reader across all members
+   * @throws IOException if the file does not exist, cannot be mapped or is empty
+   */
+  ParallelGzipInputStream(String filename, int parallelism, long readAheadBytes) throws IOException {
+    try {
+      this.segment = MappedCookieScanner.map(filename, arena);
+      if (segment.byteSize() == 0) {
+        throw new ZipException("Not in GZIP format: empty file " + filename);
+      }
+    } catch (IOException | RuntimeException e) {
+      arena.close();
+      throw e;
+    }
+    int window = Math.max(1, parallelism);
+    this.readAhead = new ReadAhead(readAheadBytes);
+    this.pending = new ArrayBlockingQueue<>(window);
+    this.executor = Executors.newFixedThreadPool(window, Thread.ofPlatform().daemon().name("gzip-inflater-", 0).factory());
+    this.searcher = Executors.newSingleThreadExecutor(Thread.ofPlatform().daemon().name("gzip-searcher").factory());
+    searcher.execute(this::search);
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] single = new byte[1];
+    return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] buffer, int offset, int length) throws IOException {
+    Objects.checkFromIndexSize(offset, length, buffer.length);
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+    if (length == 0) {
+      return 0;
+    }
+    while (true) {
+      if (position < chunk.length) {
+        int count = Math.min(length, chunk.length - position);
+        System.arraycopy(chunk, position, buffer, offset, count);
+        position += count;
+        return count;
+      }
+      if (inline != null) {
+        int count = inline.inflate(buffer, offset, length);
+        if (count > 0) {
+          return count;
+        }
+        expected = inline.end();
+        inline.close();
+        inline = null;
+      } else if (current != null) {
+        nextChunk();
+      } else if (!nextMember()) {
+        return -1;
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    // The search submits members, so it is stopped first; both must be done before the file is unmapped
+    searcher.shutdownNow();
+    searcher.close();
+    executor.shutdownNow();
+    executor.close();
+    if (inline != null) {
+      inline.close();
+    }
+    arena.close();
+  }
+
+  /**
+   * Returns the inflated bytes currently buffered ahead of the reader, across all members.
+   */
+  long bufferedBytes() {
+    return readAhead.buffered();
+  }
+
+  /**
+   * Advances to the next inflated chunk of the current member, finishing the member at its end.
+   */
+  private void nextChunk() throws IOException {
+    byte[] next = take(current.chunks);
+    if (next != END) {
+      readAhead.release(current, next.length);
+      chunk = next;
+      position = 0;
+      return;
+    }
+    expected = await(current.end);
+    current = null;
+  }
+
+  /**
+   * Moves on to the member starting where the previous one ended, discarding candidates that turned out to lie
+   * inside the previous member. The member is taken from its worker if the search has found it already and
+   * inflated on the reading thread otherwise.
+   * @return false if the previous member ended the file
+   * @throws ZipException if the data following the previous member is not a gzip member
+   */
+  private boolean nextMember() throws IOException {
+    Member candidate;
+    while ((candidate = pending.peek()) != null && candidate.offset < expected) {
+      pending.remove();
+      readAhead.discard(candidate);
+      candidate.end.cancel(true);
+    }
+    if (candidate != null && candidate.offset == expected) {
+      pending.remove();
+      readAhead.makeCurrent(candidate);
+      current = candidate;
+      return true;
+    }
+    if (expected >= segment.byteSize()) {
+      return false;
+    }
+    if (!isHeader(expected)) {
+      throw new ZipException("Not in GZIP format at offset " + expected);
+    }
+    inline = new MemberInflater(expected);
+    return true;
+  }
+
+  /**
+   * Scans the file once for member headers after the first one and submits each candidate to a worker,
+   * waiting while the window of pending members is full. Runs on the search thread until the end of the file
+   * or until the stream is closed.
+   */
+  private void search() {
+    try {
+      for (long offset = nextCandidate(1); offset >= 0; offset = nextCandidate(offset + 1)) {
+        Member member = new Member(offset);
+        member.end = executor.submit(() -> {
+          long memberEnd;
+          try {
+            memberEnd = inflate(member);
+          } catch (InterruptedException e) {
+            throw e; // Cancelled, nobody waits for the chunks
+          } catch (IOException | RuntimeException e) {
+            member.chunks.add(END);
+            throw e;
+          }
+          member.chunks.add(END);
+          return memberEnd;
+        });
+        pending.put(member);
+      }
+    } catch (InterruptedException | RejectedExecutionException e) {
+      // Closed while searching
+    }
+  }
+
+  /**
+   * Finds the next offset that looks like the start of a gzip member header. Eight bytes are tested at once
+   * for the first header byte, so the search mostly skips compressed data a word at a time.
+   * @return the offset, or -1 if there is none or the search was interrupted
+   */
+  private long nextCandidate(long from) {
+    long size = segment.byteSize();
+    long last = size - HEADER_LENGTH;
+    long nextCancelCheck = from;
+    long i = from;
+    while (i <= last) {
+      if (i >= nextCancelCheck) {
+        if (Thread.currentThread().isInterrupted()) {
+          return -1;
+        }
+        nextCancelCheck = i + CANCEL_CHECK_BYTES;
+      }
+      if (i + Long.BYTES <= size) {
+        // Sets the high bit of the first byte equal to 0x1F; later bytes may be flagged spuriously
+        long word = segment.get(LONG_LE, i) ^ MAGIC_BYTES;
+        long found = (word - ONES) & ~word & HIGH_BITS;
+        if (found == 0) {
+          i += Long.BYTES;
+          continue;
+        }
+        i += Long.numberOfTrailingZeros(found) >>> 3;
+      }
+      if (i <= last && isHeader(i)) {
+        return i;
+      }
+      i++;
+    }
+    return -1;
+  }
+
+  private boolean isHeader(long offset) {
+    return offset + HEADER_LENGTH <= segment.byteSize() && byteAt(offset) == 0x1F && byteAt(offset + 1) == 0x8B
+        && byteAt(offset + 2) == 8 && (byteAt(offset + 3) & FLAG_RESERVED) == 0;
+  }
+
+  /**
+   * Inflates the member into its queue, within the read-ahead budget, and verifies its trailer.
+   * @return the offset following the member's trailer
+   * @throws ZipException if the member is corrupt
+   * @throws EOFException if the member is truncated
+   * @throws InterruptedException if the member was cancelled
+   */
+  private long inflate(Member member) throws IOException, InterruptedException {
+    try (MemberInflater inflater = new MemberInflater(member.offset)) {
+      while (true) {
+        byte[] output = new byte[CHUNK_SIZE];
+        int length = 0;
+        int count = 0;
+        while (length < output.length && (count = inflater.inflate(output, length, output.length - length)) > 0) {
+          length += count;
+        }
+        if (length > 0) {
+          readAhead.acquire(member, length);
+          member.chunks.add(length == output.length ? output : Arrays.copyOf(output, length));
+        }
+        if (count < 0) {
+          return inflater.end();
+        }
+      }
+    }
+  }
+
+  /**
+   * Verifies the trailer of a member against the inflated data.
+   * @return the offset following the trailer
+   * @throws ZipException if the checksum or size does not match
+   * @throws EOFException if the trailer is truncated
+   */
+  private long verifyTrailer(long offset, long trailer, long crc, long inflated) throws IOException {
+    if (trailer + TRAILER_LENGTH > segment.byteSize()) {
+      throw new EOFException("Unexpected end of gzip trailer at offset " + trailer);
+    }
+    if ((segment.get(INT_LE, trailer) & 0xFFFFFFFFL) != crc) {
+      throw new ZipException("Corrupt gzip member at offset " + offset + ": CRC mismatch");
+    }
+    if (segment.get(INT_LE, trailer + 4) != (int) inflated) {
+      throw new ZipException("Corrupt gzip member at offset " + offset + ": size mismatch");
+    }
+    return trailer + TRAILER_LENGTH;
+  }
+
+  /**
+   * Reads the member header at the given offset.
+   * @return the offset of the compressed data
+   */
+  private long skipHeader(long offset) throws IOException {
+    int flags = byteAt(offset + 3);
+    long position = offset + HEADER_LENGTH;
+    if ((flags & FLAG_EXTRA) != 0) {
+      requireAvailable(position + 2, offset);
+      position += 2 + (segment.get(SHORT_LE, position) & 0xFFFF);
+    }
+    if ((flags & FLAG_NAME) != 0) {
+      position = skipZeroTerminated(position, offset);
+    }
+    if ((flags & FLAG_COMMENT) != 0) {
+      position = skipZeroTerminated(position, offset);
+    }
+    if ((flags & FLAG_HCRC) != 0) {
+      position += 2;
+    }
+    requireAvailable(position, offset);
+    return position;
+  }
+
+  private long skipZeroTerminated(long position, long offset) throws IOException {
+    long size = segment.byteSize();
+    while (position < size && byteAt(position) != 0) {
+      position++;
+    }
+    requireAvailable(position + 1, offset);
+    return position + 1;
+  }
+
+  private void requireAvailable(long end, long offset) throws EOFException {
+    if (end > segment.byteSize()) {
+      throw new EOFException("Unexpected end of gzip header at offset " + offset);
+    }
+  }
+
+  private int byteAt(long offset) {
+    return segment.get(ValueLayout.JAVA_BYTE, offset) & 0xFF;
+  }
+
+  private static byte[] take(BlockingQueue<byte[]> chunks) throws InterruptedIOException {
+    try {
+      return chunks.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while inflating");
+    }
+  }
+
+  /**
+   * Waits for a member to be inflated, rethrowing its failure.
+   * @return the offset following the member
+   */
+  private static long await(Future<Long> end) throws IOException {
+    try {
+      return end.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while inflating");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException ioException) {
+        throw ioException;
+      }
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+}
@@ -0,0 +1,292 @@
+package org.ibrahim.io;
+
+import org.ibrahim.exception.CookieParseException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.foreign.MemorySegment;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Scans cookie CSV records from a stream that cannot be split into byte ranges, e.g. standard input, a named
+ * pipe or a decompressing stream, on several cores.
+ * <p>
+ * The work is staged: the calling thread reads the stream into large byte buffers, each cut after its last
+ * complete line and numbered in stream order, and hands them to a pool of workers through a bounded queue.
+ * Workers take the buffers in any order and scan the records of each with {@link MappedCookieScanner#scanRange}
+ * and a processor of its own, e.g. one holding the counts of the buffer, so parsing is spread across cores
+ * although the input is read sequentially. The scanned processors are then passed on in stream order, as
+ * {@link MappedCookieScanner#scanParallel} returns its ranges, so merged results keep the order in which
+ * values first occur. A buffer is recycled through a second bounded queue once its processor is passed on,
+ * so memory stays fixed and the reader blocks while the workers are behind (backpressure). If a worker fails,
+ * the reader stops and the failure is rethrown.</p>
+ * <b>Usage Example:</b>
+ * <pre><code>
+ * PipelinedCookieScanner.scan(System.in, true, 4, MyProcessor::new, processor -&gt; total.addAll(processor));
+ * </code></pre>
+ */
+public class PipelinedCookieScanner {
+  private static final int BUFFER_SIZE = 1 << 20;
+  private static final int BUFFERS_PER_WORKER = 2;
+  private static final byte NEWLINE = '\n';
+  private static final Chunk END = new Chunk(-1, new byte[0], 0, 0);
+
+  /**
+   * A slice of a buffer holding complete lines, numbered in stream order.
+   */
+  private record Chunk(long sequence, byte[] buffer, int from, int to) {
+  }
+
+  /**
+   * Passes the processors of scanned chunks on in stream order, holding those that finish early until the
+   * chunks before them are done, and recycles each buffer once its processor is passed on. Since buffers are
+   * only recycled in order, no more chunks are held than there are buffers.
+   */
+  private static class Sequencer<T> {
+    private final Map<Long, Done<T>> done = new HashMap<>();
+    private final BlockingQueue<byte[]> free;
+    private final AtomicBoolean failed;
+    private final Consumer<? super T> consumer;
+    private long next;
+
+    private record Done<T>(byte[] buffer, T processor) {
+    }
+
+    Sequencer(BlockingQueue<byte[]> free, AtomicBoolean failed, Consumer<? super T> consumer) {
+      this.free = free;
+      this.failed = failed;
+      this.consumer = consumer;
+    }
+
+    /**
+     * Marks a chunk as scanned and passes on the processors of all chunks now complete in stream order.
+     * @param chunk the scanned chunk
+     * @param processor its processor, or null if it was not scanned after a failure
+     */
+    synchronized void complete(Chunk chunk, T processor) throws InterruptedException {
+      done.put(chunk.sequence(), new Done<>(chunk.buffer(), processor));
+      RuntimeException failure = null;
+      for (Done<T> head = done.remove(next); head != null; head = done.remove(next)) {
+        next++;
+        if (head.processor() != null && !failed.get()) {
+          try {
+            consumer.accept(head.processor());
+          } catch (RuntimeException e) {
+            failure = e;
+            failed.set(true);
+          }
+        }
+        // Every buffer held is returned even after a failure, since no later chunk may complete to return it
+        free.put(head.buffer());
+      }
+      if (failure != null) {
+        throw failure;
+      }
+    }
+  }
+
+  /**
+   * Reads the stream and scans its records on the given number of workers, with buffers of the default size.
+   * @param in the stream to read; it is not closed
+   * @param skipHeader if true, the first line (header) will be skipped
+   * @param workers the number of worker threads
+   * @param processorFactory creates the processor of each buffer, on the worker scanning it
+   * @param consumer receives the processor of each buffer once scanned, in stream order and one at a time
+   * @throws IOException if the stream cannot be read
+   * @throws CookieParseException if a line does not have exactly two columns
+   */
+  public static <T extends MappedCookieScanner.RecordProcessor> void scan(InputStream in, boolean skipHeader,
+                                                                          int workers, Supplier<T> processorFactory,
+                                                                          Consumer<? super T> consumer)
+      throws IOException {
+    scan(in, skipHeader, workers, BUFFER_SIZE, processorFactory, consumer);
+  }
+
+  /**
+   * Reads the stream and scans its records on the given number of workers.
+   * @param in the stream to read; it is not closed
+   * @param skipHeader if true, the first line (header) will be skipped
+   * @param workers the number of worker threads
+   * @param bufferSize the size of each buffer; buffers grow to hold a longer line
+   * @param processorFactory creates the processor of each buffer, on the worker scanning it
+   * @param consumer receives the processor of each buffer once scanned, in stream order and one at a time
+   * @throws IOException if the stream cannot be read
+   * @throws CookieParseException if a line does not have exactly two columns
+   */
+  public static <T extends MappedCookieScanner.RecordProcessor> void scan(InputStream in, boolean skipHeader,
+                                                                          int workers, int bufferSize,
+                                                                          Supplier<T> processorFactory,
+                                                                          Consumer<? super T> consumer)
+      throws IOException {
+    if (workers <= 0) {
+      throw new IllegalArgumentException("Workers must be positive: " + workers);
+    }
+    int buffers = workers * BUFFERS_PER_WORKER + 1;
+    // Room for every buffer and the end markers, so queueing a chunk never blocks; only taking a free buffer does
+    BlockingQueue<Chunk> filled = new ArrayBlockingQueue<>(buffers + workers);
+    BlockingQueue<byte[]> free = new ArrayBlockingQueue<>(buffers);
+    for (int i = 0; i < buffers; i++) {
+      free.add(new byte[bufferSize]);
+    }
+    AtomicBoolean failed = new AtomicBoolean();
+    Sequencer<T> sequencer = new Sequencer<>(free, failed, consumer);
+    Future<?>[] futures = new Future<?>[workers];
+    ExecutorService executor = Executors.newFixedThreadPool(workers);
+    try {
+      for (int i = 0; i < workers; i++) {
+        futures[i] = executor.submit(() -> {
+          work(filled, failed, processorFactory, sequencer);
+          return null;
+        });
+      }
+      try {
+        read(in, skipHeader, filled, free, failed);
+      } finally {
+        for (int i = 0; i < workers; i++) {
+          filled.put(END);
+        }
+      }
+      for (Future<?> future : futures) {
+        await(future);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while scanning");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Fills buffers from the stream and queues their complete lines, numbered in stream order, carrying a partial
+   * last line over into the next buffer. Stops early if a worker has failed.
+   */
+  private static void read(InputStream in, boolean skipHeader, BlockingQueue<Chunk> filled, BlockingQueue<byte[]> free,
+                           AtomicBoolean failed) throws IOException, InterruptedException {
+    byte[] buffer = free.take();
+    int length = 0;
+    long sequence = 0;
+    boolean header = skipHeader;
+    while (!failed.get()) {
+      if (length == buffer.length) {
+        // A single line fills the buffer, so it grows; the larger buffer is recycled like the others
+        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+      }
+      int read = in.read(buffer, length, buffer.length - length);
+      if (read < 0) {
+        break;
+      }
+      int lastNewline = lastIndexOf(buffer, length, length + read);
+      length += read;
+      if (lastNewline < 0) {
+        continue;
+      }
+      int from = header ? indexOf(buffer, length) + 1 : 0;
+      header = false;
+      int carried = length - lastNewline - 1;
+      byte[] next = free.take();
+      if (next.length < carried) {
+        next = new byte[buffer.length];
+      }
+      System.arraycopy(buffer, lastNewline + 1, next, 0, carried);
+      if (from <= lastNewline) {
+        filled.put(new Chunk(sequence++, buffer, from, lastNewline + 1));
+      } else {
+        free.put(buffer);
+      }
+      buffer = next;
+      length = carried;
+    }
+    // What remains is a last line without a newline, or the header if the stream holds nothing else
+    if (!header && length > 0) {
+      filled.put(new Chunk(sequence, buffer, 0, length));
+    } else {
+      free.put(buffer);
+    }
+  }
+
+  /**
+   * Scans queued chunks, each with a new processor, until the end marker arrives, and completes each chunk with
+   * the sequencer. After a failure, the remaining chunks are only completed, so their buffers are still returned
+   * and the reader is never left waiting for one.
+   */
+  private static <T extends MappedCookieScanner.RecordProcessor> void work(BlockingQueue<Chunk> filled,
+                                                                           AtomicBoolean failed,
+                                                                           Supplier<T> processorFactory,
+                                                                           Sequencer<T> sequencer)
+      throws InterruptedException {
+    RuntimeException failure = null;
+    while (true) {
+      Chunk chunk = filled.take();
+      if (chunk == END) {
+        if (failure != null) {
+          throw failure;
+        }
+        return;
+      }
+      T processor = null;
+      try {
+        if (!failed.get()) {
+          processor = processorFactory.get();
+          MemorySegment segment = MemorySegment.ofArray(chunk.buffer()).asSlice(0, chunk.to());
+          MappedCookieScanner.scanRange(segment, chunk.from(), chunk.to(), processor);
+          processor.finish();
+        }
+      } catch (RuntimeException e) {
+        failure = e;
+        failed.set(true);
+        processor = null;
+      }
+      try {
+        sequencer.complete(chunk, processor);
+      } catch (RuntimeException e) {
+        failure = e;
+        failed.set(true);
+      }
+    }
+  }
+
+  /**
+   * Waits for a worker to finish, rethrowing its failure.
+   */
+  private static void await(Future<?> future) throws IOException, InterruptedException {
+    try {
+      future.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  private static int indexOf(byte[] buffer, int to) {
+    for (int i = 0; i < to; i++) {
+      if (buffer[i] == NEWLINE) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int lastIndexOf(byte[] buffer, int from, int to) {
+    for (int i = to - 1; i >= from; i--) {
+      if (buffer[i] == NEWLINE) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,379 @@
+package org.ibrahim.io;
+
+import org.ibrahim.model.Cookie;
+import org.ibrahim.model.CookieCount;
+import org.ibrahim.model.ScanMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk cache of query results, so that repeating a query on logs that have not changed prints its result
+ * without reading them.
+ * <p>
+ * A result is keyed by the query (dates, zone, scan mode and top count) and the identity of every file read: its
+ * normalized absolute path, size and modification time, and optionally a fingerprint of its first and last
+ * {@value #FINGERPRINT_BYTES} bytes, which catches a file rewritten with its old size and time at the cost of
+ * opening it. Each result is stored in a file named after the SHA-256 hash of its key, which it also holds, so a
+ * result of a changed file is never returned; it is no longer used and ages out.</p>
+ * <p>
+ * The cache is bounded by the total size of its entries. A hit marks the entry as recently used by updating its
+ * modification time, and once an entry is added, the least recently used entries are deleted until the cache
+ * fits. Several processes may share a directory: entries are written to a temporary file and moved into place,
+ * so readers never see a partial entry, and eviction holds a lock on the directory's {@value #LOCK_FILE} file.
+ * Temporary files left behind by a process that died while writing are deleted when a cache is opened on the
+ * directory, once they are older than any write could take.
+ * The cache never fails a query: entries that cannot be read are treated as missing and write failures are
+ * only logged.</p>
+ * <b>Usage Example:</b>
+ * <pre><code>
+ * ResultCache cache = new ResultCache(ResultCache.DEFAULT_DIRECTORY, ResultCache.DEFAULT_MAX_BYTES, false);
+ * Optional&lt;ResultCache.Key&gt; key = cache.key(files, dates, zone, ScanMode.MAPPED, null);
+ * Optional&lt;Map&lt;LocalDate, List&lt;Cookie&gt;&gt;&gt; cookies = key.flatMap(cache::getMostActive);
+ * </code></pre>
+ */
+public class ResultCache {
+  /** The default cache directory, {@code ~/.cache/cookie-cutter}. */
+  public static final Path DEFAULT_DIRECTORY = Path.of(System.getProperty("user.home"), ".cache", "cookie-cutter");
+  /** The default bound of the total size of the entries, 64 MiB. */
+  public static final long DEFAULT_MAX_BYTES = 64L << 20;
+  private static final Logger logger = LoggerFactory.getLogger(ResultCache.class);
+  private static final int MAGIC = 0x43435243; // "CCRC"
+  private static final int VERSION = 1;
+  private static final String EXTENSION = ".result";
+  private static final String TEMPORARY_EXTENSION = ".tmp";
+  private static final Duration STALE_TEMPORARY_AGE = Duration.ofHours(1);
+  private static final String LOCK_FILE = ".lock";
+  private static final int FINGERPRINT_BYTES = 64 * 1024;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * Identifies the result of a query on given versions of its files.
+   * @param text the description of the query and the files' identities that an entry must hold
+   * @param hash the hex SHA-256 hash of the text, which names the entry
+   * @param zone the zone of the query, whose start of day the cached most active cookies are dated with
+   */
+  public record Key(String text, String hash, ZoneId zone) {
+  }
+
+  /**
+   * An entry file with its attributes when it was listed for eviction.
+   */
+  private record Entry(Path path, BasicFileAttributes attributes) {
+  }
+
+  private final Path directory;
+  private final long maxBytes;
+  private final boolean fingerprint;
+
+  /**
+   * Constructs a cache in the given directory, which is created when the first entry is added, and deletes stale
+   * temporary files from it.
+   * @param directory the cache directory
+   * @param maxBytes the bound of the total size of the entries
+   * @param fingerprint whether keys include a fingerprint of each file's content
+   * @throws IllegalArgumentException if the bound is not positive
+   */
+  public ResultCache(Path directory, long maxBytes, boolean fingerprint) {
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException("Cache size must be positive: " + maxBytes);
+    }
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+    this.fingerprint = fingerprint;
+    deleteStaleTemporaryFiles();
+  }
+
+  /**
+   * Builds the key of a query from the current identity of its files. The identity must be taken before the
+   * files are read, so that a result is never stored under the identity of a later version.
+   * @param files the paths to the files the query reads
+   * @param dates the dates of the query
+   * @param zone the zone of the query
+   * @param mode the strategy the files are read with; modes that assume an order can report other results
+   * @param top the number of cookies reported with their counts, or null for the most active cookies only
+   * @return the key, or empty if a file cannot be inspected, e.g. because it does not exist
+   */
+  public Optional<Key> key(List<String> files, List<LocalDate> dates, ZoneId zone, ScanMode mode, Integer top) {
+    StringBuilder text = new StringBuilder()
+        .append("zone=").append(zone.getId()).append('\n')
+        .append("dates=").append(dates).append('\n')
+        .append("mode=").append(mode).append('\n')
+        .append("top=").append(top == null ? "most-active" : top).append('\n');
+    try {
+      for (String file : files) {
+        Path path = Path.of(file).toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        if (!attributes.isRegularFile()) {
+          return Optional.empty();
+        }
+        text.append("file=").append(path).append('|').append(attributes.size()).append('|')
+            .append(attributes.lastModifiedTime().toMillis());
+        if (fingerprint) {
+          text.append('|').append(fingerprint(path, attributes.size()));
+        }
+        text.append('\n');
+      }
+    } catch (IOException e) {
+      logger.debug("Cannot inspect files {} for the result cache", files, e);
+      return Optional.empty();
+    }
+    return Optional.of(new Key(text.toString(), hash(text.toString()), zone));
+  }
+
+  /**
+   * Returns the cached most active cookies of a query and marks them as recently used.
+   * @param key the query, built with a null top count
+   * @return the most active cookies of each date, with the start of the date in the zone as their timestamps,
+   * or empty if they are not cached
+   */
+  public Optional<Map<LocalDate, List<Cookie>>> getMostActive(Key key) {
+    return read(key, false).map(entries -> {
+      Map<LocalDate, List<Cookie>> result = new LinkedHashMap<>();
+      entries.forEach((date, counts) -> result.put(date, counts.stream()
+          .map(count -> new Cookie(count.getValue(), date.atStartOfDay(key.zone()).toInstant()))
+          .toList()));
+      return result;
+    });
+  }
+
+  /**
+   * Returns the cached top cookies and counts of a query and marks them as recently used.
+   * @param key the query, built with its top count
+   * @return the top cookies of each date, or empty if they are not cached
+   */
+  public Optional<Map<LocalDate, List<CookieCount>>> getTop(Key key) {
+    return read(key, true);
+  }
+
+  /**
+   * Caches the most active cookies of a query, evicting the least recently used entries if the cache is full.
+   * @param key the query, built with a null top count
+   * @param result the most active cookies of each date
+   */
+  public void putMostActive(Key key, Map<LocalDate, List<Cookie>> result) {
+    Map<LocalDate, List<CookieCount>> entries = new LinkedHashMap<>();
+    result.forEach((date, cookies) -> entries.put(date, cookies.stream()
+        .map(cookie -> new CookieCount(cookie.getValue(), 0))
+        .toList()));
+    write(key, entries, false);
+  }
+
+  /**
+   * Caches the top cookies and counts of a query, evicting the least recently used entries if the cache is full.
+   * @param key the query, built with its top count
+   * @param result the top cookies of each date
+   */
+  public void putTop(Key key, Map<LocalDate, List<CookieCount>> result) {
+    write(key, result, true);
+  }
+
+  /**
+   * Reads an entry, treating an entry of another key, e.g. after a hash collision, or one that cannot be read
+   * as missing.
+   */
+  private Optional<Map<LocalDate, List<CookieCount>>> read(Key key, boolean counted) {
+    Path entry = entryOf(key);
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry), BUFFER_SIZE))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        logger.warn("Ignoring invalid result cache entry: {}", entry);
+        return Optional.empty();
+      }
+      byte[] text = new byte[in.readInt()];
+      in.readFully(text);
+      if (!key.text().equals(new String(text, StandardCharsets.UTF_8))) {
+        return Optional.empty();
+      }
+      Map<LocalDate, List<CookieCount>> result = new LinkedHashMap<>();
+      for (int dates = in.readInt(); dates > 0; dates--) {
+        LocalDate date = LocalDate.ofEpochDay(in.readLong());
+        List<CookieCount> counts = new ArrayList<>();
+        for (int i = in.readInt(); i > 0; i--) {
+          counts.add(new CookieCount(in.readUTF(), counted ? in.readInt() : 0));
+        }
+        result.put(date, counts);
+      }
+      touch(entry);
+      logger.info("Result cache hit: {}", entry);
+      return Optional.of(result);
+    } catch (NoSuchFileException e) {
+      logger.debug("Result cache miss: {}", entry);
+      return Optional.empty();
+    } catch (IOException e) {
+      logger.warn("Ignoring unreadable result cache entry: {}", entry, e);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Writes an entry to a temporary file that then replaces any previous entry, and evicts entries if needed.
+   */
+  private void write(Key key, Map<LocalDate, List<CookieCount>> result, boolean counted) {
+    Path entry = entryOf(key);
+    Path temporary = null;
+    try {
+      Files.createDirectories(directory);
+      temporary = Files.createTempFile(directory, key.hash(), TEMPORARY_EXTENSION);
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary),
+          BUFFER_SIZE))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        byte[] text = key.text().getBytes(StandardCharsets.UTF_8);
+        out.writeInt(text.length);
+        out.write(text);
+        out.writeInt(result.size());
+        for (Map.Entry<LocalDate, List<CookieCount>> date : result.entrySet()) {
+          out.writeLong(date.getKey().toEpochDay());
+          out.writeInt(date.getValue().size());
+          for (CookieCount count : date.getValue()) {
+            out.writeUTF(count.getValue());
+            if (counted) {
+              out.writeInt(count.getCount());
+            }
+          }
+        }
+      }
+      Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      temporary = null;
+      logger.info("Cached result: {}", entry);
+      evict();
+    } catch (IOException e) {
+      logger.warn("Could not cache result: {}", entry, e);
+    } finally {
+      if (temporary != null) {
+        try {
+          Files.deleteIfExists(temporary);
+        } catch (IOException e) {
+          logger.debug("Could not delete temporary file: {}", temporary, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Deletes the least recently used entries until the entries fit the bound, holding the directory lock so
+   * that concurrent processes do not evict at the same time.
+   */
+  private void evict() throws IOException {
+    try (FileChannel lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE);
+         FileLock ignored = lockChannel.lock()) {
+      List<Entry> entries = new ArrayList<>();
+      long total = 0;
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+        for (Path path : stream) {
+          try {
+            Entry entry = new Entry(path, Files.readAttributes(path, BasicFileAttributes.class));
+            entries.add(entry);
+            total += entry.attributes().size();
+          } catch (NoSuchFileException e) {
+            // Deleted since it was listed
+          }
+        }
+      }
+      entries.sort(Comparator.comparing(entry -> entry.attributes().lastModifiedTime()));
+      for (int i = 0; i < entries.size() && total > maxBytes; i++) {
+        Entry entry = entries.get(i);
+        Files.deleteIfExists(entry.path());
+        total -= entry.attributes().size();
+        logger.debug("Evicted result cache entry: {}", entry.path());
+      }
+    }
+  }
+
+  /**
+   * Deletes the temporary files of entries whose writer died before moving them into place. Only files older than
+   * {@link #STALE_TEMPORARY_AGE} are deleted, so entries other processes are writing are left alone.
+   */
+  private void deleteStaleTemporaryFiles() {
+    FileTime cutoff = FileTime.from(Instant.now().minus(STALE_TEMPORARY_AGE));
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + TEMPORARY_EXTENSION)) {
+      for (Path temporary : stream) {
+        try {
+          if (Files.getLastModifiedTime(temporary).compareTo(cutoff) < 0) {
+            Files.deleteIfExists(temporary);
+            logger.debug("Deleted stale temporary file: {}", temporary);
+          }
+        } catch (NoSuchFileException e) {
+          // Moved into place or deleted since it was listed
+        }
+      }
+    } catch (NoSuchFileException e) {
+      // No entry was added yet
+    } catch (IOException e) {
+      logger.debug("Could not delete stale temporary files in: {}", directory, e);
+    }
+  }
+
+  private Path entryOf(Key key) {
+    return directory.resolve(key.hash() + EXTENSION);
+  }
+
+  /**
+   * Marks an entry as recently used. Failing to do so only makes it older for eviction.
+   */
+  private static void touch(Path entry) {
+    try {
+      Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+    } catch (IOException e) {
+      logger.debug("Could not mark result cache entry as used: {}", entry, e);
+    }
+  }
+
+  /**
+   * Returns a checksum of the first and last bytes of a file.
+   */
+  private static long fingerprint(Path path, long size) throws IOException {
+    CRC32 crc = new CRC32();
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate(FINGERPRINT_BYTES);
+      for (long position : new long[] {0, Math.max(size - FINGERPRINT_BYTES, 0)}) {
+        buffer.clear();
+        while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) > 0) {
+          // Read until the buffer is full or the file ends
+        }
+        crc.update(buffer.flip());
+      }
+    }
+    return crc.getValue();
+  }
+
+  private static String hash(String text) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package org.ibrahim.io;
+
+import org.ibrahim.exception.CookieParseException;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * Utility class for locating the records of a day range in a time-sorted, memory-mapped cookie log.
+ * <p>
+ * The log may be sorted in ascending or descending timestamp order; the order is detected from the first
+ * and last records. The locator binary-searches the file by byte offset, resynchronizing on the next line
+ * start after each probe, so only a logarithmic number of lines is read. The result is only meaningful if
+ * the file is actually sorted.</p>
+ * <b>Usage Example:</b>
+ * <pre><code>
+ * long[] range = SortedRangeLocator.locate(segment, dataStart, day, day);
+ * MappedCookieScanner.scanRange(segment, range[0], range[1], processor);
+ * </code></pre>
+ */
+public class SortedRangeLocator {
+  /**
+   * Finds the byte range holding all records whose UTC epoch day is between the two days (inclusive).
+   * @param segment the mapped file
+   * @param dataStart the offset of the first record (after the header)
+   * @param firstDay the first epoch day of the range
+   * @param lastDay the last epoch day of the range
+   * @return a two-element array {@code [start, end)} of line-aligned offsets; empty if no record is in range
+   * @throws CookieParseException if a probed line is not a valid record
+   */
+  public static long[] locate(MemorySegment segment, long dataStart, long firstDay, long lastDay) {
+    long size = segment.byteSize();
+    if (dataStart >= size) {
+      return new long[]{dataStart, dataStart};
+    }
+    boolean ascending = epochDayAt(segment, dataStart) <= epochDayAt(segment, lastLineStart(segment, dataStart));
+    // Rank days so that the file is ascending by rank in both orders
+    long rangeLow = ascending ? firstDay : -lastDay;
+    long rangeHigh = ascending ? lastDay : -firstDay;
+    long start = firstLineWhere(segment, dataStart, ascending, rangeLow, false);
+    long end = firstLineWhere(segment, start, ascending, rangeHigh, true);
+    return new long[]{start, end};
+  }
+
+  /**
+   * Binary-searches for the first line whose rank reaches the bound ({@code rank >= bound}) or, if
+   * {@code strict}, passes it ({@code rank > bound}).
+   * @return the offset of that line, or the segment size if there is none
+   */
+  private static long firstLineWhere(MemorySegment segment, long from, boolean ascending, long bound, boolean strict) {
+    long size = segment.byteSize();
+    if (from >= size || matches(segment, from, ascending, bound, strict)) {
+      return from;
+    }
+    // Invariant: the line at low does not match, high (a line start or the end) matches
+    long low = from;
+    long high = size;
+    while (true) {
+      long probe = MappedCookieScanner.skipLine(segment, low + (high - low) / 2);
+      if (probe >= high) {
+        probe = MappedCookieScanner.skipLine(segment, low);
+        if (probe >= high) {
+          return high;
+        }
+      }
+      if (matches(segment, probe, ascending, bound, strict)) {
+        high = probe;
+      } else {
+        low = probe;
+      }
+    }
+  }
+
+  private static boolean matches(MemorySegment segment, long lineStart, boolean ascending, long bound, boolean strict) {
+    long day = epochDayAt(segment, lineStart);
+    long rank = ascending ? day : -day;
+    return strict ? rank > bound : rank >= bound;
+  }
+
+  /**
+   * Returns the start of the last non-empty line of the segment.
+   */
+  private static long lastLineStart(MemorySegment segment, long dataStart) {
+    long end = segment.byteSize();
+    while (end > dataStart && isLineBreak(segment.get(ValueLayout.JAVA_BYTE, end - 1))) {
+      end--;
+    }
+    long start = end;
+    while (start > dataStart && segment.get(ValueLayout.JAVA_BYTE, start - 1) != '\n') {
+      start--;
+    }
+    return start;
+  }
+
+  private static boolean isLineBreak(byte value) {
+    return value == '\n' || value == '\r';
+  }
+
+  /**
+   * Reads the UTC epoch day of the record starting at the given offset.
+   * @throws CookieParseException if the line is not a valid record
+   */
+  private static long epochDayAt(MemorySegment segment, long lineStart) {
+    long[] timestamp = new long[2];
+    MappedCookieScanner.scanRange(segment, lineStart, lineStart + 1,
+        (_, _, _, timestampOffset, timestampLength) -> {
+          timestamp[0] = timestampOffset;
+          timestamp[1] = timestampLength;
+        });
+    long epochSecond = TimestampDecoder.epochSecond(segment, timestamp[0], (int) timestamp[1]);
+    if (epochSecond == TimestampDecoder.INVALID) {
+      throw new CookieParseException("Invalid date format in timestamp: "
+          + MappedCookieScanner.toString(segment, timestamp[0], (int) timestamp[1]));
+    }
+    return TimestampDecoder.epochDay(epochSecond);
+  }
+}
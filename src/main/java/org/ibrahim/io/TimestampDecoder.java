@@ -0,0 +1,152 @@
+package org.ibrahim.io;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * Utility class for decoding fixed-format ISO-8601 timestamps straight from bytes.
+ * <p>
+ * Accepts {@code yyyy-MM-ddTHH:mm:ss}, an optional fraction of up to nine digits, and either {@code Z} or a
+ * {@code +hh:mm}/{@code -hh:mm} offset, which is applied to the result. Decoding does not allocate: invalid
+ * input is reported with the {@link #INVALID} sentinel rather than an exception, so callers can decide how
+ * to report the offending line.</p>
+ * <b>Usage Example:</b>
+ * <pre><code>
+ * long epochSecond = TimestampDecoder.epochSecond(segment, offset, length);
+ * if (epochSecond != TimestampDecoder.INVALID &amp;&amp; TimestampDecoder.epochDay(epochSecond) == targetDay) { ... }
+ * </code></pre>
+ */
+public class TimestampDecoder {
+  /** Returned by {@link #epochSecond} for input that is not a valid timestamp. */
+  public static final long INVALID = Long.MIN_VALUE;
+  public static final long SECONDS_PER_DAY = 86_400;
+  private static final int DATE_TIME_LENGTH = 19;
+  private static final int MAX_FRACTION_DIGITS = 9;
+  private static final int OFFSET_LENGTH = 6;
+
+  /**
+   * Decodes a timestamp slice to seconds since the epoch (UTC), applying its offset.
+   * Any fraction of a second is validated and truncated.
+   * @param segment the segment holding the timestamp
+   * @param offset the offset of the first byte
+   * @param length the number of bytes
+   * @return the epoch second, or {@link #INVALID} if the slice is not a valid timestamp
+   */
+  public static long epochSecond(MemorySegment segment, long offset, int length) {
+    if (length < DATE_TIME_LENGTH + 1
+        || at(segment, offset, 4) != '-' || at(segment, offset, 7) != '-' || at(segment, offset, 10) != 'T'
+        || at(segment, offset, 13) != ':' || at(segment, offset, 16) != ':') {
+      return INVALID;
+    }
+    int year = digits(segment, offset, 0, 4);
+    int month = digits(segment, offset, 5, 2);
+    int day = digits(segment, offset, 8, 2);
+    int hour = digits(segment, offset, 11, 2);
+    int minute = digits(segment, offset, 14, 2);
+    int second = digits(segment, offset, 17, 2);
+    if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+        || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+      return INVALID;
+    }
+    int position = DATE_TIME_LENGTH;
+    if (at(segment, offset, position) == '.') {
+      int fractionEnd = position + 1;
+      while (fractionEnd < length && isDigit(at(segment, offset, fractionEnd))) {
+        fractionEnd++;
+      }
+      int fractionDigits = fractionEnd - position - 1;
+      if (fractionDigits == 0 || fractionDigits > MAX_FRACTION_DIGITS) {
+        return INVALID;
+      }
+      position = fractionEnd;
+    }
+    int offsetSeconds = offsetSeconds(segment, offset, position, length);
+    if (offsetSeconds == Integer.MIN_VALUE) {
+      return INVALID;
+    }
+    return epochDay(year, month, day) * SECONDS_PER_DAY + hour * 3_600L + minute * 60L + second - offsetSeconds;
+  }
+
+  /**
+   * Returns the UTC epoch day containing the given epoch second.
+   * @param epochSecond seconds since the epoch
+   * @return days since the epoch
+   */
+  public static long epochDay(long epochSecond) {
+    return Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+  }
+
+  /**
+   * Computes the epoch day of a proleptic Gregorian date.
+   * @param year the year
+   * @param month the month, 1 to 12
+   * @param day the day of month
+   * @return days since 1970-01-01
+   */
+  public static long epochDay(int year, int month, int day) {
+    // Shift the year to start in March so the leap day is the last day of the year
+    long y = month <= 2 ? year - 1 : year;
+    long era = Math.floorDiv(y, 400);
+    long yearOfEra = y - era * 400;
+    long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146_097 + dayOfEra - 719_468;
+  }
+
+  /**
+   * Decodes the zone designator at the given position.
+   * @return the offset from UTC in seconds, or {@code Integer.MIN_VALUE} if it is invalid
+   */
+  private static int offsetSeconds(MemorySegment segment, long offset, int position, int length) {
+    int remaining = length - position;
+    if (remaining == 1 && at(segment, offset, position) == 'Z') {
+      return 0;
+    }
+    if (remaining != OFFSET_LENGTH) {
+      return Integer.MIN_VALUE;
+    }
+    int sign = at(segment, offset, position);
+    if ((sign != '+' && sign != '-') || at(segment, offset, position + 3) != ':') {
+      return Integer.MIN_VALUE;
+    }
+    int hours = digits(segment, offset, position + 1, 2);
+    int minutes = digits(segment, offset, position + 4, 2);
+    if (hours < 0 || hours > 18 || minutes < 0 || minutes > 59) {
+      return Integer.MIN_VALUE;
+    }
+    int seconds = hours * 3_600 + minutes * 60;
+    return sign == '-' ? -seconds : seconds;
+  }
+
+  /**
+   * Reads a run of decimal digits.
+   * @return the value, or -1 if any byte is not a digit
+   */
+  private static int digits(MemorySegment segment, long offset, int position, int count) {
+    int value = 0;
+    for (int i = position; i < position + count; i++) {
+      int c = at(segment, offset, i);
+      if (!isDigit(c)) {
+        return -1;
+      }
+      value = value * 10 + (c - '0');
+    }
+    return value;
+  }
+
+  private static int at(MemorySegment segment, long offset, int position) {
+    return segment.get(ValueLayout.JAVA_BYTE, offset + position);
+  }
+
+  private static boolean isDigit(int c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static int lengthOfMonth(int year, int month) {
+    return switch (month) {
+      case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+      case 4, 6, 9, 11 -> 30;
+      default -> 31;
+    };
+  }
+}
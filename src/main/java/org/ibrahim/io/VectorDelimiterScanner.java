@@ -0,0 +1,73 @@
+package org.ibrahim.io;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteOrder;
+
+/**
+ * The {@link DelimiterScanner} built on the Vector API; only loaded when {@code jdk.incubator.vector} is.
+ * <p>
+ * Each step loads one vector of bytes, compares it with {@code '\n'} and {@code ','} and turns both comparisons
+ * into bit masks, one bit per byte. Their set bits are then visited lowest first, so a line's commas are
+ * counted before its newline is reported. The last, partial vector of the segment is loaded with a mask.</p>
+ * <b>Usage Example:</b>
+ * <pre><code>
+ * new VectorDelimiterScanner().scan(segment, 0, segment.byteSize(), visitor);
+ * </code></pre>
+ */
+final class VectorDelimiterScanner extends DelimiterScanner {
+  private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+  private static final int MIN_LANES = 16;
+  /** The comparison masks are read as a {@code long}, one bit per lane. */
+  private static final int MAX_LANES = Long.SIZE;
+
+  /**
+   * Returns whether the hardware's preferred vectors are wide enough to beat the scalar scanner, and narrow
+   * enough for their masks to fit a {@code long}, which rules out e.g. the widest SVE vectors.
+   */
+  static boolean isSupported() {
+    return SPECIES.length() >= MIN_LANES && SPECIES.length() <= MAX_LANES;
+  }
+
+  @Override
+  public void scan(MemorySegment segment, long from, long to, LineVisitor visitor) {
+    long size = segment.byteSize();
+    int lanes = SPECIES.length();
+    long lineStart = from;
+    long comma = -1;
+    int commas = 0;
+    for (long block = from; lineStart < to && block < size; block += lanes) {
+      ByteVector bytes = block <= size - lanes
+          ? ByteVector.fromMemorySegment(SPECIES, segment, block, ByteOrder.nativeOrder())
+          : ByteVector.fromMemorySegment(SPECIES, segment, block, ByteOrder.nativeOrder(),
+              SPECIES.indexInRange(block, size));
+      long newlines = bytes.eq(NEWLINE).toLong();
+      long delimiters = newlines | bytes.eq(COMMA).toLong();
+      while (delimiters != 0 && lineStart < to) {
+        long bit = delimiters & -delimiters;
+        long position = block + Long.numberOfTrailingZeros(delimiters);
+        delimiters ^= bit;
+        if ((newlines & bit) == 0) {
+          if (commas++ == 0) {
+            comma = position;
+          }
+        } else {
+          visitor.line(lineStart, position, comma, commas);
+          lineStart = position + 1;
+          comma = -1;
+          commas = 0;
+        }
+      }
+    }
+    if (lineStart < to) {
+      visitor.line(lineStart, size, comma, commas);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "vector (" + SPECIES.length() + " bytes)";
+  }
+}
@@ -0,0 +1,17 @@
+package org.ibrahim.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Represents a cookie value together with an estimate of the number of times it was seen on a date.
+ * The estimate never undercounts: the true count lies between {@code count - error} and {@code count}.
+ */
+@AllArgsConstructor
+@Data
+public class ApproximateCount {
+  String value;
+  int count;
+  /** The maximum overestimation of the count; 0 if the count is exact. */
+  int error;
+}
@@ -0,0 +1,33 @@
+package org.ibrahim.model;
+
+import lombok.Data;
+
+/**
+ * Represents the parsed command-line arguments of the {@code compile} subcommand.
+ */
+@Data
+public class CompileArgs {
+  private static final String CSV_EXTENSION = ".csv";
+  private static final String GZIP_EXTENSION = ".gz";
+  private static final String COLUMNAR_EXTENSION = ".ccol";
+
+  String input;
+  String output;
+
+  /**
+   * Derives the default output path from the input path by replacing its {@code .csv} or {@code .csv.gz}
+   * extension with {@code .ccol}.
+   * @param input the path to the CSV log
+   * @return the path of the columnar file
+   */
+  public static String defaultOutput(String input) {
+    String base = input;
+    if (base.endsWith(GZIP_EXTENSION)) {
+      base = base.substring(0, base.length() - GZIP_EXTENSION.length());
+    }
+    if (base.endsWith(CSV_EXTENSION)) {
+      base = base.substring(0, base.length() - CSV_EXTENSION.length());
+    }
+    return base + COLUMNAR_EXTENSION;
+  }
+}
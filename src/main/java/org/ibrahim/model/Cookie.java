@@ -2,6 +2,7 @@ package org.ibrahim.model;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+
 import java.time.Instant;
 import java.util.Objects;
 
@@ -13,9 +14,21 @@ import java.util.Objects;
 @AllArgsConstructor
 @Data
 public class Cookie {
+  /** The number of CSV columns a cookie is parsed from: the value and the timestamp. */
+  public static final int COLUMNS = 2;
+  private static final long SECONDS_PER_DAY = 86_400;
+
   String value;
   Instant timestamp;
 
+  /**
+   * Returns the calendar date (UTC) of the timestamp as days since the epoch.
+   * @return the UTC epoch day of the timestamp
+   */
+  public long epochDay() {
+    return Math.floorDiv(timestamp.getEpochSecond(), SECONDS_PER_DAY);
+  }
+
   /**
    * Checks equality based on value and the date part (UTC) of the timestamp.
    * @param o the object to compare
@@ -27,9 +40,7 @@ public class Cookie {
     if (o == null || getClass() != o.getClass()) return false;
     Cookie cookie = (Cookie) o;
     // Compare value and only the date part (UTC) of the Instant
-    return Objects.equals(value, cookie.value)
-        && timestamp.atZone(java.time.ZoneOffset.UTC).toLocalDate()
-            .equals(cookie.timestamp.atZone(java.time.ZoneOffset.UTC).toLocalDate());
+    return Objects.equals(value, cookie.value) && epochDay() == cookie.epochDay();
   }
 
   /**
@@ -39,6 +50,6 @@ public class Cookie {
   @Override
   public int hashCode() {
     // Use value and only the date part (UTC) of the Instant
-    return Objects.hash(value, timestamp.atZone(java.time.ZoneOffset.UTC).toLocalDate());
+    return 31 * Objects.hashCode(value) + Long.hashCode(epochDay());
   }
 }
@@ -0,0 +1,14 @@
+package org.ibrahim.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Represents a cookie value together with the number of times it was seen on a date.
+ */
+@AllArgsConstructor
+@Data
+public class CookieCount {
+  String value;
+  int count;
+}
@@ -2,26 +2,188 @@ package org.ibrahim.model;
 
 import lombok.Data;
 
+import java.time.DateTimeException;
 import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Represents the parsed command-line arguments for the cookie-cutter application.
  */
 @Data
 public class FilterArgs {
-  String filename;
-  LocalDate date;
+  /** The files to read; their counts are merged. */
+  List<String> files = new ArrayList<>();
+  List<LocalDate> dates = new ArrayList<>();
+  ScanMode mode = ScanMode.STREAM;
+  /** The zone whose calendar days the dates denote. */
+  ZoneId zone = ZoneOffset.UTC;
+  /** The number of most active cookies to report with their counts, or null to report only the cookies tied for the maximum. */
+  Integer top;
+  /** Whether to keep following the file as it grows instead of reading it once. */
+  boolean follow;
+  /** The number of counters per date when estimating the most active cookies in bounded memory, or null to count exactly. */
+  Integer approx;
+  /** The number of distinct cookies of all dates counted in memory before counts spill to disk, or null to count in memory only. */
+  Integer spill;
+  /** The path of the file in which to checkpoint the scan so that it can resume, or null not to checkpoint. */
+  String checkpoint;
+  /** Whether to resume the scan from the checkpoint file instead of starting over. */
+  boolean resume;
+  /** The directory of the result cache to consult and fill, or null not to cache results. */
+  String cache;
+  /** Whether cached results are keyed by a fingerprint of each file's content as well as its size and time. */
+  boolean cacheFingerprint;
+  /** The format in which to report run statistics on standard error, or null to report none. */
+  StatsFormat stats;
 
   /**
-   * Sets the date field by parsing the given string. Throws an exception if the format is invalid.
+   * Returns the first file to read, the only one unless several files were given.
+   * @return the path to the file, or null if no file was given
+   */
+  public String getFilename() {
+    return files.isEmpty() ? null : files.getFirst();
+  }
+
+  /**
+   * Replaces the files with the single given file.
+   * @param filename the path to the file
+   */
+  public void setFilename(String filename) {
+    files.clear();
+    files.add(filename);
+  }
+
+  /**
+   * Replaces the dates with the single date parsed from the given string. Throws an exception if the format is invalid.
    * @param date the date string in yyyy-MM-dd format
    * @throws IllegalArgumentException if the date format is invalid
    */
   public void setDate(String date) throws IllegalArgumentException {
+    dates.clear();
+    addDate(date);
+  }
+
+  /**
+   * Adds a date by parsing the given string. Throws an exception if the format is invalid.
+   * @param date the date string in yyyy-MM-dd format
+   * @throws IllegalArgumentException if the date format is invalid
+   */
+  public void addDate(String date) throws IllegalArgumentException {
+    dates.add(parseDate(date));
+  }
+
+  /**
+   * Adds every date from the first to the last (inclusive) by parsing the given strings. Throws an exception
+   * if a format is invalid or the range is empty.
+   * @param from the first date string in yyyy-MM-dd format
+   * @param to the last date string in yyyy-MM-dd format
+   * @throws IllegalArgumentException if a date format is invalid or the last date is before the first
+   */
+  public void addDateRange(String from, String to) throws IllegalArgumentException {
+    LocalDate first = parseDate(from);
+    LocalDate last = parseDate(to);
+    if (last.isBefore(first)) {
+      throw new IllegalArgumentException("Invalid date range: " + to + " is before " + from);
+    }
+    first.datesUntil(last.plusDays(1)).forEach(dates::add);
+  }
+
+  /**
+   * Sets the zone by parsing the given ID. Throws an exception if the zone is unknown.
+   * @param zone the zone ID, e.g. {@code Europe/Berlin} or {@code +02:00}
+   * @throws IllegalArgumentException if the zone ID is invalid
+   */
+  public void setZone(String zone) throws IllegalArgumentException {
     try {
-      this.date = LocalDate.parse(date);
+      this.zone = ZoneId.of(zone.trim());
+    } catch (DateTimeException e) {
+      throw new IllegalArgumentException("Invalid time zone: " + zone);
+    }
+  }
+
+  private static LocalDate parseDate(String date) {
+    try {
+      return LocalDate.parse(date.trim());
     } catch (Exception e) {
       throw new IllegalArgumentException("Invalid date format. Expected format: yyyy-MM-dd");
     }
   }
+
+  /**
+   * Sets the scan mode by parsing the given name. Throws an exception if the name is unknown.
+   * @param mode the mode name, e.g. {@code mapped}
+   * @throws IllegalArgumentException if the mode name is invalid
+   */
+  public void setMode(String mode) throws IllegalArgumentException {
+    this.mode = ScanMode.fromName(mode);
+  }
+
+  /**
+   * Sets the number of most active cookies to report by parsing the given string. Throws an exception if it is
+   * not a positive integer.
+   * @param top the number of cookies, e.g. {@code 10}
+   * @throws IllegalArgumentException if the number is invalid
+   */
+  public void setTop(String top) throws IllegalArgumentException {
+    int value;
+    try {
+      value = Integer.parseInt(top.trim());
+    } catch (NumberFormatException e) {
+      value = 0;
+    }
+    if (value <= 0) {
+      throw new IllegalArgumentException("Invalid top count. Expected a positive integer");
+    }
+    this.top = value;
+  }
+
+  /**
+   * Sets the number of counters per date for approximate counting by parsing the given string. Throws an
+   * exception if it is not a positive integer.
+   * @param approx the number of counters, e.g. {@code 10000}
+   * @throws IllegalArgumentException if the number is invalid
+   */
+  public void setApprox(String approx) throws IllegalArgumentException {
+    int value;
+    try {
+      value = Integer.parseInt(approx.trim());
+    } catch (NumberFormatException e) {
+      value = 0;
+    }
+    if (value <= 0) {
+      throw new IllegalArgumentException("Invalid approximation capacity. Expected a positive integer");
+    }
+    this.approx = value;
+  }
+
+  /**
+   * Sets the number of distinct cookies of all dates counted in memory before counts spill to disk by parsing the
+   * given string. Throws an exception if it is not a positive integer.
+   * @param spill the number of distinct cookies, e.g. {@code 10000000}
+   * @throws IllegalArgumentException if the number is invalid
+   */
+  public void setSpill(String spill) throws IllegalArgumentException {
+    int value;
+    try {
+      value = Integer.parseInt(spill.trim());
+    } catch (NumberFormatException e) {
+      value = 0;
+    }
+    if (value <= 0) {
+      throw new IllegalArgumentException("Invalid spill threshold. Expected a positive integer");
+    }
+    this.spill = value;
+  }
+
+  /**
+   * Sets the format of the run statistics by parsing the given name. Throws an exception if the name is unknown.
+   * @param stats the format name, e.g. {@code json}
+   * @throws IllegalArgumentException if the format name is invalid
+   */
+  public void setStats(String stats) throws IllegalArgumentException {
+    this.stats = StatsFormat.fromName(stats.trim());
+  }
 }
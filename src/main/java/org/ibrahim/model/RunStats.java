@@ -0,0 +1,48 @@
+package org.ibrahim.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Represents the throughput and resource usage of one query, as reported by {@code --stats}.
+ * Phase times are summed over all threads that worked on the phase, so with parallel reads they can exceed the
+ * elapsed time.
+ */
+@AllArgsConstructor
+@Data
+public class RunStats {
+  /** The wall-clock time of the query, in nanoseconds. */
+  long elapsedNanos;
+  /** The bytes read from the input files, after decompression. */
+  long bytesRead;
+  /** The records read from the input files. */
+  long linesRead;
+  /** The time spent in each phase (io, parse, count, select, print), in nanoseconds. */
+  Map<String, Long> phaseNanos;
+  /** The distinct cookies counted, summed over the dates. */
+  long distinctCookies;
+  /** The highest heap usage during the query, in bytes. */
+  long peakHeapBytes;
+  /** The bytes allocated on the heap during the query by all threads. */
+  long allocatedBytes;
+  /** The bytes allocated by each thread that worked on the query, by thread name. */
+  Map<String, Long> threadAllocatedBytes;
+
+  /**
+   * Returns the records read per second of elapsed time.
+   * @return the throughput in lines per second, or 0 if no time elapsed
+   */
+  public double getLinesPerSecond() {
+    return elapsedNanos > 0 ? linesRead * 1e9 / elapsedNanos : 0;
+  }
+
+  /**
+   * Returns the megabytes (10^6 bytes) read per second of elapsed time.
+   * @return the throughput in MB per second, or 0 if no time elapsed
+   */
+  public double getMegabytesPerSecond() {
+    return elapsedNanos > 0 ? bytesRead * 1e3 / elapsedNanos : 0;
+  }
+}
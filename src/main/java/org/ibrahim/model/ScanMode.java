@@ -0,0 +1,67 @@
+package org.ibrahim.model;
+
+/**
+ * Strategy used to read the log file when counting cookies.
+ */
+public enum ScanMode {
+  /** Reads the file line by line and parses every line into a {@link Cookie}. */
+  STREAM,
+  /** Memory-maps the file and scans its bytes without materializing a String per line. */
+  MAPPED,
+  /** Memory-maps the file, splits it into line-aligned byte ranges and scans each range on its own core. */
+  PARALLEL,
+  /**
+   * Memory-maps a file sorted by timestamp (ascending or descending), binary-searches the requested day's
+   * block and scans only that block.
+   */
+  SORTED,
+  /**
+   * Reads a file ordered by timestamp (ascending or descending, detected while reading) line by line and
+   * stops as soon as the scan has passed the requested day.
+   */
+  ORDERED,
+  /**
+   * Memory-maps the file and reads only the byte ranges of the requested day listed in a sidecar index
+   * ({@code <file>.idx}). If the index is missing or stale, the whole file is scanned once and the index is
+   * written for later queries.
+   */
+  INDEXED;
+
+  /**
+   * Checks whether the mode reads the file through a memory mapping, which requires an uncompressed file.
+   * @return true for the memory-mapped modes
+   */
+  public boolean isMapped() {
+    return this == MAPPED || this == PARALLEL || this == SORTED || this == INDEXED;
+  }
+
+  /**
+   * Parses a mode name case-insensitively.
+   * @param name the mode name, e.g. {@code mapped}
+   * @return the matching mode
+   * @throws IllegalArgumentException if the name does not match any mode
+   */
+  public static ScanMode fromName(String name) throws IllegalArgumentException {
+    for (ScanMode mode : values()) {
+      if (mode.name().equalsIgnoreCase(name)) {
+        return mode;
+      }
+    }
+    throw new IllegalArgumentException("Invalid mode: " + name + ". Expected one of: " + names());
+  }
+
+  /**
+   * Returns the lower-case names of all modes, comma separated.
+   * @return the mode names
+   */
+  public static String names() {
+    StringBuilder names = new StringBuilder();
+    for (ScanMode mode : values()) {
+      if (!names.isEmpty()) {
+        names.append(", ");
+      }
+      names.append(mode.name().toLowerCase());
+    }
+    return names.toString();
+  }
+}
@@ -0,0 +1,51 @@
+package org.ibrahim.model;
+
+import lombok.Data;
+
+/**
+ * Represents the parsed command-line arguments of the {@code serve} subcommand.
+ */
+@Data
+public class ServeArgs {
+  /** The address to listen on; loopback by default, so the server is not reachable from other hosts. */
+  String host = "127.0.0.1";
+  int port = 8080;
+  /** The maximum number of per-day counts kept in memory. */
+  int cacheDays = 1024;
+  /** The directory that queried files are resolved against; files outside of it are refused. */
+  String root = ".";
+
+  /**
+   * Sets the port by parsing the given string. Throws an exception if it is not a valid port number.
+   * @param port the port, or {@code 0} for any free port
+   * @throws IllegalArgumentException if the port is invalid
+   */
+  public void setPort(String port) throws IllegalArgumentException {
+    int value = parseInt(port);
+    if (value < 0 || value > 65535) {
+      throw new IllegalArgumentException("Invalid port. Expected an integer between 0 and 65535");
+    }
+    this.port = value;
+  }
+
+  /**
+   * Sets the cache size by parsing the given string. Throws an exception if it is not a positive integer.
+   * @param cacheDays the maximum number of cached days, e.g. {@code 1024}
+   * @throws IllegalArgumentException if the number is invalid
+   */
+  public void setCacheDays(String cacheDays) throws IllegalArgumentException {
+    int value = parseInt(cacheDays);
+    if (value <= 0) {
+      throw new IllegalArgumentException("Invalid cache size. Expected a positive integer");
+    }
+    this.cacheDays = value;
+  }
+
+  private static int parseInt(String value) {
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package org.ibrahim.model;
+
+/**
+ * Format in which run statistics are reported on standard error.
+ */
+public enum StatsFormat {
+  /** Human-readable lines. */
+  TEXT,
+  /** A single JSON object, e.g. for collection by a monitoring agent. */
+  JSON;
+
+  /**
+   * Parses a format name case-insensitively.
+   * @param name the format name, e.g. {@code json}
+   * @return the matching format
+   * @throws IllegalArgumentException if the name does not match any format
+   */
+  public static StatsFormat fromName(String name) throws IllegalArgumentException {
+    for (StatsFormat format : values()) {
+      if (format.name().equalsIgnoreCase(name)) {
+        return format;
+      }
+    }
+    throw new IllegalArgumentException("Invalid statistics format: " + name + ". Expected text or json");
+  }
+}
@@ -0,0 +1,398 @@
+package org.ibrahim.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.ibrahim.business.CookieCounter;
+import org.ibrahim.business.MostActiveCookieFinder;
+import org.ibrahim.exception.CookieAppException;
+import org.ibrahim.exception.CookieParseException;
+import org.ibrahim.model.CookieCount;
+import org.ibrahim.model.FilterArgs;
+import org.ibrahim.model.ScanMode;
+import org.ibrahim.model.ServeArgs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Long-running HTTP server answering most-active-cookie queries without paying JVM startup and re-parsing
+ * the log for every query.
+ * <p>
+ * Queries are answered from per-day counts kept in a {@link DayCountCache}; only the days of a query that are
+ * not cached are counted, in a single pass over the file with {@link MostActiveCookieFinder}. A file that has
+ * changed since its days were counted is counted again. Concurrent queries of the same file wait for each other
+ * rather than scanning it twice. Every exchange is handled on its own virtual thread. Queried files are resolved
+ * against a root directory and files outside of it are refused. The server uses only the JDK's built-in
+ * HTTP server.</p>
+ * <p>
+ * {@code GET /most-active?file=FILE&date=DATE} answers with a JSON object mapping each date to its most active
+ * cookies and their counts, e.g. {@code {"2018-12-09":[{"cookie":"AtY0laUfhglK3lC7","count":2}]}}. Dates may be
+ * repeated or separated by commas, or given as a range with {@code from} and {@code to}; {@code zone},
+ * {@code mode} and {@code top} work like the command-line options. {@code GET /health} reports the cache
+ * statistics.</p>
+ * <b>Usage Example:</b>
+ * <pre><code>
+ * CookieQueryServer server = new CookieQueryServer(new MostActiveCookieFinder(new CookieParser()));
+ * InetSocketAddress address = server.start(new ServeArgs());
+ * server.awaitStop();
+ * </code></pre>
+ */
+public class CookieQueryServer {
+  public static final String QUERY_PATH = "/most-active";
+  public static final String HEALTH_PATH = "/health";
+  private static final String JSON_CONTENT_TYPE = "application/json; charset=utf-8";
+  private static final Logger logger = LoggerFactory.getLogger(CookieQueryServer.class);
+
+  private final MostActiveCookieFinder finder;
+  private final Map<Path, ReentrantLock> fileLocks = new ConcurrentHashMap<>();
+  private final CountDownLatch stopped = new CountDownLatch(1);
+  private HttpServer server;
+  private ExecutorService executor;
+  private DayCountCache cache;
+  private Path root;
+
+  /**
+   * Constructs a server answering queries with the given finder.
+   * @param finder the finder used to count the cookies of days that are not cached
+   */
+  public CookieQueryServer(MostActiveCookieFinder finder) {
+    this.finder = finder;
+  }
+
+  /**
+   * Starts listening for queries; returns once the server accepts connections.
+   * @param args the address, cache size and root directory
+   * @return the address the server listens on, with the actual port if port 0 was requested
+   * @throws CookieAppException if the server cannot be started
+   * @throws IllegalStateException if the server was started before
+   */
+  public synchronized InetSocketAddress start(ServeArgs args) {
+    if (server != null) {
+      throw new IllegalStateException("Server already started");
+    }
+    try {
+      root = Path.of(args.getRoot()).toRealPath();
+      cache = new DayCountCache(args.getCacheDays());
+      server = HttpServer.create(new InetSocketAddress(args.getHost(), args.getPort()), 0);
+    } catch (IOException e) {
+      throw new CookieAppException("Cannot start server on " + args.getHost() + ":" + args.getPort(), e);
+    }
+    executor = Executors.newVirtualThreadPerTaskExecutor();
+    server.setExecutor(executor);
+    server.createContext(QUERY_PATH, this::handleQuery);
+    server.createContext(HEALTH_PATH, this::handleHealth);
+    server.start();
+    logger.info("Serving queries of files in {} on {}", root, server.getAddress());
+    return server.getAddress();
+  }
+
+  /**
+   * Blocks until the server is stopped or the calling thread is interrupted.
+   */
+  public void awaitStop() {
+    try {
+      stopped.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Stops the server, closing its connections, and releases threads waiting in {@link #awaitStop()}.
+   */
+  public synchronized void stop() {
+    if (server != null && stopped.getCount() > 0) {
+      server.stop(0);
+      executor.close();
+      logger.info("Server stopped");
+    }
+    stopped.countDown();
+  }
+
+  private void handleQuery(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      try {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+          respond(exchange, 405, error("Method not allowed: " + exchange.getRequestMethod()));
+          return;
+        }
+        FilterArgs filterArgs = toFilterArgs(parseQuery(exchange.getRequestURI().getRawQuery()));
+        Map<LocalDate, CookieCounter> counts = countCookies(resolve(filterArgs.getFilename()), filterArgs);
+        respond(exchange, 200, toJson(counts, filterArgs.getTop()));
+      } catch (QueryException e) {
+        respond(exchange, e.status, error(e.getMessage()));
+      } catch (IllegalArgumentException e) {
+        respond(exchange, 400, error(e.getMessage()));
+      } catch (CookieParseException e) {
+        logger.warn("Cannot answer query {}", exchange.getRequestURI(), e);
+        respond(exchange, 422, error(e.getMessage()));
+      } catch (IOException | RuntimeException e) {
+        logger.error("Cannot answer query {}", exchange.getRequestURI(), e);
+        respond(exchange, 500, error("Internal error: " + e.getMessage()));
+      }
+    }
+  }
+
+  private void handleHealth(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      respond(exchange, 200, "{\"status\":\"up\",\"cachedDays\":" + cache.size()
+          + ",\"cacheHits\":" + cache.hits() + ",\"cacheMisses\":" + cache.misses() + "}");
+    }
+  }
+
+  /**
+   * Returns the counts of each queried date, counting the dates that are not cached in one pass and caching
+   * them. Counts are only cached if the file did not change while it was read.
+   * @param file the real path of the file
+   * @param filterArgs the query
+   * @return the counts of each distinct date, in query order
+   * @throws IOException if the file's attributes cannot be read
+   */
+  private Map<LocalDate, CookieCounter> countCookies(Path file, FilterArgs filterArgs) throws IOException {
+    List<LocalDate> dates = List.copyOf(new LinkedHashSet<>(filterArgs.getDates()));
+    ZoneId zone = filterArgs.getZone();
+    ScanMode mode = filterArgs.getMode();
+    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+    Map<LocalDate, CookieCounter> counts = new LinkedHashMap<>();
+    List<LocalDate> missing = lookup(file, attributes, zone, mode, dates, counts);
+    if (!missing.isEmpty()) {
+      ReentrantLock lock = fileLocks.computeIfAbsent(file, _ -> new ReentrantLock());
+      lock.lock();
+      try {
+        // Another query may have counted the days while this one waited for the lock
+        missing = lookup(file, attributes, zone, mode, missing, counts);
+        if (!missing.isEmpty()) {
+          Map<LocalDate, CookieCounter> counted =
+              finder.countCookiesByDate(file.toString(), missing, zone, mode);
+          boolean unchanged = sameVersion(attributes, Files.readAttributes(file, BasicFileAttributes.class));
+          counted.forEach((date, counter) -> {
+            if (unchanged) {
+              cache.put(key(file, attributes, zone, mode, date), counter);
+            }
+            counts.put(date, counter);
+          });
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+    Map<LocalDate, CookieCounter> ordered = new LinkedHashMap<>();
+    dates.forEach(date -> ordered.put(date, counts.get(date)));
+    return ordered;
+  }
+
+  private List<LocalDate> lookup(Path file, BasicFileAttributes attributes, ZoneId zone, ScanMode mode,
+                                 List<LocalDate> dates, Map<LocalDate, CookieCounter> counts) {
+    List<LocalDate> missing = new ArrayList<>();
+    for (LocalDate date : dates) {
+      CookieCounter counter = cache.get(key(file, attributes, zone, mode, date));
+      if (counter == null) {
+        missing.add(date);
+      } else {
+        counts.put(date, counter);
+      }
+    }
+    return missing;
+  }
+
+  private static boolean sameVersion(BasicFileAttributes before, BasicFileAttributes after) {
+    return before.size() == after.size() && before.lastModifiedTime().equals(after.lastModifiedTime());
+  }
+
+  private static DayCountCache.Key key(Path file, BasicFileAttributes attributes, ZoneId zone, ScanMode mode,
+                                       LocalDate date) {
+    return new DayCountCache.Key(file, attributes.size(), attributes.lastModifiedTime().toMillis(),
+        zone.normalized(), mode, date);
+  }
+
+  /**
+   * Resolves a queried file against the root directory, following symbolic links.
+   * @param filename the queried path, relative to the root or absolute
+   * @return the real path of the file
+   * @throws QueryException if the file does not exist or is outside of the root directory
+   * @throws IOException if the path cannot be resolved
+   */
+  private Path resolve(String filename) throws IOException {
+    Path file;
+    try {
+      file = root.resolve(filename).toRealPath();
+    } catch (NoSuchFileException e) {
+      throw new QueryException(404, "File not found: " + filename);
+    }
+    if (!file.startsWith(root) || !Files.isRegularFile(file)) {
+      throw new QueryException(403, "File not accessible: " + filename);
+    }
+    return file;
+  }
+
+  /**
+   * Converts query parameters to filter arguments, validating them like the command-line options. A query
+   * may not request more dates than the cache holds.
+   * @param params the decoded query parameters
+   * @return the filter arguments
+   * @throws IllegalArgumentException if a parameter is missing or invalid
+   */
+  private FilterArgs toFilterArgs(Map<String, List<String>> params) {
+    FilterArgs filterArgs = new FilterArgs();
+    filterArgs.setFilename(single(params, "file"));
+    if (filterArgs.getFilename() == null) {
+      throw new IllegalArgumentException("Missing query parameter: file");
+    }
+    for (String value : params.getOrDefault("date", List.of())) {
+      for (String date : value.split(",")) {
+        if (!date.isBlank()) {
+          filterArgs.addDate(date);
+        }
+      }
+    }
+    String from = single(params, "from");
+    String to = single(params, "to");
+    if ((from == null) != (to == null)) {
+      throw new IllegalArgumentException("Both from and to are required for a date range");
+    }
+    if (from != null) {
+      filterArgs.addDateRange(from, to);
+    }
+    if (filterArgs.getDates().isEmpty()) {
+      throw new IllegalArgumentException("A date or a date range (from and to) is required");
+    }
+    if (filterArgs.getDates().size() > cache.capacity()) {
+      throw new IllegalArgumentException("Too many dates: " + filterArgs.getDates().size()
+          + " (at most " + cache.capacity() + " per query)");
+    }
+    if (single(params, "zone") != null) {
+      filterArgs.setZone(single(params, "zone"));
+    }
+    if (single(params, "mode") != null) {
+      filterArgs.setMode(single(params, "mode"));
+    }
+    if (single(params, "top") != null) {
+      filterArgs.setTop(single(params, "top"));
+    }
+    return filterArgs;
+  }
+
+  private static String single(Map<String, List<String>> params, String name) {
+    List<String> values = params.get(name);
+    return values == null ? null : values.getFirst();
+  }
+
+  /**
+   * Decodes a raw query string into its parameters.
+   * @param rawQuery the query string, still percent-encoded; may be null
+   * @return the values of each parameter, in query order
+   */
+  static Map<String, List<String>> parseQuery(String rawQuery) {
+    Map<String, List<String>> params = new LinkedHashMap<>();
+    if (rawQuery == null || rawQuery.isEmpty()) {
+      return params;
+    }
+    for (String pair : rawQuery.split("&")) {
+      if (pair.isEmpty()) {
+        continue;
+      }
+      int separator = pair.indexOf('=');
+      String name = separator < 0 ? pair : pair.substring(0, separator);
+      String value = separator < 0 ? "" : pair.substring(separator + 1);
+      params.computeIfAbsent(URLDecoder.decode(name, StandardCharsets.UTF_8), _ -> new ArrayList<>())
+          .add(URLDecoder.decode(value, StandardCharsets.UTF_8));
+    }
+    return params;
+  }
+
+  /**
+   * Writes the most active cookies of each date as a JSON object.
+   * @param counts the counts of each date
+   * @param top the number of cookies per date, or null for the cookies tied for the maximum count
+   * @return the JSON text
+   */
+  private static String toJson(Map<LocalDate, CookieCounter> counts, Integer top) {
+    StringBuilder json = new StringBuilder("{");
+    counts.forEach((date, counter) -> {
+      if (json.length() > 1) {
+        json.append(',');
+      }
+      json.append('"').append(date).append("\":[");
+      List<CookieCount> cookies = top != null ? counter.top(top) : counter.mostActive();
+      for (int i = 0; i < cookies.size(); i++) {
+        if (i > 0) {
+          json.append(',');
+        }
+        json.append("{\"cookie\":").append(quote(cookies.get(i).getValue()))
+            .append(",\"count\":").append(cookies.get(i).getCount()).append('}');
+      }
+      json.append(']');
+    });
+    return json.append('}').toString();
+  }
+
+  private static String error(String message) {
+    return "{\"error\":" + quote(message) + "}";
+  }
+
+  static String quote(String value) {
+    StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"' -> quoted.append("\\\"");
+        case '\\' -> quoted.append("\\\\");
+        case '\n' -> quoted.append("\\n");
+        case '\r' -> quoted.append("\\r");
+        case '\t' -> quoted.append("\\t");
+        default -> {
+          if (c < 0x20) {
+            quoted.append(String.format("\\u%04x", (int) c));
+          } else {
+            quoted.append(c);
+          }
+        }
+      }
+    }
+    return quoted.append('"').toString();
+  }
+
+  private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  /**
+   * A query that cannot be answered, with the HTTP status to report.
+   */
+  private static class QueryException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+
+    QueryException(int status, String message) {
+      super(message);
+      this.status = status;
+    }
+  }
+}
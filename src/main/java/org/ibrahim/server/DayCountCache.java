@@ -0,0 +1,118 @@
+package org.ibrahim.server;
+
+import org.ibrahim.business.CookieCounter;
+import org.ibrahim.model.ScanMode;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory cache of per-day cookie counts, evicting the least recently used day when full.
+ * <p>
+ * Entries are keyed by the file's path, size and modification time, so counts of a file that has changed
+ * since are never returned; they are no longer used and age out. The zone is part of the key because it
+ * defines where a day starts, and the scan mode because modes may list tied cookies in a different order.
+ * Cached counters are shared between requests and must not be modified.
+ * All methods are thread-safe.</p>
+ * <b>Usage Example:</b>
+ * <pre><code>
+ * DayCountCache cache = new DayCountCache(256);
+ * DayCountCache.Key key = new DayCountCache.Key(path, size, lastModified, zone, mode, date);
+ * CookieCounter counter = cache.get(key);
+ * </code></pre>
+ */
+public class DayCountCache {
+  /**
+   * Identifies the counts of one day of one version of a file.
+   * @param file the normalized absolute path of the file
+   * @param fileSize the size of the file
+   * @param lastModified the modification time of the file, in milliseconds since the epoch
+   * @param zone the zone whose calendar day is counted
+   * @param mode the scan mode the day was counted with
+   * @param date the counted day
+   */
+  public record Key(Path file, long fileSize, long lastModified, ZoneId zone, ScanMode mode, LocalDate date) {
+  }
+
+  private final int capacity;
+  private final Map<Key, CookieCounter> entries;
+  private long hits;
+  private long misses;
+
+  /**
+   * Constructs an empty cache.
+   * @param capacity the maximum number of days to keep
+   * @throws IllegalArgumentException if the capacity is not positive
+   */
+  public DayCountCache(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+    }
+    this.capacity = capacity;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, CookieCounter> eldest) {
+        return size() > DayCountCache.this.capacity;
+      }
+    };
+  }
+
+  /**
+   * Returns the cached counts of a day and marks them as recently used.
+   * @param key the day
+   * @return the counts, or null if they are not cached
+   */
+  public synchronized CookieCounter get(Key key) {
+    CookieCounter counter = entries.get(key);
+    if (counter == null) {
+      misses++;
+    } else {
+      hits++;
+    }
+    return counter;
+  }
+
+  /**
+   * Caches the counts of a day, evicting the least recently used day if the cache is full.
+   * @param key the day
+   * @param counter the counts, which must not be modified afterwards
+   */
+  public synchronized void put(Key key, CookieCounter counter) {
+    entries.put(key, counter);
+  }
+
+  /**
+   * Returns the maximum number of cached days.
+   * @return the capacity
+   */
+  public int capacity() {
+    return capacity;
+  }
+
+  /**
+   * Returns the number of cached days.
+   * @return the number of entries
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Returns the number of lookups that found cached counts.
+   * @return the hit count
+   */
+  public synchronized long hits() {
+    return hits;
+  }
+
+  /**
+   * Returns the number of lookups that did not find cached counts.
+   * @return the miss count
+   */
+  public synchronized long misses() {
+    return misses;
+  }
+}
@@ -1,11 +1,25 @@
 package org.ibrahim.service;
 
+import org.ibrahim.business.CookieLogCompiler;
+import org.ibrahim.business.CookieLogFollower;
 import org.ibrahim.business.MostActiveCookieFinder;
 import org.ibrahim.cli.CommandParser;
 import org.ibrahim.io.CookiePrinter;
+import org.ibrahim.io.ResultCache;
+import org.ibrahim.model.ApproximateCount;
+import org.ibrahim.model.CompileArgs;
 import org.ibrahim.model.Cookie;
+import org.ibrahim.model.CookieCount;
 import org.ibrahim.model.FilterArgs;
+import org.ibrahim.model.ServeArgs;
+import org.ibrahim.server.CookieQueryServer;
+import org.ibrahim.stats.RunStatistics;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -16,28 +30,200 @@ public class CookieService {
     private final CommandParser commandParser;
     private final MostActiveCookieFinder mostActiveCookieFinder;
     private final CookiePrinter printer;
+    private final CookieLogCompiler compiler;
+    private final CookieQueryServer server;
+    private final CookieLogFollower follower;
+    private final RunStatistics statistics;
 
-    public CookieService(CommandParser commandParser, MostActiveCookieFinder mostActiveCookieFinder, CookiePrinter printer) {
+    public CookieService(CommandParser commandParser, MostActiveCookieFinder mostActiveCookieFinder, CookiePrinter printer,
+                         CookieLogCompiler compiler, CookieQueryServer server, CookieLogFollower follower,
+                         RunStatistics statistics) {
         this.commandParser = commandParser;
         this.mostActiveCookieFinder = mostActiveCookieFinder;
         this.printer = printer;
+        this.compiler = compiler;
+        this.server = server;
+        this.follower = follower;
+        this.statistics = statistics;
     }
 
     /**
      * Runs the main workflow: parses args, finds most active cookies, prints results.
+     * With a top count, the most active cookies are printed with their counts instead. In follow mode, the most
+     * active cookies are printed with their counts whenever they change, until the process is stopped. With an
+     * approximation capacity, estimated counts are printed with their error bounds. With a spill threshold,
+     * counts that do not fit in memory are aggregated on disk. With a checkpoint file,
+     * the scan saves its progress there and can resume from it. With a cache directory, the result of a query
+     * already run on unchanged files is printed from the cache. With a statistics format, the query's throughput
+     * and resource usage are printed after the results.
+     * Runs the compile or serve subcommand instead if the arguments start with it.
      * @param args command-line arguments
      */
     public void run(String[] args) {
+        if (commandParser.isCompileCommand(args)) {
+            compile(args);
+            return;
+        }
+        if (commandParser.isServeCommand(args)) {
+            serve(args);
+            return;
+        }
         Optional<FilterArgs> optionalFilterArgs = commandParser.parseArgs(args);
         if (optionalFilterArgs.isEmpty()) {
             return;
         }
         FilterArgs filterArgs = optionalFilterArgs.get();
-        List<Cookie> mostActiveCookies = mostActiveCookieFinder.findMostActiveCookies(
-            filterArgs.getFilename(),
-            filterArgs.getDate()
+        if (filterArgs.isFollow()) {
+            follower.follow(
+                filterArgs.getFilename(),
+                filterArgs.getDates(),
+                filterArgs.getZone(),
+                filterArgs.getTop(),
+                printer::printCounts
+            );
+            return;
+        }
+        if (filterArgs.getStats() == null) {
+            query(filterArgs);
+            return;
+        }
+        statistics.start();
+        query(filterArgs);
+        printer.printStats(statistics.report(), filterArgs.getStats());
+    }
+
+    /**
+     * Finds and prints the cookies the arguments ask for, reading the files once, or not at all if the result is
+     * cached.
+     * @param filterArgs the parsed arguments of a query that does not follow the file
+     */
+    private void query(FilterArgs filterArgs) {
+        if (filterArgs.getApprox() != null) {
+            Map<LocalDate, List<ApproximateCount>> approximateCounts = mostActiveCookieFinder.findApproximateTopCookies(
+                filterArgs.getFiles(),
+                filterArgs.getDates(),
+                filterArgs.getZone(),
+                filterArgs.getTop() != null ? filterArgs.getTop() : 1,
+                filterArgs.getApprox()
+            );
+            statistics.time(RunStatistics.Phase.PRINT, () -> printer.printApproximate(approximateCounts));
+            return;
+        }
+        ResultCache cache = filterArgs.getCache() == null ? null
+            : new ResultCache(Path.of(filterArgs.getCache()), ResultCache.DEFAULT_MAX_BYTES, filterArgs.isCacheFingerprint());
+        // The key is taken before the files are read, so a result is never cached for a later version of them
+        Optional<ResultCache.Key> cacheKey = cache == null ? Optional.empty()
+            : cache.key(filterArgs.getFiles(), filterArgs.getDates(), filterArgs.getZone(), filterArgs.getMode(),
+                filterArgs.getTop());
+        if (filterArgs.getTop() != null) {
+            Map<LocalDate, List<CookieCount>> topCookies = cacheKey.flatMap(key -> cache.getTop(key)).orElseGet(() -> {
+                Map<LocalDate, List<CookieCount>> result = findTopCookies(filterArgs);
+                cacheKey.ifPresent(key -> cache.putTop(key, result));
+                return result;
+            });
+            statistics.time(RunStatistics.Phase.PRINT, () -> printer.printCounts(topCookies));
+            return;
+        }
+        Map<LocalDate, List<Cookie>> mostActiveCookies = cacheKey.flatMap(key -> cache.getMostActive(key)).orElseGet(() -> {
+            Map<LocalDate, List<Cookie>> result = findMostActiveCookies(filterArgs);
+            cacheKey.ifPresent(key -> cache.putMostActive(key, result));
+            return result;
+        });
+        statistics.time(RunStatistics.Phase.PRINT, () -> printer.print(mostActiveCookies));
+    }
+
+    /**
+     * Finds the top cookies and counts the arguments ask for, spilling counts to disk or checkpointing the scan
+     * if requested.
+     * @param filterArgs the parsed arguments of an exact query with a top count
+     * @return the top cookies of each date
+     */
+    private Map<LocalDate, List<CookieCount>> findTopCookies(FilterArgs filterArgs) {
+        if (filterArgs.getSpill() != null) {
+            return mostActiveCookieFinder.findTopCookiesSpilling(
+                filterArgs.getFiles(),
+                filterArgs.getDates(),
+                filterArgs.getZone(),
+                filterArgs.getTop(),
+                filterArgs.getSpill()
+            );
+        }
+        if (filterArgs.getCheckpoint() != null) {
+            return mostActiveCookieFinder.findTopCookiesCheckpointed(
+                filterArgs.getFilename(),
+                filterArgs.getDates(),
+                filterArgs.getZone(),
+                filterArgs.getTop(),
+                Path.of(filterArgs.getCheckpoint()),
+                filterArgs.isResume()
+            );
+        }
+        return mostActiveCookieFinder.findTopCookies(
+            filterArgs.getFiles(),
+            filterArgs.getDates(),
+            filterArgs.getZone(),
+            filterArgs.getMode(),
+            filterArgs.getTop()
         );
-        printer.print(mostActiveCookies);
     }
-}
 
+    /**
+     * Finds the most active cookies the arguments ask for, spilling counts to disk or checkpointing the scan
+     * if requested.
+     * @param filterArgs the parsed arguments of an exact query without a top count
+     * @return the most active cookies of each date
+     */
+    private Map<LocalDate, List<Cookie>> findMostActiveCookies(FilterArgs filterArgs) {
+        if (filterArgs.getSpill() != null) {
+            return mostActiveCookieFinder.findMostActiveCookiesSpilling(
+                filterArgs.getFiles(),
+                filterArgs.getDates(),
+                filterArgs.getZone(),
+                filterArgs.getSpill()
+            );
+        }
+        if (filterArgs.getCheckpoint() != null) {
+            return mostActiveCookieFinder.findMostActiveCookiesCheckpointed(
+                filterArgs.getFilename(),
+                filterArgs.getDates(),
+                filterArgs.getZone(),
+                Path.of(filterArgs.getCheckpoint()),
+                filterArgs.isResume()
+            );
+        }
+        return mostActiveCookieFinder.findMostActiveCookies(
+            filterArgs.getFiles(),
+            filterArgs.getDates(),
+            filterArgs.getZone(),
+            filterArgs.getMode()
+        );
+    }
+
+    /**
+     * Runs the compile subcommand: parses its args and compiles the CSV log into a columnar file.
+     * @param args command-line arguments, starting with the subcommand name
+     */
+    private void compile(String[] args) {
+        Optional<CompileArgs> optionalCompileArgs = commandParser.parseCompileArgs(args);
+        if (optionalCompileArgs.isEmpty()) {
+            return;
+        }
+        CompileArgs compileArgs = optionalCompileArgs.get();
+        long records = compiler.compile(compileArgs.getInput(), compileArgs.getOutput());
+        printer.printCompiled(records, compileArgs.getOutput());
+    }
+
+    /**
+     * Runs the serve subcommand: parses its args, starts the query server and blocks until it is stopped.
+     * @param args command-line arguments, starting with the subcommand name
+     */
+    private void serve(String[] args) {
+        Optional<ServeArgs> optionalServeArgs = commandParser.parseServeArgs(args);
+        if (optionalServeArgs.isEmpty()) {
+            return;
+        }
+        InetSocketAddress address = server.start(optionalServeArgs.get());
+        printer.printServing(address, CookieQueryServer.QUERY_PATH);
+        server.awaitStop();
+    }
+}
@@ -0,0 +1,84 @@
+package org.ibrahim.stats;
+
+/**
+ * Splits the time a thread spends on the records of a read between parsing and counting.
+ * <p>
+ * The reader calls {@link #parsed()} once a record is parsed and {@link #counted()} once it is counted; the time
+ * since the previous mark is added to the matching phase, so no time is lost between records. Time spent
+ * blocked reading the input is excluded from parse time. The totals are added to the {@link RunStatistics}
+ * when the reader calls {@link #finish()}. A timer belongs to one thread; unless statistics were started,
+ * its methods do nothing.</p>
+ * <b>Usage Example:</b>
+ * <pre><code>
+ * RecordTimer timer = statistics.timer();
+ * for (String line : lines) {
+ *   Cookie cookie = parse(line);
+ *   timer.parsed();
+ *   counter.increment(cookie.getValue());
+ *   timer.counted();
+ * }
+ * timer.finish();
+ * </code></pre>
+ */
+public class RecordTimer {
+  private final RunStatistics statistics;
+  private final boolean enabled;
+  private long last;
+  private long parseNanos;
+  private long countNanos;
+  private long excludedNanos;
+  private long records;
+
+  RecordTimer(RunStatistics statistics) {
+    this.statistics = statistics;
+    this.enabled = statistics.isEnabled();
+    this.last = enabled ? System.nanoTime() : 0;
+  }
+
+  /**
+   * Marks the end of parsing a record.
+   */
+  public void parsed() {
+    if (enabled) {
+      long now = System.nanoTime();
+      parseNanos += now - last;
+      last = now;
+    }
+  }
+
+  /**
+   * Marks the end of counting a record.
+   */
+  public void counted() {
+    if (enabled) {
+      long now = System.nanoTime();
+      countNanos += now - last;
+      last = now;
+      records++;
+    }
+  }
+
+  /**
+   * Excludes time spent blocked reading from the parse time.
+   * @param elapsed the time, in nanoseconds
+   */
+  void exclude(long elapsed) {
+    excludedNanos += elapsed;
+  }
+
+  /**
+   * Adds the measured times and records to the statistics, with the thread's allocations.
+   */
+  public void finish() {
+    if (enabled) {
+      statistics.addNanos(RunStatistics.Phase.PARSE, Math.max(parseNanos - excludedNanos, 0));
+      statistics.addNanos(RunStatistics.Phase.COUNT, countNanos);
+      statistics.addLines(records);
+      statistics.recordThreadAllocation();
+      parseNanos = 0;
+      countNanos = 0;
+      excludedNanos = 0;
+      records = 0;
+    }
+  }
+}
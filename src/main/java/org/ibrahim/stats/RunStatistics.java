@@ -0,0 +1,300 @@
+package org.ibrahim.stats;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.ibrahim.model.RunStats;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Collects the throughput and resource usage of a query: bytes and lines read, time per phase, distinct cookies,
+ * peak heap and the bytes allocated by each thread. Nothing is measured until {@link #start()} is called, so
+ * the readers only pay for a flag check per record when statistics are off.
+ * <p>
+ * I/O time is the time spent blocked in reading input streams, including decompression; memory-mapped files
+ * are faulted in while they are parsed, so their I/O counts as parse time. Parse and count time are measured per
+ * record with a {@link RecordTimer}. Per-thread allocations come from {@code com.sun.management.ThreadMXBean}
+ * and are recorded when a worker finishes; virtual threads do not report them. The peak heap is the highest total
+ * of all heap pools in use at once: the heap only grows between garbage collections, so it is taken from the heap
+ * in use before each collection, as the JVM notifies them, and when the report is taken. Instances are
+ * thread-safe.</p>
+ * <b>Usage Example:</b>
+ * <pre><code>
+ * RunStatistics statistics = new RunStatistics();
+ * statistics.start();
+ * statistics.time(RunStatistics.Phase.PRINT, () -&gt; printer.print(cookies));
+ * RunStats stats = statistics.report();
+ * </code></pre>
+ */
+public class RunStatistics {
+  private static final com.sun.management.ThreadMXBean THREADS =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+  private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+  /**
+   * The phases of a query whose time is measured.
+   */
+  public enum Phase {
+    IO, PARSE, COUNT, SELECT, PRINT;
+
+    /**
+     * Returns the name of the phase in reports.
+     * @return the lower-case name
+     */
+    public String key() {
+      return name().toLowerCase(Locale.ROOT);
+    }
+  }
+
+  private final LongAdder bytes = new LongAdder();
+  private final LongAdder lines = new LongAdder();
+  private final LongAdder distinct = new LongAdder();
+  private final Map<Phase, LongAdder> nanos = new EnumMap<>(Phase.class);
+  private final Map<String, Long> threadAllocations = new ConcurrentHashMap<>();
+  private final AtomicLong peakHeap = new AtomicLong();
+  private final NotificationListener collectionListener = this::recordCollection;
+  private Set<String> heapPools = Set.of();
+  private volatile boolean enabled;
+  private long startNanos;
+  private long startAllocated;
+  private long startThreadAllocated;
+  private String startThread;
+
+  /**
+   * Constructs statistics that are off until started.
+   */
+  public RunStatistics() {
+    for (Phase phase : Phase.values()) {
+      nanos.put(phase, new LongAdder());
+    }
+  }
+
+  /**
+   * Starts measuring, from the calling thread, and starts tracking the peak heap usage.
+   */
+  public void start() {
+    heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+        .filter(pool -> pool.getType() == MemoryType.HEAP)
+        .map(MemoryPoolMXBean::getName)
+        .collect(Collectors.toUnmodifiableSet());
+    peakHeap.set(MEMORY.getHeapMemoryUsage().getUsed());
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      if (collector instanceof NotificationEmitter emitter) {
+        emitter.addNotificationListener(collectionListener, null, null);
+      }
+    }
+    startThread = Thread.currentThread().getName();
+    startThreadAllocated = THREADS.getCurrentThreadAllocatedBytes();
+    startAllocated = THREADS.getTotalThreadAllocatedBytes();
+    startNanos = System.nanoTime();
+    enabled = true;
+  }
+
+  /**
+   * Checks whether statistics are being measured.
+   * @return true once started
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Adds bytes read from the input.
+   * @param count the number of bytes
+   */
+  public void addBytes(long count) {
+    if (enabled) {
+      bytes.add(count);
+    }
+  }
+
+  /**
+   * Adds records read from the input.
+   * @param count the number of records
+   */
+  public void addLines(long count) {
+    if (enabled) {
+      lines.add(count);
+    }
+  }
+
+  /**
+   * Adds distinct cookies counted for a date.
+   * @param count the number of distinct cookies
+   */
+  public void addDistinct(long count) {
+    if (enabled) {
+      distinct.add(count);
+    }
+  }
+
+  /**
+   * Adds time spent in a phase.
+   * @param phase the phase
+   * @param elapsed the time, in nanoseconds
+   */
+  public void addNanos(Phase phase, long elapsed) {
+    if (enabled) {
+      nanos.get(phase).add(elapsed);
+    }
+  }
+
+  /**
+   * Runs an action and adds its time to the phase.
+   * @param phase the phase the action belongs to
+   * @param action the action
+   */
+  public void time(Phase phase, Runnable action) {
+    time(phase, () -> {
+      action.run();
+      return null;
+    });
+  }
+
+  /**
+   * Computes a result and adds the time it took to the phase.
+   * @param phase the phase the computation belongs to
+   * @param action the computation
+   * @return the result
+   */
+  public <T> T time(Phase phase, Supplier<T> action) {
+    if (!enabled) {
+      return action.get();
+    }
+    long start = System.nanoTime();
+    try {
+      return action.get();
+    } finally {
+      nanos.get(phase).add(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Creates a timer for the records read by the calling thread.
+   * @return the timer, which measures nothing unless statistics were started
+   */
+  public RecordTimer timer() {
+    return new RecordTimer(this);
+  }
+
+  /**
+   * Wraps an input stream so that the bytes read and the time blocked reading them are measured.
+   * @param in the stream to measure
+   * @param timer the timer of the records parsed from the stream on the reading thread, which excludes the
+   * reading time from the parse time, or null if they are parsed elsewhere
+   * @return the measuring stream, or the given stream unless statistics were started
+   */
+  public InputStream track(InputStream in, RecordTimer timer) {
+    if (!enabled) {
+      return in;
+    }
+    return new FilterInputStream(in) {
+      @Override
+      public int read() throws IOException {
+        long start = System.nanoTime();
+        int b = super.read();
+        recordRead(b < 0 ? 0 : 1, System.nanoTime() - start, timer);
+        return b;
+      }
+
+      @Override
+      public int read(byte[] buffer, int offset, int length) throws IOException {
+        long start = System.nanoTime();
+        int read = super.read(buffer, offset, length);
+        recordRead(Math.max(read, 0), System.nanoTime() - start, timer);
+        return read;
+      }
+    };
+  }
+
+  private void recordRead(int count, long elapsed, RecordTimer timer) {
+    bytes.add(count);
+    nanos.get(Phase.IO).add(elapsed);
+    if (timer != null) {
+      timer.exclude(elapsed);
+    }
+  }
+
+  /**
+   * Raises the peak heap to the total of the heap pools before a garbage collection.
+   */
+  private void recordCollection(Notification notification, Object handback) {
+    if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+      return;
+    }
+    GarbageCollectionNotificationInfo info =
+        GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+    long used = 0;
+    for (var pool : info.getGcInfo().getMemoryUsageBeforeGc().entrySet()) {
+      if (heapPools.contains(pool.getKey())) {
+        used += pool.getValue().getUsed();
+      }
+    }
+    peakHeap.accumulateAndGet(used, Math::max);
+  }
+
+  /**
+   * Records the bytes allocated by the calling thread so far, e.g. when a worker finishes its share of a read.
+   * Threads that do not report allocations, such as virtual threads, are skipped.
+   */
+  public void recordThreadAllocation() {
+    if (!enabled) {
+      return;
+    }
+    long allocated = THREADS.getCurrentThreadAllocatedBytes();
+    if (allocated >= 0) {
+      threadAllocations.put(Thread.currentThread().getName(), allocated);
+    }
+  }
+
+  /**
+   * Takes a snapshot of the statistics measured since {@link #start()}, from the thread that started them, and
+   * stops tracking the peak heap usage.
+   * @return the statistics
+   * @throws IllegalStateException if statistics were not started
+   */
+  public RunStats report() {
+    if (!enabled) {
+      throw new IllegalStateException("Statistics not started");
+    }
+    long elapsed = System.nanoTime() - startNanos;
+    Map<String, Long> phases = new LinkedHashMap<>();
+    nanos.forEach((phase, total) -> phases.put(phase.key(), Math.max(total.sum(), 0)));
+    Map<String, Long> threads = new TreeMap<>(threadAllocations);
+    threads.put(startThread, THREADS.getCurrentThreadAllocatedBytes() - startThreadAllocated);
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      if (collector instanceof NotificationEmitter emitter) {
+        try {
+          emitter.removeNotificationListener(collectionListener);
+        } catch (ListenerNotFoundException e) {
+          // Already removed by an earlier report
+        }
+      }
+    }
+    long heap = peakHeap.accumulateAndGet(MEMORY.getHeapMemoryUsage().getUsed(), Math::max);
+    return new RunStats(elapsed, bytes.sum(), lines.sum(), phases, distinct.sum(), heap,
+        THREADS.getTotalThreadAllocatedBytes() - startAllocated, threads);
+  }
+}
@@ -0,0 +1,198 @@
+package org.ibrahim.business;
+
+import org.ibrahim.model.CookieCount;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CookieCounterTest {
+    private static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+    @Test
+    void testIncrement_packedAndFallbackValues() {
+        CookieCounter counter = new CookieCounter();
+        counter.increment("AtY0laUfhglK3lC7");
+        counter.increment("short");
+        counter.increment("AtY0laUfhglK3lC7");
+        counter.increment("not-base62-id!!!");
+        counter.increment("short");
+        counter.increment("zzzzzzzzzzzzzzzz");
+
+        assertEquals(4, counter.size());
+        assertEquals(2, counter.maxCount());
+        assertEquals(List.of("AtY0laUfhglK3lC7", "short"), counter.valuesWithCount(2));
+        assertEquals(List.of("not-base62-id!!!", "zzzzzzzzzzzzzzzz"), counter.valuesWithCount(1));
+    }
+
+    @Test
+    void testIncrement_fromSegmentMatchesString() {
+        byte[] bytes = "AtY0laUfhglK3lC7,abc,AtY0laUfhglK3lC7".getBytes(StandardCharsets.US_ASCII);
+        MemorySegment segment = MemorySegment.ofArray(bytes);
+        CookieCounter counter = new CookieCounter();
+        counter.increment(segment, 0, 16);
+        counter.increment(segment, 17, 3);
+        counter.increment(segment, 21, 16);
+        counter.increment("abc");
+
+        assertEquals(2, counter.size());
+        assertEquals(List.of("AtY0laUfhglK3lC7", "abc"), counter.valuesWithCount(2));
+    }
+
+    @Test
+    void testEmpty() {
+        CookieCounter counter = new CookieCounter();
+        assertEquals(0, counter.size());
+        assertEquals(0, counter.maxCount());
+        assertTrue(counter.valuesWithCount(0).isEmpty());
+    }
+
+    @Test
+    void testResize_keepsCountsAndInsertionOrder() {
+        Random random = new Random(7);
+        Map<String, Integer> expected = new LinkedHashMap<>();
+        CookieCounter counter = new CookieCounter();
+        for (int i = 0; i < 200_000; i++) {
+            String value = i % 10 == 0 ? "id" + random.nextInt(5_000) : randomId(random, 20_000);
+            expected.merge(value, 1, Integer::sum);
+            counter.increment(value);
+        }
+
+        Map<String, Integer> actual = new LinkedHashMap<>();
+        counter.forEach(actual::put);
+        assertEquals(expected.size(), counter.size());
+        assertEquals(List.copyOf(expected.keySet()), List.copyOf(actual.keySet()));
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void testAddAll_mergesCounts() {
+        CookieCounter first = new CookieCounter();
+        first.increment("AtY0laUfhglK3lC7");
+        first.increment("abc");
+        CookieCounter second = new CookieCounter();
+        second.increment("abc");
+        second.increment("SAZuXPGUrfbcn5UA");
+        second.add("SAZuXPGUrfbcn5UA", 2);
+
+        first.addAll(second);
+
+        Map<String, Integer> actual = new LinkedHashMap<>();
+        first.forEach(actual::put);
+        assertEquals(Map.of("AtY0laUfhglK3lC7", 1, "abc", 2, "SAZuXPGUrfbcn5UA", 3), actual);
+        assertEquals(List.of("AtY0laUfhglK3lC7", "abc", "SAZuXPGUrfbcn5UA"), List.copyOf(actual.keySet()));
+    }
+
+    private static String randomId(Random random, int distinct) {
+        Random idRandom = new Random(random.nextInt(distinct));
+        StringBuilder id = new StringBuilder(16);
+        for (int i = 0; i < 16; i++) {
+            id.append(ALPHABET.charAt(idRandom.nextInt(ALPHABET.length())));
+        }
+        return id.toString();
+    }
+
+    private static CookieCounter counterOf(String... values) {
+        CookieCounter counter = new CookieCounter();
+        for (String value : values) {
+            counter.increment(value);
+        }
+        return counter;
+    }
+
+    @Test
+    void testMostActive_valuesTiedForMaximum() {
+        CookieCounter counter = counterOf("a", "b", "b", "c", "a");
+
+        assertEquals(List.of(new CookieCount("a", 2), new CookieCount("b", 2)), counter.mostActive());
+        assertEquals(List.of(), new CookieCounter().mostActive());
+    }
+
+    @Test
+    void testTop_highestCountsInDescendingOrder() {
+        CookieCounter counter = counterOf("a", "b", "b", "c", "c", "c", "d", "d", "d", "d");
+
+        assertEquals(List.of(new CookieCount("d", 4), new CookieCount("c", 3)), counter.top(2));
+    }
+
+    @Test
+    void testTop_includesTiesAtCutoff() {
+        CookieCounter counter = counterOf("a", "b", "c", "c", "d", "e", "e", "f");
+
+        assertEquals(List.of(new CookieCount("c", 2), new CookieCount("e", 2)), counter.top(1));
+        assertEquals(List.of(new CookieCount("c", 2), new CookieCount("e", 2), new CookieCount("a", 1),
+            new CookieCount("b", 1), new CookieCount("d", 1), new CookieCount("f", 1)), counter.top(3));
+    }
+
+    @Test
+    void testTop_tiesOfEvictedMinimumAreDropped() {
+        CookieCounter counter = counterOf("a", "b", "c", "c", "d", "d", "d");
+
+        assertEquals(List.of(new CookieCount("d", 3), new CookieCount("c", 2)), counter.top(2));
+    }
+
+    @Test
+    void testTop_fewerValuesThanRequested() {
+        assertEquals(List.of(new CookieCount("a", 2), new CookieCount("b", 1)), counterOf("a", "b", "a").top(10));
+        assertEquals(List.of(), new CookieCounter().top(3));
+    }
+
+    @Test
+    void testTop_matchesFullSort() {
+        Random random = new Random(11);
+        CookieCounter counter = new CookieCounter();
+        for (int i = 0; i < 50_000; i++) {
+            counter.increment("cookie" + (int) Math.abs(random.nextGaussian() * 400));
+        }
+        List<CookieCount> all = new ArrayList<>();
+        counter.forEach((value, count) -> all.add(new CookieCount(value, count)));
+        List<CookieCount> sorted = all.stream()
+            .sorted(Comparator.comparingInt(CookieCount::getCount).reversed())
+            .toList();
+        int cutoff = sorted.get(9).getCount();
+
+        List<CookieCount> top = counter.top(10);
+
+        assertEquals(sorted.stream().filter(cookieCount -> cookieCount.getCount() >= cutoff).toList(), top);
+    }
+
+    @Test
+    void testTop_nonPositive_throws() {
+        assertThrows(IllegalArgumentException.class, () -> new CookieCounter().top(0));
+    }
+
+    @Test
+    void testTopCounts_countsTiesIndividually() {
+        CookieCounter counter = new CookieCounter();
+        for (String value : List.of("a", "b", "a", "c", "b", "a", "d", "e", "e", "e")) {
+            counter.increment(value);
+        }
+
+        assertArrayEquals(new int[]{3, 3}, counter.topCounts(2));
+        assertArrayEquals(new int[]{3, 3, 2, 1}, counter.topCounts(4));
+        assertArrayEquals(new int[]{3, 3, 2, 1, 1}, counter.topCounts(9));
+        assertArrayEquals(new int[0], new CookieCounter().topCounts(1));
+        assertThrows(IllegalArgumentException.class, () -> counter.topCounts(0));
+    }
+
+    @Test
+    void testForEachAtLeast_passesRankInFirstOccurrenceOrder() {
+        CookieCounter counter = new CookieCounter();
+        for (String value : List.of("a", "b", "c", "b", "c", "d")) {
+            counter.increment(value);
+        }
+        List<String> passed = new ArrayList<>();
+
+        counter.forEachAtLeast(2, (rank, value, count) -> passed.add(rank + ":" + value + ":" + count));
+
+        assertEquals(List.of("1:b:2", "2:c:2"), passed);
+    }
+}
@@ -0,0 +1,70 @@
+package org.ibrahim.business;
+
+import org.ibrahim.exception.CookieParseException;
+import org.ibrahim.io.ColumnarCookieFile;
+import org.ibrahim.io.CookieParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CookieLogCompilerTest {
+    @TempDir
+    Path tempDir;
+
+    CookieLogCompiler target = new CookieLogCompiler(new CookieParser());
+
+    private static List<String> readAll(Path file) throws IOException {
+        List<String> values = new ArrayList<>();
+        try (ColumnarCookieFile columnar = ColumnarCookieFile.open(file.toString())) {
+            List<String> dictionary = columnar.dictionary();
+            columnar.scan(Long.MIN_VALUE, Long.MAX_VALUE, id -> values.add(dictionary.get(id)));
+        }
+        return values;
+    }
+
+    @Test
+    void testCompile_csv() throws IOException {
+        Path output = tempDir.resolve("cookies.ccol");
+
+        long records = target.compile("src/test/resources/test_cookies.csv", output.toString());
+
+        assertEquals(3, records);
+        assertEquals(List.of("abc", "def", "ghi"), readAll(output));
+    }
+
+    @Test
+    void testCompile_gzip() throws IOException {
+        Path output = tempDir.resolve("cookies.ccol");
+
+        long records = target.compile("src/test/resources/test_cookies.csv.gz", output.toString());
+
+        assertEquals(3, records);
+        long dayStart = Instant.parse("2025-07-08T00:00:00Z").getEpochSecond();
+        List<String> values = new ArrayList<>();
+        try (ColumnarCookieFile columnar = ColumnarCookieFile.open(output.toString())) {
+            List<String> dictionary = columnar.dictionary();
+            columnar.scan(dayStart, dayStart + 86_400, id -> values.add(dictionary.get(id)));
+        }
+        assertEquals(List.of("ghi"), values);
+    }
+
+    @Test
+    void testCompile_invalidInput_leavesNoOutput() throws IOException {
+        Path input = tempDir.resolve("invalid.csv");
+        Files.writeString(input, "cookie,timestamp\nabc,not-a-date\n");
+        Path output = tempDir.resolve("invalid.ccol");
+
+        assertThrows(CookieParseException.class, () -> target.compile(input.toString(), output.toString()));
+        try (var files = Files.list(tempDir)) {
+            assertEquals(List.of(input), files.toList());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.ibrahim.business;
+
+import org.ibrahim.exception.CookieAppException;
+import org.ibrahim.io.CookieParser;
+import org.ibrahim.model.CookieCount;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CookieLogFollowerTest {
+    private static final LocalDate DATE = LocalDate.parse("2025-07-07");
+
+    @TempDir
+    Path tempDir;
+    CookieParser parser = spy(new CookieParser());
+    CookieLogFollower target = new CookieLogFollower(parser, Duration.ofMillis(10));
+
+    private Path logOf(String lines) throws IOException {
+        return Files.writeString(tempDir.resolve("cookies.csv"), "cookie,timestamp\n" + lines);
+    }
+
+    private static void append(Path file, String lines) throws IOException {
+        Files.writeString(file, lines, StandardOpenOption.APPEND);
+    }
+
+    @Test
+    void testPoll_reportsInitialCountsThenOnlyChanges() throws IOException {
+        Path file = logOf("abc,2025-07-07T10:00:00Z\ndef,2025-07-08T10:00:00Z\n");
+        CookieLogFollower.LiveCounts counts = target.new LiveCounts(file.toString(), List.of(DATE), ZoneOffset.UTC, null);
+
+        assertEquals(Optional.of(Map.of(DATE, List.of(new CookieCount("abc", 1)))), counts.poll());
+        assertEquals(Optional.empty(), counts.poll());
+
+        append(file, "def,2025-07-08T11:00:00Z\n");
+        assertEquals(Optional.empty(), counts.poll());
+
+        append(file, "ghi,2025-07-07T11:00:00Z\nghi,2025-07-07T12:00:00Z\n");
+        assertEquals(Optional.of(Map.of(DATE, List.of(new CookieCount("ghi", 2)))), counts.poll());
+    }
+
+    @Test
+    void testPoll_readsOnlyAppendedBytes() throws IOException {
+        Path file = logOf("abc,2025-07-07T10:00:00Z\n");
+        CookieLogFollower.LiveCounts counts = target.new LiveCounts(file.toString(), List.of(DATE), ZoneOffset.UTC, 5);
+        counts.poll();
+        long size = Files.size(file);
+
+        append(file, "def,2025-07-07T11:00:00Z\n");
+        counts.poll();
+        counts.poll();
+
+        verify(parser).parseFrom(eq(file.toString()), eq(0L), any());
+        verify(parser).parseFrom(eq(file.toString()), eq(size), any());
+        verify(parser, times(2)).parseFrom(eq(file.toString()), anyLong(), any());
+    }
+
+    @Test
+    void testPoll_truncatedFileIsCountedFromStart() throws IOException {
+        Path file = logOf("abc,2025-07-07T10:00:00Z\nabc,2025-07-07T11:00:00Z\n");
+        CookieLogFollower.LiveCounts counts = target.new LiveCounts(file.toString(), List.of(DATE), ZoneOffset.UTC, 5);
+        counts.poll();
+
+        logOf("def,2025-07-07T12:00:00Z\n");
+
+        assertEquals(Optional.of(Map.of(DATE, List.of(new CookieCount("def", 1)))), counts.poll());
+    }
+
+    @Test
+    void testFollow_reportsChangesUntilStopped() throws Exception {
+        Path file = logOf("abc,2025-07-07T10:00:00Z\n");
+        List<Map<LocalDate, List<CookieCount>>> reports = new CopyOnWriteArrayList<>();
+        Thread follower = Thread.ofVirtual().start(() -> target.follow(file.toString(), List.of(DATE), ZoneOffset.UTC, null,
+            report -> {
+                reports.add(report);
+                if (reports.size() == 2) {
+                    target.stop();
+                }
+            }));
+        while (follower.isAlive() && reports.isEmpty()) {
+            Thread.sleep(5);
+        }
+
+        append(file, "def,2025-07-07T11:00:00Z\n");
+        follower.join(5000);
+
+        assertFalse(follower.isAlive());
+        assertEquals(List.of(Map.of(DATE, List.of(new CookieCount("abc", 1))),
+            Map.of(DATE, List.of(new CookieCount("abc", 1), new CookieCount("def", 1)))), reports);
+    }
+
+    @Test
+    void testFollow_compressedFile_throws() {
+        assertThrows(CookieAppException.class,
+            () -> target.follow("cookies.csv.gz", List.of(DATE), ZoneOffset.UTC, null, _ -> fail()));
+    }
+}
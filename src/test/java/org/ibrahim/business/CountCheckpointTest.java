@@ -0,0 +1,104 @@
+package org.ibrahim.business;
+
+import org.ibrahim.exception.CookieAppException;
+import org.ibrahim.model.CookieCount;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CountCheckpointTest {
+    private static final List<LocalDate> DATES = List.of(LocalDate.parse("2025-07-07"), LocalDate.parse("2025-07-08"));
+    private static final String LOG = "cookie,timestamp\ncookie1,2025-07-07T10:00:00Z\ncookie2,2025-07-08T10:00:00Z\n";
+
+    @TempDir
+    Path tempDir;
+
+    private static DayBuckets<CookieCounter> counters(ZoneId zone) {
+        return new DayBuckets<>(DATES, zone, CookieCounter::new);
+    }
+
+    private Path log() throws IOException {
+        return Files.writeString(tempDir.resolve("cookies.csv"), LOG);
+    }
+
+    @Test
+    void testWriteAndRead_restoresOffsetAndCountsInOrder() throws IOException {
+        Path log = log();
+        Path checkpoint = tempDir.resolve("scan.ckpt");
+        DayBuckets<CookieCounter> counters = counters(ZoneOffset.UTC);
+        counters.get(DATES.get(0)).add("b", 2);
+        counters.get(DATES.get(0)).add("a", 2);
+        counters.get(DATES.get(1)).add("c", 1);
+
+        CountCheckpoint.write(checkpoint, log.toString(), 40, counters, ZoneOffset.UTC);
+        DayBuckets<CookieCounter> restored = counters(ZoneOffset.UTC);
+        OptionalLong offset = CountCheckpoint.read(checkpoint, log.toString(), restored, ZoneOffset.UTC);
+
+        assertEquals(OptionalLong.of(40), offset);
+        assertEquals(List.of(new CookieCount("b", 2), new CookieCount("a", 2)), restored.get(DATES.get(0)).mostActive());
+        assertEquals(List.of(new CookieCount("c", 1)), restored.get(DATES.get(1)).top(10));
+        assertFalse(Files.exists(tempDir.resolve("scan.ckpt.tmp")));
+    }
+
+    @Test
+    void testRead_missingCheckpoint_returnsEmpty() throws IOException {
+        assertTrue(CountCheckpoint.read(tempDir.resolve("scan.ckpt"), log().toString(), counters(ZoneOffset.UTC),
+            ZoneOffset.UTC).isEmpty());
+    }
+
+    @Test
+    void testRead_otherQuery_throws() throws IOException {
+        Path log = log();
+        Path checkpoint = tempDir.resolve("scan.ckpt");
+        CountCheckpoint.write(checkpoint, log.toString(), 40, counters(ZoneOffset.UTC), ZoneOffset.UTC);
+        ZoneId zone = ZoneId.of("Europe/Berlin");
+        DayBuckets<CookieCounter> otherDates = new DayBuckets<>(DATES.subList(0, 1), ZoneOffset.UTC, CookieCounter::new);
+
+        assertThrows(CookieAppException.class,
+            () -> CountCheckpoint.read(checkpoint, log.toString(), counters(zone), zone));
+        assertThrows(CookieAppException.class,
+            () -> CountCheckpoint.read(checkpoint, log.toString(), otherDates, ZoneOffset.UTC));
+        assertThrows(CookieAppException.class, () -> CountCheckpoint.read(checkpoint,
+            Files.writeString(tempDir.resolve("other.csv"), LOG).toString(), counters(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+
+    @Test
+    void testRead_fileChangedBeforeOffset_throws() throws IOException {
+        Path log = log();
+        Path checkpoint = tempDir.resolve("scan.ckpt");
+        CountCheckpoint.write(checkpoint, log.toString(), 40, counters(ZoneOffset.UTC), ZoneOffset.UTC);
+        Files.writeString(log, LOG.replace("cookie1", "cookie9"));
+
+        assertThrows(CookieAppException.class,
+            () -> CountCheckpoint.read(checkpoint, log.toString(), counters(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+
+    @Test
+    void testRead_fileChangedAfterOffset_restores() throws IOException {
+        Path log = log();
+        Path checkpoint = tempDir.resolve("scan.ckpt");
+        CountCheckpoint.write(checkpoint, log.toString(), 17, counters(ZoneOffset.UTC), ZoneOffset.UTC);
+        Files.writeString(log, LOG.replace("cookie2", "cookie9"));
+
+        assertEquals(OptionalLong.of(17),
+            CountCheckpoint.read(checkpoint, log.toString(), counters(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+
+    @Test
+    void testRead_notACheckpoint_throws() throws IOException {
+        Path checkpoint = Files.writeString(tempDir.resolve("scan.ckpt"), "not a checkpoint");
+
+        assertThrows(IOException.class,
+            () -> CountCheckpoint.read(checkpoint, log().toString(), counters(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+}
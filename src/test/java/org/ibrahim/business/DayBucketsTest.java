@@ -0,0 +1,117 @@
+package org.ibrahim.business;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DayBucketsTest {
+  private static long epochSecond(String instant) {
+    return Instant.parse(instant).getEpochSecond();
+  }
+
+  @Test
+  void testAt_requestedDaysOnly() {
+    DayBuckets<AtomicInteger> buckets = new DayBuckets<>(
+        List.of(LocalDate.parse("2025-07-08"), LocalDate.parse("2025-07-06")), AtomicInteger::new);
+
+    assertEquals(epochSecond("2025-07-06T00:00:00Z"), buckets.fromEpochSecond());
+    assertEquals(epochSecond("2025-07-09T00:00:00Z"), buckets.toEpochSecond());
+    assertSame(buckets.get(LocalDate.parse("2025-07-06")), buckets.at(epochSecond("2025-07-06T00:00:00Z")));
+    assertSame(buckets.get(LocalDate.parse("2025-07-08")), buckets.at(epochSecond("2025-07-08T23:59:59Z")));
+    assertNull(buckets.at(epochSecond("2025-07-07T12:00:00Z")));
+    assertNull(buckets.at(epochSecond("2025-07-05T23:59:59Z")));
+    assertNull(buckets.at(epochSecond("2025-07-09T00:00:00Z")));
+    assertNotSame(buckets.get(LocalDate.parse("2025-07-06")), buckets.get(LocalDate.parse("2025-07-08")));
+  }
+
+  @Test
+  void testAt_dayBoundariesInZoneAcrossTransitions() {
+    ZoneId zone = ZoneId.of("Europe/Berlin");
+    List<LocalDate> dates = LocalDate.parse("2025-03-29").datesUntil(LocalDate.parse("2025-04-01")).toList();
+    DayBuckets<AtomicInteger> buckets = new DayBuckets<>(dates, zone, AtomicInteger::new);
+
+    // 2025-03-30 is 23 hours long in Berlin
+    assertEquals(epochSecond("2025-03-28T23:00:00Z"), buckets.fromEpochSecond());
+    assertSame(buckets.get(LocalDate.parse("2025-03-29")), buckets.at(epochSecond("2025-03-29T22:59:59Z")));
+    assertSame(buckets.get(LocalDate.parse("2025-03-30")), buckets.at(epochSecond("2025-03-29T23:00:00Z")));
+    assertSame(buckets.get(LocalDate.parse("2025-03-30")), buckets.at(epochSecond("2025-03-30T21:59:59Z")));
+    assertSame(buckets.get(LocalDate.parse("2025-03-31")), buckets.at(epochSecond("2025-03-30T22:00:00Z")));
+    assertEquals(epochSecond("2025-03-31T22:00:00Z"), buckets.toEpochSecond());
+  }
+
+  @Test
+  void testAt_matchesZonedDateForEveryHourOfAYear() {
+    ZoneId zone = ZoneId.of("America/New_York");
+    List<LocalDate> dates = LocalDate.parse("2025-01-01").datesUntil(LocalDate.parse("2026-01-01")).toList();
+    DayBuckets<LocalDate[]> buckets = new DayBuckets<>(dates, zone, () -> new LocalDate[1]);
+    buckets.forEach((date, holder) -> holder[0] = date);
+
+    for (long second = buckets.fromEpochSecond(); second < buckets.toEpochSecond(); second += 1_799) {
+      assertEquals(LocalDate.ofInstant(Instant.ofEpochSecond(second), zone), buckets.at(second)[0]);
+    }
+  }
+
+  @Test
+  void testDuplicateDates_shareABucketInRequestOrder() {
+    DayBuckets<AtomicInteger> buckets = new DayBuckets<>(List.of(LocalDate.parse("2025-07-08"),
+        LocalDate.parse("2025-07-06"), LocalDate.parse("2025-07-08")), AtomicInteger::new);
+    buckets.at(epochSecond("2025-07-08T10:00:00Z")).incrementAndGet();
+
+    List<String> visited = new ArrayList<>();
+    buckets.forEach((date, value) -> visited.add(date + "=" + value.get()));
+
+    assertEquals(List.of("2025-07-08=1", "2025-07-06=0"), visited);
+    assertEquals(List.of(LocalDate.parse("2025-07-08"), LocalDate.parse("2025-07-06")), buckets.dates());
+  }
+
+  @Test
+  void testAt_widelySpreadDates() {
+    DayBuckets<AtomicInteger> buckets = new DayBuckets<>(List.of(LocalDate.parse("2900-01-01"),
+        LocalDate.parse("1900-01-01"), LocalDate.parse("2025-07-06")), ZoneId.of("Asia/Tokyo"), AtomicInteger::new);
+
+    assertSame(buckets.get(LocalDate.parse("1900-01-01")), buckets.at(epochSecond("1900-01-01T12:00:00Z")));
+    assertSame(buckets.get(LocalDate.parse("2025-07-06")), buckets.at(epochSecond("2025-07-05T15:00:00Z")));
+    assertNull(buckets.at(epochSecond("2025-07-05T14:59:59Z")));
+    assertNull(buckets.at(epochSecond("2025-07-06T15:00:00Z")));
+    assertSame(buckets.get(LocalDate.parse("2900-01-01")), buckets.at(epochSecond("2900-01-01T00:00:00Z")));
+  }
+
+  @Test
+  void testValues_createdOnFirstUse() {
+    AtomicInteger created = new AtomicInteger();
+    DayBuckets<Object> buckets = new DayBuckets<>(
+        LocalDate.parse("2000-01-01").datesUntil(LocalDate.parse("2030-01-01")).toList(),
+        () -> created.incrementAndGet());
+
+    buckets.at(epochSecond("2025-07-06T10:00:00Z"));
+    buckets.at(epochSecond("2025-07-06T11:00:00Z"));
+
+    assertEquals(1, created.get());
+  }
+
+  @Test
+  void testGet_unrequestedDate_throws() {
+    DayBuckets<AtomicInteger> buckets = new DayBuckets<>(List.of(LocalDate.parse("2025-07-06")), AtomicInteger::new);
+    assertThrows(IllegalArgumentException.class, () -> buckets.get(LocalDate.parse("2025-07-07")));
+  }
+
+  @Test
+  void testMap_keepsDates() {
+    DayBuckets<AtomicInteger> buckets = new DayBuckets<>(
+        List.of(LocalDate.parse("2025-07-06"), LocalDate.parse("2025-07-07")), AtomicInteger::new);
+    buckets.get(LocalDate.parse("2025-07-07")).set(5);
+
+    DayBuckets<String> mapped = buckets.map(value -> "count " + value.get());
+
+    assertEquals("count 0", mapped.at(epochSecond("2025-07-06T10:00:00Z")));
+    assertEquals("count 5", mapped.get(LocalDate.parse("2025-07-07")));
+    assertEquals(buckets.dates(), mapped.dates());
+  }
+}
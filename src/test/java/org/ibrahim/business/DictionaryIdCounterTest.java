@@ -0,0 +1,67 @@
+package org.ibrahim.business;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DictionaryIdCounterTest {
+    @Test
+    void testResolve_countsInOrderOfFirstOccurrence() {
+        DictionaryIdCounter target = new DictionaryIdCounter();
+        target.accept(2);
+        target.accept(0);
+        target.accept(2);
+        target.accept(5000);
+
+        int[] ids = target.idsCountedAtLeast(1);
+        CookieCounter counter = target.resolve(ids, values(ids));
+
+        assertArrayEquals(new int[]{2, 0, 5000}, ids);
+        assertEquals(3, counter.size());
+        assertEquals(2, counter.maxCount());
+        assertEquals(List.of("value2"), counter.valuesWithCount(2));
+        assertEquals(List.of("value0", "value5000"), counter.valuesWithCount(1));
+    }
+
+    @Test
+    void testSelect_onlyTheMostCountedIds() {
+        DictionaryIdCounter target = new DictionaryIdCounter();
+        for (int id : new int[]{7, 3, 7, 1, 3, 7, 9, 1}) {
+            target.accept(id);
+        }
+
+        assertEquals(4, target.size());
+        assertEquals(3, target.maxCount());
+        assertEquals(3, target.minCountOfTop(1));
+        assertEquals(2, target.minCountOfTop(2));
+        assertEquals(2, target.minCountOfTop(3));
+        assertEquals(1, target.minCountOfTop(10));
+        assertArrayEquals(new int[]{7}, target.idsCountedAtLeast(target.maxCount()));
+        assertArrayEquals(new int[]{7, 3, 1}, target.idsCountedAtLeast(target.minCountOfTop(2)));
+
+        int[] ids = target.idsCountedAtLeast(2);
+        CookieCounter counter = target.resolve(ids, values(ids));
+        assertEquals(3, counter.size());
+        assertEquals(List.of("value3", "value1"), counter.valuesWithCount(2));
+    }
+
+    @Test
+    void testSelect_nothingCounted() {
+        DictionaryIdCounter target = new DictionaryIdCounter();
+
+        assertEquals(0, target.maxCount());
+        assertEquals(0, target.minCountOfTop(5));
+        assertArrayEquals(new int[0], target.idsCountedAtLeast(1));
+    }
+
+    private static List<String> values(int[] ids) {
+        String[] values = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            values[i] = "value" + ids[i];
+        }
+        return List.of(values);
+    }
+}
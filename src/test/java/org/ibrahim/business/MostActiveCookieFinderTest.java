@@ -1,16 +1,46 @@
 package org.ibrahim.business;
 
+import org.ibrahim.exception.CookieParseException;
+import org.ibrahim.io.ColumnarCookieFile;
 import org.ibrahim.io.CookieParser;
+import org.ibrahim.io.MappedCookieScanner;
+import org.ibrahim.io.PipelinedCookieScanner;
+import org.ibrahim.model.ApproximateCount;
 import org.ibrahim.model.Cookie;
+import org.ibrahim.model.CookieCount;
+import org.ibrahim.model.ScanMode;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -63,6 +93,200 @@ class MostActiveCookieFinderTest {
         assertTrue(result.isEmpty());
     }
 
+    @Test
+    void testFindMostActiveCookies_mapped() {
+        byte[] bytes = ("cookie1,2024-07-05T10:00:00+00:00\n"
+            + "cookie2,2024-07-05T23:30:00-02:00\n"
+            + "cookie2,2024-07-05T11:00:00Z\n"
+            + "cookie1,2024-07-06T00:30:00+02:00\n").getBytes(StandardCharsets.US_ASCII);
+        doAnswer(invocation -> {
+            MappedCookieScanner.RecordProcessor processor = invocation.getArgument(1);
+            MappedCookieScanner.scanRange(MemorySegment.ofArray(bytes), 0, bytes.length, processor);
+            return null;
+        }).when(parser).scanMapped(eq("file.csv"), any());
+
+        var result = target.findMostActiveCookies("file.csv", LocalDate.parse("2024-07-05"), ScanMode.MAPPED);
+
+        assertEquals(1, result.size());
+        assertEquals("cookie1", result.getFirst().getValue());
+        verify(parser, never()).parseEach(any(), any());
+    }
+
+    @Test
+    void testFindMostActiveCookies_mappedCompressed_fallsBackToStream() {
+        doAnswer(invocation -> {
+            Consumer<Cookie> consumer = invocation.getArgument(1);
+            consumer.accept(new Cookie("cookie1", Instant.parse("2024-07-05T10:00:00Z")));
+            return null;
+        }).when(parser).parseEach(eq("file.csv.gz"), any());
+
+        var result = target.findMostActiveCookies("file.csv.gz", LocalDate.parse("2024-07-05"), ScanMode.MAPPED);
+
+        assertEquals(1, result.size());
+        assertEquals("cookie1", result.getFirst().getValue());
+        verify(parser, never()).scanMapped(any(), any());
+    }
+
+    @Test
+    void testFindMostActiveCookies_parallelStandardInput_isPipelined() {
+        byte[] bytes = ("cookie1,2024-07-05T10:00:00Z\n"
+            + "cookie2,2024-07-05T11:00:00Z\n"
+            + "cookie2,2024-07-05T12:00:00Z\n"
+            + "cookie1,2024-07-06T13:00:00Z\n").getBytes(StandardCharsets.US_ASCII);
+        doAnswer(invocation -> {
+            Supplier<MappedCookieScanner.RecordProcessor> factory = invocation.getArgument(2);
+            Consumer<MappedCookieScanner.RecordProcessor> consumer = invocation.getArgument(3);
+            MappedCookieScanner.RecordProcessor first = factory.get();
+            MappedCookieScanner.RecordProcessor second = factory.get();
+            MemorySegment segment = MemorySegment.ofArray(bytes);
+            MappedCookieScanner.scanRange(segment, 0, 29, first);
+            MappedCookieScanner.scanRange(segment, 29, bytes.length, second);
+            consumer.accept(first);
+            consumer.accept(second);
+            return null;
+        }).when(parser).scanPipelined(eq("-"), anyInt(), any(), any());
+
+        var result = target.findMostActiveCookies("-", LocalDate.parse("2024-07-05"), ScanMode.PARALLEL);
+
+        assertEquals(1, result.size());
+        assertEquals("cookie2", result.getFirst().getValue());
+        verify(parser, never()).scanMappedParallel(any(), anyInt(), any());
+    }
+
+    @Test
+    void testFindMostActiveCookies_parallelStandardInput_tiesInStreamOrder() {
+        StringBuilder content = new StringBuilder("cookie,timestamp\n");
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            String cookie = "cookie" + (i * 7919 % 2000);
+            content.append(cookie).append(",2024-07-05T10:00:00Z\n");
+            expected.add(cookie);
+        }
+        byte[] bytes = content.toString().getBytes(StandardCharsets.US_ASCII);
+        doAnswer(invocation -> {
+            PipelinedCookieScanner.scan(new ByteArrayInputStream(bytes), true, 8, 256,
+                invocation.getArgument(2), invocation.getArgument(3));
+            return null;
+        }).when(parser).scanPipelined(eq("-"), anyInt(), any(), any());
+
+        var result = target.findMostActiveCookies("-", LocalDate.parse("2024-07-05"), ScanMode.PARALLEL);
+
+        assertEquals(expected, result.stream().map(Cookie::getValue).toList());
+    }
+
+    @Test
+    void testFindMostActiveCookies_mappedStandardInput_fallsBackToStream() {
+        doAnswer(invocation -> {
+            Consumer<Cookie> consumer = invocation.getArgument(1);
+            consumer.accept(new Cookie("cookie1", Instant.parse("2024-07-05T10:00:00Z")));
+            return null;
+        }).when(parser).parseEach(eq("-"), any());
+
+        var result = target.findMostActiveCookies("-", LocalDate.parse("2024-07-05"), ScanMode.SORTED);
+
+        assertEquals(1, result.size());
+        verify(parser, never()).scanMappedSorted(any(), any(), any(), any());
+    }
+
+    @Test
+    void testFindMostActiveCookies_parallel() {
+        byte[] bytes = ("cookie1,2024-07-05T10:00:00Z\n"
+            + "cookie2,2024-07-05T11:00:00Z\n"
+            + "cookie2,2024-07-05T12:00:00Z\n"
+            + "cookie1,2024-07-05T13:00:00Z\n"
+            + "cookie2,2024-07-05T14:00:00Z\n"
+            + "cookie1,2024-07-06T15:00:00Z\n").getBytes(StandardCharsets.US_ASCII);
+        when(parser.scanMappedParallel(eq("file.csv"), anyInt(), any())).thenAnswer(invocation -> {
+            Supplier<MappedCookieScanner.RecordProcessor> factory = invocation.getArgument(2);
+            MemorySegment segment = MemorySegment.ofArray(bytes);
+            long[] bounds = MappedCookieScanner.split(segment, 0, 3);
+            List<MappedCookieScanner.RecordProcessor> processors = new ArrayList<>();
+            for (int i = 0; i < bounds.length - 1; i++) {
+                MappedCookieScanner.RecordProcessor processor = factory.get();
+                MappedCookieScanner.scanRange(segment, bounds[i], bounds[i + 1], processor);
+                processors.add(processor);
+            }
+            return processors;
+        });
+
+        var result = target.findMostActiveCookies("file.csv", LocalDate.parse("2024-07-05"), ScanMode.PARALLEL);
+
+        assertEquals(1, result.size());
+        assertEquals("cookie2", result.getFirst().getValue());
+    }
+
+    @Test
+    void testFindMostActiveCookies_sorted() {
+        byte[] bytes = ("cookie1,2024-07-05T10:00:00Z\n"
+            + "cookie2,2024-07-05T11:00:00Z\n").getBytes(StandardCharsets.US_ASCII);
+        doAnswer(invocation -> {
+            MappedCookieScanner.RecordProcessor processor = invocation.getArgument(3);
+            MappedCookieScanner.scanRange(MemorySegment.ofArray(bytes), 0, bytes.length, processor);
+            return null;
+        }).when(parser).scanMappedSorted(eq("file.csv"), eq(LocalDate.parse("2024-07-05")), eq(LocalDate.parse("2024-07-05")), any());
+
+        var result = target.findMostActiveCookies("file.csv", LocalDate.parse("2024-07-05"), ScanMode.SORTED);
+
+        assertEquals(2, result.size());
+        verify(parser, never()).scanMapped(any(), any());
+    }
+
+    @Test
+    void testFindMostActiveCookies_indexed() {
+        byte[] bytes = ("cookie1,2024-07-05T10:00:00Z\n"
+            + "cookie2,2024-07-06T11:00:00Z\n").getBytes(StandardCharsets.US_ASCII);
+        doAnswer(invocation -> {
+            MappedCookieScanner.RecordProcessor processor = invocation.getArgument(2);
+            MappedCookieScanner.scanRange(MemorySegment.ofArray(bytes), 0, bytes.length, processor);
+            return null;
+        }).when(parser).scanMappedIndexed(eq("file.csv"), eq(List.of(LocalDate.parse("2024-07-05"))), any());
+
+        var result = target.findMostActiveCookies("file.csv", LocalDate.parse("2024-07-05"), ScanMode.INDEXED);
+
+        assertEquals(1, result.size());
+        assertEquals("cookie1", result.getFirst().getValue());
+        verify(parser, never()).scanMapped(any(), any());
+    }
+
+    @Test
+    void testFindMostActiveCookies_columnar() {
+        doAnswer(invocation -> {
+            IntConsumer processor = invocation.getArgument(2);
+            processor.accept(1);
+            processor.accept(0);
+            processor.accept(1);
+            return null;
+        }).when(parser).scanColumnar(eq("file.ccol"), eq(LocalDate.parse("2024-07-05")), any(IntConsumer.class));
+        stubDictionary("cookie1", "cookie2");
+
+        var result = target.findMostActiveCookies("file.ccol", LocalDate.parse("2024-07-05"), ScanMode.MAPPED);
+
+        assertEquals(1, result.size());
+        assertEquals("cookie2", result.getFirst().getValue());
+        verify(parser).resolveColumnar("file.ccol", new int[]{1});
+        verify(parser, never()).scanMapped(any(), any());
+    }
+
+    @Test
+    void testFindMostActiveCookies_orderedStopsAfterDate() {
+        List<Boolean> decisions = new ArrayList<>();
+        doAnswer(invocation -> {
+            Predicate<Cookie> condition = invocation.getArgument(1);
+            decisions.add(condition.test(new Cookie("cookie1", Instant.parse("2024-07-06T10:00:00Z"))));
+            decisions.add(condition.test(new Cookie("cookie2", Instant.parse("2024-07-05T11:00:00Z"))));
+            decisions.add(condition.test(new Cookie("cookie2", Instant.parse("2024-07-05T09:00:00Z"))));
+            decisions.add(condition.test(new Cookie("cookie1", Instant.parse("2024-07-04T12:00:00Z"))));
+            return null;
+        }).when(parser).parseWhile(eq("file.csv"), any());
+
+        var result = target.findMostActiveCookies("file.csv", LocalDate.parse("2024-07-05"), ScanMode.ORDERED);
+
+        assertEquals(List.of(true, true, true, false), decisions);
+        assertEquals(1, result.size());
+        assertEquals("cookie2", result.getFirst().getValue());
+        verify(parser, never()).parseEach(any(), any());
+    }
+
     @Test
     void testFindMostActiveCookies_oneCookieOnDate() {
         doAnswer(invocation -> {
@@ -76,4 +300,439 @@ class MostActiveCookieFinderTest {
         assertEquals(1, result.size());
         assertEquals("cookie1", result.getFirst().getValue());
     }
+
+    @Test
+    void testFindMostActiveCookies_multipleDatesInOnePass() {
+        doAnswer(invocation -> {
+            Consumer<Cookie> consumer = invocation.getArgument(1);
+            consumer.accept(new Cookie("cookie1", Instant.parse("2024-07-05T10:00:00Z")));
+            consumer.accept(new Cookie("cookie2", Instant.parse("2024-07-06T10:00:00Z")));
+            consumer.accept(new Cookie("cookie3", Instant.parse("2024-07-06T11:00:00Z")));
+            consumer.accept(new Cookie("cookie2", Instant.parse("2024-07-06T12:00:00Z")));
+            consumer.accept(new Cookie("cookie4", Instant.parse("2024-07-07T12:00:00Z")));
+            return null;
+        }).when(parser).parseEach(eq("file.csv"), any());
+
+        var result = target.findMostActiveCookies("file.csv",
+            List.of(LocalDate.parse("2024-07-06"), LocalDate.parse("2024-07-05"), LocalDate.parse("2024-07-01")),
+            ScanMode.STREAM);
+
+        assertEquals(List.of(LocalDate.parse("2024-07-06"), LocalDate.parse("2024-07-05"), LocalDate.parse("2024-07-01")),
+            List.copyOf(result.keySet()));
+        assertEquals(List.of("cookie2"), result.get(LocalDate.parse("2024-07-06")).stream().map(Cookie::getValue).toList());
+        assertEquals(List.of("cookie1"), result.get(LocalDate.parse("2024-07-05")).stream().map(Cookie::getValue).toList());
+        assertTrue(result.get(LocalDate.parse("2024-07-01")).isEmpty());
+        verify(parser, times(1)).parseEach(any(), any());
+    }
+
+    @Test
+    void testFindMostActiveCookies_multipleDatesMappedParallel() {
+        byte[] bytes = ("cookie1,2024-07-05T10:00:00Z\n"
+            + "cookie2,2024-07-06T11:00:00Z\n"
+            + "cookie2,2024-07-06T12:00:00Z\n").getBytes(StandardCharsets.US_ASCII);
+        when(parser.scanMappedParallel(eq("file.csv"), anyInt(), any())).thenAnswer(invocation -> {
+            Supplier<MappedCookieScanner.RecordProcessor> factory = invocation.getArgument(2);
+            MappedCookieScanner.RecordProcessor first = factory.get();
+            MappedCookieScanner.RecordProcessor second = factory.get();
+            MappedCookieScanner.scanRange(MemorySegment.ofArray(bytes), 0, 29, first);
+            MappedCookieScanner.scanRange(MemorySegment.ofArray(bytes), 29, bytes.length, second);
+            return List.of(first, second);
+        });
+
+        var result = target.findMostActiveCookies("file.csv",
+            List.of(LocalDate.parse("2024-07-05"), LocalDate.parse("2024-07-06")), ScanMode.PARALLEL);
+
+        assertEquals("cookie1", result.get(LocalDate.parse("2024-07-05")).getFirst().getValue());
+        assertEquals(List.of("cookie2"), result.get(LocalDate.parse("2024-07-06")).stream().map(Cookie::getValue).toList());
+    }
+
+    @Test
+    void testFindMostActiveCookies_multipleDatesSortedScansSpan() {
+        byte[] bytes = ("cookie1,2024-07-07T10:00:00Z\n"
+            + "cookie2,2024-07-06T11:00:00Z\n"
+            + "cookie3,2024-07-05T11:00:00Z\n").getBytes(StandardCharsets.US_ASCII);
+        doAnswer(invocation -> {
+            MappedCookieScanner.RecordProcessor processor = invocation.getArgument(3);
+            MappedCookieScanner.scanRange(MemorySegment.ofArray(bytes), 0, bytes.length, processor);
+            return null;
+        }).when(parser).scanMappedSorted(eq("file.csv"), eq(LocalDate.parse("2024-07-05")), eq(LocalDate.parse("2024-07-07")), any());
+
+        var result = target.findMostActiveCookies("file.csv",
+            List.of(LocalDate.parse("2024-07-07"), LocalDate.parse("2024-07-05")), ScanMode.SORTED);
+
+        assertEquals("cookie1", result.get(LocalDate.parse("2024-07-07")).getFirst().getValue());
+        assertEquals("cookie3", result.get(LocalDate.parse("2024-07-05")).getFirst().getValue());
+        assertEquals(2, result.size());
+    }
+
+    @Test
+    void testFindMostActiveCookies_multipleDatesColumnar() {
+        doAnswer(invocation -> {
+            ColumnarCookieFile.RecordProcessor processor = invocation.getArgument(3);
+            processor.process(0, Instant.parse("2024-07-05T10:00:00Z").getEpochSecond());
+            processor.process(1, Instant.parse("2024-07-06T10:00:00Z").getEpochSecond());
+            processor.process(1, Instant.parse("2024-07-06T11:00:00Z").getEpochSecond());
+            processor.process(0, Instant.parse("2024-07-06T12:00:00Z").getEpochSecond());
+            processor.process(1, Instant.parse("2024-07-06T13:00:00Z").getEpochSecond());
+            return null;
+        }).when(parser).scanColumnar(eq("file.ccol"), eq(LocalDate.parse("2024-07-05")), eq(LocalDate.parse("2024-07-06")),
+            any(ColumnarCookieFile.RecordProcessor.class));
+        stubDictionary("cookie1", "cookie2");
+
+        var result = target.findMostActiveCookies("file.ccol",
+            List.of(LocalDate.parse("2024-07-05"), LocalDate.parse("2024-07-06")), ScanMode.STREAM);
+
+        assertEquals("cookie1", result.get(LocalDate.parse("2024-07-05")).getFirst().getValue());
+        assertEquals(List.of("cookie2"), result.get(LocalDate.parse("2024-07-06")).stream().map(Cookie::getValue).toList());
+        verify(parser).resolveColumnar("file.ccol", new int[]{0, 1});
+        verify(parser, never()).parseEach(any(), any());
+    }
+
+    @Test
+    void testFindTopCookies_columnarResolvesOnlyTopIds() {
+        doAnswer(invocation -> {
+            IntConsumer processor = invocation.getArgument(2);
+            for (int id : new int[]{0, 1, 2, 1, 3, 2, 1, 3}) {
+                processor.accept(id);
+            }
+            return null;
+        }).when(parser).scanColumnar(eq("file.ccol"), eq(LocalDate.parse("2024-07-05")), any(IntConsumer.class));
+        stubDictionary("cookie1", "cookie2", "cookie3", "cookie4");
+
+        var result = target.findTopCookies("file.ccol", List.of(LocalDate.parse("2024-07-05")), ZoneOffset.UTC,
+            ScanMode.MAPPED, 2);
+
+        assertEquals(List.of(new CookieCount("cookie2", 3), new CookieCount("cookie3", 2), new CookieCount("cookie4", 2)),
+            result.get(LocalDate.parse("2024-07-05")));
+        verify(parser).resolveColumnar("file.ccol", new int[]{1, 2, 3});
+    }
+
+    @Test
+    void testFindTopCookies_countsPerDateWithTies() {
+        doAnswer(invocation -> {
+            Consumer<Cookie> consumer = invocation.getArgument(1);
+            consumer.accept(new Cookie("cookie1", Instant.parse("2024-07-05T10:00:00Z")));
+            consumer.accept(new Cookie("cookie2", Instant.parse("2024-07-05T11:00:00Z")));
+            consumer.accept(new Cookie("cookie2", Instant.parse("2024-07-05T12:00:00Z")));
+            consumer.accept(new Cookie("cookie3", Instant.parse("2024-07-05T13:00:00Z")));
+            consumer.accept(new Cookie("cookie4", Instant.parse("2024-07-06T13:00:00Z")));
+            return null;
+        }).when(parser).parseEach(eq("file.csv"), any());
+
+        var result = target.findTopCookies("file.csv",
+            List.of(LocalDate.parse("2024-07-05"), LocalDate.parse("2024-07-07")), ZoneOffset.UTC, ScanMode.STREAM, 2);
+
+        assertEquals(List.of(new CookieCount("cookie2", 2), new CookieCount("cookie1", 1), new CookieCount("cookie3", 1)),
+            result.get(LocalDate.parse("2024-07-05")));
+        assertEquals(List.of(), result.get(LocalDate.parse("2024-07-07")));
+    }
+
+    @Test
+    void testFindTopCookies_nonPositive_throws() {
+        assertThrows(IllegalArgumentException.class,
+            () -> target.findTopCookies("file.csv", List.of(LocalDate.parse("2024-07-05")), ZoneOffset.UTC, ScanMode.STREAM, 0));
+        verifyNoInteractions(parser);
+    }
+
+    @Test
+    void testFindCookiesSpilling_exactAcrossSpilledRuns() {
+        doAnswer(invocation -> {
+            Consumer<Cookie> consumer = invocation.getArgument(1);
+            consumer.accept(new Cookie("cookie1", Instant.parse("2024-07-05T10:00:00Z")));
+            consumer.accept(new Cookie("cookie2", Instant.parse("2024-07-05T11:00:00Z")));
+            consumer.accept(new Cookie("cookie3", Instant.parse("2024-07-05T12:00:00Z")));
+            consumer.accept(new Cookie("cookie2", Instant.parse("2024-07-05T13:00:00Z")));
+            consumer.accept(new Cookie("cookie1", Instant.parse("2024-07-05T14:00:00Z")));
+            consumer.accept(new Cookie("cookie4", Instant.parse("2024-07-06T14:00:00Z")));
+            return null;
+        }).when(parser).parseEach(eq("file.csv"), any());
+        List<LocalDate> dates = List.of(LocalDate.parse("2024-07-05"), LocalDate.parse("2024-07-07"));
+
+        var mostActive = target.findMostActiveCookiesSpilling(List.of("file.csv"), dates, ZoneOffset.UTC, 2);
+        var top = target.findTopCookiesSpilling(List.of("file.csv"), dates, ZoneOffset.UTC, 2, 2);
+
+        assertEquals(List.of(new Cookie("cookie1", Instant.parse("2024-07-05T00:00:00Z")),
+            new Cookie("cookie2", Instant.parse("2024-07-05T00:00:00Z"))), mostActive.get(LocalDate.parse("2024-07-05")));
+        assertEquals(List.of(), mostActive.get(LocalDate.parse("2024-07-07")));
+        assertEquals(List.of(new CookieCount("cookie1", 2), new CookieCount("cookie2", 2)), top.get(LocalDate.parse("2024-07-05")));
+    }
+
+    @Test
+    void testFindCookiesSpilling_invalidArguments_throw() {
+        List<LocalDate> dates = List.of(LocalDate.parse("2024-07-05"));
+
+        assertThrows(IllegalArgumentException.class,
+            () -> target.findMostActiveCookiesSpilling(List.of("file.csv"), dates, ZoneOffset.UTC, 0));
+        assertThrows(IllegalArgumentException.class,
+            () -> target.findTopCookiesSpilling(List.of("file.csv"), dates, ZoneOffset.UTC, 0, 10));
+        assertThrows(IllegalArgumentException.class,
+            () -> target.findMostActiveCookiesSpilling(List.of("file.ccol"), dates, ZoneOffset.UTC, 10));
+        verifyNoInteractions(parser);
+    }
+
+    @Test
+    void testFindApproximateTopCookies_streamsFilesIntoBoundedCounters() {
+        doAnswer(invocation -> {
+            Consumer<Cookie> consumer = invocation.getArgument(1);
+            consumer.accept(new Cookie("cookie1", Instant.parse("2024-07-05T10:00:00Z")));
+            consumer.accept(new Cookie("cookie2", Instant.parse("2024-07-05T11:00:00Z")));
+            consumer.accept(new Cookie("cookie1", Instant.parse("2024-07-05T12:00:00Z")));
+            return null;
+        }).when(parser).parseEach(eq("shard-0.csv"), any());
+        doAnswer(invocation -> {
+            Consumer<Cookie> consumer = invocation.getArgument(1);
+            consumer.accept(new Cookie("cookie3", Instant.parse("2024-07-05T13:00:00Z")));
+            consumer.accept(new Cookie("cookie1", Instant.parse("2024-07-05T14:00:00Z")));
+            consumer.accept(new Cookie("cookie4", Instant.parse("2024-07-06T14:00:00Z")));
+            return null;
+        }).when(parser).parseEach(eq("shard-1.csv"), any());
+
+        var result = target.findApproximateTopCookies(List.of("shard-0.csv", "shard-1.csv"),
+            List.of(LocalDate.parse("2024-07-05"), LocalDate.parse("2024-07-07")), ZoneOffset.UTC, 1, 2);
+
+        // cookie3 replaced cookie2 in the second counter and inherited its count as error
+        assertEquals(List.of(new ApproximateCount("cookie1", 3, 0)), result.get(LocalDate.parse("2024-07-05")));
+        assertEquals(List.of(), result.get(LocalDate.parse("2024-07-07")));
+        verify(parser, never()).scanMapped(any(), any());
+    }
+
+    @Test
+    void testFindApproximateTopCookies_invalidArguments_throw() {
+        List<LocalDate> dates = List.of(LocalDate.parse("2024-07-05"));
+
+        assertThrows(IllegalArgumentException.class,
+            () -> target.findApproximateTopCookies(List.of("file.csv"), dates, ZoneOffset.UTC, 0, 10));
+        assertThrows(IllegalArgumentException.class,
+            () -> target.findApproximateTopCookies(List.of("file.csv"), dates, ZoneOffset.UTC, 1, 0));
+        assertThrows(IllegalArgumentException.class,
+            () -> target.findApproximateTopCookies(List.of("file.ccol"), dates, ZoneOffset.UTC, 1, 10));
+        verifyNoInteractions(parser);
+    }
+
+    @Test
+    void testCountCookiesByDate_countsInRequestOrder() {
+        doAnswer(invocation -> {
+            Consumer<Cookie> consumer = invocation.getArgument(1);
+            consumer.accept(new Cookie("cookie1", Instant.parse("2024-07-05T10:00:00Z")));
+            consumer.accept(new Cookie("cookie1", Instant.parse("2024-07-05T11:00:00Z")));
+            consumer.accept(new Cookie("cookie2", Instant.parse("2024-07-06T12:00:00Z")));
+            return null;
+        }).when(parser).parseEach(eq("file.csv"), any());
+
+        var result = target.countCookiesByDate("file.csv",
+            List.of(LocalDate.parse("2024-07-06"), LocalDate.parse("2024-07-05")), ZoneOffset.UTC, ScanMode.STREAM);
+
+        assertEquals(List.of(LocalDate.parse("2024-07-06"), LocalDate.parse("2024-07-05")), List.copyOf(result.keySet()));
+        assertEquals(List.of(new CookieCount("cookie2", 1)), result.get(LocalDate.parse("2024-07-06")).top(5));
+        assertEquals(List.of(new CookieCount("cookie1", 2)), result.get(LocalDate.parse("2024-07-05")).top(5));
+        verify(parser, times(1)).parseEach(eq("file.csv"), any());
+    }
+
+    @Test
+    void testFindMostActiveCookies_severalFilesMergedInFileOrder() {
+        doAnswer(invocation -> {
+            Consumer<Cookie> consumer = invocation.getArgument(1);
+            consumer.accept(new Cookie("cookie2", Instant.parse("2024-07-05T10:00:00Z")));
+            consumer.accept(new Cookie("cookie1", Instant.parse("2024-07-05T11:00:00Z")));
+            return null;
+        }).when(parser).parseEach(eq("shard-1.csv"), any());
+        doAnswer(invocation -> {
+            Consumer<Cookie> consumer = invocation.getArgument(1);
+            consumer.accept(new Cookie("cookie1", Instant.parse("2024-07-05T01:00:00Z")));
+            consumer.accept(new Cookie("cookie3", Instant.parse("2024-07-05T02:00:00Z")));
+            return null;
+        }).when(parser).parseEach(eq("shard-0.csv"), any());
+
+        var result = target.findTopCookies(List.of("shard-0.csv", "shard-1.csv"), List.of(LocalDate.parse("2024-07-05")),
+            ZoneOffset.UTC, ScanMode.STREAM, 3);
+
+        assertEquals(List.of(new CookieCount("cookie1", 2), new CookieCount("cookie3", 1), new CookieCount("cookie2", 1)),
+            result.get(LocalDate.parse("2024-07-05")));
+    }
+
+    @Test
+    void testFindMostActiveCookies_manyFilesScanBoundedNumberAtOnce() {
+        int limit = MostActiveCookieFinder.MAX_CONCURRENT_FILES;
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        doAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(5);
+            Consumer<Cookie> consumer = invocation.getArgument(1);
+            String filename = invocation.getArgument(0);
+            consumer.accept(new Cookie(filename, Instant.parse("2024-07-05T10:00:00Z")));
+            consumer.accept(new Cookie("cookie1", Instant.parse("2024-07-05T11:00:00Z")));
+            running.decrementAndGet();
+            return null;
+        }).when(parser).parseEach(any(), any());
+        List<String> filenames = new ArrayList<>();
+        for (int i = 0; i < 4 * limit + 1; i++) {
+            filenames.add("shard-" + i + ".csv");
+        }
+
+        var result = target.findTopCookies(filenames, List.of(LocalDate.parse("2024-07-05")), ZoneOffset.UTC,
+            ScanMode.STREAM, 2);
+
+        assertEquals(List.of(new CookieCount("cookie1", filenames.size()), new CookieCount("shard-0.csv", 1)),
+            result.get(LocalDate.parse("2024-07-05")).subList(0, 2));
+        assertEquals(filenames.size() + 1, result.get(LocalDate.parse("2024-07-05")).size());
+        assertTrue(maxRunning.get() <= limit, "at most " + limit + " files at a time, was " + maxRunning.get());
+    }
+
+    @Test
+    void testFindMostActiveCookies_severalFilesParallelScansEachFileMapped() {
+        target.findMostActiveCookies(List.of("shard-0.csv", "shard-1.csv"), List.of(LocalDate.parse("2024-07-05")),
+            ZoneOffset.UTC, ScanMode.PARALLEL);
+
+        verify(parser).scanMapped(eq("shard-0.csv"), any());
+        verify(parser).scanMapped(eq("shard-1.csv"), any());
+        verify(parser, never()).scanMappedParallel(any(), anyInt(), any());
+    }
+
+    @Test
+    void testFindMostActiveCookies_failingFileCancelsOtherFiles() throws InterruptedException {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                cancelled.countDown();
+            }
+            return null;
+        }).when(parser).parseEach(eq("shard-0.csv"), any());
+        doThrow(new CookieParseException("Error reading file: shard-1.csv")).when(parser).parseEach(eq("shard-1.csv"), any());
+
+        CookieParseException e = assertThrows(CookieParseException.class, () -> target.findMostActiveCookies(
+            List.of("shard-0.csv", "shard-1.csv"), List.of(LocalDate.parse("2024-07-05")), ZoneOffset.UTC, ScanMode.STREAM));
+
+        assertEquals("Error reading file: shard-1.csv", e.getMessage());
+        assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testFindMostActiveCookies_dateRangeInZone() {
+        doAnswer(invocation -> {
+            Consumer<Cookie> consumer = invocation.getArgument(1);
+            consumer.accept(new Cookie("cookie1", Instant.parse("2024-07-04T22:30:00Z")));
+            consumer.accept(new Cookie("cookie2", Instant.parse("2024-07-05T21:59:59Z")));
+            consumer.accept(new Cookie("cookie2", Instant.parse("2024-07-05T22:00:00Z")));
+            consumer.accept(new Cookie("cookie3", Instant.parse("2024-07-06T22:00:00Z")));
+            return null;
+        }).when(parser).parseEach(eq("file.csv"), any());
+        ZoneId zone = ZoneId.of("Europe/Berlin");
+
+        var result = target.findMostActiveCookies("file.csv",
+            List.of(LocalDate.parse("2024-07-05"), LocalDate.parse("2024-07-06")), zone, ScanMode.STREAM);
+
+        List<Cookie> fifth = result.get(LocalDate.parse("2024-07-05"));
+        assertEquals(List.of("cookie1", "cookie2"), fifth.stream().map(Cookie::getValue).toList());
+        assertEquals(Instant.parse("2024-07-04T22:00:00Z"), fifth.getFirst().getTimestamp());
+        assertEquals(List.of("cookie2"), result.get(LocalDate.parse("2024-07-06")).stream().map(Cookie::getValue).toList());
+    }
+
+    @Test
+    void testFindMostActiveCookies_sortedInZoneScansOverlappingUtcDays() {
+        byte[] bytes = ("cookie1,2024-07-04T23:00:00Z\n"
+            + "cookie2,2024-07-05T11:00:00Z\n").getBytes(StandardCharsets.US_ASCII);
+        doAnswer(invocation -> {
+            MappedCookieScanner.RecordProcessor processor = invocation.getArgument(3);
+            MappedCookieScanner.scanRange(MemorySegment.ofArray(bytes), 0, bytes.length, processor);
+            return null;
+        }).when(parser).scanMappedSorted(eq("file.csv"), eq(LocalDate.parse("2024-07-04")), eq(LocalDate.parse("2024-07-05")), any());
+
+        var result = target.findMostActiveCookies("file.csv", List.of(LocalDate.parse("2024-07-05")),
+            ZoneId.of("+02:00"), ScanMode.SORTED);
+
+        assertEquals(List.of("cookie1", "cookie2"),
+            result.get(LocalDate.parse("2024-07-05")).stream().map(Cookie::getValue).toList());
+    }
+
+    @Test
+    void testFindMostActiveCookies_indexedInZoneReadsOverlappingUtcDays() {
+        doAnswer(invocation -> null).when(parser).scanMappedIndexed(eq("file.csv"), any(), any());
+
+        target.findMostActiveCookies("file.csv", List.of(LocalDate.parse("2024-07-05"), LocalDate.parse("2024-07-06")),
+            ZoneId.of("-05:00"), ScanMode.INDEXED);
+
+        verify(parser).scanMappedIndexed(eq("file.csv"), eq(List.of(LocalDate.parse("2024-07-05"),
+            LocalDate.parse("2024-07-06"), LocalDate.parse("2024-07-07"))), any());
+    }
+
+    @Test
+    void testFindCookiesCheckpointed_resumeAfterInvalidLineMatchesUninterruptedScan(@TempDir Path tempDir) throws IOException {
+        String before = "cookie,timestamp\ncookie2,2024-07-05T10:00:00Z\ncookie1,2024-07-05T11:00:00Z\n";
+        String after = "cookie1,2024-07-05T12:00:00Z\ncookie2,2024-07-05T13:00:00Z\ncookie3,2024-07-06T10:00:00Z\n";
+        Path log = Files.writeString(tempDir.resolve("cookies.csv"), before + "invalid\n" + after);
+        Path checkpoint = tempDir.resolve("scan.ckpt");
+        List<LocalDate> dates = List.of(LocalDate.parse("2024-07-05"), LocalDate.parse("2024-07-06"));
+        MostActiveCookieFinder finder = new MostActiveCookieFinder(new CookieParser());
+
+        assertThrows(CookieParseException.class,
+            () -> finder.findMostActiveCookiesCheckpointed(log.toString(), dates, ZoneOffset.UTC, checkpoint, false));
+        assertTrue(Files.exists(checkpoint));
+        Files.writeString(log, before + "cookie3,2024-07-04T10:00:00Z\n" + after);
+        var resumed = finder.findMostActiveCookiesCheckpointed(log.toString(), dates, ZoneOffset.UTC, checkpoint, true);
+        var uninterrupted = finder.findMostActiveCookies(List.of(log.toString()), dates, ZoneOffset.UTC, ScanMode.STREAM);
+
+        assertEquals(uninterrupted, resumed);
+        assertEquals(List.of(new Cookie("cookie2", Instant.parse("2024-07-05T00:00:00Z")),
+            new Cookie("cookie1", Instant.parse("2024-07-05T00:00:00Z"))), resumed.get(LocalDate.parse("2024-07-05")));
+        assertFalse(Files.exists(checkpoint));
+    }
+
+    @Test
+    void testCountCookiesCheckpointed_killedScanResumesFromLastCheckpoint(@TempDir Path tempDir) throws IOException {
+        Path log = Files.writeString(tempDir.resolve("cookies.csv"), "cookie,timestamp\ncookie1,2024-07-05T10:00:00Z\n"
+            + "cookie2,2024-07-05T11:00:00Z\ncookie2,2024-07-05T12:00:00Z\ncookie1,2024-07-05T13:00:00Z\n");
+        Path checkpoint = tempDir.resolve("scan.ckpt");
+        List<LocalDate> dates = List.of(LocalDate.parse("2024-07-05"));
+        AtomicBoolean kill = new AtomicBoolean(true);
+        // Fails right after the third checkpoint, as if the process were killed mid-scan
+        CookieParser killingParser = new CookieParser() {
+            @Override
+            public long parseCheckpointed(String filename, long offset, long interval, Consumer<Cookie> consumer,
+                                          LongConsumer checkpoint) {
+                AtomicInteger written = new AtomicInteger();
+                return super.parseCheckpointed(filename, offset, interval, consumer, reached -> {
+                    checkpoint.accept(reached);
+                    if (kill.get() && written.incrementAndGet() == 3) {
+                        throw new IllegalStateException("killed");
+                    }
+                });
+            }
+        };
+        MostActiveCookieFinder finder = new MostActiveCookieFinder(killingParser);
+
+        assertThrows(IllegalStateException.class,
+            () -> finder.countCookiesCheckpointed(log.toString(), dates, ZoneOffset.UTC, checkpoint, true, 1));
+        kill.set(false);
+        DayBuckets<CookieCounter> counters =
+            finder.countCookiesCheckpointed(log.toString(), dates, ZoneOffset.UTC, checkpoint, true, 1);
+
+        assertEquals(List.of(new CookieCount("cookie1", 2), new CookieCount("cookie2", 2)),
+            counters.get(dates.getFirst()).mostActive());
+        assertFalse(Files.exists(checkpoint));
+    }
+
+    @Test
+    void testFindCookiesCheckpointed_invalidArguments_throw() {
+        List<LocalDate> dates = List.of(LocalDate.parse("2024-07-05"));
+        Path checkpoint = Path.of("scan.ckpt");
+
+        assertThrows(IllegalArgumentException.class,
+            () -> target.findTopCookiesCheckpointed("file.csv", dates, ZoneOffset.UTC, 0, checkpoint, false));
+        assertThrows(IllegalArgumentException.class,
+            () -> target.findMostActiveCookiesCheckpointed("file.csv.gz", dates, ZoneOffset.UTC, checkpoint, false));
+        assertThrows(IllegalArgumentException.class,
+            () -> target.findMostActiveCookiesCheckpointed("file.ccol", dates, ZoneOffset.UTC, checkpoint, false));
+        verifyNoInteractions(parser);
+    }
+
+    /**
+     * Resolves the dictionary IDs of {@code file.ccol} to the given values.
+     */
+    private void stubDictionary(String... values) {
+        when(parser.resolveColumnar(eq("file.ccol"), any())).thenAnswer(invocation ->
+            Arrays.stream((int[]) invocation.getArgument(1)).mapToObj(id -> values[id]).toList());
+    }
 }
@@ -0,0 +1,59 @@
+package org.ibrahim.business;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderedScanCutoffTest {
+    @Test
+    void testHasPassed_descendingLeavesTargetBlock() {
+        OrderedScanCutoff cutoff = new OrderedScanCutoff(10);
+        assertFalse(cutoff.hasPassed(12));
+        assertFalse(cutoff.hasPassed(11));
+        assertFalse(cutoff.hasPassed(10));
+        assertFalse(cutoff.hasPassed(10));
+        assertTrue(cutoff.hasPassed(9));
+    }
+
+    @Test
+    void testHasPassed_ascendingSkipsMissingTarget() {
+        OrderedScanCutoff cutoff = new OrderedScanCutoff(10);
+        assertFalse(cutoff.hasPassed(8));
+        assertFalse(cutoff.hasPassed(9));
+        assertTrue(cutoff.hasPassed(11));
+    }
+
+    @Test
+    void testHasPassed_descendingSkipsMissingTarget() {
+        OrderedScanCutoff cutoff = new OrderedScanCutoff(10);
+        assertFalse(cutoff.hasPassed(11));
+        assertFalse(cutoff.hasPassed(11));
+        assertTrue(cutoff.hasPassed(9));
+    }
+
+    @Test
+    void testHasPassed_unknownDirectionKeepsReading() {
+        OrderedScanCutoff cutoff = new OrderedScanCutoff(10);
+        assertFalse(cutoff.hasPassed(5));
+        assertFalse(cutoff.hasPassed(5));
+    }
+
+    @Test
+    void testHasPassed_rangeDescending() {
+        OrderedScanCutoff cutoff = new OrderedScanCutoff(8, 10);
+        assertFalse(cutoff.hasPassed(12));
+        assertFalse(cutoff.hasPassed(10));
+        assertFalse(cutoff.hasPassed(9));
+        assertFalse(cutoff.hasPassed(8));
+        assertTrue(cutoff.hasPassed(7));
+    }
+
+    @Test
+    void testHasPassed_rangeAscendingSkipsMissingDays() {
+        OrderedScanCutoff cutoff = new OrderedScanCutoff(8, 10);
+        assertFalse(cutoff.hasPassed(5));
+        assertFalse(cutoff.hasPassed(6));
+        assertTrue(cutoff.hasPassed(11));
+    }
+}
@@ -0,0 +1,76 @@
+package org.ibrahim.business;
+
+import org.ibrahim.model.ApproximateCount;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceSavingCounterTest {
+
+    @Test
+    void testTop_belowCapacityCountsExactly() {
+        SpaceSavingCounter counter = new SpaceSavingCounter(10);
+        for (String value : List.of("b", "a", "c", "a", "b", "a")) {
+            counter.increment(value);
+        }
+
+        assertEquals(6, counter.total());
+        assertEquals(0, counter.maxUnmonitoredCount());
+        assertEquals(List.of(new ApproximateCount("a", 3, 0), new ApproximateCount("b", 2, 0)), counter.top(2));
+        assertEquals(List.of(new ApproximateCount("a", 3, 0)), counter.top(1));
+    }
+
+    @Test
+    void testTop_includesTiesWithLast() {
+        SpaceSavingCounter counter = new SpaceSavingCounter(10);
+        for (String value : List.of("a", "b", "c", "a", "b")) {
+            counter.increment(value);
+        }
+
+        assertEquals(List.of(new ApproximateCount("a", 2, 0), new ApproximateCount("b", 2, 0)), counter.top(1));
+    }
+
+    @Test
+    void testIncrement_fullCounterReplacesLeastFrequent() {
+        SpaceSavingCounter counter = new SpaceSavingCounter(2);
+        for (String value : List.of("a", "a", "b", "c")) {
+            counter.increment(value);
+        }
+
+        assertEquals(List.of(new ApproximateCount("a", 2, 0), new ApproximateCount("c", 2, 1)), counter.top(2));
+        assertEquals(2, counter.maxUnmonitoredCount());
+    }
+
+    @Test
+    void testIncrement_boundsHoldAndHeavyHittersAreKept() {
+        Random random = new Random(42);
+        SpaceSavingCounter counter = new SpaceSavingCounter(100);
+        Map<String, Integer> exact = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            // Three heavy hitters make up 30% of the stream, the rest is spread over 50,000 values
+            String value = random.nextInt(10) < 3 ? "heavy" + random.nextInt(3) : "light" + random.nextInt(50_000);
+            counter.increment(value);
+            exact.merge(value, 1, Integer::sum);
+        }
+
+        List<ApproximateCount> top = counter.top(3);
+        assertEquals(List.of("heavy0", "heavy1", "heavy2"), top.stream().map(ApproximateCount::getValue).sorted().toList());
+        for (ApproximateCount count : counter.top(100)) {
+            int trueCount = exact.get(count.getValue());
+            assertTrue(count.getCount() >= trueCount, count.toString());
+            assertTrue(count.getCount() - count.getError() <= trueCount, count.toString());
+        }
+        assertTrue(counter.maxUnmonitoredCount() <= counter.total() / 100);
+    }
+
+    @Test
+    void testConstructor_nonPositiveCapacity_throws() {
+        assertThrows(IllegalArgumentException.class, () -> new SpaceSavingCounter(0));
+        assertThrows(IllegalArgumentException.class, () -> new SpaceSavingCounter(1).top(0));
+    }
+}
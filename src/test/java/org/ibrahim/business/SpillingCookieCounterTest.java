@@ -0,0 +1,135 @@
+package org.ibrahim.business;
+
+import org.ibrahim.model.CookieCount;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpillingCookieCounterTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testMostActive_withinBudgetDoesNotSpill() throws IOException {
+        try (SpillingCookieCounter counter = new SpillingCookieCounter(10, tempDir)) {
+            for (String value : List.of("b", "a", "b", "a", "c")) {
+                counter.increment(value);
+            }
+
+            assertEquals(List.of(new CookieCount("b", 2), new CookieCount("a", 2)), counter.mostActive());
+            assertEquals(0, counter.runs());
+        }
+        try (var files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testMostActiveAndTop_spilledMatchInMemoryCounts() {
+        Random random = new Random(7);
+        CookieCounter expected = new CookieCounter();
+        try (SpillingCookieCounter counter = new SpillingCookieCounter(500, tempDir)) {
+            for (int i = 0; i < 50_000; i++) {
+                String value = "cookie" + random.nextInt(5_000);
+                expected.increment(value);
+                counter.increment(value);
+            }
+
+            assertTrue(counter.runs() > 1);
+            assertEquals(expected.top(20), counter.top(20));
+            assertEquals(expected.mostActive(), counter.mostActive());
+        }
+    }
+
+    @Test
+    void testMostActive_oversizedPartitionsAreSplit() {
+        Random random = new Random(11);
+        CookieCounter expected = new CookieCounter();
+        // 64 partitions of about 300 values each exceed a budget of 8, so every partition is split further
+        try (SpillingCookieCounter counter = new SpillingCookieCounter(8, tempDir)) {
+            for (int i = 0; i < 40_000; i++) {
+                String value = Integer.toString(random.nextInt(20_000), 36);
+                expected.increment(value);
+                counter.increment(value);
+            }
+
+            assertEquals(expected.mostActive(), counter.mostActive());
+        }
+    }
+
+    @Test
+    void testGroups_shareBudgetAndPartitions() throws IOException {
+        Random random = new Random(3);
+        CookieCounter[] expected = {new CookieCounter(), new CookieCounter(), new CookieCounter()};
+        try (SpillingCookieCounter counter = new SpillingCookieCounter(300, tempDir)) {
+            SpillingCookieCounter.Group[] groups = {counter.newGroup(), counter.newGroup(), counter.newGroup()};
+            for (int i = 0; i < 30_000; i++) {
+                int group = random.nextInt(groups.length);
+                // The same values recur in every group but are counted apart
+                String value = "cookie" + random.nextInt(2_000);
+                expected[group].increment(value);
+                groups[group].increment(value);
+            }
+            SpillingCookieCounter.Group empty = counter.newGroup();
+
+            assertTrue(counter.runs() > 1);
+            try (var directories = Files.list(tempDir)) {
+                assertEquals(1, directories.count());
+            }
+            for (int group = 0; group < groups.length; group++) {
+                assertEquals(expected[group].top(10), groups[group].top(10));
+                assertEquals(expected[group].mostActive(), groups[group].mostActive());
+            }
+            assertEquals(List.of(), empty.top(10));
+            assertEquals(List.of(), counter.mostActive());
+        }
+    }
+
+    @Test
+    void testGroups_budgetCoversAllGroups() {
+        try (SpillingCookieCounter counter = new SpillingCookieCounter(4, tempDir)) {
+            SpillingCookieCounter.Group first = counter.newGroup();
+            SpillingCookieCounter.Group second = counter.newGroup();
+            first.increment("a");
+            first.increment("b");
+            second.increment("a");
+            assertEquals(0, counter.runs());
+
+            second.increment("c");
+
+            assertEquals(1, counter.runs());
+            first.increment("a");
+            assertEquals(List.of(new CookieCount("a", 2)), first.mostActive());
+            assertEquals(List.of(new CookieCount("a", 1), new CookieCount("c", 1)), second.mostActive());
+        }
+    }
+
+    @Test
+    void testClose_deletesSpilledRuns() throws IOException {
+        SpillingCookieCounter counter = new SpillingCookieCounter(1, tempDir);
+        counter.increment("a");
+        counter.increment("b");
+        try (var files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+
+        counter.close();
+
+        try (var files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+        assertThrows(IllegalStateException.class, () -> counter.increment("c"));
+    }
+
+    @Test
+    void testConstructor_nonPositiveBudget_throws() {
+        assertThrows(IllegalArgumentException.class, () -> new SpillingCookieCounter(0, tempDir));
+    }
+}
@@ -17,13 +17,17 @@ class CommandLineOptionsFactoryTest {
         assertNotNull(dateOption, "Date option should be present");
         assertNotNull(helpOption, "Help option should be present");
         assertTrue(fileOption.isRequired(), "File option should be required");
-        assertTrue(dateOption.isRequired(), "Date option should be required");
+        assertFalse(dateOption.isRequired(), "Date option should not be required, a date range may be given instead");
         assertFalse(helpOption.isRequired(), "Help option should not be required");
         assertTrue(fileOption.hasArg(), "File option should have an argument");
         assertTrue(dateOption.hasArg(), "Date option should have an argument");
         assertEquals("file", fileOption.getLongOpt());
         assertEquals("date", dateOption.getLongOpt());
         assertEquals("help", helpOption.getLongOpt());
+        assertFalse(options.getOption("t").isRequired(), "Top option should not be required");
+        assertNotNull(options.getOption("from"), "From option should be present");
+        assertNotNull(options.getOption("to"), "To option should be present");
+        assertEquals("zone", options.getOption("z").getLongOpt());
     }
 
     @Test
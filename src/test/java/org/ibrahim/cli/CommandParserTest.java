@@ -1,19 +1,36 @@
 package org.ibrahim.cli;
 
 import org.ibrahim.exception.CookieArgumentException;
+import org.ibrahim.model.CompileArgs;
+import org.ibrahim.io.ResultCache;
 import org.ibrahim.model.FilterArgs;
+import org.ibrahim.model.ScanMode;
+import org.ibrahim.model.ServeArgs;
+import org.ibrahim.model.StatsFormat;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 public class CommandParserTest {
     HelpPrinter helpPrinter = mock(HelpPrinter.class);
     CommandParser target = new CommandParser(helpPrinter);
 
+    @TempDir
+    Path tempDir;
+
     @Test
     void testParseArgsValid() {
         String[] args = {"-f", "cookie_log.csv", "-d", "2025-07-06"};
@@ -23,10 +40,284 @@ public class CommandParserTest {
         assertTrue(result.isPresent());
         FilterArgs filterArgs = result.get();
         assertEquals("cookie_log.csv", filterArgs.getFilename());
-        assertEquals("2025-07-06", filterArgs.getDate().toString());
+        assertEquals(List.of(LocalDate.parse("2025-07-06")), filterArgs.getDates());
+        assertEquals(ScanMode.STREAM, filterArgs.getMode());
         verify(helpPrinter, never()).printHelp(any());
     }
 
+    @Test
+    void testParseArgsMultipleDates() {
+        String[] args = {"-f", "cookie_log.csv", "-d", "2025-07-06,2025-07-08", "-d", "2025-07-07"};
+
+        Optional<FilterArgs> result = target.parseArgs(args);
+
+        assertTrue(result.isPresent());
+        assertEquals(List.of(LocalDate.parse("2025-07-06"), LocalDate.parse("2025-07-08"), LocalDate.parse("2025-07-07")),
+            result.get().getDates());
+    }
+
+    @Test
+    void testParseArgsDateListFile() throws IOException {
+        Path listFile = tempDir.resolve("dates.txt");
+        Files.writeString(listFile, "# dates to report\n2025-07-06\n\n 2025-07-07\n");
+        String[] args = {"-f", "cookie_log.csv", "-d", "@" + listFile, "-d", "2025-07-08"};
+
+        Optional<FilterArgs> result = target.parseArgs(args);
+
+        assertTrue(result.isPresent());
+        assertEquals(List.of(LocalDate.parse("2025-07-06"), LocalDate.parse("2025-07-07"), LocalDate.parse("2025-07-08")),
+            result.get().getDates());
+    }
+
+    @Test
+    void testParseArgsMissingDateListFile() {
+        String[] args = {"-f", "cookie_log.csv", "-d", "@" + tempDir.resolve("missing.txt")};
+
+        Exception exception = assertThrows(CookieArgumentException.class, () -> target.parseArgs(args));
+        assertTrue(exception.getMessage().startsWith("Cannot read date list file"));
+    }
+
+    @Test
+    void testParseArgsInvalidDateInList() {
+        String[] args = {"-f", "cookie_log.csv", "-d", "2025-07-06,July 7th"};
+
+        assertThrows(CookieArgumentException.class, () -> target.parseArgs(args));
+    }
+
+    @Test
+    void testParseArgsDateRangeAndZone() {
+        String[] args = {"-f", "cookie_log.csv", "--from", "2025-06-29", "--to", "2025-07-01", "--zone", "Europe/Berlin"};
+
+        Optional<FilterArgs> result = target.parseArgs(args);
+
+        assertTrue(result.isPresent());
+        assertEquals(List.of(LocalDate.parse("2025-06-29"), LocalDate.parse("2025-06-30"), LocalDate.parse("2025-07-01")),
+            result.get().getDates());
+        assertEquals(ZoneId.of("Europe/Berlin"), result.get().getZone());
+    }
+
+    @Test
+    void testParseArgsDefaultZoneIsUtc() {
+        String[] args = {"-f", "cookie_log.csv", "-d", "2025-07-06"};
+
+        assertEquals(ZoneOffset.UTC, target.parseArgs(args).orElseThrow().getZone());
+    }
+
+    @Test
+    void testParseArgsHalfOpenRange() {
+        String[] args = {"-f", "cookie_log.csv", "--from", "2025-06-29"};
+
+        assertThrows(CookieArgumentException.class, () -> target.parseArgs(args));
+    }
+
+    @Test
+    void testParseArgsNoDate() {
+        String[] args = {"-f", "cookie_log.csv"};
+
+        assertThrows(CookieArgumentException.class, () -> target.parseArgs(args));
+    }
+
+    @Test
+    void testParseArgsInvalidZone() {
+        String[] args = {"-f", "cookie_log.csv", "-d", "2025-07-06", "-z", "Mars/Olympus"};
+
+        Exception exception = assertThrows(CookieArgumentException.class, () -> target.parseArgs(args));
+        assertEquals("Invalid time zone: Mars/Olympus", exception.getMessage());
+    }
+
+    @Test
+    void testParseArgsWithTop() {
+        String[] args = {"-f", "cookie_log.csv", "-d", "2025-07-06", "--top", "5"};
+
+        Optional<FilterArgs> result = target.parseArgs(args);
+
+        assertTrue(result.isPresent());
+        assertEquals(5, result.get().getTop());
+    }
+
+    @Test
+    void testParseArgsWithFollow() {
+        assertTrue(target.parseArgs(new String[]{"-f", "cookie_log.csv", "-d", "2025-07-06", "--follow"}).orElseThrow().isFollow());
+        assertFalse(target.parseArgs(new String[]{"-f", "cookie_log.csv", "-d", "2025-07-06"}).orElseThrow().isFollow());
+    }
+
+    @Test
+    void testParseArgsWithSeveralFiles(@TempDir Path tempDir) throws IOException {
+        Files.createFile(tempDir.resolve("shard-01.csv"));
+        Files.createFile(tempDir.resolve("shard-00.csv"));
+        Files.createFile(tempDir.resolve("other.csv"));
+        String[] args = {"-f", tempDir.resolve("shard-*.csv").toString(), "-f", tempDir.resolve("shard-00.csv").toString(),
+            "-f", "cookie_log.csv", "-d", "2025-07-06"};
+
+        Optional<FilterArgs> result = target.parseArgs(args);
+
+        assertTrue(result.isPresent());
+        assertEquals(List.of(tempDir.resolve("shard-00.csv").toString(), tempDir.resolve("shard-01.csv").toString(),
+            "cookie_log.csv"), result.get().getFiles());
+    }
+
+    @Test
+    void testParseArgsFilePatternWithoutMatches_throws(@TempDir Path tempDir) {
+        String[] args = {"-f", tempDir.resolve("*.csv").toString(), "-d", "2025-07-06"};
+
+        CookieArgumentException e = assertThrows(CookieArgumentException.class, () -> target.parseArgs(args));
+        assertEquals("No log files found: " + tempDir.resolve("*.csv"), e.getMessage());
+    }
+
+    @Test
+    void testParseArgsFollowSeveralFiles_throws() {
+        String[] args = {"-f", "a.csv", "-f", "b.csv", "-d", "2025-07-06", "--follow"};
+
+        CookieArgumentException e = assertThrows(CookieArgumentException.class, () -> target.parseArgs(args));
+        assertEquals("--follow requires a single file", e.getMessage());
+    }
+
+    @Test
+    void testParseArgsStandardInput() {
+        String[] args = {"-f", "-", "-d", "2025-07-06", "-m", "parallel"};
+
+        assertEquals(List.of("-"), target.parseArgs(args).orElseThrow().getFiles());
+    }
+
+    @Test
+    void testParseArgsFollowStandardInput_throws() {
+        String[] args = {"-f", "-", "-d", "2025-07-06", "--follow"};
+
+        CookieArgumentException e = assertThrows(CookieArgumentException.class, () -> target.parseArgs(args));
+        assertEquals("--follow cannot read standard input", e.getMessage());
+    }
+
+    @Test
+    void testParseArgsWithStats() {
+        String[] text = {"-f", "cookie_log.csv", "--stats", "-d", "2025-07-06"};
+        String[] json = {"-f", "cookie_log.csv", "-d", "2025-07-06", "--stats", "json"};
+
+        assertEquals(StatsFormat.TEXT, target.parseArgs(text).orElseThrow().getStats());
+        assertEquals(StatsFormat.JSON, target.parseArgs(json).orElseThrow().getStats());
+        assertNull(target.parseArgs(new String[]{"-f", "cookie_log.csv", "-d", "2025-07-06"}).orElseThrow().getStats());
+    }
+
+    @Test
+    void testParseArgsStatsWithFollow_throws() {
+        String[] args = {"-f", "cookie_log.csv", "-d", "2025-07-06", "--stats", "--follow"};
+
+        CookieArgumentException e = assertThrows(CookieArgumentException.class, () -> target.parseArgs(args));
+        assertEquals("--stats cannot be combined with --follow", e.getMessage());
+    }
+
+    @Test
+    void testParseArgsWithApprox() {
+        String[] args = {"-f", "cookie_log.csv", "-d", "2025-07-06", "--approx", "5000"};
+
+        assertEquals(5000, target.parseArgs(args).orElseThrow().getApprox());
+        assertNull(target.parseArgs(new String[]{"-f", "cookie_log.csv", "-d", "2025-07-06"}).orElseThrow().getApprox());
+    }
+
+    @Test
+    void testParseArgsApproxWithFollowOrColumnarFile_throws() {
+        String[] follow = {"-f", "cookie_log.csv", "-d", "2025-07-06", "--approx", "5000", "--follow"};
+        String[] columnar = {"-f", "cookie_log.ccol", "-d", "2025-07-06", "--approx", "5000"};
+
+        assertEquals("--approx cannot be combined with --follow",
+            assertThrows(CookieArgumentException.class, () -> target.parseArgs(follow)).getMessage());
+        assertEquals("--approx reads CSV files only",
+            assertThrows(CookieArgumentException.class, () -> target.parseArgs(columnar)).getMessage());
+    }
+
+    @Test
+    void testParseArgsWithSpill() {
+        String[] args = {"-f", "cookie_log.csv", "-d", "2025-07-06", "--spill", "1000000"};
+
+        assertEquals(1000000, target.parseArgs(args).orElseThrow().getSpill());
+    }
+
+    @Test
+    void testParseArgsSpillWithApproxOrColumnarFile_throws() {
+        String[] approx = {"-f", "cookie_log.csv", "-d", "2025-07-06", "--spill", "100", "--approx", "100"};
+        String[] columnar = {"-f", "cookie_log.ccol", "-d", "2025-07-06", "--spill", "100"};
+
+        assertEquals("--spill cannot be combined with --follow or --approx",
+            assertThrows(CookieArgumentException.class, () -> target.parseArgs(approx)).getMessage());
+        assertEquals("--spill reads CSV files only",
+            assertThrows(CookieArgumentException.class, () -> target.parseArgs(columnar)).getMessage());
+    }
+
+    @Test
+    void testParseArgsWithCheckpointAndResume() {
+        String[] args = {"-f", "cookie_log.csv", "-d", "2025-07-06", "--checkpoint", "scan.ckpt", "--resume"};
+
+        FilterArgs filterArgs = target.parseArgs(args).orElseThrow();
+
+        assertEquals("scan.ckpt", filterArgs.getCheckpoint());
+        assertTrue(filterArgs.isResume());
+    }
+
+    @Test
+    void testParseArgsInvalidCheckpoint_throws() {
+        String[] resume = {"-f", "cookie_log.csv", "-d", "2025-07-06", "--resume"};
+        String[] spill = {"-f", "cookie_log.csv", "-d", "2025-07-06", "--checkpoint", "scan.ckpt", "--spill", "100"};
+        String[] files = {"-f", "a.csv", "-f", "b.csv", "-d", "2025-07-06", "--checkpoint", "scan.ckpt"};
+        String[] compressed = {"-f", "cookie_log.csv.gz", "-d", "2025-07-06", "--checkpoint", "scan.ckpt"};
+
+        assertEquals("--resume requires --checkpoint",
+            assertThrows(CookieArgumentException.class, () -> target.parseArgs(resume)).getMessage());
+        assertEquals("--checkpoint cannot be combined with --follow, --approx or --spill",
+            assertThrows(CookieArgumentException.class, () -> target.parseArgs(spill)).getMessage());
+        assertEquals("--checkpoint requires a single file",
+            assertThrows(CookieArgumentException.class, () -> target.parseArgs(files)).getMessage());
+        assertEquals("--checkpoint reads uncompressed CSV files only",
+            assertThrows(CookieArgumentException.class, () -> target.parseArgs(compressed)).getMessage());
+    }
+
+    @Test
+    void testParseArgsWithCache() {
+        String[] defaultDirectory = {"-f", "cookie_log.csv", "-d", "2025-07-06", "--cache"};
+        String[] directory = {"-f", "cookie_log.csv", "-d", "2025-07-06", "--cache", "results", "--cache-fingerprint"};
+
+        assertEquals(ResultCache.DEFAULT_DIRECTORY.toString(), target.parseArgs(defaultDirectory).orElseThrow().getCache());
+        FilterArgs filterArgs = target.parseArgs(directory).orElseThrow();
+        assertEquals("results", filterArgs.getCache());
+        assertTrue(filterArgs.isCacheFingerprint());
+    }
+
+    @Test
+    void testParseArgsInvalidCache_throws() {
+        String[] approx = {"-f", "cookie_log.csv", "-d", "2025-07-06", "--cache", "results", "--approx", "100"};
+        String[] standardInput = {"-f", "-", "-d", "2025-07-06", "--cache", "results"};
+        String[] fingerprint = {"-f", "cookie_log.csv", "-d", "2025-07-06", "--cache-fingerprint"};
+
+        assertEquals("--cache cannot be combined with --follow or --approx",
+            assertThrows(CookieArgumentException.class, () -> target.parseArgs(approx)).getMessage());
+        assertEquals("--cache cannot read standard input",
+            assertThrows(CookieArgumentException.class, () -> target.parseArgs(standardInput)).getMessage());
+        assertEquals("--cache-fingerprint requires --cache",
+            assertThrows(CookieArgumentException.class, () -> target.parseArgs(fingerprint)).getMessage());
+    }
+
+    @Test
+    void testParseArgsInvalidTop() {
+        String[] args = {"-f", "cookie_log.csv", "-d", "2025-07-06", "-t", "-1"};
+
+        assertThrows(CookieArgumentException.class, () -> target.parseArgs(args));
+    }
+
+    @Test
+    void testParseArgsWithMode() {
+        String[] args = {"-f", "cookie_log.csv", "-d", "2025-07-06", "-m", "mapped"};
+
+        Optional<FilterArgs> result = target.parseArgs(args);
+
+        assertTrue(result.isPresent());
+        assertEquals(ScanMode.MAPPED, result.get().getMode());
+    }
+
+    @Test
+    void testParseArgsInvalidMode() {
+        String[] args = {"-f", "cookie_log.csv", "-d", "2025-07-06", "-m", "warp"};
+
+        assertThrows(CookieArgumentException.class, () -> target.parseArgs(args));
+    }
+
     @Test
     void testParseArgsHelp() {
         String[] args = {"--help"};
@@ -44,5 +335,93 @@ public class CommandParserTest {
         assertThrows(CookieArgumentException.class, () -> target.parseArgs(args));
         verify(helpPrinter, atLeastOnce()).printHelp(any());
     }
-}
 
+    @Test
+    void testIsCompileCommand() {
+        assertTrue(target.isCompileCommand(new String[]{"compile", "-f", "cookie_log.csv"}));
+        assertFalse(target.isCompileCommand(new String[]{"-f", "cookie_log.csv", "-d", "2025-07-06"}));
+        assertFalse(target.isCompileCommand(new String[0]));
+    }
+
+    @Test
+    void testParseCompileArgs_defaultOutput() {
+        String[] args = {"compile", "-f", "logs/cookie_log.csv"};
+
+        Optional<CompileArgs> result = target.parseCompileArgs(args);
+
+        assertTrue(result.isPresent());
+        assertEquals("logs/cookie_log.csv", result.get().getInput());
+        assertEquals("logs/cookie_log.ccol", result.get().getOutput());
+    }
+
+    @Test
+    void testParseCompileArgs_withOutput() {
+        String[] args = {"compile", "-f", "cookie_log.csv", "-o", "history.ccol"};
+
+        Optional<CompileArgs> result = target.parseCompileArgs(args);
+
+        assertTrue(result.isPresent());
+        assertEquals("history.ccol", result.get().getOutput());
+    }
+
+    @Test
+    void testParseCompileArgs_help() {
+        Optional<CompileArgs> result = target.parseCompileArgs(new String[]{"compile", "--help"});
+
+        assertTrue(result.isEmpty());
+        verify(helpPrinter).printHelp(anyString(), any());
+    }
+
+    @Test
+    void testParseCompileArgs_missingFile_throws() {
+        assertThrows(CookieArgumentException.class, () -> target.parseCompileArgs(new String[]{"compile"}));
+        verify(helpPrinter).printHelp(anyString(), any());
+    }
+
+    @Test
+    void testIsServeCommand() {
+        assertTrue(target.isServeCommand(new String[]{"serve"}));
+        assertFalse(target.isServeCommand(new String[]{"-f", "serve", "-d", "2025-07-06"}));
+        assertFalse(target.isServeCommand(new String[0]));
+    }
+
+    @Test
+    void testParseServeArgs_defaults() {
+        Optional<ServeArgs> result = target.parseServeArgs(new String[]{"serve"});
+
+        assertTrue(result.isPresent());
+        assertEquals("127.0.0.1", result.get().getHost());
+        assertEquals(8080, result.get().getPort());
+        assertEquals(1024, result.get().getCacheDays());
+        assertEquals(".", result.get().getRoot());
+    }
+
+    @Test
+    void testParseServeArgs_withOptions() {
+        String[] args = {"serve", "--host", "0.0.0.0", "-p", "9090", "--cache-days", "64", "-r", "logs"};
+
+        Optional<ServeArgs> result = target.parseServeArgs(args);
+
+        assertTrue(result.isPresent());
+        assertEquals("0.0.0.0", result.get().getHost());
+        assertEquals(9090, result.get().getPort());
+        assertEquals(64, result.get().getCacheDays());
+        assertEquals("logs", result.get().getRoot());
+    }
+
+    @Test
+    void testParseServeArgs_help() {
+        Optional<ServeArgs> result = target.parseServeArgs(new String[]{"serve", "-?"});
+
+        assertTrue(result.isEmpty());
+        verify(helpPrinter).printHelp(anyString(), any());
+    }
+
+    @Test
+    void testParseServeArgs_invalidPort_throws() {
+        CookieArgumentException e = assertThrows(CookieArgumentException.class,
+            () -> target.parseServeArgs(new String[]{"serve", "-p", "70000"}));
+        assertEquals("Invalid port. Expected an integer between 0 and 65535", e.getMessage());
+        verify(helpPrinter).printHelp(anyString(), any());
+    }
+}
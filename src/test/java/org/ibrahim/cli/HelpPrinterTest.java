@@ -17,7 +17,16 @@ class HelpPrinterTest {
 
         target.printHelp(options);
 
-        verify(helpFormatter, times(1)).printHelp("cookie-cutter -d DATE -f FILENAME", options);
+        verify(helpFormatter, times(1)).printHelp("cookie-cutter -f FILENAME (-d DATE | --from DATE --to DATE)", options);
+    }
+
+    @Test
+    void printHelpWithSyntaxDoesPrint() {
+        Options options = CommandLineOptionsFactory.createCompileOptions();
+
+        target.printHelp("cookie-cutter compile -f FILENAME", options);
+
+        verify(helpFormatter, times(1)).printHelp("cookie-cutter compile -f FILENAME", options);
     }
 }
 
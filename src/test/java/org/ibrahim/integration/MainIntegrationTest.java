@@ -2,10 +2,16 @@ package org.ibrahim.integration;
 
 import org.ibrahim.Main;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class MainIntegrationTest {
@@ -25,6 +31,198 @@ public class MainIntegrationTest {
         assertTrue(output.contains("def"));
     }
 
+    @Test
+    void testMain_withMappedMode_printsMostActiveCookies() {
+        String[] args = {"-f", "src/test/resources/test_cookies.csv", "-d", "2025-07-07", "-m", "mapped"};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(out));
+        try {
+            Main.main(args);
+        } finally {
+            System.setOut(originalOut);
+        }
+        String output = out.toString();
+        assertTrue(output.contains("abc"));
+        assertTrue(output.contains("def"));
+    }
+
+    @Test
+    void testMain_withGzipFile_printsMostActiveCookies() {
+        String[] args = {"-f", "src/test/resources/test_cookies.csv.gz", "-d", "2025-07-07", "-m", "mapped"};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(out));
+        try {
+            Main.main(args);
+        } finally {
+            System.setOut(originalOut);
+        }
+        String output = out.toString();
+        assertTrue(output.contains("abc"));
+        assertTrue(output.contains("def"));
+    }
+
+    @Test
+    void testMain_withParallelMode_printsMostActiveCookies() {
+        String[] args = {"-f", "src/test/resources/test_cookies.csv", "-d", "2025-07-07", "-m", "parallel"};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(out));
+        try {
+            Main.main(args);
+        } finally {
+            System.setOut(originalOut);
+        }
+        String output = out.toString();
+        assertTrue(output.contains("abc"));
+        assertTrue(output.contains("def"));
+    }
+
+    @Test
+    void testMain_withMultipleDates_printsSectionPerDate() {
+        String[] args = {"-f", "src/test/resources/test_cookies.csv", "-d", "2025-07-08,2025-07-07,2025-07-09", "-m", "sorted"};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(out));
+        try {
+            Main.main(args);
+        } finally {
+            System.setOut(originalOut);
+        }
+        String output = out.toString();
+        assertTrue(output.indexOf("Most active cookies on 2025-07-08:") < output.indexOf("Most active cookies on 2025-07-07:"));
+        assertTrue(output.contains("1. ghi"));
+        assertTrue(output.contains("2. def"));
+        assertTrue(output.contains("No cookies found on 2025-07-09."));
+    }
+
+    @Test
+    void testMain_withTop_printsCounts() {
+        String[] args = {"-f", "src/test/resources/test_cookies.csv", "-d", "2025-07-07", "--top", "1"};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(out));
+        try {
+            Main.main(args);
+        } finally {
+            System.setOut(originalOut);
+        }
+        String output = out.toString();
+        assertTrue(output.contains("1. abc (1)"));
+        assertTrue(output.contains("2. def (1)"));
+    }
+
+    @Test
+    void testMain_withDateRangeInZone_printsSectionPerDay() {
+        String[] args = {"-f", "src/test/resources/test_cookies.csv", "--from", "2025-07-07", "--to", "2025-07-08",
+            "--zone", "-10:30", "-m", "parallel"};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(out));
+        try {
+            Main.main(args);
+        } finally {
+            System.setOut(originalOut);
+        }
+        String output = out.toString().replace(System.lineSeparator(), "\n");
+        // At -10:30, abc (10:00Z) is still on July 6 while def (11:00Z) is on July 7
+        assertTrue(output.contains("Most active cookies on 2025-07-07:\n1. def\n"));
+        assertTrue(output.contains("Most active cookies on 2025-07-08:\n1. ghi\n"));
+    }
+
+    @Test
+    void testMain_withSortedMode_printsSingleCookie() {
+        String[] args = {"-f", "src/test/resources/test_cookies.csv", "-d", "2025-07-08", "-m", "sorted"};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(out));
+        try {
+            Main.main(args);
+        } finally {
+            System.setOut(originalOut);
+        }
+        String output = out.toString();
+        assertTrue(output.contains("ghi"));
+        assertFalse(output.contains("abc"));
+    }
+
+    @Test
+    void testMain_withOrderedMode_printsMostActiveCookies() {
+        String[] args = {"-f", "src/test/resources/test_cookies.csv", "-d", "2025-07-07", "-m", "ordered"};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(out));
+        try {
+            Main.main(args);
+        } finally {
+            System.setOut(originalOut);
+        }
+        String output = out.toString();
+        assertTrue(output.contains("abc"));
+        assertTrue(output.contains("def"));
+        assertFalse(output.contains("ghi"));
+    }
+
+    @Test
+    void testMain_withIndexedMode_writesIndexAndReusesIt(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("cookies.csv");
+        Files.copy(Path.of("src/test/resources/test_cookies.csv"), file);
+        String[] args = {"-f", file.toString(), "-d", "2025-07-07", "-m", "indexed"};
+        for (int run = 0; run < 2; run++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            PrintStream originalOut = System.out;
+            System.setOut(new PrintStream(out));
+            try {
+                Main.main(args);
+            } finally {
+                System.setOut(originalOut);
+            }
+            String output = out.toString();
+            assertTrue(output.contains("abc"));
+            assertTrue(output.contains("def"));
+            assertFalse(output.contains("ghi"));
+            assertTrue(Files.exists(tempDir.resolve("cookies.csv.idx")));
+        }
+    }
+
+    @Test
+    void testMain_withDirectoryOfShards_mergesCounts(@TempDir Path tempDir) throws IOException {
+        Files.writeString(tempDir.resolve("cookies-00.csv"), "cookie,timestamp\nabc,2025-07-07T00:10:00+00:00\n");
+        Files.writeString(tempDir.resolve("cookies-01.csv"), "cookie,timestamp\ndef,2025-07-07T01:10:00+00:00\n"
+            + "abc,2025-07-07T01:20:00+00:00\n");
+        String[] args = {"-f", tempDir.toString(), "-d", "2025-07-07", "-t", "2"};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(out));
+        try {
+            Main.main(args);
+        } finally {
+            System.setOut(originalOut);
+        }
+        String output = out.toString().replace(System.lineSeparator(), "\n");
+        assertEquals("Most active cookies:\n1. abc (2)\n2. def (1)\n", output);
+    }
+
+    @Test
+    void testMain_compileThenQueryColumnarFile(@TempDir Path tempDir) {
+        String output = tempDir.resolve("cookies.ccol").toString();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(out));
+        try {
+            Main.main(new String[]{"compile", "-f", "src/test/resources/test_cookies.csv", "-o", output});
+            Main.main(new String[]{"-f", output, "-d", "2025-07-07"});
+        } finally {
+            System.setOut(originalOut);
+        }
+        String result = out.toString();
+        assertTrue(result.contains("Compiled 3 records to " + output));
+        assertTrue(result.contains("abc"));
+        assertTrue(result.contains("def"));
+        assertFalse(result.contains("ghi"));
+    }
+
     @Test
     void testMain_withNoCookiesOnDate_printsNothing() {
         String[] args = {"-f", "src/test/resources/test_cookies.csv", "-d", "2025-07-09"};
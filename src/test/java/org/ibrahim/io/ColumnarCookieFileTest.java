@@ -0,0 +1,116 @@
+package org.ibrahim.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarCookieFileTest {
+    private static final long DAY = 86_400;
+
+    @TempDir
+    Path tempDir;
+
+    private Path write(int blockSize, String[] values, long[] epochSeconds) throws IOException {
+        Path file = tempDir.resolve("cookies.ccol");
+        try (ColumnarCookieFile.Writer writer = new ColumnarCookieFile.Writer(file, blockSize)) {
+            for (int i = 0; i < values.length; i++) {
+                writer.add(values[i], epochSeconds[i]);
+            }
+        }
+        return file;
+    }
+
+    private static List<String> scan(Path file, long from, long to) throws IOException {
+        List<String> result = new ArrayList<>();
+        try (ColumnarCookieFile columnar = ColumnarCookieFile.open(file.toString())) {
+            columnar.scan(from, to, id -> result.add(columnar.value(id)));
+        }
+        return result;
+    }
+
+    @Test
+    void testWriteAndScan_dictionaryAndOrder() throws IOException {
+        Path file = write(2,
+            new String[]{"abc", "def", "abc", "ghi", "def"},
+            new long[]{10 * DAY + 5, 10 * DAY + 1, 9 * DAY + 7, 11 * DAY, 10 * DAY + 9});
+
+        try (ColumnarCookieFile columnar = ColumnarCookieFile.open(file.toString())) {
+            assertEquals(List.of("abc", "def", "ghi"), columnar.dictionary());
+            assertEquals(5, columnar.recordCount());
+        }
+        assertEquals(List.of("abc", "def", "def"), scan(file, 10 * DAY, 11 * DAY));
+        assertEquals(List.of("abc", "def", "abc", "ghi", "def"), scan(file, Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(List.of(), scan(file, 12 * DAY, 13 * DAY));
+    }
+
+    @Test
+    void testValue_looksUpSingleIds() throws IOException {
+        int count = 300;
+        String[] values = new String[count];
+        long[] epochSeconds = new long[count];
+        for (int i = 0; i < count; i++) {
+            // Lengths above 127 bytes need a second varint byte
+            values[i] = "cookie" + i + "x".repeat(i);
+            epochSeconds[i] = i;
+        }
+        Path file = write(16, values, epochSeconds);
+
+        try (ColumnarCookieFile columnar = ColumnarCookieFile.open(file.toString())) {
+            assertEquals(count, columnar.dictionarySize());
+            assertEquals(values[299], columnar.value(299));
+            assertEquals(values[0], columnar.value(0));
+            assertEquals(values[128], columnar.value(128));
+            assertThrows(IndexOutOfBoundsException.class, () -> columnar.value(count));
+            assertThrows(IndexOutOfBoundsException.class, () -> columnar.value(-1));
+        }
+    }
+
+    @Test
+    void testScan_blocksInsideAndOutsideRange() throws IOException {
+        int count = 1000;
+        String[] values = new String[count];
+        long[] epochSeconds = new long[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = "cookie" + (i % 7);
+            epochSeconds[i] = (i / 100) * DAY + i;
+        }
+        Path file = write(64, values, epochSeconds);
+
+        List<String> day3 = scan(file, 3 * DAY, 4 * DAY);
+
+        assertEquals(100, day3.size());
+        assertEquals("cookie" + (300 % 7), day3.getFirst());
+    }
+
+    @Test
+    void testWrite_emptyFile() throws IOException {
+        Path file = write(4, new String[0], new long[0]);
+        assertEquals(List.of(), scan(file, Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    void testOpen_notColumnar_throws() throws IOException {
+        Path file = tempDir.resolve("cookies.ccol");
+        Files.writeString(file, "cookie,timestamp\nabc,2025-07-07T10:00:00Z\n");
+        assertThrows(IOException.class, () -> ColumnarCookieFile.open(file.toString()));
+    }
+
+    @Test
+    void testOpen_fileNotFound() {
+        assertThrows(FileNotFoundException.class, () -> ColumnarCookieFile.open("src/test/resources/nonexistent.ccol"));
+    }
+
+    @Test
+    void testIsColumnar() {
+        assertTrue(ColumnarCookieFile.isColumnar("cookie_log.ccol"));
+        assertFalse(ColumnarCookieFile.isColumnar("cookie_log.csv"));
+    }
+}
@@ -1,16 +1,32 @@
 package org.ibrahim.io;
 
+import org.ibrahim.exception.CookieParseException;
 import org.ibrahim.model.Cookie;
+import org.ibrahim.model.RunStats;
+import org.ibrahim.stats.RunStatistics;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.MockedStatic;
 
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -19,6 +35,180 @@ import static org.mockito.Mockito.*;
 class CookieParserTest {
   private final CookieParser target = new CookieParser();
 
+  @TempDir
+  Path tempDir;
+
+  private List<String> scanIndexed(Path file, String... dates) {
+    List<String> cookies = new ArrayList<>();
+    target.scanMappedIndexed(file.toString(), Arrays.stream(dates).map(LocalDate::parse).toList(),
+        (segment, cookieOffset, cookieLength, _, _) -> cookies.add(MappedCookieScanner.toString(segment, cookieOffset, cookieLength)));
+    return cookies;
+  }
+
+  @Test
+  void testParseFrom_readsCompleteLinesAppendedSinceOffset() throws IOException {
+    Path file = tempDir.resolve("cookies.csv");
+    Files.writeString(file, "cookie,timestamp\nabc,2025-07-07T10:00:00Z\n\ndef,2025-07-07T11:00");
+    List<Cookie> cookies = new ArrayList<>();
+
+    long offset = target.parseFrom(file.toString(), 0, cookies::add);
+
+    assertEquals(List.of(new Cookie("abc", Instant.parse("2025-07-07T10:00:00Z"))), cookies);
+    assertEquals("cookie,timestamp\nabc,2025-07-07T10:00:00Z\n\n".length(), offset);
+
+    Files.writeString(file, ":00Z\r\nghi,2025-07-08T12:00:00Z\n", StandardOpenOption.APPEND);
+    offset = target.parseFrom(file.toString(), offset, cookies::add);
+
+    assertEquals(List.of(new Cookie("abc", Instant.parse("2025-07-07T10:00:00Z")),
+        new Cookie("def", Instant.parse("2025-07-07T11:00:00Z")),
+        new Cookie("ghi", Instant.parse("2025-07-08T12:00:00Z"))), cookies);
+    assertEquals(Files.size(file), offset);
+    assertEquals(offset, target.parseFrom(file.toString(), offset, cookies::add));
+    assertEquals(3, cookies.size());
+  }
+
+  @Test
+  void testScanColumnar_passesIdsOfDateAndResolvesThem() throws IOException {
+    Path file = tempDir.resolve("cookies.ccol");
+    try (ColumnarCookieFile.Writer writer = new ColumnarCookieFile.Writer(file)) {
+      writer.add("abc", Instant.parse("2025-07-07T10:00:00Z").getEpochSecond());
+      writer.add("def", Instant.parse("2025-07-08T10:00:00Z").getEpochSecond());
+      writer.add("abc", Instant.parse("2025-07-07T23:59:59Z").getEpochSecond());
+    }
+    List<Integer> ids = new ArrayList<>();
+
+    target.scanColumnar(file.toString(), LocalDate.parse("2025-07-07"), ids::add);
+
+    assertEquals(List.of(0, 0), ids);
+    assertEquals(List.of("abc"), target.resolveColumnar(file.toString(), new int[]{0}));
+    assertEquals(List.of("def", "abc"), target.resolveColumnar(file.toString(), new int[]{1, 0}));
+    assertThrows(CookieParseException.class, () -> target.resolveColumnar(file.toString(), new int[]{2}));
+  }
+
+  @Test
+  void testScanMappedIndexed_buildsIndexThenReadsOnlyIndexedRanges() throws IOException {
+    Path file = tempDir.resolve("cookies.csv");
+    Files.writeString(file, "cookie,timestamp\nabc,2025-07-08T10:00:00Z\ndef,2025-07-07T11:00:00Z\n");
+
+    assertEquals(List.of("abc", "def"), scanIndexed(file, "2025-07-07"));
+    assertTrue(Files.exists(DateIndex.sidecarOf(file.toString())));
+    assertEquals(List.of("def"), scanIndexed(file, "2025-07-07"));
+    assertEquals(List.of(), scanIndexed(file, "2025-07-09"));
+  }
+
+  @Test
+  void testScanMappedIndexed_multipleDatesSharingARangeAreReadOnce() throws IOException {
+    Path file = tempDir.resolve("cookies.csv");
+    Files.writeString(file, "cookie,timestamp\nabc,2025-07-08T10:00:00Z\ndef,2025-07-07T11:00:00Z\nghi,2025-07-08T12:00:00Z\n");
+    scanIndexed(file, "2025-07-07");
+
+    assertEquals(List.of("abc", "def", "ghi"), scanIndexed(file, "2025-07-07", "2025-07-08"));
+  }
+
+  @Test
+  void testScanColumnar_passesRecordsBetweenDates() throws IOException {
+    Path file = tempDir.resolve("cookies.ccol");
+    try (ColumnarCookieFile.Writer writer = new ColumnarCookieFile.Writer(file)) {
+      writer.add("abc", Instant.parse("2025-07-06T10:00:00Z").getEpochSecond());
+      writer.add("def", Instant.parse("2025-07-07T10:00:00Z").getEpochSecond());
+      writer.add("abc", Instant.parse("2025-07-08T23:59:59Z").getEpochSecond());
+      writer.add("def", Instant.parse("2025-07-09T00:00:00Z").getEpochSecond());
+    }
+    List<Long> epochSeconds = new ArrayList<>();
+
+    target.scanColumnar(file.toString(), LocalDate.parse("2025-07-07"), LocalDate.parse("2025-07-08"),
+        (_, epochSecond) -> epochSeconds.add(epochSecond));
+
+    assertEquals(List.of(Instant.parse("2025-07-07T10:00:00Z").getEpochSecond(),
+        Instant.parse("2025-07-08T23:59:59Z").getEpochSecond()), epochSeconds);
+  }
+
+  @Test
+  void testScanMappedIndexed_staleIndexIsRebuilt() throws IOException {
+    Path file = tempDir.resolve("cookies.csv");
+    Files.writeString(file, "cookie,timestamp\nabc,2025-07-07T10:00:00Z\n");
+    scanIndexed(file, "2025-07-07");
+
+    Files.writeString(file, "cookie,timestamp\nxyz,2025-07-07T10:00:00Z\nabc,2025-07-08T10:00:00Z\n");
+    Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+
+    assertEquals(List.of("xyz", "abc"), scanIndexed(file, "2025-07-07"));
+    assertEquals(List.of("xyz"), scanIndexed(file, "2025-07-07"));
+  }
+
+  @Test
+  void testScanMappedIndexed_corruptIndexIsRebuilt() throws IOException {
+    Path file = tempDir.resolve("cookies.csv");
+    Files.writeString(file, "cookie,timestamp\nabc,2025-07-07T10:00:00Z\n");
+    scanIndexed(file, "2025-07-07");
+    Path sidecar = DateIndex.sidecarOf(file.toString());
+    byte[] corrupt = Files.readAllBytes(sidecar);
+    // The end of the first range, pointing past the end of the file the index still matches
+    ByteBuffer.wrap(corrupt).putLong(48, Long.MAX_VALUE);
+    Files.write(sidecar, corrupt);
+
+    assertEquals(List.of("abc"), scanIndexed(file, "2025-07-07"));
+    assertTrue(DateIndex.read(sidecar).isPresent());
+  }
+
+  @Test
+  void testScanMappedIndexed_unreadableIndexIsRebuilt() throws IOException {
+    Path file = tempDir.resolve("cookies.csv");
+    Files.writeString(file, "cookie,timestamp\nabc,2025-07-07T10:00:00Z\n");
+    Files.writeString(DateIndex.sidecarOf(file.toString()), "garbage");
+
+    assertEquals(List.of("abc"), scanIndexed(file, "2025-07-07"));
+    assertTrue(DateIndex.read(DateIndex.sidecarOf(file.toString())).isPresent());
+  }
+
+  @Test
+  void testParseEach_withStatistics_measuresBytesLinesAndPhases() throws IOException {
+    Path file = tempDir.resolve("cookies.csv");
+    String content = "cookie,timestamp\nabc,2025-07-07T10:00:00Z\ndef,2025-07-07T11:00:00Z\n";
+    Files.writeString(file, content);
+    RunStatistics statistics = new RunStatistics();
+    statistics.start();
+    List<Cookie> cookies = new ArrayList<>();
+
+    new CookieParser(statistics).parseEach(file.toString(), cookies::add);
+
+    RunStats stats = statistics.report();
+    assertEquals(2, cookies.size());
+    assertEquals(content.length(), stats.getBytesRead());
+    assertEquals(2, stats.getLinesRead());
+    assertTrue(stats.getPhaseNanos().get("io") > 0);
+    assertTrue(stats.getPhaseNanos().get("parse") > 0);
+  }
+
+  @Test
+  void testScanMappedParallel_withStatistics_measuresEveryWorker() throws IOException {
+    Path file = tempDir.resolve("cookies.csv");
+    StringBuilder content = new StringBuilder("cookie,timestamp\n");
+    for (int i = 0; i < 100; i++) {
+      content.append("cookie").append(i).append(",2025-07-07T10:00:00Z\n");
+    }
+    Files.writeString(file, content);
+    RunStatistics statistics = new RunStatistics();
+    statistics.start();
+
+    List<RecordCounter> processors = new CookieParser(statistics).scanMappedParallel(file.toString(), 4, RecordCounter::new);
+
+    assertEquals(100, processors.stream().mapToInt(processor -> processor.records).sum());
+    RunStats stats = statistics.report();
+    assertEquals(content.length(), stats.getBytesRead());
+    assertEquals(100, stats.getLinesRead());
+    assertTrue(stats.getThreadAllocatedBytes().size() > 1);
+  }
+
+  private static class RecordCounter implements MappedCookieScanner.RecordProcessor {
+    int records;
+
+    @Override
+    public void process(MemorySegment segment, long cookieOffset, int cookieLength, long timestampOffset, int timestampLength) {
+      records++;
+    }
+  }
+
   @Test
   void testParseEach_callsConsumerInOrder() {
     @SuppressWarnings("unchecked")
@@ -58,6 +248,33 @@ class CookieParserTest {
     }
   }
 
+  @Test
+  void testParseWhile_stopsWhenPredicateFails() {
+    List<Cookie> seen = new ArrayList<>();
+    try (MockedStatic<FileUtils> utilities = mockStatic(FileUtils.class)) {
+      utilities.when(() -> FileUtils.processLinesWhile(anyString(), eq(true), any(FileUtils.LineCondition.class)))
+          .thenAnswer(invocation -> {
+            FileUtils.LineCondition condition = invocation.getArgument(2);
+            for (String line : List.of("abc,2025-07-07T10:00:00Z", "def,2025-07-07T11:00:00Z", "ghi,2025-07-08T12:00:00Z")) {
+              if (!condition.process(line)) {
+                break;
+              }
+            }
+            return null;
+          });
+
+      target.parseWhile("file.csv", cookie -> {
+        seen.add(cookie);
+        return !cookie.getValue().equals("def");
+      });
+
+      assertEquals(2, seen.size());
+      assertEquals("def", seen.get(1).getValue());
+    } catch (Exception e) {
+      fail(e);
+    }
+  }
+
   @Test
   void testParseAll_returnsAllCookies() {
     try (MockedStatic<FileUtils> utilities = mockStatic(FileUtils.class)) {
@@ -186,4 +403,48 @@ class CookieParserTest {
       fail(e);
     }
   }
-}
\ No newline at end of file
+
+  @Test
+  void testParseCheckpointed_checkpointsAtLineBoundaries() throws IOException {
+    Path file = tempDir.resolve("cookies.csv");
+    String header = "cookie,timestamp\n";
+    String line = "cookie1,2025-07-07T10:00:00Z\n";
+    Files.writeString(file, header + line + line + "cookie2,2025-07-07T11:00:00Z");
+    List<String> cookies = new ArrayList<>();
+    List<Long> checkpoints = new ArrayList<>();
+
+    long end = target.parseCheckpointed(file.toString(), 0, 1, cookie -> cookies.add(cookie.getValue()),
+        checkpoints::add);
+
+    int first = header.length() + line.length();
+    assertEquals(List.of("cookie1", "cookie1", "cookie2"), cookies);
+    assertEquals(List.of((long) header.length(), (long) first, (long) first + line.length()), checkpoints);
+    assertEquals(Files.size(file), end);
+  }
+
+  @Test
+  void testParseCheckpointed_fromOffsetSkipsNoHeader() throws IOException {
+    Path file = tempDir.resolve("cookies.csv");
+    String header = "cookie,timestamp\n";
+    Files.writeString(file, header + "cookie1,2025-07-07T10:00:00Z\ncookie2,2025-07-07T11:00:00Z\n");
+    List<String> cookies = new ArrayList<>();
+
+    target.parseCheckpointed(file.toString(), header.length(), Long.MAX_VALUE, cookie -> cookies.add(cookie.getValue()),
+        _ -> fail("Unexpected checkpoint"));
+
+    assertEquals(List.of("cookie1", "cookie2"), cookies);
+  }
+
+  @Test
+  void testParseCheckpointed_invalidLineCheckpointsBeforeIt() throws IOException {
+    Path file = tempDir.resolve("cookies.csv");
+    String valid = "cookie,timestamp\ncookie1,2025-07-07T10:00:00Z\n";
+    Files.writeString(file, valid + "invalid\ncookie2,2025-07-07T11:00:00Z\n");
+    List<Long> checkpoints = new ArrayList<>();
+
+    assertThrows(CookieParseException.class, () -> target.parseCheckpointed(file.toString(), 0, Long.MAX_VALUE,
+        _ -> { }, checkpoints::add));
+
+    assertEquals(List.of((long) valid.length()), checkpoints);
+  }
+}
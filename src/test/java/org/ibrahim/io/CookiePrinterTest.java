@@ -1,6 +1,10 @@
 package org.ibrahim.io;
 
+import org.ibrahim.model.ApproximateCount;
 import org.ibrahim.model.Cookie;
+import org.ibrahim.model.CookieCount;
+import org.ibrahim.model.RunStats;
+import org.ibrahim.model.StatsFormat;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -8,10 +12,17 @@ import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.net.InetSocketAddress;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class CookiePrinterTest {
     private static final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
@@ -58,5 +69,127 @@ class CookiePrinterTest {
         String output = outContent.toString().trim();
         assert(output).equals("1. cookieX");
     }
-}
 
+    @Test
+    void print_singleDate_printsLikeList() {
+        target.print(Map.of(LocalDate.parse("2018-04-24"), List.of(new Cookie("cookieX", Instant.parse("2018-04-24T00:00:00Z")))));
+
+        String output = outContent.toString().trim().replace(System.lineSeparator(), "\n");
+        assertEquals("Most active cookies:\n1. cookieX", output);
+    }
+
+    @Test
+    void print_multipleDates_printsSectionPerDate() {
+        Map<LocalDate, List<Cookie>> cookiesByDate = new LinkedHashMap<>();
+        cookiesByDate.put(LocalDate.parse("2018-04-24"), List.of(new Cookie("cookieX", Instant.parse("2018-04-24T00:00:00Z"))));
+        cookiesByDate.put(LocalDate.parse("2018-04-23"), List.of());
+
+        target.print(cookiesByDate);
+
+        String output = outContent.toString().trim().replace(System.lineSeparator(), "\n");
+        assertEquals("Most active cookies on 2018-04-24:\n1. cookieX\nNo cookies found on 2018-04-23.", output);
+    }
+
+    @Test
+    void printCounts_singleDate_printsCounts() {
+        target.printCounts(Map.of(LocalDate.parse("2018-04-24"), List.of(new CookieCount("cookieX", 3), new CookieCount("cookieY", 1))));
+
+        String output = outContent.toString().trim().replace(System.lineSeparator(), "\n");
+        assertEquals("Most active cookies:\n1. cookieX (3)\n2. cookieY (1)", output);
+    }
+
+    @Test
+    void printCounts_multipleDates_printsSectionPerDate() {
+        Map<LocalDate, List<CookieCount>> countsByDate = new LinkedHashMap<>();
+        countsByDate.put(LocalDate.parse("2018-04-24"), List.of(new CookieCount("cookieX", 3)));
+        countsByDate.put(LocalDate.parse("2018-04-23"), List.of());
+
+        target.printCounts(countsByDate);
+
+        String output = outContent.toString().trim().replace(System.lineSeparator(), "\n");
+        assertEquals("Most active cookies on 2018-04-24:\n1. cookieX (3)\nNo cookies found on 2018-04-23.", output);
+    }
+
+    @Test
+    void printApproximate_singleDate_marksEstimatesWithLowerBound() {
+        target.printApproximate(Map.of(LocalDate.parse("2018-04-24"),
+            List.of(new ApproximateCount("cookieX", 120, 2), new ApproximateCount("cookieY", 7, 0))));
+
+        String output = outContent.toString().trim().replace(System.lineSeparator(), "\n");
+        assertEquals("Most active cookies (approximate):\n1. cookieX (~120, at least 118)\n2. cookieY (7)", output);
+    }
+
+    @Test
+    void printApproximate_multipleDates_printsSectionPerDate() {
+        Map<LocalDate, List<ApproximateCount>> countsByDate = new LinkedHashMap<>();
+        countsByDate.put(LocalDate.parse("2018-04-24"), List.of(new ApproximateCount("cookieX", 3, 0)));
+        countsByDate.put(LocalDate.parse("2018-04-23"), List.of());
+
+        target.printApproximate(countsByDate);
+
+        String output = outContent.toString().trim().replace(System.lineSeparator(), "\n");
+        assertEquals("Most active cookies on 2018-04-24 (approximate):\n1. cookieX (3)\nNo cookies found on 2018-04-23.", output);
+    }
+
+    @Test
+    void printCompiled_printsRecordCountAndOutput() {
+        target.printCompiled(3, "cookie_log.ccol");
+
+        String output = outContent.toString().trim();
+        assert(output).equals("Compiled 3 records to cookie_log.ccol");
+    }
+
+    @Test
+    void printServing_printsUrl() {
+        target.printServing(new InetSocketAddress("127.0.0.1", 8080), "/most-active");
+
+        String output = outContent.toString().trim();
+        assertEquals("Serving queries on http://127.0.0.1:8080/most-active", output);
+    }
+
+    private static RunStats stats() {
+        Map<String, Long> phases = new LinkedHashMap<>();
+        phases.put("io", 100_000_000L);
+        phases.put("parse", 300_000_000L);
+        phases.put("count", 200_000_000L);
+        phases.put("select", 1_000_000L);
+        phases.put("print", 0L);
+        return new RunStats(2_000_000_000L, 50_000_000L, 1_000_000L, phases, 1000, 80_000_000L, 400_000_000L,
+            Map.of("main", 300_000_000L));
+    }
+
+    private static String printStats(CookiePrinter printer, StatsFormat format) {
+        PrintStream originalErr = System.err;
+        ByteArrayOutputStream errContent = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(errContent));
+        try {
+            printer.printStats(stats(), format);
+        } finally {
+            System.setErr(originalErr);
+        }
+        return errContent.toString().trim();
+    }
+
+    @Test
+    void printStats_text_printsToStandardError() {
+        String output = printStats(target, StatsFormat.TEXT);
+
+        assertTrue(output.startsWith("Statistics:"));
+        assertTrue(output.contains("read: 50.0 MB, 1000000 lines (500000 lines/s, 25.0 MB/s)"));
+        assertTrue(output.contains("phases: io 100.0 ms, parse 300.0 ms, count 200.0 ms, select 1.0 ms, print 0.0 ms"));
+        assertTrue(output.contains("distinct cookies: 1000"));
+        assertTrue(output.contains("allocated: 400.0 MB (main 300.0 MB)"));
+        assertEquals("", outContent.toString());
+    }
+
+    @Test
+    void printStats_json_printsOneObject() {
+        String output = printStats(target, StatsFormat.JSON);
+
+        assertEquals("{\"elapsedNanos\":2000000000,\"bytesRead\":50000000,\"linesRead\":1000000,"
+            + "\"linesPerSecond\":500000.0,\"megabytesPerSecond\":25.000,\"phaseNanos\":{\"io\":100000000,"
+            + "\"parse\":300000000,\"count\":200000000,\"select\":1000000,\"print\":0},\"distinctCookies\":1000,"
+            + "\"peakHeapBytes\":80000000,\"allocatedBytes\":400000000,\"threadAllocatedBytes\":{\"main\":300000000}}",
+            output);
+    }
+}
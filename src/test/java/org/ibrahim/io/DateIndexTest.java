@@ -0,0 +1,131 @@
+package org.ibrahim.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DateIndexTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testBuilder_mergesNearbyRecordsOfADay() {
+        DateIndex.Builder builder = new DateIndex.Builder();
+        builder.add(1, 0, 30);
+        builder.add(2, 31, 60);
+        builder.add(1, 61, 90);
+        builder.add(1, 1_000_000, 1_000_030);
+
+        DateIndex index = builder.build(2_000_000, 42);
+
+        List<long[]> ranges = index.ranges(1);
+        assertEquals(2, ranges.size());
+        assertArrayEquals(new long[]{0, 90}, ranges.get(0));
+        assertArrayEquals(new long[]{1_000_000, 1_000_030}, ranges.get(1));
+        assertEquals(1, index.ranges(2).size());
+        assertTrue(index.ranges(3).isEmpty());
+        assertEquals(2, index.days());
+    }
+
+    @Test
+    void testRanges_multipleDaysAreMergedInFileOrder() {
+        DateIndex.Builder builder = new DateIndex.Builder();
+        builder.add(1, 0, 30);
+        builder.add(2, 31, 60);
+        builder.add(1, 61, 90);
+        builder.add(3, 1_000_000, 1_000_030);
+        builder.add(2, 2_000_000, 2_000_030);
+
+        List<long[]> ranges = builder.build(3_000_000, 42).ranges(List.of(2L, 1L));
+
+        assertEquals(2, ranges.size());
+        assertArrayEquals(new long[]{0, 90}, ranges.get(0));
+        assertArrayEquals(new long[]{2_000_000, 2_000_030}, ranges.get(1));
+    }
+
+    @Test
+    void testMatches() {
+        DateIndex index = new DateIndex.Builder().build(100, 42);
+        assertTrue(index.matches(100, 42));
+        assertFalse(index.matches(101, 42));
+        assertFalse(index.matches(100, 43));
+    }
+
+    @Test
+    void testWriteAndRead_roundTrip() throws IOException {
+        DateIndex.Builder builder = new DateIndex.Builder();
+        builder.add(20_000, 17, 50);
+        builder.add(19_999, 51, 80);
+        Path path = tempDir.resolve("cookies.csv.idx");
+
+        builder.build(80, 1234).write(path);
+        Optional<DateIndex> index = DateIndex.read(path);
+
+        assertTrue(index.isPresent());
+        assertTrue(index.get().matches(80, 1234));
+        assertArrayEquals(new long[]{17, 50}, index.get().ranges(20_000).getFirst());
+        assertArrayEquals(new long[]{51, 80}, index.get().ranges(19_999).getFirst());
+        try (var files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void testRead_missingFile_isEmpty() throws IOException {
+        assertTrue(DateIndex.read(tempDir.resolve("missing.idx")).isEmpty());
+    }
+
+    @Test
+    void testRead_notAnIndex_throws() throws IOException {
+        Path path = tempDir.resolve("cookies.csv.idx");
+        Files.writeString(path, "cookie,timestamp\n");
+        assertThrows(IOException.class, () -> DateIndex.read(path));
+    }
+
+    @Test
+    void testRead_truncatedIndex_throws() throws IOException {
+        Path path = tempDir.resolve("cookies.csv.idx");
+        DateIndex.Builder builder = new DateIndex.Builder();
+        builder.add(20_000, 17, 50);
+        builder.build(80, 1234).write(path);
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 5));
+
+        assertThrows(IOException.class, () -> DateIndex.read(path));
+    }
+
+    @Test
+    void testRead_corruptIndex_throws() throws IOException {
+        Path path = tempDir.resolve("cookies.csv.idx");
+        DateIndex.Builder builder = new DateIndex.Builder();
+        builder.add(20_000, 17, 50);
+        builder.build(80, 1234).write(path);
+        byte[] valid = Files.readAllBytes(path);
+
+        // Negative range count
+        byte[] negativeCount = valid.clone();
+        ByteBuffer.wrap(negativeCount).putInt(36, -1);
+        Files.write(path, negativeCount);
+        assertThrows(IOException.class, () -> DateIndex.read(path));
+
+        // Range beyond the indexed file's size
+        byte[] outOfBounds = valid.clone();
+        ByteBuffer.wrap(outOfBounds).putLong(48, Long.MAX_VALUE);
+        Files.write(path, outOfBounds);
+        assertThrows(IOException.class, () -> DateIndex.read(path));
+    }
+
+    @Test
+    void testSidecarOf() {
+        assertEquals(Path.of("logs/cookies.csv.idx"), DateIndex.sidecarOf("logs/cookies.csv"));
+    }
+}
@@ -0,0 +1,98 @@
+package org.ibrahim.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DelimiterScannerTest {
+    /**
+     * The scanners available in this JVM; the vectorized one when the tests run with the Vector API module.
+     */
+    private static List<DelimiterScanner> scanners() {
+        List<DelimiterScanner> scanners = new ArrayList<>();
+        scanners.add(DelimiterScanner.scalar());
+        DelimiterScanner.vector().ifPresent(scanners::add);
+        return scanners;
+    }
+
+    private static List<String> scan(DelimiterScanner scanner, byte[] bytes, long from, long to) {
+        List<String> lines = new ArrayList<>();
+        scanner.scan(MemorySegment.ofArray(bytes), from, to, (start, end, comma, commas) ->
+            lines.add(start + "-" + end + ":" + comma + "x" + commas));
+        return lines;
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void testScan_reportsLinesAndCommas() {
+        byte[] bytes = bytes("a,1\nbb,22\n\nc\nd,e,f\n");
+        for (DelimiterScanner scanner : scanners()) {
+            assertEquals(List.of("0-3:1x1", "4-9:6x1", "10-10:-1x0", "11-12:-1x0", "13-18:14x2"),
+                scan(scanner, bytes, 0, bytes.length), scanner.toString());
+        }
+    }
+
+    @Test
+    void testScan_lastLineWithoutNewline() {
+        byte[] bytes = bytes("a,1\nbb,22");
+        for (DelimiterScanner scanner : scanners()) {
+            assertEquals(List.of("0-3:1x1", "4-9:6x1"), scan(scanner, bytes, 0, bytes.length), scanner.toString());
+        }
+    }
+
+    @Test
+    void testScan_lineStartingBeforeToIsReadToItsEnd() {
+        byte[] bytes = bytes("a,1\nbb,22\nccc,333\n");
+        for (DelimiterScanner scanner : scanners()) {
+            assertEquals(List.of("4-9:6x1"), scan(scanner, bytes, 4, 5), scanner.toString());
+            assertEquals(List.of("4-9:6x1", "10-17:13x1"), scan(scanner, bytes, 4, 11), scanner.toString());
+        }
+    }
+
+    @Test
+    void testScan_emptyRange() {
+        byte[] bytes = bytes("a,1\nbb,22\n");
+        for (DelimiterScanner scanner : scanners()) {
+            assertTrue(scan(scanner, bytes, 4, 4).isEmpty(), scanner.toString());
+            assertTrue(scan(scanner, bytes, bytes.length, bytes.length).isEmpty(), scanner.toString());
+            assertTrue(scan(scanner, new byte[0], 0, 0).isEmpty(), scanner.toString());
+        }
+    }
+
+    @Test
+    void testScan_allScannersAgreeAcrossVectorBoundaries() {
+        Random random = new Random(42);
+        byte[] alphabet = bytes("abc,\n\r0");
+        for (int length = 0; length < 300; length++) {
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = alphabet[random.nextInt(alphabet.length)];
+            }
+            int from = length == 0 ? 0 : random.nextInt(length);
+            while (from > 0 && bytes[from - 1] != '\n') {
+                from--;
+            }
+            int to = from + random.nextInt(length - from + 1);
+            List<String> expected = scan(DelimiterScanner.scalar(), bytes, from, to);
+            for (DelimiterScanner scanner : scanners()) {
+                assertEquals(expected, scan(scanner, bytes, from, to), scanner + " on " + new String(bytes,
+                    StandardCharsets.US_ASCII) + " from " + from + " to " + to);
+            }
+        }
+    }
+
+    @Test
+    void testGet_returnsVectorScannerWhenAvailable() {
+        assertEquals(DelimiterScanner.vector().isPresent(), DelimiterScanner.get().toString().startsWith("vector"));
+        assertEquals("scalar", DelimiterScanner.scalar().toString());
+    }
+}
@@ -4,11 +4,16 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InOrder;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -21,6 +26,57 @@ class FileUtilsTest {
         reader.close();
     }
 
+    @Test
+    void testOpenFileOrThrow_gzip() throws IOException {
+        try (BufferedReader reader = FileUtils.openFileOrThrow("src/test/resources/test_cookies.csv.gz")) {
+            assertEquals("id,timestamp", reader.readLine());
+            assertEquals("abc,2025-07-07T10:00:00+00:00", reader.readLine());
+        }
+    }
+
+    @Test
+    void testOpenFileOrThrow_standardInput() throws IOException {
+        InputStream stdin = System.in;
+        try {
+            System.setIn(new ByteArrayInputStream("id,timestamp\nabc,2025-07-07T10:00:00+00:00\n".getBytes()));
+            try (BufferedReader reader = FileUtils.openFileOrThrow("-")) {
+                assertEquals("id,timestamp", reader.readLine());
+                assertEquals("abc,2025-07-07T10:00:00+00:00", reader.readLine());
+                assertNull(reader.readLine());
+            }
+        } finally {
+            System.setIn(stdin);
+        }
+    }
+
+    @Test
+    void testOpenInputStream_compressedStandardInput() throws IOException {
+        InputStream stdin = System.in;
+        try {
+            System.setIn(Files.newInputStream(Path.of("src/test/resources/test_cookies.csv.gz")));
+            try (InputStream in = FileUtils.openInputStream("-")) {
+                String content = new String(in.readAllBytes());
+                assertTrue(content.startsWith("id,timestamp\nabc,2025-07-07T10:00:00+00:00"));
+            }
+        } finally {
+            System.setIn(stdin);
+        }
+    }
+
+    @Test
+    void testIsSeekable(@TempDir Path tempDir) throws IOException {
+        Path file = Files.createFile(tempDir.resolve("cookie_log.csv"));
+        assertTrue(FileUtils.isSeekable(file.toString()));
+        assertFalse(FileUtils.isSeekable("-"));
+        assertFalse(FileUtils.isSeekable("cookie_log.csv.gz"));
+    }
+
+    @Test
+    void testIsCompressed() {
+        assertTrue(FileUtils.isCompressed("cookie_log.csv.gz"));
+        assertFalse(FileUtils.isCompressed("cookie_log.csv"));
+    }
+
     @Test
     void testOpenFileOrThrow_fileNotFound() {
         Exception exception = assertThrows(FileNotFoundException.class, () ->
@@ -39,6 +95,16 @@ class FileUtilsTest {
         inOrder.verifyNoMoreInteractions();
     }
 
+    @Test
+    void testProcessLinesWhile_stopsWhenConditionFails() throws IOException {
+        List<String> lines = new ArrayList<>();
+        FileUtils.processLinesWhile("src/test/resources/test_cookies.csv", true, line -> {
+            lines.add(line);
+            return !line.startsWith("def");
+        });
+        assertEquals(List.of("abc,2025-07-07T10:00:00+00:00", "def,2025-07-07T11:00:00+00:00"), lines);
+    }
+
     @Test
     void testProcessLines_noSkipHeader() throws IOException {
         List<String> lines = new ArrayList<>();
@@ -46,4 +112,33 @@ class FileUtilsTest {
         assertEquals(4, lines.size());
         assertEquals("id,timestamp", lines.getFirst());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testExpand_directoryListsLogsInNameOrder(@TempDir Path tempDir) throws IOException {
+        for (String name : new String[]{"b.csv", "a.csv.gz", "c.ccol", "b.csv.idx", "notes.txt"}) {
+            Files.createFile(tempDir.resolve(name));
+        }
+        Files.createDirectory(tempDir.resolve("d.csv"));
+
+        assertEquals(List.of(tempDir.resolve("a.csv.gz").toString(), tempDir.resolve("b.csv").toString(),
+            tempDir.resolve("c.ccol").toString()), FileUtils.expand(tempDir.toString()));
+    }
+
+    @Test
+    void testExpand_globMatchesFileNames(@TempDir Path tempDir) throws IOException {
+        for (String name : new String[]{"log-2018-12-09-01.csv", "log-2018-12-09-00.csv", "log-2018-12-10-00.csv"}) {
+            Files.createFile(tempDir.resolve(name));
+        }
+
+        assertEquals(List.of(tempDir.resolve("log-2018-12-09-00.csv").toString(),
+                tempDir.resolve("log-2018-12-09-01.csv").toString()),
+            FileUtils.expand(tempDir.resolve("log-2018-12-09-*.csv").toString()));
+        assertEquals(List.of(), FileUtils.expand(tempDir.resolve("*.gz").toString()));
+        assertEquals(List.of(), FileUtils.expand(tempDir.resolve("missing/*.csv").toString()));
+    }
+
+    @Test
+    void testExpand_fileDenotesItself() throws IOException {
+        assertEquals(List.of("missing.csv"), FileUtils.expand("missing.csv"));
+    }
+}
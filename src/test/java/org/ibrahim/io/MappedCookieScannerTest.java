@@ -0,0 +1,161 @@
+package org.ibrahim.io;
+
+import org.ibrahim.exception.CookieParseException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedCookieScannerTest {
+    @TempDir
+    Path tempDir;
+
+    private static class RecordingProcessor implements MappedCookieScanner.RecordProcessor {
+        final List<String> cookies = new ArrayList<>();
+
+        @Override
+        public void process(MemorySegment segment, long cookieOffset, int cookieLength, long timestampOffset, int timestampLength) {
+            cookies.add(MappedCookieScanner.toString(segment, cookieOffset, cookieLength));
+        }
+    }
+
+    private List<String> scan(String filename, boolean skipHeader) throws IOException {
+        List<String> records = new ArrayList<>();
+        MappedCookieScanner.scan(filename, skipHeader, (segment, cookieOffset, cookieLength, timestampOffset, timestampLength) ->
+            records.add(MappedCookieScanner.toString(segment, cookieOffset, cookieLength) + "|"
+                + MappedCookieScanner.toString(segment, timestampOffset, timestampLength)));
+        return records;
+    }
+
+    @Test
+    void testScan_skipHeader() throws IOException {
+        List<String> records = scan("src/test/resources/test_cookies.csv", true);
+        assertEquals(List.of(
+            "abc|2025-07-07T10:00:00+00:00",
+            "def|2025-07-07T11:00:00+00:00",
+            "ghi|2025-07-08T12:00:00+00:00"), records);
+    }
+
+    @Test
+    void testScan_noSkipHeader() throws IOException {
+        List<String> records = scan("src/test/resources/test_cookies.csv", false);
+        assertEquals(4, records.size());
+        assertEquals("id|timestamp", records.getFirst());
+    }
+
+    @Test
+    void testScan_crlfAndNoTrailingNewline() throws IOException {
+        Path file = tempDir.resolve("crlf.csv");
+        Files.writeString(file, "cookie,timestamp\r\nabc,2025-07-07T10:00:00Z\r\ndef,2025-07-07T11:00:00Z");
+        List<String> records = scan(file.toString(), true);
+        assertEquals(List.of("abc|2025-07-07T10:00:00Z", "def|2025-07-07T11:00:00Z"), records);
+    }
+
+    @Test
+    void testScan_emptyFile() throws IOException {
+        Path file = tempDir.resolve("empty.csv");
+        Files.writeString(file, "");
+        assertTrue(scan(file.toString(), true).isEmpty());
+    }
+
+    @Test
+    void testScan_invalidLine_throws() throws IOException {
+        Path file = tempDir.resolve("invalid.csv");
+        Files.writeString(file, "cookie,timestamp\nabc,2025-07-07T10:00:00Z,extra\n");
+        Exception exception = assertThrows(CookieParseException.class, () -> scan(file.toString(), true));
+        assertTrue(exception.getMessage().contains("abc,2025-07-07T10:00:00Z,extra"));
+    }
+
+    @Test
+    void testSplit_boundariesAreLineStarts() {
+        byte[] bytes = "a,1\nbb,22\nccc,333\ndddd,4444\n".getBytes(StandardCharsets.US_ASCII);
+        MemorySegment segment = MemorySegment.ofArray(bytes);
+
+        long[] bounds = MappedCookieScanner.split(segment, 0, 3);
+
+        assertEquals(0, bounds[0]);
+        assertEquals(bytes.length, bounds[bounds.length - 1]);
+        for (int i = 1; i < bounds.length - 1; i++) {
+            assertTrue(bounds[i] > bounds[i - 1]);
+            assertEquals('\n', bytes[(int) bounds[i] - 1]);
+        }
+    }
+
+    @Test
+    void testSplit_morePartsThanLines() {
+        byte[] bytes = "a,1\n".getBytes(StandardCharsets.US_ASCII);
+        long[] bounds = MappedCookieScanner.split(MemorySegment.ofArray(bytes), 0, 8);
+        assertArrayEquals(new long[]{0, bytes.length}, bounds);
+    }
+
+    @Test
+    void testScanParallel_coversEveryRecordOnce() throws IOException {
+        Path file = tempDir.resolve("many.csv");
+        StringBuilder content = new StringBuilder("cookie,timestamp\n");
+        for (int i = 0; i < 1000; i++) {
+            content.append("cookie").append(i).append(",2025-07-07T10:00:00Z\n");
+        }
+        Files.writeString(file, content);
+
+        List<RecordingProcessor> processors = MappedCookieScanner.scanParallel(file.toString(), true, 4, RecordingProcessor::new);
+
+        List<String> cookies = new ArrayList<>();
+        processors.forEach(processor -> cookies.addAll(processor.cookies));
+        assertEquals(4, processors.size());
+        assertEquals(1000, cookies.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("cookie" + i, cookies.get(i));
+        }
+    }
+
+    @Test
+    void testScanParallel_invalidLine_throws() throws IOException {
+        Path file = tempDir.resolve("invalid.csv");
+        Files.writeString(file, "cookie,timestamp\nabc,2025-07-07T10:00:00Z\nbroken\n");
+        assertThrows(CookieParseException.class, () ->
+            MappedCookieScanner.scanParallel(file.toString(), true, 2, RecordingProcessor::new));
+    }
+
+    @Test
+    void testScanParallel_failure_waitsForOtherRanges() throws IOException {
+        Path file = tempDir.resolve("many.csv");
+        StringBuilder content = new StringBuilder("cookie,timestamp\n");
+        for (int i = 0; i < 100_000; i++) {
+            content.append("cookie").append(i).append(",2025-07-07T10:00:00Z\n");
+        }
+        Files.writeString(file, content);
+        AtomicBoolean returned = new AtomicBoolean();
+        AtomicBoolean lateRecord = new AtomicBoolean();
+        AtomicBoolean first = new AtomicBoolean(true);
+
+        assertThrows(IllegalStateException.class, () -> MappedCookieScanner.scanParallel(file.toString(), true, 4, () -> {
+            boolean failing = first.getAndSet(false);
+            return (segment, cookieOffset, cookieLength, timestampOffset, timestampLength) -> {
+                if (failing) {
+                    throw new IllegalStateException("range failed");
+                }
+                if (returned.get()) {
+                    lateRecord.set(true);
+                }
+            };
+        }));
+        returned.set(true);
+
+        assertFalse(lateRecord.get());
+    }
+
+    @Test
+    void testScan_fileNotFound() {
+        assertThrows(FileNotFoundException.class, () -> scan("src/test/resources/nonexistent.csv", true));
+    }
+}
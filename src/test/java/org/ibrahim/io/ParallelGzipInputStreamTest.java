@@ -0,0 +1,213 @@
+package org.ibrahim.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelGzipInputStreamTest {
+    @TempDir
+    Path tempDir;
+
+    private static byte[] gzip(byte[] data, int level) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] lines(int from, int to) {
+        StringBuilder content = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            content.append("cookie").append(i).append(",2025-07-07T10:00:00Z\n");
+        }
+        return content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String write(String name, byte[]... parts) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            bytes.write(part);
+        }
+        Path file = tempDir.resolve(name);
+        Files.write(file, bytes.toByteArray());
+        return file.toString();
+    }
+
+    private static byte[] readAll(String filename, int parallelism) throws IOException {
+        try (InputStream in = new ParallelGzipInputStream(filename, parallelism)) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Test
+    void testRead_singleMember() throws IOException {
+        byte[] data = lines(0, 50_000);
+        String filename = write("single.csv.gz", gzip(data, Deflater.DEFAULT_COMPRESSION));
+        assertArrayEquals(data, readAll(filename, 4));
+    }
+
+    @Test
+    void testRead_singleMember_isInflatedOnReadingThread() throws IOException {
+        byte[] data = lines(0, 200_000);
+        String filename = write("large.csv.gz", gzip(data, Deflater.BEST_SPEED));
+
+        try (ParallelGzipInputStream in = new ParallelGzipInputStream(filename, 4)) {
+            byte[] first = in.readNBytes(1000);
+            // Like GZIPInputStream, nothing is inflated ahead of the reader when no other member follows
+            assertEquals(0, in.bufferedBytes());
+
+            ByteArrayOutputStream actual = new ByteArrayOutputStream();
+            actual.write(first);
+            in.transferTo(actual);
+            assertArrayEquals(data, actual.toByteArray());
+            assertEquals(0, in.bufferedBytes());
+        }
+    }
+
+    @Test
+    void testRead_multipleMembersInOrder() throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        byte[][] members = new byte[20][];
+        for (int i = 0; i < members.length; i++) {
+            byte[] data = lines(i * 1000, (i + 1) * 1000);
+            expected.write(data);
+            members[i] = gzip(data, Deflater.DEFAULT_COMPRESSION);
+        }
+        String filename = write("multi.csv.gz", members);
+        assertArrayEquals(expected.toByteArray(), readAll(filename, 4));
+        assertArrayEquals(expected.toByteArray(), readAll(filename, 1));
+    }
+
+    @Test
+    void testRead_headerBytesInsideMemberAreIgnored() throws IOException {
+        // Stored (uncompressed) blocks keep the payload verbatim, including bytes that look like a header
+        byte[] first = new byte[]{'a', 0x1F, (byte) 0x8B, 8, 0, 0, 0, 0, 0, 0, 0, 0, 'b'};
+        byte[] second = "second member\n".getBytes(StandardCharsets.UTF_8);
+        String filename = write("stored.gz", gzip(first, Deflater.NO_COMPRESSION), gzip(second, Deflater.NO_COMPRESSION));
+
+        byte[] result = readAll(filename, 4);
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(first);
+        expected.write(second);
+        assertArrayEquals(expected.toByteArray(), result);
+    }
+
+    @Test
+    void testRead_largeMembersAreInflatedConcurrently() throws IOException, InterruptedException {
+        byte[][] data = new byte[4][];
+        byte[][] members = new byte[data.length][];
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for (int i = 0; i < data.length; i++) {
+            data[i] = lines(i * 150_000, (i + 1) * 150_000);
+            expected.write(data[i]);
+            members[i] = gzip(data[i], Deflater.BEST_SPEED);
+        }
+        String filename = write("rotations.csv.gz", members);
+
+        try (ParallelGzipInputStream in = new ParallelGzipInputStream(filename, 4)) {
+            byte[] first = new byte[1];
+            assertEquals(1, in.read(first));
+            // While the first member is barely read, the workers of the other members inflate them completely
+            long otherMembers = data[1].length + data[2].length + data[3].length;
+            long deadline = System.nanoTime() + 30_000_000_000L;
+            while (in.bufferedBytes() < otherMembers && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(in.bufferedBytes() >= otherMembers, "buffered " + in.bufferedBytes() + " of " + otherMembers);
+
+            ByteArrayOutputStream actual = new ByteArrayOutputStream();
+            actual.write(first);
+            in.transferTo(actual);
+            assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+        }
+    }
+
+    @Test
+    void testRead_smallReadAheadBudget() throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        byte[][] members = new byte[8][];
+        for (int i = 0; i < members.length; i++) {
+            byte[] data = lines(i * 20_000, (i + 1) * 20_000);
+            expected.write(data);
+            members[i] = gzip(data, Deflater.DEFAULT_COMPRESSION);
+        }
+        String filename = write("budget.csv.gz", members);
+
+        try (ParallelGzipInputStream in = new ParallelGzipInputStream(filename, 4, 128 * 1024)) {
+            assertArrayEquals(expected.toByteArray(), in.readAllBytes());
+        }
+    }
+
+    @Test
+    void testRead_emptyFile_throws() throws IOException {
+        String filename = write("empty.gz");
+        assertThrows(ZipException.class, () -> readAll(filename, 2));
+    }
+
+    @Test
+    void testRead_notGzip_throws() throws IOException {
+        String filename = write("plain.gz", lines(0, 10));
+        assertThrows(ZipException.class, () -> readAll(filename, 2));
+    }
+
+    @Test
+    void testRead_trailingGarbage_throws() throws IOException {
+        String filename = write("garbage.gz", gzip(lines(0, 10), Deflater.DEFAULT_COMPRESSION), "garbage".getBytes(StandardCharsets.UTF_8));
+        assertThrows(ZipException.class, () -> readAll(filename, 2));
+    }
+
+    @Test
+    void testRead_corruptChecksum_throws() throws IOException {
+        byte[] member = gzip(lines(0, 10), Deflater.DEFAULT_COMPRESSION);
+        member[member.length - 8] ^= 1;
+        String filename = write("corrupt.gz", member);
+        Exception exception = assertThrows(ZipException.class, () -> readAll(filename, 2));
+        assertTrue(exception.getMessage().contains("CRC mismatch"));
+    }
+
+    @Test
+    void testRead_truncated_throws() throws IOException {
+        byte[] member = gzip(lines(0, 1000), Deflater.DEFAULT_COMPRESSION);
+        byte[] truncated = new byte[member.length / 2];
+        System.arraycopy(member, 0, truncated, 0, truncated.length);
+        String filename = write("truncated.gz", truncated);
+        assertThrows(EOFException.class, () -> readAll(filename, 2));
+    }
+
+    @Test
+    void testClose_beforeEndOfStream() throws IOException {
+        byte[][] members = new byte[10][];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = gzip(lines(i * 10_000, (i + 1) * 10_000), Deflater.DEFAULT_COMPRESSION);
+        }
+        String filename = write("partial.gz", members);
+        InputStream in = new ParallelGzipInputStream(filename, 4);
+        assertEquals('c', in.read());
+        in.close();
+        assertThrows(IOException.class, in::read);
+    }
+
+    @Test
+    void testOpen_fileNotFound() {
+        assertThrows(FileNotFoundException.class, () -> new ParallelGzipInputStream("src/test/resources/nonexistent.gz", 2));
+    }
+}
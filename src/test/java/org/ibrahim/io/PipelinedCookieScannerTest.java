@@ -0,0 +1,135 @@
+package org.ibrahim.io;
+
+import org.ibrahim.exception.CookieParseException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelinedCookieScannerTest {
+    private static class RecordingProcessor implements MappedCookieScanner.RecordProcessor {
+        final List<String> records = new ArrayList<>();
+
+        @Override
+        public void process(MemorySegment segment, long cookieOffset, int cookieLength, long timestampOffset, int timestampLength) {
+            records.add(MappedCookieScanner.toString(segment, cookieOffset, cookieLength) + "|"
+                + MappedCookieScanner.toString(segment, timestampOffset, timestampLength));
+        }
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static List<RecordingProcessor> scan(InputStream in, boolean skipHeader, int workers, int bufferSize)
+        throws IOException {
+        List<RecordingProcessor> processors = new ArrayList<>();
+        PipelinedCookieScanner.scan(in, skipHeader, workers, bufferSize, RecordingProcessor::new, processors::add);
+        return processors;
+    }
+
+    private static List<String> records(List<RecordingProcessor> processors) {
+        return processors.stream().flatMap(processor -> processor.records.stream()).toList();
+    }
+
+    @Test
+    void testScan_skipHeader() throws IOException {
+        List<RecordingProcessor> processors = new ArrayList<>();
+        PipelinedCookieScanner.scan(
+            stream("cookie,timestamp\nabc,2025-07-07T10:00:00Z\ndef,2025-07-07T11:00:00Z\n"), true, 2,
+            RecordingProcessor::new, processors::add);
+
+        assertEquals(1, processors.size());
+        assertEquals(List.of("abc|2025-07-07T10:00:00Z", "def|2025-07-07T11:00:00Z"), records(processors));
+    }
+
+    @Test
+    void testScan_smallBuffersSplitLinesAcrossReads() throws IOException {
+        StringBuilder content = new StringBuilder("cookie,timestamp\n");
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String cookie = "cookie" + (i % 37);
+            String timestamp = "2025-07-07T10:00:" + (i % 60) + "Z";
+            content.append(cookie).append(',').append(timestamp).append('\n');
+            expected.add(cookie + "|" + timestamp);
+        }
+
+        List<RecordingProcessor> processors = scan(stream(content.toString()), true, 4, 64);
+
+        assertEquals(expected, records(processors));
+    }
+
+    @Test
+    void testScan_passesProcessorsOnInStreamOrder() throws IOException {
+        StringBuilder content = new StringBuilder();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            String cookie = "cookie" + i;
+            content.append(cookie).append(",2025-07-07T10:00:00Z\n");
+            expected.add(cookie + "|2025-07-07T10:00:00Z");
+        }
+
+        List<RecordingProcessor> processors = scan(stream(content.toString()), false, 8, 128);
+
+        assertTrue(processors.size() > 8);
+        assertEquals(expected, records(processors));
+    }
+
+    @Test
+    void testScan_lastLineWithoutNewline() throws IOException {
+        List<RecordingProcessor> processors = scan(
+            stream("abc,2025-07-07T10:00:00Z\ndef,2025-07-07T11:00:00Z"), false, 3, 16);
+
+        assertEquals(List.of("abc|2025-07-07T10:00:00Z", "def|2025-07-07T11:00:00Z"), records(processors));
+    }
+
+    @Test
+    void testScan_lineLongerThanBufferGrowsIt() throws IOException {
+        String cookie = "x".repeat(500);
+
+        List<RecordingProcessor> processors = scan(stream(cookie + ",2025-07-07T10:00:00Z\n"), false, 2, 16);
+
+        assertEquals(List.of(cookie + "|2025-07-07T10:00:00Z"), records(processors));
+    }
+
+    @Test
+    void testScan_headerOnly() throws IOException {
+        List<RecordingProcessor> processors = new ArrayList<>();
+        PipelinedCookieScanner.scan(stream("cookie,timestamp"), true, 2, RecordingProcessor::new, processors::add);
+
+        assertTrue(records(processors).isEmpty());
+    }
+
+    @Test
+    void testScan_invalidLineFailsWithoutBlocking() {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            content.append(i == 5000 ? "invalid" : "abc,2025-07-07T10:00:00Z").append('\n');
+        }
+
+        assertThrows(CookieParseException.class, () -> scan(stream(content.toString()), false, 2, 128));
+    }
+
+    @Test
+    void testScan_failingConsumerFailsWithoutBlocking() {
+        String content = "abc,2025-07-07T10:00:00Z\n".repeat(10_000);
+
+        assertThrows(IllegalStateException.class, () -> PipelinedCookieScanner.scan(
+            stream(content), false, 4, 128, RecordingProcessor::new, _ -> {
+                throw new IllegalStateException("Merge failed");
+            }));
+    }
+
+    @Test
+    void testScan_nonPositiveWorkers() {
+        assertThrows(IllegalArgumentException.class, () -> PipelinedCookieScanner.scan(
+            stream(""), false, 0, RecordingProcessor::new, _ -> { }));
+    }
+}
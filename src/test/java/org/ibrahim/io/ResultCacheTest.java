@@ -0,0 +1,174 @@
+package org.ibrahim.io;
+
+import org.ibrahim.model.Cookie;
+import org.ibrahim.model.CookieCount;
+import org.ibrahim.model.ScanMode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultCacheTest {
+    private static final List<LocalDate> DATES = List.of(LocalDate.parse("2025-07-07"));
+
+    @TempDir
+    Path tempDir;
+
+    private Path log(String name, String content) throws IOException {
+        return Files.writeString(tempDir.resolve(name), content);
+    }
+
+    private long entries(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".result")).count();
+        }
+    }
+
+    @Test
+    void testGetMostActive_returnsCachedResultDatedInZone() throws IOException {
+        Path log = log("cookies.csv", "cookie,timestamp\n");
+        ZoneId zone = ZoneId.of("Europe/Berlin");
+        ResultCache cache = new ResultCache(tempDir.resolve("cache"), ResultCache.DEFAULT_MAX_BYTES, false);
+        ResultCache.Key key = cache.key(List.of(log.toString()), DATES, zone, ScanMode.STREAM, null).orElseThrow();
+        Instant start = DATES.getFirst().atStartOfDay(zone).toInstant();
+        Map<LocalDate, List<Cookie>> result = Map.of(DATES.getFirst(), List.of(new Cookie("b", start), new Cookie("a", start)));
+
+        assertTrue(cache.getMostActive(key).isEmpty());
+        cache.putMostActive(key, result);
+
+        Map<LocalDate, List<Cookie>> cached = cache.getMostActive(key).orElseThrow();
+        assertEquals(List.of("b", "a"), cached.get(DATES.getFirst()).stream().map(Cookie::getValue).toList());
+        assertEquals(start, cached.get(DATES.getFirst()).getFirst().getTimestamp());
+    }
+
+    @Test
+    void testGetTop_keyedByQueryAndFileIdentity() throws IOException {
+        Path log = log("cookies.csv", "cookie,timestamp\n");
+        ResultCache cache = new ResultCache(tempDir.resolve("cache"), ResultCache.DEFAULT_MAX_BYTES, false);
+        ResultCache.Key key = cache.key(List.of(log.toString()), DATES, ZoneOffset.UTC, ScanMode.STREAM, 2).orElseThrow();
+        Map<LocalDate, List<CookieCount>> result = Map.of(DATES.getFirst(), List.of(new CookieCount("a", 3), new CookieCount("b", 1)));
+
+        cache.putTop(key, result);
+
+        assertEquals(result, cache.getTop(key).orElseThrow());
+        assertTrue(cache.getTop(cache.key(List.of(log.toString()), DATES, ZoneOffset.UTC, ScanMode.STREAM, 3).orElseThrow()).isEmpty());
+        assertTrue(cache.getMostActive(cache.key(List.of(log.toString()), DATES, ZoneOffset.UTC, ScanMode.STREAM, null).orElseThrow()).isEmpty());
+        Files.writeString(log, "cookie,timestamp\na,2025-07-07T10:00:00Z\n");
+        assertTrue(cache.getTop(cache.key(List.of(log.toString()), DATES, ZoneOffset.UTC, ScanMode.STREAM, 2).orElseThrow()).isEmpty());
+    }
+
+    @Test
+    void testGetTop_keyedByScanMode() throws IOException {
+        Path log = log("cookies.csv", "cookie,timestamp\n");
+        ResultCache cache = new ResultCache(tempDir.resolve("cache"), ResultCache.DEFAULT_MAX_BYTES, false);
+        ResultCache.Key streamKey = cache.key(List.of(log.toString()), DATES, ZoneOffset.UTC, ScanMode.STREAM, 2).orElseThrow();
+        ResultCache.Key orderedKey = cache.key(List.of(log.toString()), DATES, ZoneOffset.UTC, ScanMode.ORDERED, 2).orElseThrow();
+        Map<LocalDate, List<CookieCount>> streamed = Map.of(DATES.getFirst(), List.of(new CookieCount("a", 3)));
+        Map<LocalDate, List<CookieCount>> ordered = Map.of(DATES.getFirst(), List.of(new CookieCount("b", 1)));
+
+        cache.putTop(streamKey, streamed);
+        assertTrue(cache.getTop(orderedKey).isEmpty());
+        cache.putTop(orderedKey, ordered);
+
+        assertEquals(streamed, cache.getTop(streamKey).orElseThrow());
+        assertEquals(ordered, cache.getTop(orderedKey).orElseThrow());
+        assertEquals(2, entries(tempDir.resolve("cache")));
+    }
+
+    @Test
+    void testConstructor_deletesStaleTemporaryFiles() throws IOException {
+        Path directory = Files.createDirectory(tempDir.resolve("cache"));
+        Path stale = Files.writeString(directory.resolve("abc123.tmp"), "partial");
+        Files.setLastModifiedTime(stale, FileTime.from(Instant.now().minusSeconds(2 * 3600)));
+        Path recent = Files.writeString(directory.resolve("def456.tmp"), "partial");
+
+        new ResultCache(directory, ResultCache.DEFAULT_MAX_BYTES, false);
+
+        assertFalse(Files.exists(stale));
+        assertTrue(Files.exists(recent));
+        new ResultCache(tempDir.resolve("missing"), ResultCache.DEFAULT_MAX_BYTES, false);
+    }
+
+    @Test
+    void testKey_fingerprintDetectsRewriteWithSameSizeAndTime() throws IOException {
+        Path log = log("cookies.csv", "cookie,timestamp\na,2025-07-07T10:00:00Z\n");
+        FileTime modified = Files.getLastModifiedTime(log);
+        ResultCache plain = new ResultCache(tempDir.resolve("cache"), ResultCache.DEFAULT_MAX_BYTES, false);
+        ResultCache fingerprinted = new ResultCache(tempDir.resolve("cache"), ResultCache.DEFAULT_MAX_BYTES, true);
+        ResultCache.Key plainKey = plain.key(List.of(log.toString()), DATES, ZoneOffset.UTC, ScanMode.STREAM, null).orElseThrow();
+        ResultCache.Key fingerprintedKey = fingerprinted.key(List.of(log.toString()), DATES, ZoneOffset.UTC, ScanMode.STREAM, null).orElseThrow();
+
+        Files.writeString(log, "cookie,timestamp\nb,2025-07-07T10:00:00Z\n");
+        Files.setLastModifiedTime(log, modified);
+
+        assertEquals(plainKey, plain.key(List.of(log.toString()), DATES, ZoneOffset.UTC, ScanMode.STREAM, null).orElseThrow());
+        assertNotEquals(fingerprintedKey, fingerprinted.key(List.of(log.toString()), DATES, ZoneOffset.UTC, ScanMode.STREAM, null).orElseThrow());
+    }
+
+    @Test
+    void testKey_missingFileOrDirectory_isEmpty() {
+        ResultCache cache = new ResultCache(tempDir.resolve("cache"), ResultCache.DEFAULT_MAX_BYTES, false);
+
+        assertTrue(cache.key(List.of(tempDir.resolve("missing.csv").toString()), DATES, ZoneOffset.UTC, ScanMode.STREAM, null).isEmpty());
+        assertTrue(cache.key(List.of(tempDir.toString()), DATES, ZoneOffset.UTC, ScanMode.STREAM, null).isEmpty());
+    }
+
+    @Test
+    void testPut_evictsLeastRecentlyUsedEntries() throws IOException {
+        Path directory = tempDir.resolve("cache");
+        Path first = log("first.csv", "cookie,timestamp\n");
+        Path second = log("second.csv", "cookie,timestamp\n");
+        Path third = log("third.csv", "cookie,timestamp\n");
+        Map<LocalDate, List<CookieCount>> result = Map.of(DATES.getFirst(), List.of(new CookieCount("a", 1)));
+        ResultCache unbounded = new ResultCache(directory, ResultCache.DEFAULT_MAX_BYTES, false);
+        ResultCache.Key firstKey = unbounded.key(List.of(first.toString()), DATES, ZoneOffset.UTC, ScanMode.STREAM, 1).orElseThrow();
+        ResultCache.Key secondKey = unbounded.key(List.of(second.toString()), DATES, ZoneOffset.UTC, ScanMode.STREAM, 1).orElseThrow();
+        ResultCache.Key thirdKey = unbounded.key(List.of(third.toString()), DATES, ZoneOffset.UTC, ScanMode.STREAM, 1).orElseThrow();
+        unbounded.putTop(firstKey, result);
+        unbounded.putTop(secondKey, result);
+        long entrySize;
+        try (Stream<Path> files = Files.list(directory)) {
+            entrySize = files.filter(file -> file.toString().endsWith(".result")).findFirst().orElseThrow().toFile().length();
+        }
+        // Make the first entry the most recently used one
+        for (Path entry : List.of(directory.resolve(secondKey.hash() + ".result"), directory.resolve(firstKey.hash() + ".result"))) {
+            Files.setLastModifiedTime(entry, FileTime.from(Instant.now().minusSeconds(60)));
+        }
+        unbounded.getTop(firstKey);
+
+        new ResultCache(directory, 2 * entrySize + entrySize / 2, false).putTop(thirdKey, result);
+
+        assertEquals(2, entries(directory));
+        assertTrue(unbounded.getTop(firstKey).isPresent());
+        assertTrue(unbounded.getTop(secondKey).isEmpty());
+        assertTrue(unbounded.getTop(thirdKey).isPresent());
+    }
+
+    @Test
+    void testGet_corruptEntry_isMiss() throws IOException {
+        Path log = log("cookies.csv", "cookie,timestamp\n");
+        Path directory = Files.createDirectory(tempDir.resolve("cache"));
+        ResultCache cache = new ResultCache(directory, ResultCache.DEFAULT_MAX_BYTES, false);
+        ResultCache.Key key = cache.key(List.of(log.toString()), DATES, ZoneOffset.UTC, ScanMode.STREAM, 1).orElseThrow();
+        Files.writeString(directory.resolve(key.hash() + ".result"), "corrupt");
+
+        assertTrue(cache.getTop(key).isEmpty());
+    }
+
+    @Test
+    void testConstructor_nonPositiveSize_throws() {
+        assertThrows(IllegalArgumentException.class, () -> new ResultCache(tempDir, 0, false));
+    }
+}
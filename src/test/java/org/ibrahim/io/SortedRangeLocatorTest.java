@@ -0,0 +1,73 @@
+package org.ibrahim.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortedRangeLocatorTest {
+    private static final String DESCENDING = """
+        cookie,timestamp
+        AtY0laUfhglK3lC7,2018-12-09T14:19:00+00:00
+        SAZuXPGUrfbcn5UA,2018-12-09T10:13:00+00:00
+        5UAVanZf6UtGyKVS,2018-12-09T07:25:00+00:00
+        AtY0laUfhglK3lC7,2018-12-09T06:19:00+00:00
+        SAZuXPGUrfbcn5UA,2018-12-08T22:03:00+00:00
+        4sMM2LxV07bPJzwf,2018-12-08T21:30:00+00:00
+        fbcn5UAVanZf6UtG,2018-12-08T09:30:00+00:00
+        4sMM2LxV07bPJzwf,2018-12-07T23:30:00+00:00
+        """;
+
+    private List<String> locate(String content, String firstDate, String lastDate) {
+        MemorySegment segment = MemorySegment.ofArray(content.getBytes(StandardCharsets.US_ASCII));
+        long dataStart = MappedCookieScanner.skipLine(segment, 0);
+        long[] range = SortedRangeLocator.locate(segment, dataStart,
+            LocalDate.parse(firstDate).toEpochDay(), LocalDate.parse(lastDate).toEpochDay());
+        List<String> timestamps = new ArrayList<>();
+        MappedCookieScanner.scanRange(segment, range[0], range[1], (s, _, _, timestampOffset, timestampLength) ->
+            timestamps.add(MappedCookieScanner.toString(s, timestampOffset, timestampLength)));
+        return timestamps;
+    }
+
+    @Test
+    void testLocate_descending() {
+        assertEquals(List.of(
+            "2018-12-08T22:03:00+00:00",
+            "2018-12-08T21:30:00+00:00",
+            "2018-12-08T09:30:00+00:00"), locate(DESCENDING, "2018-12-08", "2018-12-08"));
+        assertEquals(4, locate(DESCENDING, "2018-12-09", "2018-12-09").size());
+        assertEquals(List.of("2018-12-07T23:30:00+00:00"), locate(DESCENDING, "2018-12-07", "2018-12-07"));
+    }
+
+    @Test
+    void testLocate_ascending() {
+        StringBuilder content = new StringBuilder("cookie,timestamp\n");
+        for (int day = 1; day <= 28; day++) {
+            for (int hour = 0; hour < day % 5; hour++) {
+                content.append("c").append(day).append(String.format(",2024-02-%02dT%02d:00:00Z%n", day, hour));
+            }
+        }
+        List<String> timestamps = locate(content.toString(), "2024-02-13", "2024-02-14");
+        assertEquals(List.of(
+            "2024-02-13T00:00:00Z", "2024-02-13T01:00:00Z", "2024-02-13T02:00:00Z",
+            "2024-02-14T00:00:00Z", "2024-02-14T01:00:00Z", "2024-02-14T02:00:00Z", "2024-02-14T03:00:00Z"),
+            timestamps);
+        assertTrue(locate(content.toString(), "2024-02-10", "2024-02-10").isEmpty());
+    }
+
+    @Test
+    void testLocate_dayOutsideFile() {
+        assertTrue(locate(DESCENDING, "2018-12-10", "2018-12-10").isEmpty());
+        assertTrue(locate(DESCENDING, "2018-12-01", "2018-12-01").isEmpty());
+    }
+
+    @Test
+    void testLocate_noRecords() {
+        assertTrue(locate("cookie,timestamp\n", "2018-12-09", "2018-12-09").isEmpty());
+    }
+}
@@ -0,0 +1,81 @@
+package org.ibrahim.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TimestampDecoderTest {
+    private static long decode(String timestamp) {
+        byte[] bytes = ("x," + timestamp + "\n").getBytes(StandardCharsets.US_ASCII);
+        return TimestampDecoder.epochSecond(MemorySegment.ofArray(bytes), 2, timestamp.length());
+    }
+
+    @Test
+    void testEpochSecond_utc() {
+        assertEquals(Instant.parse("2018-12-09T14:19:00Z").getEpochSecond(), decode("2018-12-09T14:19:00Z"));
+        assertEquals(Instant.parse("2018-12-09T14:19:00Z").getEpochSecond(), decode("2018-12-09T14:19:00+00:00"));
+    }
+
+    @Test
+    void testEpochSecond_appliesOffset() {
+        assertEquals(Instant.parse("2018-12-09T12:49:00Z").getEpochSecond(), decode("2018-12-09T14:19:00+01:30"));
+        assertEquals(Instant.parse("2018-12-10T01:30:00Z").getEpochSecond(), decode("2018-12-09T23:30:00-02:00"));
+        assertEquals(LocalDate.parse("2018-12-10").toEpochDay(), TimestampDecoder.epochDay(decode("2018-12-09T23:30:00-02:00")));
+    }
+
+    @Test
+    void testEpochSecond_fraction() {
+        assertEquals(Instant.parse("2018-12-09T14:19:00Z").getEpochSecond(), decode("2018-12-09T14:19:00.999Z"));
+        assertEquals(TimestampDecoder.INVALID, decode("2018-12-09T14:19:00.Z"));
+        assertEquals(TimestampDecoder.INVALID, decode("2018-12-09T14:19:00.1234567890Z"));
+    }
+
+    @Test
+    void testEpochSecond_beforeEpoch() {
+        assertEquals(-1, decode("1969-12-31T23:59:59Z"));
+        assertEquals(-1, TimestampDecoder.epochDay(-1));
+    }
+
+    @Test
+    void testEpochSecond_invalid() {
+        assertEquals(TimestampDecoder.INVALID, decode("not-a-date"));
+        assertEquals(TimestampDecoder.INVALID, decode("2018-12-09 14:19:00Z"));
+        assertEquals(TimestampDecoder.INVALID, decode("2018-02-30T14:19:00Z"));
+        assertEquals(TimestampDecoder.INVALID, decode("2018-12-09T24:00:00Z"));
+        assertEquals(TimestampDecoder.INVALID, decode("2018-12-09T14:19:00"));
+        assertEquals(TimestampDecoder.INVALID, decode("2018-12-09T14:19:00+0100"));
+        assertEquals(TimestampDecoder.INVALID, decode("2018-12-09T14:19:00Zx"));
+    }
+
+    @Test
+    void testEpochSecond_matchesJavaTimeForRandomTimestamps() {
+        Random random = new Random(42);
+        DateTimeFormatter formatter = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+        for (int i = 0; i < 10_000; i++) {
+            long epochSecond = random.nextLong(-4_000_000_000L, 8_000_000_000L);
+            ZoneOffset offset = ZoneOffset.ofTotalSeconds((random.nextInt(-18 * 4, 18 * 4 + 1)) * 900);
+            String text = OffsetDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), offset).format(formatter);
+            if (offset.getTotalSeconds() == 0 && random.nextBoolean()) {
+                text = text.replace("Z", "+00:00");
+            }
+            assertEquals(epochSecond, decode(text), text);
+        }
+    }
+
+    @Test
+    void testEpochDay_matchesLocalDate() {
+        for (long day = -800_000; day <= 800_000; day += 97) {
+            LocalDate date = LocalDate.ofEpochDay(day);
+            assertEquals(day, TimestampDecoder.epochDay(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.ibrahim.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CompileArgsTest {
+    @Test
+    void testDefaultOutput() {
+        assertEquals("logs/cookie_log.ccol", CompileArgs.defaultOutput("logs/cookie_log.csv"));
+        assertEquals("cookie_log.ccol", CompileArgs.defaultOutput("cookie_log.csv.gz"));
+        assertEquals("cookie_log.txt.ccol", CompileArgs.defaultOutput("cookie_log.txt"));
+    }
+}
@@ -3,16 +3,38 @@ package org.ibrahim.model;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class FilterArgsTest {
 
+  @Test
+  void setFilename_replacesFiles() {
+    FilterArgs args = new FilterArgs();
+    assertNull(args.getFilename());
+    args.getFiles().addAll(List.of("a.csv", "b.csv"));
+    assertEquals("a.csv", args.getFilename());
+    args.setFilename("c.csv");
+    assertEquals(List.of("c.csv"), args.getFiles());
+  }
+
   @Test
   void setDate_validDate_setsDate() {
     FilterArgs args = new FilterArgs();
     args.setDate("2025-07-07");
-    assertEquals(LocalDate.of(2025, 7, 7), args.getDate());
+    assertEquals(List.of(LocalDate.of(2025, 7, 7)), args.getDates());
+  }
+
+  @Test
+  void addDate_validDates_keepsOrder() {
+    FilterArgs args = new FilterArgs();
+    args.addDate("2025-07-08");
+    args.addDate(" 2025-07-07 ");
+    assertEquals(List.of(LocalDate.of(2025, 7, 8), LocalDate.of(2025, 7, 7)), args.getDates());
+    args.setDate("2025-07-09");
+    assertEquals(List.of(LocalDate.of(2025, 7, 9)), args.getDates());
   }
 
   @Test
@@ -21,4 +43,106 @@ class FilterArgsTest {
     Exception ex = assertThrows(IllegalArgumentException.class, () -> args.setDate("not-a-date"));
     assertEquals("Invalid date format. Expected format: yyyy-MM-dd", ex.getMessage());
   }
-}
\ No newline at end of file
+
+  @Test
+  void setMode_validMode_setsMode() {
+    FilterArgs args = new FilterArgs();
+    assertEquals(ScanMode.STREAM, args.getMode());
+    args.setMode("Mapped");
+    assertEquals(ScanMode.MAPPED, args.getMode());
+  }
+
+  @Test
+  void setMode_invalidMode_throwsException() {
+    FilterArgs args = new FilterArgs();
+    assertThrows(IllegalArgumentException.class, () -> args.setMode("warp"));
+  }
+
+  @Test
+  void setTop_validCount_setsTop() {
+    FilterArgs args = new FilterArgs();
+    assertNull(args.getTop());
+    args.setTop("10");
+    assertEquals(10, args.getTop());
+  }
+
+  @Test
+  void setTop_invalidCount_throwsException() {
+    FilterArgs args = new FilterArgs();
+    assertThrows(IllegalArgumentException.class, () -> args.setTop("0"));
+    assertThrows(IllegalArgumentException.class, () -> args.setTop("ten"));
+    assertNull(args.getTop());
+  }
+
+  @Test
+  void setApprox_validCapacity_setsApprox() {
+    FilterArgs args = new FilterArgs();
+    assertNull(args.getApprox());
+    args.setApprox("1000");
+    assertEquals(1000, args.getApprox());
+  }
+
+  @Test
+  void setApprox_invalidCapacity_throwsException() {
+    FilterArgs args = new FilterArgs();
+    assertThrows(IllegalArgumentException.class, () -> args.setApprox("0"));
+    assertThrows(IllegalArgumentException.class, () -> args.setApprox("many"));
+    assertNull(args.getApprox());
+  }
+
+  @Test
+  void setSpill_validThreshold_setsSpill() {
+    FilterArgs args = new FilterArgs();
+    assertNull(args.getSpill());
+    args.setSpill("1000000");
+    assertEquals(1000000, args.getSpill());
+  }
+
+  @Test
+  void setSpill_invalidThreshold_throwsException() {
+    FilterArgs args = new FilterArgs();
+    assertThrows(IllegalArgumentException.class, () -> args.setSpill("-5"));
+    assertThrows(IllegalArgumentException.class, () -> args.setSpill("lots"));
+    assertNull(args.getSpill());
+  }
+
+  @Test
+  void setStats_parsesFormatCaseInsensitively() {
+    FilterArgs args = new FilterArgs();
+    assertNull(args.getStats());
+    args.setStats("JSON");
+    assertEquals(StatsFormat.JSON, args.getStats());
+    args.setStats("text");
+    assertEquals(StatsFormat.TEXT, args.getStats());
+  }
+
+  @Test
+  void setStats_unknownFormat_throwsException() {
+    FilterArgs args = new FilterArgs();
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> args.setStats("xml"));
+    assertEquals("Invalid statistics format: xml. Expected text or json", e.getMessage());
+    assertNull(args.getStats());
+  }
+
+  @Test
+  void addDateRange_addsEveryDateInclusive() {
+    FilterArgs args = new FilterArgs();
+    args.addDateRange("2024-02-28", "2024-03-01");
+    assertEquals(List.of(LocalDate.of(2024, 2, 28), LocalDate.of(2024, 2, 29), LocalDate.of(2024, 3, 1)), args.getDates());
+  }
+
+  @Test
+  void addDateRange_reversedRange_throwsException() {
+    FilterArgs args = new FilterArgs();
+    assertThrows(IllegalArgumentException.class, () -> args.addDateRange("2024-03-01", "2024-02-28"));
+  }
+
+  @Test
+  void setZone_validAndInvalidZones() {
+    FilterArgs args = new FilterArgs();
+    assertEquals(ZoneOffset.UTC, args.getZone());
+    args.setZone("+02:00");
+    assertEquals(ZoneOffset.ofHours(2), args.getZone());
+    assertThrows(IllegalArgumentException.class, () -> args.setZone("Nowhere/Town"));
+  }
+}
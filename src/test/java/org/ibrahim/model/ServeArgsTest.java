@@ -0,0 +1,26 @@
+package org.ibrahim.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ServeArgsTest {
+    @Test
+    void testSetPort() {
+        ServeArgs serveArgs = new ServeArgs();
+        serveArgs.setPort(" 0 ");
+        assertEquals(0, serveArgs.getPort());
+        assertThrows(IllegalArgumentException.class, () -> serveArgs.setPort("-1"));
+        assertThrows(IllegalArgumentException.class, () -> serveArgs.setPort("http"));
+    }
+
+    @Test
+    void testSetCacheDays() {
+        ServeArgs serveArgs = new ServeArgs();
+        serveArgs.setCacheDays("31");
+        assertEquals(31, serveArgs.getCacheDays());
+        assertThrows(IllegalArgumentException.class, () -> serveArgs.setCacheDays("0"));
+        assertThrows(IllegalArgumentException.class, () -> serveArgs.setCacheDays("many"));
+    }
+}
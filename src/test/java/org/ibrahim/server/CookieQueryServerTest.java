@@ -0,0 +1,207 @@
+package org.ibrahim.server;
+
+import org.ibrahim.business.MostActiveCookieFinder;
+import org.ibrahim.io.CookieParser;
+import org.ibrahim.model.ScanMode;
+import org.ibrahim.model.ServeArgs;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class CookieQueryServerTest {
+    private static final String LOG = """
+        cookie,timestamp
+        AtY0laUfhglK3lC7,2018-12-09T14:19:00+00:00
+        SAZuXPGUrfbcn5UA,2018-12-09T10:13:00+00:00
+        5UAVanZf6UtGyKVS,2018-12-09T07:25:00+00:00
+        AtY0laUfhglK3lC7,2018-12-09T06:19:00+00:00
+        SAZuXPGUrfbcn5UA,2018-12-08T22:03:00+00:00
+        4sMM2LxV07bPJzwf,2018-12-08T21:30:00+00:00
+        fbcn5UAVanZf6UtG,2018-12-08T09:30:00+00:00
+        4sMM2LxV07bPJzwf,2018-12-07T23:30:00+00:00
+        """;
+
+    @TempDir
+    Path root;
+    MostActiveCookieFinder finder = spy(new MostActiveCookieFinder(new CookieParser()));
+    CookieQueryServer target = new CookieQueryServer(finder);
+    HttpClient client = HttpClient.newHttpClient();
+    String baseUrl;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.writeString(root.resolve("cookie_log.csv"), LOG);
+        ServeArgs serveArgs = new ServeArgs();
+        serveArgs.setPort("0");
+        serveArgs.setCacheDays("8");
+        serveArgs.setRoot(root.toString());
+        InetSocketAddress address = target.start(serveArgs);
+        baseUrl = "http://127.0.0.1:" + address.getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        target.stop();
+        client.close();
+    }
+
+    private HttpResponse<String> get(String pathAndQuery) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + pathAndQuery)).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void testQuery_mostActiveCookie() throws Exception {
+        HttpResponse<String> response = get("/most-active?file=cookie_log.csv&date=2018-12-09");
+
+        assertEquals(200, response.statusCode());
+        assertEquals("application/json; charset=utf-8", response.headers().firstValue("Content-Type").orElseThrow());
+        assertEquals("{\"2018-12-09\":[{\"cookie\":\"AtY0laUfhglK3lC7\",\"count\":2}]}", response.body());
+    }
+
+    @Test
+    void testQuery_repeatedQueryAnsweredFromCache() throws Exception {
+        get("/most-active?file=cookie_log.csv&date=2018-12-09");
+        HttpResponse<String> response = get("/most-active?file=cookie_log.csv&date=2018-12-09");
+
+        assertEquals("{\"2018-12-09\":[{\"cookie\":\"AtY0laUfhglK3lC7\",\"count\":2}]}", response.body());
+        verify(finder, times(1)).countCookiesByDate(anyString(), anyList(), any(), any());
+        assertEquals("{\"status\":\"up\",\"cachedDays\":1,\"cacheHits\":1,\"cacheMisses\":2}", get("/health").body());
+    }
+
+    @Test
+    void testQuery_countsOnlyMissingDates() throws Exception {
+        get("/most-active?file=cookie_log.csv&date=2018-12-09&mode=mapped");
+        HttpResponse<String> response = get("/most-active?file=cookie_log.csv&date=2018-12-08,2018-12-09&mode=mapped");
+
+        assertEquals("{\"2018-12-08\":[{\"cookie\":\"SAZuXPGUrfbcn5UA\",\"count\":1},"
+            + "{\"cookie\":\"4sMM2LxV07bPJzwf\",\"count\":1},{\"cookie\":\"fbcn5UAVanZf6UtG\",\"count\":1}],"
+            + "\"2018-12-09\":[{\"cookie\":\"AtY0laUfhglK3lC7\",\"count\":2}]}", response.body());
+        verify(finder).countCookiesByDate(eq(root.toRealPath().resolve("cookie_log.csv").toString()),
+            eq(List.of(LocalDate.parse("2018-12-08"))), eq(ZoneOffset.UTC), eq(ScanMode.MAPPED));
+    }
+
+    @Test
+    void testQuery_otherModeIsCountedAgain() throws Exception {
+        get("/most-active?file=cookie_log.csv&date=2018-12-09");
+        HttpResponse<String> response = get("/most-active?file=cookie_log.csv&date=2018-12-09&mode=parallel");
+
+        assertEquals("{\"2018-12-09\":[{\"cookie\":\"AtY0laUfhglK3lC7\",\"count\":2}]}", response.body());
+        String file = root.toRealPath().resolve("cookie_log.csv").toString();
+        List<LocalDate> dates = List.of(LocalDate.parse("2018-12-09"));
+        verify(finder).countCookiesByDate(eq(file), eq(dates), eq(ZoneOffset.UTC), eq(ScanMode.STREAM));
+        verify(finder).countCookiesByDate(eq(file), eq(dates), eq(ZoneOffset.UTC), eq(ScanMode.PARALLEL));
+        assertEquals("{\"status\":\"up\",\"cachedDays\":2,\"cacheHits\":0,\"cacheMisses\":4}", get("/health").body());
+    }
+
+    @Test
+    void testQuery_topRangeInZone() throws Exception {
+        HttpResponse<String> response =
+            get("/most-active?file=cookie_log.csv&from=2018-12-08&to=2018-12-09&zone=%2B02:00&top=1");
+
+        assertEquals(200, response.statusCode());
+        assertEquals("{\"2018-12-08\":[{\"cookie\":\"4sMM2LxV07bPJzwf\",\"count\":2}],"
+            + "\"2018-12-09\":[{\"cookie\":\"AtY0laUfhglK3lC7\",\"count\":2},{\"cookie\":\"SAZuXPGUrfbcn5UA\",\"count\":2}]}",
+            response.body());
+    }
+
+    @Test
+    void testQuery_changedFileIsCountedAgain() throws Exception {
+        Path log = root.resolve("cookie_log.csv");
+        get("/most-active?file=cookie_log.csv&date=2018-12-09");
+        Files.writeString(log, LOG + "5UAVanZf6UtGyKVS,2018-12-09T23:00:00+00:00\n"
+            + "5UAVanZf6UtGyKVS,2018-12-09T23:30:00+00:00\n");
+        Files.setLastModifiedTime(log, FileTime.from(Instant.now().plusSeconds(60)));
+
+        HttpResponse<String> response = get("/most-active?file=cookie_log.csv&date=2018-12-09");
+
+        assertEquals("{\"2018-12-09\":[{\"cookie\":\"5UAVanZf6UtGyKVS\",\"count\":3}]}", response.body());
+        verify(finder, times(2)).countCookiesByDate(anyString(), anyList(), any(), any());
+    }
+
+    @Test
+    void testQuery_invalidQueries() throws Exception {
+        assertEquals(400, get("/most-active?date=2018-12-09").statusCode());
+        assertEquals(400, get("/most-active?file=cookie_log.csv").statusCode());
+        assertEquals(400, get("/most-active?file=cookie_log.csv&from=2018-12-09").statusCode());
+        assertEquals(400, get("/most-active?file=cookie_log.csv&from=2018-01-01&to=2018-12-31").statusCode());
+        HttpResponse<String> response = get("/most-active?file=cookie_log.csv&date=09-12-2018");
+        assertEquals(400, response.statusCode());
+        assertEquals("{\"error\":\"Invalid date format. Expected format: yyyy-MM-dd\"}", response.body());
+    }
+
+    @Test
+    void testQuery_inaccessibleFiles() throws Exception {
+        Path outside = Files.createTempFile("cookie_log", ".csv");
+        try {
+            assertEquals(404, get("/most-active?file=missing.csv&date=2018-12-09").statusCode());
+            assertEquals(403, get("/most-active?file=" + outside + "&date=2018-12-09").statusCode());
+            assertEquals(403, get("/most-active?file=../" + outside.getFileName() + "&date=2018-12-09").statusCode());
+            assertEquals(403, get("/most-active?file=.&date=2018-12-09").statusCode());
+        } finally {
+            Files.delete(outside);
+        }
+    }
+
+    @Test
+    void testQuery_invalidFile_unprocessable() throws Exception {
+        Files.writeString(root.resolve("broken.csv"), "cookie,timestamp\nabc,yesterday\n");
+
+        assertEquals(422, get("/most-active?file=broken.csv&date=2018-12-09").statusCode());
+    }
+
+    @Test
+    void testQuery_postNotAllowed() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/most-active"))
+            .POST(HttpRequest.BodyPublishers.noBody()).build();
+
+        assertEquals(405, client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    void testStop_releasesWaitingThreads() throws Exception {
+        Thread waiter = Thread.ofVirtual().start(target::awaitStop);
+
+        target.stop();
+        waiter.join(5000);
+
+        assertFalse(waiter.isAlive());
+    }
+
+    @Test
+    void testParseQuery_decodesRepeatedParameters() {
+        assertEquals(Map.of("file", List.of("logs/a b.csv"), "date", List.of("2018-12-08", "2018-12-09"), "top", List.of("")),
+            CookieQueryServer.parseQuery("file=logs%2Fa+b.csv&date=2018-12-08&&date=2018-12-09&top"));
+        assertEquals(Map.of(), CookieQueryServer.parseQuery(null));
+    }
+
+    @Test
+    void testQuote_escapesJson() {
+        assertEquals("\"a\\\"b\\\\c\\n\\u0001\"", CookieQueryServer.quote("a\"b\\c\n\u0001"));
+    }
+}
@@ -0,0 +1,66 @@
+package org.ibrahim.server;
+
+import org.ibrahim.business.CookieCounter;
+import org.ibrahim.model.ScanMode;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DayCountCacheTest {
+    private static DayCountCache.Key key(String date) {
+        return new DayCountCache.Key(Path.of("/logs/cookie_log.csv"), 100, 1000, ZoneOffset.UTC, ScanMode.STREAM,
+            LocalDate.parse(date));
+    }
+
+    @Test
+    void testGet_countsHitsAndMisses() {
+        DayCountCache cache = new DayCountCache(2);
+        CookieCounter counter = new CookieCounter();
+
+        assertNull(cache.get(key("2025-07-06")));
+        cache.put(key("2025-07-06"), counter);
+
+        assertSame(counter, cache.get(key("2025-07-06")));
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testPut_evictsLeastRecentlyUsed() {
+        DayCountCache cache = new DayCountCache(2);
+        cache.put(key("2025-07-05"), new CookieCounter());
+        cache.put(key("2025-07-06"), new CookieCounter());
+        cache.get(key("2025-07-05"));
+
+        cache.put(key("2025-07-07"), new CookieCounter());
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(key("2025-07-05")));
+        assertNull(cache.get(key("2025-07-06")));
+        assertNotNull(cache.get(key("2025-07-07")));
+    }
+
+    @Test
+    void testGet_changedFileZoneOrModeMisses() {
+        DayCountCache cache = new DayCountCache(4);
+        LocalDate date = LocalDate.parse("2025-07-06");
+        Path file = Path.of("/logs/cookie_log.csv");
+        cache.put(key("2025-07-06"), new CookieCounter());
+
+        assertNull(cache.get(new DayCountCache.Key(file, 120, 1000, ZoneOffset.UTC, ScanMode.STREAM, date)));
+        assertNull(cache.get(new DayCountCache.Key(file, 100, 2000, ZoneOffset.UTC, ScanMode.STREAM, date)));
+        assertNull(cache.get(new DayCountCache.Key(file, 100, 1000, ZoneId.of("Europe/Berlin"), ScanMode.STREAM, date)));
+        assertNull(cache.get(new DayCountCache.Key(file, 100, 1000, ZoneOffset.UTC, ScanMode.PARALLEL, date)));
+    }
+
+    @Test
+    void testConstructor_nonPositiveCapacity_throws() {
+        assertThrows(IllegalArgumentException.class, () -> new DayCountCache(0));
+    }
+}
@@ -1,23 +1,51 @@
 package org.ibrahim.service;
 
+import org.ibrahim.business.CookieLogCompiler;
+import org.ibrahim.business.CookieLogFollower;
 import org.ibrahim.business.MostActiveCookieFinder;
 import org.ibrahim.cli.CommandParser;
 import org.ibrahim.io.CookiePrinter;
+import org.ibrahim.model.ApproximateCount;
+import org.ibrahim.model.CompileArgs;
 import org.ibrahim.model.Cookie;
+import org.ibrahim.model.CookieCount;
 import org.ibrahim.model.FilterArgs;
+import org.ibrahim.model.RunStats;
+import org.ibrahim.model.ScanMode;
+import org.ibrahim.model.ServeArgs;
+import org.ibrahim.model.StatsFormat;
+import org.ibrahim.server.CookieQueryServer;
+import org.ibrahim.stats.RunStatistics;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 class CookieServiceTest {
   CommandParser commandParser = mock(CommandParser.class);
   MostActiveCookieFinder finder = mock(MostActiveCookieFinder.class);
   CookiePrinter printer = mock(CookiePrinter.class);
-  CookieService target = new CookieService(commandParser, finder, printer);
+  CookieLogCompiler compiler = mock(CookieLogCompiler.class);
+  CookieQueryServer server = mock(CookieQueryServer.class);
+  CookieLogFollower follower = mock(CookieLogFollower.class);
+  RunStatistics statistics = new RunStatistics();
+  CookieService target = new CookieService(commandParser, finder, printer, compiler, server, follower, statistics);
 
   @Test
   void testRun_withFilterArgs_Runs() {
@@ -27,15 +55,57 @@ class CookieServiceTest {
     filterArgs.setDate("2025-07-07");
     filterArgs.setFilename("file.csv");
     when(commandParser.parseArgs(args)).thenReturn(Optional.of(filterArgs));
-    List<Cookie> cookies = List.of(mock(Cookie.class));
-    when(finder.findMostActiveCookies("file.csv", LocalDate.parse("2025-07-07"))).thenReturn(cookies);
+    Map<LocalDate, List<Cookie>> cookies = Map.of(LocalDate.parse("2025-07-07"), List.of(mock(Cookie.class)));
+    when(finder.findMostActiveCookies(List.of("file.csv"), List.of(LocalDate.parse("2025-07-07")), ZoneOffset.UTC, ScanMode.STREAM)).thenReturn(cookies);
 
     target.run(args);
 
+    verify(commandParser).isCompileCommand(args);
+    verify(commandParser).isServeCommand(args);
     verify(commandParser).parseArgs(args);
-    verify(finder).findMostActiveCookies("file.csv", LocalDate.parse("2025-07-07"));
+    verify(finder).findMostActiveCookies(List.of("file.csv"), List.of(LocalDate.parse("2025-07-07")), ZoneOffset.UTC, ScanMode.STREAM);
     verify(printer).print(cookies);
-    verifyNoMoreInteractions(commandParser, finder, printer);
+    verifyNoMoreInteractions(commandParser, finder, printer, compiler, server, follower);
+  }
+
+  @Test
+  void testRun_withStats_printsStatsAfterResults() {
+    String[] args = {"-f", "file.csv", "-d", "2025-07-07", "--stats", "json"};
+    FilterArgs filterArgs = new FilterArgs();
+    filterArgs.setDate("2025-07-07");
+    filterArgs.setFilename("file.csv");
+    filterArgs.setStats("json");
+    when(commandParser.parseArgs(args)).thenReturn(Optional.of(filterArgs));
+    Map<LocalDate, List<Cookie>> cookies = Map.of(LocalDate.parse("2025-07-07"), List.of(mock(Cookie.class)));
+    when(finder.findMostActiveCookies(List.of("file.csv"), List.of(LocalDate.parse("2025-07-07")), ZoneOffset.UTC, ScanMode.STREAM)).thenReturn(cookies);
+
+    target.run(args);
+
+    InOrder inOrder = inOrder(printer);
+    inOrder.verify(printer).print(cookies);
+    inOrder.verify(printer).printStats(any(RunStats.class), eq(StatsFormat.JSON));
+    assertTrue(statistics.isEnabled());
+  }
+
+  @Test
+  void testRun_withTop_printsCounts() {
+    String[] args = {"-f", "file.csv", "-d", "2025-07-07", "-t", "3"};
+    FilterArgs filterArgs = new FilterArgs();
+    filterArgs.setDate("2025-07-07");
+    filterArgs.setFilename("file.csv");
+    filterArgs.setTop("3");
+    when(commandParser.parseArgs(args)).thenReturn(Optional.of(filterArgs));
+    Map<LocalDate, List<CookieCount>> counts = Map.of(LocalDate.parse("2025-07-07"), List.of(new CookieCount("abc", 2)));
+    when(finder.findTopCookies(List.of("file.csv"), List.of(LocalDate.parse("2025-07-07")), ZoneOffset.UTC, ScanMode.STREAM, 3)).thenReturn(counts);
+
+    target.run(args);
+
+    verify(commandParser).isCompileCommand(args);
+    verify(commandParser).isServeCommand(args);
+    verify(commandParser).parseArgs(args);
+    verify(finder).findTopCookies(List.of("file.csv"), List.of(LocalDate.parse("2025-07-07")), ZoneOffset.UTC, ScanMode.STREAM, 3);
+    verify(printer).printCounts(counts);
+    verifyNoMoreInteractions(commandParser, finder, printer, compiler, server, follower);
   }
 
   @Test
@@ -45,7 +115,192 @@ class CookieServiceTest {
 
     target.run(args);
 
+    verify(commandParser).isCompileCommand(args);
+    verify(commandParser).isServeCommand(args);
     verify(commandParser).parseArgs(args);
-    verifyNoMoreInteractions(commandParser, finder, printer);
+    verifyNoMoreInteractions(commandParser, finder, printer, compiler, server, follower);
+  }
+
+  @Test
+  void testRun_compileCommand_compiles() {
+    String[] args = {"compile", "-f", "file.csv"};
+    CompileArgs compileArgs = new CompileArgs();
+    compileArgs.setInput("file.csv");
+    compileArgs.setOutput("file.ccol");
+    when(commandParser.isCompileCommand(args)).thenReturn(true);
+    when(commandParser.parseCompileArgs(args)).thenReturn(Optional.of(compileArgs));
+    when(compiler.compile("file.csv", "file.ccol")).thenReturn(3L);
+
+    target.run(args);
+
+    verify(commandParser).isCompileCommand(args);
+    verify(commandParser).parseCompileArgs(args);
+    verify(compiler).compile("file.csv", "file.ccol");
+    verify(printer).printCompiled(3, "file.ccol");
+    verifyNoMoreInteractions(commandParser, finder, printer, compiler, server, follower);
+  }
+
+  @Test
+  void testRun_serveCommand_servesUntilStopped() {
+    String[] args = {"serve", "-p", "0"};
+    ServeArgs serveArgs = new ServeArgs();
+    InetSocketAddress address = new InetSocketAddress("127.0.0.1", 8080);
+    when(commandParser.isServeCommand(args)).thenReturn(true);
+    when(commandParser.parseServeArgs(args)).thenReturn(Optional.of(serveArgs));
+    when(server.start(serveArgs)).thenReturn(address);
+
+    target.run(args);
+
+    verify(commandParser).isCompileCommand(args);
+    verify(commandParser).isServeCommand(args);
+    verify(commandParser).parseServeArgs(args);
+    verify(server).start(serveArgs);
+    verify(printer).printServing(address, CookieQueryServer.QUERY_PATH);
+    verify(server).awaitStop();
+    verifyNoMoreInteractions(commandParser, finder, printer, compiler, server, follower);
+  }
+
+  @Test
+  void testRun_follow_followsFile() {
+    String[] args = {"-f", "file.csv", "-d", "2025-07-07", "--follow"};
+    FilterArgs filterArgs = new FilterArgs();
+    filterArgs.setDate("2025-07-07");
+    filterArgs.setFilename("file.csv");
+    filterArgs.setFollow(true);
+    when(commandParser.parseArgs(args)).thenReturn(Optional.of(filterArgs));
+
+    target.run(args);
+
+    verify(commandParser).isCompileCommand(args);
+    verify(commandParser).isServeCommand(args);
+    verify(commandParser).parseArgs(args);
+    verify(follower).follow(eq("file.csv"), eq(List.of(LocalDate.parse("2025-07-07"))), eq(ZoneOffset.UTC), isNull(), any());
+    verifyNoMoreInteractions(commandParser, finder, printer, compiler, server, follower);
+  }
+
+  @Test
+  void testRun_approx_printsApproximateCounts() {
+    String[] args = {"-f", "file.csv", "-d", "2025-07-07", "--approx", "100"};
+    FilterArgs filterArgs = new FilterArgs();
+    filterArgs.setDate("2025-07-07");
+    filterArgs.setFilename("file.csv");
+    filterArgs.setApprox("100");
+    Map<LocalDate, List<ApproximateCount>> counts =
+        Map.of(LocalDate.parse("2025-07-07"), List.of(new ApproximateCount("cookie1", 5, 1)));
+    when(commandParser.parseArgs(args)).thenReturn(Optional.of(filterArgs));
+    when(finder.findApproximateTopCookies(List.of("file.csv"), List.of(LocalDate.parse("2025-07-07")), ZoneOffset.UTC, 1, 100))
+        .thenReturn(counts);
+
+    target.run(args);
+
+    verify(commandParser).isCompileCommand(args);
+    verify(commandParser).isServeCommand(args);
+    verify(commandParser).parseArgs(args);
+    verify(finder).findApproximateTopCookies(List.of("file.csv"), List.of(LocalDate.parse("2025-07-07")), ZoneOffset.UTC, 1, 100);
+    verify(printer).printApproximate(counts);
+    verifyNoMoreInteractions(commandParser, finder, printer, compiler, server, follower);
+  }
+
+  @Test
+  void testRun_spill_findsCookiesSpilling() {
+    String[] args = {"-f", "file.csv", "-d", "2025-07-07", "--spill", "1000"};
+    FilterArgs filterArgs = new FilterArgs();
+    filterArgs.setDate("2025-07-07");
+    filterArgs.setFilename("file.csv");
+    filterArgs.setSpill("1000");
+    Map<LocalDate, List<Cookie>> cookies =
+        Map.of(LocalDate.parse("2025-07-07"), List.of(new Cookie("cookie1", Instant.parse("2025-07-07T00:00:00Z"))));
+    when(commandParser.parseArgs(args)).thenReturn(Optional.of(filterArgs));
+    when(finder.findMostActiveCookiesSpilling(List.of("file.csv"), List.of(LocalDate.parse("2025-07-07")), ZoneOffset.UTC, 1000))
+        .thenReturn(cookies);
+
+    target.run(args);
+
+    verify(commandParser).isCompileCommand(args);
+    verify(commandParser).isServeCommand(args);
+    verify(commandParser).parseArgs(args);
+    verify(finder).findMostActiveCookiesSpilling(List.of("file.csv"), List.of(LocalDate.parse("2025-07-07")), ZoneOffset.UTC, 1000);
+    verify(printer).print(cookies);
+    verifyNoMoreInteractions(commandParser, finder, printer, compiler, server, follower);
+  }
+
+  @Test
+  void testRun_checkpointWithTop_findsTopCookiesCheckpointed() {
+    String[] args = {"-f", "file.csv", "-d", "2025-07-07", "-t", "2", "--checkpoint", "scan.ckpt", "--resume"};
+    FilterArgs filterArgs = new FilterArgs();
+    filterArgs.setDate("2025-07-07");
+    filterArgs.setFilename("file.csv");
+    filterArgs.setTop("2");
+    filterArgs.setCheckpoint("scan.ckpt");
+    filterArgs.setResume(true);
+    Map<LocalDate, List<CookieCount>> counts = Map.of(LocalDate.parse("2025-07-07"), List.of(new CookieCount("cookie1", 3)));
+    when(commandParser.parseArgs(args)).thenReturn(Optional.of(filterArgs));
+    when(finder.findTopCookiesCheckpointed("file.csv", List.of(LocalDate.parse("2025-07-07")), ZoneOffset.UTC, 2,
+        Path.of("scan.ckpt"), true)).thenReturn(counts);
+
+    target.run(args);
+
+    verify(commandParser).isCompileCommand(args);
+    verify(commandParser).isServeCommand(args);
+    verify(commandParser).parseArgs(args);
+    verify(finder).findTopCookiesCheckpointed("file.csv", List.of(LocalDate.parse("2025-07-07")), ZoneOffset.UTC, 2,
+        Path.of("scan.ckpt"), true);
+    verify(printer).printCounts(counts);
+    verifyNoMoreInteractions(commandParser, finder, printer, compiler, server, follower);
+  }
+
+  @Test
+  void testRun_cache_secondRunPrintsCachedResultWithoutFinding(@TempDir Path tempDir) throws IOException {
+    Path log = Files.writeString(tempDir.resolve("file.csv"), "cookie,timestamp\n");
+    String[] args = {"-f", log.toString(), "-d", "2025-07-07", "--cache", tempDir.resolve("cache").toString()};
+    FilterArgs filterArgs = new FilterArgs();
+    filterArgs.setDate("2025-07-07");
+    filterArgs.setFilename(log.toString());
+    filterArgs.setCache(tempDir.resolve("cache").toString());
+    Map<LocalDate, List<Cookie>> cookies =
+        Map.of(LocalDate.parse("2025-07-07"), List.of(new Cookie("cookie1", Instant.parse("2025-07-07T00:00:00Z"))));
+    when(commandParser.parseArgs(args)).thenReturn(Optional.of(filterArgs));
+    when(finder.findMostActiveCookies(List.of(log.toString()), List.of(LocalDate.parse("2025-07-07")), ZoneOffset.UTC,
+        ScanMode.STREAM)).thenReturn(cookies);
+
+    target.run(args);
+    target.run(args);
+
+    verify(finder, times(1)).findMostActiveCookies(List.of(log.toString()), List.of(LocalDate.parse("2025-07-07")),
+        ZoneOffset.UTC, ScanMode.STREAM);
+    verify(printer, times(2)).print(cookies);
+    verifyNoMoreInteractions(finder, printer);
+  }
+
+  @Test
+  void testRun_cache_otherModeIsNotServedFromCache(@TempDir Path tempDir) throws IOException {
+    Path log = Files.writeString(tempDir.resolve("file.csv"), "cookie,timestamp\n");
+    String[] streamArgs = {"-f", log.toString(), "-d", "2025-07-07", "-m", "stream", "--cache", tempDir.resolve("cache").toString()};
+    String[] orderedArgs = {"-f", log.toString(), "-d", "2025-07-07", "-m", "ordered", "--cache", tempDir.resolve("cache").toString()};
+    List<LocalDate> dates = List.of(LocalDate.parse("2025-07-07"));
+    for (String[] args : List.of(streamArgs, orderedArgs)) {
+      FilterArgs filterArgs = new FilterArgs();
+      filterArgs.setDate("2025-07-07");
+      filterArgs.setFilename(log.toString());
+      filterArgs.setMode(args[5]);
+      filterArgs.setCache(tempDir.resolve("cache").toString());
+      when(commandParser.parseArgs(args)).thenReturn(Optional.of(filterArgs));
+    }
+    Map<LocalDate, List<Cookie>> streamed =
+        Map.of(LocalDate.parse("2025-07-07"), List.of(new Cookie("cookie1", Instant.parse("2025-07-07T00:00:00Z"))));
+    Map<LocalDate, List<Cookie>> ordered =
+        Map.of(LocalDate.parse("2025-07-07"), List.of(new Cookie("cookie2", Instant.parse("2025-07-07T00:00:00Z"))));
+    when(finder.findMostActiveCookies(List.of(log.toString()), dates, ZoneOffset.UTC, ScanMode.STREAM)).thenReturn(streamed);
+    when(finder.findMostActiveCookies(List.of(log.toString()), dates, ZoneOffset.UTC, ScanMode.ORDERED)).thenReturn(ordered);
+
+    target.run(streamArgs);
+    target.run(orderedArgs);
+    target.run(streamArgs);
+
+    verify(finder, times(1)).findMostActiveCookies(List.of(log.toString()), dates, ZoneOffset.UTC, ScanMode.STREAM);
+    verify(finder, times(1)).findMostActiveCookies(List.of(log.toString()), dates, ZoneOffset.UTC, ScanMode.ORDERED);
+    verify(printer, times(2)).print(streamed);
+    verify(printer).print(ordered);
+    verifyNoMoreInteractions(finder, printer);
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,103 @@
+package org.ibrahim.stats;
+
+import org.ibrahim.model.RunStats;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RunStatisticsTest {
+    @Test
+    void testNothingIsMeasuredUntilStarted() throws IOException {
+        RunStatistics statistics = new RunStatistics();
+        InputStream in = new ByteArrayInputStream(new byte[10]);
+
+        assertSame(in, statistics.track(in, null));
+        statistics.addBytes(10);
+        statistics.addLines(1);
+        assertFalse(statistics.isEnabled());
+        assertThrows(IllegalStateException.class, statistics::report);
+    }
+
+    @Test
+    void testTrackedStreamCountsBytesAndIoTime() throws IOException {
+        RunStatistics statistics = new RunStatistics();
+        statistics.start();
+
+        try (InputStream in = statistics.track(new ByteArrayInputStream(new byte[1000]), null)) {
+            in.read();
+            in.readAllBytes();
+        }
+
+        RunStats stats = statistics.report();
+        assertEquals(1000, stats.getBytesRead());
+        assertTrue(stats.getPhaseNanos().get("io") > 0);
+    }
+
+    @Test
+    void testTimerSplitsRecordsBetweenParseAndCount() {
+        RunStatistics statistics = new RunStatistics();
+        statistics.start();
+        RecordTimer timer = statistics.timer();
+
+        for (int i = 0; i < 3; i++) {
+            timer.parsed();
+            timer.counted();
+        }
+        timer.exclude(Long.MAX_VALUE / 2);
+        timer.finish();
+
+        RunStats stats = statistics.report();
+        assertEquals(3, stats.getLinesRead());
+        assertEquals(0, stats.getPhaseNanos().get("parse"), "Time blocked reading is not parse time");
+        assertTrue(stats.getPhaseNanos().get("count") > 0);
+    }
+
+    @Test
+    void testTimeAddsToPhase() {
+        RunStatistics statistics = new RunStatistics();
+        statistics.start();
+
+        String result = statistics.time(RunStatistics.Phase.SELECT, () -> "selected");
+        statistics.time(RunStatistics.Phase.PRINT, () -> { });
+
+        RunStats stats = statistics.report();
+        assertEquals("selected", result);
+        assertEquals(List.of("io", "parse", "count", "select", "print"), List.copyOf(stats.getPhaseNanos().keySet()));
+        assertTrue(stats.getPhaseNanos().get("select") > 0);
+    }
+
+    @Test
+    void testReport_peakHeapIsTotalHeapInUseAtOnce() {
+        RunStatistics statistics = new RunStatistics();
+        statistics.start();
+        byte[] retained = new byte[32 << 20];
+
+        RunStats stats = statistics.report();
+        assertEquals(32 << 20, retained.length);
+        assertTrue(stats.getPeakHeapBytes() >= 32 << 20);
+        // A sum of each pool's own peak could exceed the heap; the total in use at once cannot
+        assertTrue(stats.getPeakHeapBytes() <= Runtime.getRuntime().maxMemory());
+        assertTrue(statistics.report().getPeakHeapBytes() >= stats.getPeakHeapBytes());
+    }
+
+    @Test
+    void testReportIncludesAllocationsAndHeap() {
+        RunStatistics statistics = new RunStatistics();
+        statistics.start();
+        byte[][] garbage = new byte[100][];
+        for (int i = 0; i < garbage.length; i++) {
+            garbage[i] = new byte[10_000];
+        }
+
+        RunStats stats = statistics.report();
+        assertEquals(100, garbage.length);
+        assertTrue(stats.getAllocatedBytes() >= 1_000_000);
+        assertTrue(stats.getThreadAllocatedBytes().get(Thread.currentThread().getName()) >= 1_000_000);
+        assertTrue(stats.getPeakHeapBytes() > 0);
+    }
+}
@@ -0,0 +1,55 @@
+#!/bin/bash
+# Compares the startup latency of the plain jar, the jar with its AppCDS archive and the native image on a small
+# query. Build the variants first with: mvn -Pappcds,native package
+# Usage: ./startup-benchmark.sh [RUNS] [-- QUERY ARGS]
+# The query defaults to the most active cookie of 2018-12-09 in cookie_log.csv.
+RUNS=20
+if [[ $1 =~ ^[1-9][0-9]*$ ]]; then
+  RUNS=$1
+  shift
+fi
+[ "$1" = "--" ] && shift
+QUERY=("$@")
+if [ ${#QUERY[@]} -eq 0 ]; then
+  QUERY=(-f cookie_log.csv -d 2018-12-09)
+fi
+WARMUP=3
+
+if [ ! -f target/cookie-cutter.jar ]; then
+  echo "target/cookie-cutter.jar not found. Build it with: mvn -Pappcds,native package"
+  exit 1
+fi
+
+# Prints the mean and minimum wall-clock time of a command over RUNS runs, in milliseconds, after WARMUP runs
+measure() {
+  local name=$1
+  shift
+  local total=0 min=0 start elapsed
+  for ((i = 0; i < WARMUP; i++)); do
+    "$@" "${QUERY[@]}" > /dev/null 2>&1 || { echo "$name: query failed"; return; }
+  done
+  for ((i = 0; i < RUNS; i++)); do
+    start=$(date +%s%N)
+    "$@" "${QUERY[@]}" > /dev/null 2>&1
+    elapsed=$((($(date +%s%N) - start) / 1000))
+    total=$((total + elapsed))
+    if [ "$min" -eq 0 ] || [ "$elapsed" -lt "$min" ]; then
+      min=$elapsed
+    fi
+  done
+  printf "%-10s %6d.%d ms mean %6d.%d ms min\n" "$name" $((total / RUNS / 1000)) $((total / RUNS % 1000 / 100)) \
+    $((min / 1000)) $((min % 1000 / 100))
+}
+
+echo "Startup latency over $RUNS runs of: ${QUERY[*]}"
+measure "jar" java -Xshare:auto -jar target/cookie-cutter.jar
+if [ target/cookie-cutter.jsa -nt target/cookie-cutter.jar ]; then
+  measure "appcds" java -XX:SharedArchiveFile=target/cookie-cutter.jsa -jar target/cookie-cutter.jar
+else
+  echo "appcds     skipped: target/cookie-cutter.jsa missing or older than the jar (mvn -Pappcds package)"
+fi
+if [ -x target/cookie-cutter ] && [ target/cookie-cutter -nt target/cookie-cutter.jar ]; then
+  measure "native" target/cookie-cutter
+else
+  echo "native     skipped: target/cookie-cutter missing or older than the jar (mvn -Pnative package with GraalVM)"
+fi